@@ -1,23 +1,28 @@
 import java.io.*;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
  * This class represents an administrator and is connected to a school.<br>
- * The administrator is responsible for organising the typical day of school and running the school simulation.
+ * The administrator is the console client of a {@link SimulationEngine}: it asks the user for the simulation file,
+ * the number of days and where to save the simulation, and it runs the days of the engine with pauses and recaps.<br>
+ * The modes of the command line are run by {@link HeadlessRunner}, {@link SavedStateViewer} and {@link BatchRunner}.
  *
  * @author albertoTamajo
  */
 public class Administrator {
 
-
-    private School school;
+    private SimulationEngine engine;
+    private final Long seed;
 
 
     /**
      * Creates an administrator with a default school
      */
     public Administrator() {
-        this.school = new School();
+        this(new School());
     }
 
     /**
@@ -26,16 +31,39 @@ public class Administrator {
      * @param school school to administrate
      */
     public Administrator(School school) {
-        this.school = school;
+        this.engine = new SimulationEngine(school);
+        this.seed = null;
+    }
+
+    /**
+     * Creates an administrator with a school to administrate
+     * and a seed for the random events of the simulation
+     *
+     * @param school school to administrate
+     * @param seed   seed of the random events
+     */
+    public Administrator(School school, long seed) {
+        this.engine = new SimulationEngine(school, seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the school administrated
+     *
+     * @return the school administrated
+     */
+    public School getSchool() {
+        return engine.getSchool();
     }
 
     /**
-     * Sets the school to administrate
+     * Sets the school to administrate.<br>
+     * If the administrator has a seed, the random events of the school are seeded with it too.
      *
      * @param school school to administrate
      */
     private void setSchool(School school) {
-        this.school = school;
+        this.engine = (seed != null) ? new SimulationEngine(school, seed) : new SimulationEngine(school);
     }
 
     /**
@@ -45,6 +73,36 @@ public class Administrator {
      */
     public static void main(String[] args) {
 
+        //If a mode of the command line has been chosen
+        if (args.length > 0) {
+
+            switch (args[0]) {
+                case "--headless":
+                    HeadlessRunner.runHeadless(args);
+                    return;
+                case "--checkpoint":
+                    HeadlessRunner.runCheckpointed(args);
+                    return;
+                case "--resume":
+                    HeadlessRunner.runResumed(args);
+                    return;
+                case "--replay":
+                    SavedStateViewer.runReplay(args);
+                    return;
+                case "--inspect":
+                    SavedStateViewer.runInspect(args);
+                    return;
+                case "--replicas":
+                    BatchRunner.runReplicas(args);
+                    return;
+                case "--host":
+                    BatchRunner.runHosted(args);
+                    return;
+                default:
+                    break;
+            }
+        }
+
         Administrator administrator = new Administrator();
 
         Scanner scanner = new Scanner(System.in);
@@ -72,6 +130,7 @@ public class Administrator {
                     administrator.run(days);
 
                     administrator.save();
+                    return;
 
                 } else if (userInput.equals("C")) {        //If the user wants to continue a simulation already started
 
@@ -85,6 +144,7 @@ public class Administrator {
                     administrator.run(days);
 
                     administrator.save();
+                    return;
 
                 } else {
 
@@ -98,6 +158,62 @@ public class Administrator {
         }
     }
 
+    /**
+     * Runs a school simulation without pauses, recaps and console notifications.<br>
+     * Once the simulation has finished, the number of simulated days per second is printed out.
+     *
+     * @param days number of simulation days
+     * @return the number of simulated days per second
+     */
+    public double runHeadless(int days) {
+
+        SimulationLog.Level[] levels = SimulationLog.getLevels();
+
+        //The notifications logged so far are printed out before the simulation starts
+        SimulationLog.flush();
+        long start = System.nanoTime();
+
+        //Discards the notifications of the simulation
+        SimulationLog.setLevel(SimulationLog.Level.OFF);
+
+        try {
+
+            //Loops until all days are simulated
+            for (int i = 0; i < days; i++) {
+                run();
+            }
+
+        } finally {
+            SimulationLog.setLevels(levels);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double daysPerSecond = days / seconds;
+
+        System.out.println("**" + days + " days simulated in " + String.format("%.3f", seconds) + " seconds ("
+                + String.format("%.1f", daysPerSecond) + " days per second)**");
+
+        return daysPerSecond;
+    }
+
+    /**
+     * Reads a simulation file (with a specific formatting) and assigns {@link Student}, {@link Subject}
+     * and {@link Instructor} objects to the school of the administrator (see {@link SimulationFileParser}).
+     *
+     * @param filePath file path of the simulation file
+     * @throws IOException               if the simulation file cannot be read
+     * @throws SubjectsNotFoundException if the simulation file does not list any subject
+     */
+    void loadSimulationFile(String filePath) throws IOException, SubjectsNotFoundException {
+
+        //Tries to read the file, a path that cannot be resolved is reported as not found
+        try {
+            engine.loadScenario(Paths.get(filePath));
+        } catch (InvalidPathException e) {
+            throw new FileNotFoundException(filePath);
+        }
+    }
+
     /**
      * Reads a simulation file (with a specific formatting) in order to assign a
      * {@link School} to the administrator and assign {@link Student}, {@link Subject},
@@ -107,8 +223,6 @@ public class Administrator {
     private void fileSimulationTool() {
 
         Scanner scanner = new Scanner(System.in);
-        String line;
-        BufferedReader bufferedReader;
 
         //Loops until a file is read successfully and a simulation can be executed
         while (true) {
@@ -118,39 +232,23 @@ public class Administrator {
 
                 System.out.println("Write the file path of the simulation file\n");
                 String filePath = scanner.nextLine();
-                bufferedReader = new BufferedReader(new FileReader(filePath));
-
-                //Loops until there is a text line in the file
-                while ((line = bufferedReader.readLine()) != null) {
-
-                    String[] strings = line.split(":|,");
-
-                    //Generates an object of the same class specified by the line
-                    fromTextLineToObjectGenerator(strings);
-                }
-
-                bufferedReader.close();
-
-                //If there are no subjects provided an exception is thrown
-                //because it is not possible to run a simulation with no subject taught in a school
-                if (school.getSubjects().isEmpty()) {
-                    throw new SubjectsNotFoundException();
-                }
+                loadSimulationFile(filePath);
 
                 //Lets the user write the name of the school
                 //If not provided in the simulation file
-                if (school.getName().equals("Default")) {
+                if (getSchool().getName().equals("Default")) {
 
+                    SimulationLog.flush();
                     System.err.println("You have not provided a school in your file\n");
                     System.out.println("Choose the name of your school\n");
                     String schoolName = scanner.nextLine();
-                    school.setName(schoolName);
+                    getSchool().setName(schoolName);
                 }
 
                 break;
 
 
-            } catch (FileNotFoundException e) {
+            } catch (FileNotFoundException | NoSuchFileException e) {
 
                 //The simulation file is not found
                 System.err.println("Your source has not been found, retry");
@@ -185,6 +283,7 @@ public class Administrator {
             //Tries that the user enters an input greater than 0
             try {
 
+                SimulationLog.flush();
                 System.out.println("Enter the number of days of the simulation\n");
                 int days = scanner.nextInt();
 
@@ -202,288 +301,19 @@ public class Administrator {
         }
     }
 
-    /**
-     * Generates an object from a text line provided by a simulation file (with a specific formatting).<br>
-     * The objects that this method can create are:<br>
-     * a. {@link School}<br>
-     * b. {@link Subject}<br>
-     * c. all subclasses of {@link Person}<br>
-     *
-     * @param string text line containing object information
-     */
-    private void fromTextLineToObjectGenerator(String[] string) {
-
-
-        switch (string[0]) {
-
-            //If the line refers to a school
-            case "school":
-                school.setName(string[1]);
-                break;
-
-            //If the line refers to a subject
-            case "subject": {
-
-                //Tries to create a subject and add it to the school
-                try {
-
-                    String description = string[1];
-                    int id = Integer.parseInt(string[2]);
-                    int specialism = Integer.parseInt(string[3]);
-                    int duration = Integer.parseInt(string[4]);
-
-                    //If the prerequisites have been provided by the line
-                    if (string.length > 5) {
-
-                        ArrayList<Integer> prerequisites = new ArrayList<>();
-
-                        //Loops until all prerequisites are added to the arrayList prerequisites
-                        for (int i = 5; i < string.length; i++) {
-
-                            //Tries that every argument provided as prerequisite is a value int
-                            try {
-
-                                prerequisites.add(Integer.parseInt(string[i]));
-
-                            } catch (NumberFormatException e) {
-
-                                //The argument provided was not a value int
-                                System.err.println("Sorry, a prerequisite was expected to be a value int\n");
-                            }
-                        }
-
-                        Subject subject = new Subject(id, specialism, duration);
-                        subject.setDescription(description);
-                        subject.setPrerequisites(prerequisites);
-
-                        //The subject is added to the school
-                        this.school.add(subject);
-
-
-                    } else {        //If no prerequisites are provided
-
-                        Subject subject = new Subject(id, specialism, duration);
-                        subject.setDescription(description);
-
-                        //The subject is added to the school
-                        this.school.add(subject);
-                    }
-
-
-                } catch (IndexOutOfBoundsException e) {
-
-                    //More arguments were expected
-                    System.err.println("Sorry, this subject cannot be created because more arguments were expected\n");
-
-                } catch (NumberFormatException e) {
-
-                    //An argument of value int was expected
-                    System.err.println("Sorry, this subject cannot be created because arguments of value int were expected\n");
-
-                } catch (Exception e) {
-
-                    //A general error
-                    System.err.println("Sorry, an error has occurred\n");
-                }
-
-                break;
-            }
-
-            //If the line refers to a student
-            case "student": {
-
-                //Tries to create a student and add it to the school
-                try {
-
-                    String name = string[1];
-                    char gender = string[2].charAt(0);
-                    int age = Integer.parseInt(string[3]);
-                    this.school.add(new Student(name, gender, age));
-
-                } catch (IndexOutOfBoundsException e) {
-
-                    //More arguments were expected
-                    System.err.println("Sorry, this student cannot be created because more arguments were expected\n");
-
-                } catch (NumberFormatException e) {
-
-                    //An argument of value int was expected
-                    System.err.println("Sorry, this student cannot be created because a value of type int was expected\n");
-
-                } catch (Exception e) {
-
-                    //A general error
-                    System.err.println("Sorry, an error has occurred\n");
-                }
-
-                break;
-            }
-
-            //If the line refers to a teacher
-            case "Teacher": {
-
-                //Tries to create a teacher and add it to the school
-                try {
-
-                    String name = string[1];
-                    char gender = string[2].charAt(0);
-                    int age = Integer.parseInt(string[3]);
-                    this.school.add(new Teacher(name, gender, age));
-
-                } catch (IndexOutOfBoundsException e) {
-
-                    //More arguments were expected
-                    System.err.println("Sorry, this teacher cannot be created because more arguments were expected\n");
-
-                } catch (NumberFormatException e) {
-
-                    //An argument of value int was expected
-                    System.err.println("Sorry, this teacher cannot be created because a value of type int was expected\n");
-                } catch (Exception e) {
-
-                    //A general error
-                    System.err.println("Sorry, an error has occurred\n");
-                }
-
-                break;
-            }
-
-            //If the line refers to a demonstrator
-            case "Demonstrator": {
-
-                //Tries to create demonstrator and add it to the school
-                try {
-
-                    String name = string[1];
-                    char gender = string[2].charAt(0);
-                    int age = Integer.parseInt(string[3]);
-                    this.school.add(new Demonstrator(name, gender, age));
-
-                } catch (IndexOutOfBoundsException e) {
-
-                    //More arguments were expected
-                    System.err.println("Sorry, this demonstrator cannot be created because more arguments were expected\n");
-
-                } catch (NumberFormatException e) {
-
-                    //An argument of value int was expected
-                    System.err.println("Sorry, this demonstrator cannot be created because a value of type int was expected\n");
-                } catch (Exception e) {
-
-                    //A general error
-                    System.err.println("Sorry, an error has occurred\n");
-                }
-                break;
-            }
-
-            //If the line refers to an OO Trainer
-            case "OOTrainer": {
-
-                //Tries to create an OO trainer and add it to the school
-                try {
-                    String name = string[1];
-                    char gender = string[2].charAt(0);
-                    int age = Integer.parseInt(string[3]);
-                    this.school.add(new OOTrainer(name, gender, age));
-
-                } catch (IndexOutOfBoundsException e) {
-
-                    //More arguments were expected
-                    System.err.println("Sorry, this OOTrainer cannot be created because more arguments were expected\n");
-
-                } catch (NumberFormatException e) {
-
-                    //An argument of value int was expected
-                    System.err.println("Sorry, this OOTrainer cannot be created because a value of type int was expected\n");
-
-                } catch (Exception e) {
-
-                    //A general error
-                    System.err.println("Sorry, an error has occurred\n");
-                }
-
-                break;
-            }
-
-            //If the line refers to a GUI trainer
-            case "GUITrainer": {
-
-                //Tries to create a GUI trainer and add it to the school
-                try {
-
-                    String name = string[1];
-                    char gender = string[2].charAt(0);
-                    int age = Integer.parseInt(string[3]);
-                    this.school.add(new GUITrainer(name, gender, age));
-
-                } catch (IndexOutOfBoundsException e) {
-
-                    //More arguments were expected
-                    System.err.println("Sorry, this GUITrainer cannot be created because more arguments were expected\n");
-
-                } catch (NumberFormatException e) {
-
-                    //An argument of value int was expected
-                    System.err.println("Sorry, this GUITrainer cannot be created because a value of type int was expected\n");
-
-                } catch (Exception e) {
-
-                    //A general error
-                    System.err.println("Sorry, an error has occurred\n");
-                }
-                break;
-            }
-
-            default:
-                System.err.println("Invalid Input\n");
-        }
-
-
-    }
-
 
     /**
-     * Runs a school simulation.<br>
-     * A school simulation consists of the following events:<br>
-     * 1. Up to 2 students will join the school<br>
-     * 2. A new instructor may join the school<br>
-     * 3. {@link School#aDayAtSchool()}<br>
-     * 4. A free instructor might leave the school<br>
-     * 5. A student with all certificates will leave the school<br>
-     * 6. A student not enrolled in a course may leave the school
+     * Runs a day of the school simulation, see {@link SimulationEngine#step()}
      */
     public void run() {
-
-        //students enrolling
-        int studentsEnrolling = numberOfStudentsEnrolling();
-        studentGenerator(studentsEnrolling);
-
-
-        //instructors joining
-        instructorGenerator(0.2, 0.1, 0.05, 0.05);
-
-        //Simulation of a day of school
-        school.aDayAtSchool();
-
-
-        //Instructors with no courses leaving
-        instructorsLeaving(20);
-
-
-        //Students with all certificates leaving
-        removeStudentsWithAllCertificates();
-
-
-        //Students not attending leaving
-        studentsLeaving(5);
-
-
+        engine.step();
     }
 
     /**
      * Runs a school simulation.<br>
      * This method is an overloaded version of {@link #run()}
-     * because in addition it lets the user decide the number of simulation days.
+     * because in addition it lets the user decide the number of simulation days,
+     * and it pauses between the events of every day printing out a recap of the day before.
      *
      * @param days number of simulation days
      */
@@ -492,30 +322,31 @@ public class Administrator {
         //Loops until all days are simulated
         for (int i = 0; i < days; i++) {
 
-            System.out.println("\n+---------------------------------+");
-            System.out.println("**A new day of school !!!**\n**Day " + school.getDaysRunning() + "**");
+            SimulationLog.log(SimulationLog.Event.MESSAGE, "\n+---------------------------------+");
+            SimulationLog.log(SimulationLog.Event.MESSAGE, "**A new day of school !!!**\n**Day " + engine.getDay() + "**");
 
             //Recap of what happened the day before
 
-            System.out.println("**Recap of day " + (school.getDaysRunning() - 1) + "**\n");
+            SimulationLog.log(SimulationLog.Event.MESSAGE, "**Recap of day " + (engine.getDay() - 1) + "**\n");
 
-            String info = school.toString();
-            System.out.println(info);
+            //If the recap is logged
+            if (SimulationLog.isEnabled(SimulationLog.Event.MESSAGE)) {
+                SimulationLog.log(SimulationLog.Event.MESSAGE, getSchool().toString());
+            }
 
-            System.out.println("\n \n \n \n ---------------------------------------------------------");
+            SimulationLog.log(SimulationLog.Event.MESSAGE, "\n \n \n \n ---------------------------------------------------------");
 
 
             //Current events occurring at the school
 
-            System.out.println("**Today's notifications**\n");
+            SimulationLog.log(SimulationLog.Event.MESSAGE, "**Today's notifications**\n");
 
 
             //students enrolling
             try {
 
                 Thread.sleep(2000);
-                int studentsEnrolling = numberOfStudentsEnrolling();
-                studentGenerator(studentsEnrolling);
+                engine.studentsJoin();
 
             } catch (InterruptedException e) {
             }
@@ -525,7 +356,7 @@ public class Administrator {
             try {
 
                 Thread.sleep(2000);
-                instructorGenerator(0.2, 0.1, 0.05, 0.05);
+                engine.instructorsJoin();
 
             } catch (InterruptedException e) {
             }
@@ -535,7 +366,7 @@ public class Administrator {
             try {
 
                 Thread.sleep(2000);
-                school.aDayAtSchool();
+                getSchool().aDayAtSchool();
 
             } catch (InterruptedException e) {
             }
@@ -545,7 +376,7 @@ public class Administrator {
             try {
 
                 Thread.sleep(2000);
-                instructorsLeaving(20);
+                engine.instructorsLeave();
 
             } catch (InterruptedException e) {
             }
@@ -555,7 +386,7 @@ public class Administrator {
             try {
 
                 Thread.sleep(2000);
-                removeStudentsWithAllCertificates();
+                engine.graduatesLeave();
 
             } catch (InterruptedException e) {
             }
@@ -565,16 +396,18 @@ public class Administrator {
             try {
 
                 Thread.sleep(2000);
-                studentsLeaving(5);
+                engine.studentsLeave();
 
             } catch (InterruptedException e) {
             }
 
+            getSchool().endOfDay();
+
             //End of the day
             try {
 
                 Thread.sleep(2000);
-                System.out.println("**End of the day\n");
+                SimulationLog.log(SimulationLog.Event.MESSAGE, "**End of the day\n");
 
             } catch (InterruptedException e) {
             }
@@ -583,318 +416,13 @@ public class Administrator {
     }
 
 
-    /**
-     * Generates the instructors joining the school<br>.
-     * Each type of instructor joins the school according to a probability<br>.
-     * The probability of each instructor joining must range from 0.0 to 1.0 included
-     *
-     * @param probabilityTeacher      teacher's probability of joining the school
-     * @param probabilityDemonstrator demonstrator's probability of joining the school
-     * @param probabilityOOTrainer    OO trainer's probability of joining the school
-     * @param probabilityGuiTrainer   GUI trainer's probability of joining the school
-     */
-    private void instructorGenerator(double probabilityTeacher, double probabilityDemonstrator, double probabilityOOTrainer, double probabilityGuiTrainer) {
-
-        String intro = "**An instructor is joining**\n";
-        HashSet<Instructor> instructors = school.getInstructors();
-
-        //If the probability of a teacher joining is not more than 1
-        //If the random number generated is less than or equal to the teacher's probability
-        if ((probabilityTeacher <= 1) && (randomDoubleNumberGenerator() <= probabilityTeacher)) {
-
-            System.out.println(intro);
-
-            //Generates the gender
-            char gender = genderGenerator();
-
-            Instructor teacher = new Teacher(nameGenerator(gender), gender, ageGenerator());
-            printsOutInfo(teacher);
-            instructors.add(teacher);
-
-        }
-
-        //If the probability of a demonstrator joining is not more than 1
-        //If the random number generated is less than or equal to the demonstrator's probability
-        if ((probabilityDemonstrator <= 1) && (randomDoubleNumberGenerator() <= probabilityDemonstrator)) {
-
-            System.out.println(intro);
-
-            //Generates the gender
-            char gender = genderGenerator();
-
-            Instructor demonstrator = new Demonstrator(nameGenerator(gender), gender, ageGenerator());
-            printsOutInfo(demonstrator);
-            instructors.add(demonstrator);
-        }
-
-        //If the probability of an OO trainer joining is not more than 1
-        //If the random number generated is less than or equal to the OO trainer's probability
-        if ((probabilityOOTrainer <= 1) && (randomDoubleNumberGenerator() <= probabilityOOTrainer)) {
-
-            System.out.println(intro);
-
-            //Generates the gender
-            char gender = genderGenerator();
-
-            Instructor ooTrainer = new OOTrainer(nameGenerator(gender), gender, ageGenerator());
-            printsOutInfo(ooTrainer);
-            instructors.add(ooTrainer);
-        }
-
-        //If the probability of a GUI trainer joining is not more than 1
-        //If the random number generated is less than or equal to the GUI trainer's probability
-        if ((probabilityGuiTrainer <= 1) && (randomDoubleNumberGenerator() <= probabilityGuiTrainer)) {
-
-            System.out.println(intro);
-
-            //Generates the gender
-            char gender = genderGenerator();
-
-            Instructor guiTrainer = new GUITrainer(nameGenerator(gender), gender, ageGenerator());
-            printsOutInfo(guiTrainer);
-            instructors.add(guiTrainer);
-        }
-
-    }
-
-    /**
-     * Returns a random number (ranging from 0 to 2 included) of new students enrolling
-     *
-     * @return the number of new students enrolling
-     */
-    private int numberOfStudentsEnrolling() {
-
-        return randomIntegerNumberGenerator(3);
-    }
-
-
-    /**
-     * Returns a random integer number ranging from 0 to the value of
-     * the parameter <code>upperBound</code> excluded
-     *
-     * @param upperBound upperBound of the range of possible numbers
-     * @return a random number
-     */
-    private int randomIntegerNumberGenerator(int upperBound) {
-
-        Random random = new Random();
-        return random.nextInt(upperBound);
-    }
-
-    /**
-     * Returns a random double number between 0.0 and 1.0
-     *
-     * @return a random number between 0.0 and 1.0
-     */
-    private double randomDoubleNumberGenerator() {
-        Random random = new Random();
-        return random.nextDouble();
-    }
-
-
-    /**
-     * Generates which instructors not teaching will leave
-     * the school according to a probability.
-     *
-     * @param probability probability that an instructor not teaching leaves the school
-     */
-    private void instructorsLeaving(int probability) {
-
-        HashSet<Instructor> instructors = school.getInstructors();
-        Iterator<Instructor> instructorsIterator = instructors.iterator();
-
-        //Loops for every instructor
-        //If the instructor is not teaching, he/she may leave the school
-        while (instructorsIterator.hasNext()) {
-
-            Instructor nextInstructor = instructorsIterator.next();
-
-            //If the instructor is not teaching
-            if (!(nextInstructor.isTeaching())) {
-
-                int randomNumber = randomIntegerNumberGenerator(100);
-
-                //If the random number generated is less than or equal to the probability of leaving
-                if (randomNumber <= probability) {
-
-                    System.out.println("**This instructor is leaving the school**\n");
-                    printsOutInfo(nextInstructor);
-                    instructorsIterator.remove();
-                }
-            }
-        }
-    }
-
-
-    /**
-     * Removes the students with all certificates from the school
-     */
-    private void removeStudentsWithAllCertificates() {
-
-        HashSet<Student> students = school.getStudents();
-        Iterator<Student> studentsIterator = students.iterator();
-
-        int numberSubjects = school.getSubjects().size();
-
-        //Loops for all students
-        //Students with all certificates will be removed
-        while (studentsIterator.hasNext()) {
-
-            Student nextStudent = studentsIterator.next();
-            int studentCertificates = nextStudent.getCertificates().size();
-
-            //If the students has got all the certificates
-            if (studentCertificates == numberSubjects) {
-
-                System.out.println("**A student has completed all the courses**");
-                printsOutInfo(nextStudent);
-
-                //Removes the student from the school
-                studentsIterator.remove();
-
-            }
-        }
-    }
-
-
-    /**
-     * Generates which students not enrolled in a course
-     * will leave the school according to a probability
-     *
-     * @param probability probability that a student not enrolled in a course will leave the school
-     */
-    private void studentsLeaving(int probability) {
-
-        HashSet<Student> students = school.getStudents();
-        Iterator<Student> studentsIterator = students.iterator();
-
-        //Loops for all students
-        //Students that are not enrolled may leave the school
-        while (studentsIterator.hasNext()) {
-
-            Student nextStudent = studentsIterator.next();
-
-            //If the student is not enrolled
-            if (!(nextStudent.isEnrolled())) {
-
-                int randomNumber = randomIntegerNumberGenerator(100);
-
-                //If the random number generated is less than or equal to the probability of leaving
-                if (randomNumber <= probability) {
-
-                    System.out.println("**A student is leaving**");
-                    printsOutInfo(nextStudent);
-
-                    //Removes the student
-                    studentsIterator.remove();
-
-                }
-            }
-        }
-    }
-
-    /**
-     * Generates randomly the gender of a person
-     *
-     * @return 'M' or 'F'
-     */
-    private char genderGenerator() {
-
-        int randomNumber = randomIntegerNumberGenerator(2);
-
-        if (randomNumber == 0) {
-            return 'M';
-        } else {
-            return 'F';
-        }
-    }
-
-    /**
-     * Generates randomly the age of a person.<br>
-     * The possible range is from 16 to 65 years old
-     *
-     * @return the age of a person
-     */
-    private int ageGenerator() {
-
-        //the min age is 16 and the max age is 65
-        return randomIntegerNumberGenerator(50) + 16;
-    }
-
-
-    /**
-     * Generates a number of students according to the value of the <code>randomNumber</code> parameter
-     *
-     * @param randomNumber number of students to generate
-     */
-    private void studentGenerator(int randomNumber) {
-
-        //Loops until all students are generated
-        for (int i = 1; i <= randomNumber; i++) {
-
-            System.out.println("**A new student has enrolled today**\n");
-
-            //Generates the gender
-            char gender = genderGenerator();
-            Student newStudent = new Student(nameGenerator(gender), gender, ageGenerator());
-
-            printsOutInfo(newStudent);
-
-            //Adds the student to the school
-            school.getStudents().add(newStudent);
-        }
-    }
-
-
-    /**
-     * Generates a full name according to the gender of a person
-     *
-     * @param gender gender of the person, 'M' or 'F'
-     * @return a string containing the full name of the person
-     */
-    private String nameGenerator(char gender) {
-
-        String[] maleNames = {"Albert", "Logan ", "Ethan ", "Daniel", "Carlos", "Anthony", "Paul", "Charles"};
-        String[] femaleNames = {"Amelia", "Olivia", "Isabella", "Mia", "Isabel", "Ana", "Alessia", "Fiona"};
-        String[] familyNames = {"Miller", "Williams", "Clark", "Hall", "Bell", "Russell", "Tamajo", "Kuhn"};
-
-        int sizeNames = maleNames.length;
-        int sizeSurname = familyNames.length;
-
-        int randomNumberNames = randomIntegerNumberGenerator(sizeNames);
-        int randomNumberSurnames = randomIntegerNumberGenerator(sizeSurname);
-
-        //If the person is a male
-        if (gender == 'M') {
-
-            String name = maleNames[randomNumberNames];
-            String surname = familyNames[randomNumberSurnames];
-            return name + " " + surname;
-
-        } else {     //If the person is a female
-
-            String name = femaleNames[randomNumberNames];
-            String surname = familyNames[randomNumberSurnames];
-            return name + " " + surname;
-        }
-
-    }
-
-
-    /**
-     * Prints out the info of any object
-     *
-     * @param o object whose information is needed
-     */
-    private void printsOutInfo(Object o) {
-        System.out.println(o.toString());
-    }
-
     /**
      * Lets the user save the state of the simulation.<br>
      * In the case the user decides to save the simulation,
      * he/her will have to write the path of where to save the file.<br>
-     * The name of the file will be the following: javaSchoolSavedData.txt
+     * The state is saved as a snapshot, see {@link SchoolSnapshot}.<br>
+     * The name of the file will be the following: javaSchoolSavedData.txt<br>
+     * The method returns once the simulation has been saved or the user has decided not to save it.
      */
     public void save() {
 
@@ -903,6 +431,7 @@ public class Administrator {
         //Loops until the user enters a valid input
         while (true) {
 
+            SimulationLog.flush();
             System.out.println("The simulation has finished, enter 'S' to save the simulation or 'T' to terminate without saving");
 
             //Tries that the user enters a valid input
@@ -923,13 +452,13 @@ public class Administrator {
                         //Tries to save the simulation
                         try {
 
-                            ObjectOutputStream objOut = new ObjectOutputStream(new FileOutputStream(filePath));
-                            objOut.writeObject(school);
-                            objOut.close();
-                            System.exit(0);
+                            engine.saveSnapshot(Paths.get(filePath));
+                            return;
 
-                        } catch (FileNotFoundException e) {
+                        } catch (NoSuchFileException e) {
                             System.err.println("Sorry, your file path does not exist, retry");
+                        } catch (InvalidPathException e) {
+                            System.err.println("Sorry, your file path is not valid, retry");
                         } catch (IOException e) {
                             System.err.println("Sorry, an error has occurred, retry");
                         }
@@ -938,7 +467,7 @@ public class Administrator {
                 } else if (userInput.equals("T")) {         //If the user does not want to save the simulation
 
                     System.out.println("GoodBye");
-                    System.exit(0);
+                    return;
 
                 } else {
 
@@ -955,6 +484,8 @@ public class Administrator {
 
     /**
      * Lets the user load the state of a saved simulation.<br>
+     * Both snapshots (see {@link SchoolSnapshot}) and files saved by older versions
+     * through Java serialisation can be loaded.<br>
      * The method will return a {@link School} object which can be linked
      * to an {@link Administrator} object in order to start a new simulation.
      *
@@ -970,15 +501,14 @@ public class Administrator {
             System.out.println("Write the file path of the file you want to load");
             String filePath = scanner.nextLine();
 
-            //Tries to read a school object from a text file
+            //Tries to read a school object from a snapshot or a file saved by an older version of the simulation
             try {
+                return SimulationEngine.restore(Paths.get(filePath)).getSchool();
 
-                ObjectInputStream objIn = new ObjectInputStream(new FileInputStream(filePath));
-                School school = (School) objIn.readObject();
-                return school;
-
-            } catch (FileNotFoundException e) {
+            } catch (FileNotFoundException | NoSuchFileException e) {
                 System.err.println("Sorry, your file path does not exist");
+            } catch (InvalidPathException e) {
+                System.err.println("Sorry, your file path is not valid");
             } catch (IOException e) {
                 System.err.println("Sorry, an error has occurred");
             } catch (ClassNotFoundException e) {
@@ -0,0 +1,180 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+
+/**
+ * This class runs the modes of {@link Administrator} simulating many copies of the school of a simulation file:
+ * '--replicas' and '--host'.<br>
+ * The arguments are the ones of the command line, starting with the mode.
+ *
+ * @author albertoTamajo
+ */
+final class BatchRunner {
+
+    /**
+     * This class only has static methods
+     */
+    private BatchRunner() {
+    }
+
+    /**
+     * Runs many replicas of a school simulation in parallel and prints out their statistics.<br>
+     * The arguments must be '--replicas', the file path of a simulation file, the number of days,
+     * the number of replicas and optionally a seed.
+     *
+     * @param args command line arguments
+     */
+    static void runReplicas(String[] args) {
+
+        //If some arguments are missing
+        if (args.length < 4) {
+
+            System.err.println("Usage: java Administrator --replicas <simulation file> <days> <replicas> [seed]");
+            return;
+        }
+
+        Administrator administrator = new Administrator();
+
+        //Tries to load the simulation file and to run the replicas
+        try {
+
+            int days = Integer.parseInt(args[2]);
+            int replicas = Integer.parseInt(args[3]);
+            long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+
+            //The number of days and replicas must be greater than 0
+            if ((days <= 0) || (replicas <= 0)) {
+                throw new NumberFormatException();
+            }
+
+            administrator.loadSimulationFile(args[1]);
+            SimulationLog.flush();
+
+            long start = System.nanoTime();
+            SimulationLog.Level[] levels = SimulationLog.getLevels();
+            ReplicaResult result;
+
+            SimulationLog.setLevel(SimulationLog.Level.OFF);
+
+            //Tries to run the replicas without their notifications, printing them out again at the end
+            try {
+                result = new ReplicaRunner(administrator.getSchool()).run(replicas, days, seed);
+            } finally {
+                SimulationLog.setLevels(levels);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(result);
+            System.out.println("**" + replicas + " replicas of " + days + " days simulated in "
+                    + String.format("%.3f", seconds) + " seconds**");
+
+        } catch (NumberFormatException e) {
+            System.err.println("Sorry, the number of days and replicas must be greater than 0");
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            System.err.println("Your source has not been found");
+        } catch (SubjectsNotFoundException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error");
+        }
+    }
+
+    /**
+     * Runs the simulation of a simulation file for many tenants in the same JVM, see {@link SimulationHost}.<br>
+     * The arguments must be '--host', the file path of a simulation file, the number of tenants, the number of days,
+     * optionally the largest share of a processor of every tenant (1 by default) and optionally a seed.<br>
+     * Every tenant starts from its own copy of the school with its own random source.
+     * The number of days simulated per second by the host is printed out at the end.
+     *
+     * @param args command line arguments
+     */
+    static void runHosted(String[] args) {
+
+        //If some arguments are missing
+        if (args.length < 4) {
+
+            System.err.println("Usage: java Administrator --host <simulation file> <tenants> <days> [share] [seed]");
+            return;
+        }
+
+        Administrator administrator = new Administrator();
+
+        //Tries to load the simulation file and to run the tenants
+        try {
+
+            int tenants = Integer.parseInt(args[2]);
+            int days = Integer.parseInt(args[3]);
+            double share = (args.length > 4) ? Double.parseDouble(args[4]) : 1;
+            long seed = (args.length > 5) ? Long.parseLong(args[5]) : System.nanoTime();
+
+            //The number of tenants and days must be greater than 0 and the share not more than 1
+            if ((tenants <= 0) || (days <= 0) || !(share > 0) || (share > 1)) {
+                throw new NumberFormatException();
+            }
+
+            administrator.loadSimulationFile(args[1]);
+            SimulationLog.flush();
+
+            ByteArrayOutputStream scenario = new ByteArrayOutputStream();
+
+            try (ObjectOutputStream out = new ObjectOutputStream(scenario)) {
+                out.writeObject(administrator.getSchool());
+            }
+
+            byte[] bytes = scenario.toByteArray();
+            RandomSource random = new RandomSource(seed);
+            ArrayList<SimulationHost.Tenant> hosted = new ArrayList<>(tenants);
+            long cpuNanos = 0;
+            long start = System.nanoTime();
+            SimulationLog.Level[] levels = SimulationLog.getLevels();
+
+            SimulationLog.setLevel(SimulationLog.Level.OFF);
+
+            //Tries to run the tenants without their notifications, printing them out again at the end
+            try (SimulationHost host = new SimulationHost()) {
+
+                //Starts every tenant from a copy of the school
+                for (int i = 0; i < tenants; i++) {
+
+                    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+
+                        School school = (School) in.readObject();
+                        school.setRandom(random.split(i));
+                        hosted.add(host.submit("tenant-" + i, school, days, share));
+                    }
+                }
+
+                //Waits for every tenant
+                for (SimulationHost.Tenant tenant : hosted) {
+
+                    tenant.await();
+                    cpuNanos += tenant.getCpuNanos();
+                }
+
+            } finally {
+                SimulationLog.setLevels(levels);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println("**" + tenants + " tenants of " + days + " days simulated in " + String.format("%.3f", seconds)
+                    + " seconds (" + String.format("%.1f", (double) tenants * days / seconds) + " days per second, "
+                    + String.format("%.2f", cpuNanos / 1e6 / tenants) + " ms of processor time per tenant)**");
+
+        } catch (NumberFormatException e) {
+            System.err.println("Sorry, the number of tenants and days must be greater than 0 and the share between 0 and 1");
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            System.err.println("Your source has not been found");
+        } catch (SubjectsNotFoundException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * This class is the summary of a bulk operation of a {@link School}.<br>
+ * When entities are added, the entities changed are the ones added and the entities unchanged are the duplicates,
+ * already in the school; when entities are removed, the entities changed are the ones removed and the entities
+ * unchanged are the ones not found in the school. The elements rejected are null or not entities of a school.
+ *
+ * @author albertoTamajo
+ */
+public final class BulkResult {
+
+    private final int changed;
+    private final int unchanged;
+    private final int rejected;
+
+
+    /**
+     * Creates the summary of a bulk operation
+     *
+     * @param changed   number of entities added or removed
+     * @param unchanged number of entities already in the school or not found in the school
+     * @param rejected  number of elements rejected
+     */
+    BulkResult(int changed, int unchanged, int rejected) {
+        this.changed = changed;
+        this.unchanged = unchanged;
+        this.rejected = rejected;
+    }
+
+    /**
+     * Gets the number of entities added or removed
+     *
+     * @return the number of entities changed
+     */
+    public int getChanged() {
+        return changed;
+    }
+
+    /**
+     * Gets the number of entities already in the school when adding, or not found in the school when removing
+     *
+     * @return the number of entities unchanged
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Gets the number of elements rejected because they are null or not entities of a school
+     *
+     * @return the number of elements rejected
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets the number of elements of the bulk operation
+     *
+     * @return the number of elements
+     */
+    public int getTotal() {
+        return changed + unchanged + rejected;
+    }
+
+    /**
+     * Returns a string representation of the summary
+     *
+     * @return the number of entities changed, unchanged and rejected
+     */
+    @Override
+    public String toString() {
+        return "changed: " + changed + ", unchanged: " + unchanged + ", rejected: " + rejected;
+    }
+}
@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class rebuilds the state of a {@link School} from the checkpoints written by a {@link CheckpointWriter}.<br>
+ * The latest base is read first and the deltas following it are applied in order to its records;
+ * the school is built once, after the last delta. A base is either a full {@link SchoolSnapshot}
+ * or the records of the school written as a delta applied to no records.
+ *
+ * @author albertoTamajo
+ */
+public final class CheckpointLoader {
+
+    private static final Pattern FILE_NAME = Pattern.compile("checkpoint-(\\d+)\\.(base|delta)");
+
+
+    /**
+     * This class only has static methods
+     */
+    private CheckpointLoader() {
+    }
+
+    /**
+     * Rebuilds the state of a school at its latest checkpoint
+     *
+     * @param directory the directory of the checkpoints
+     * @return the school
+     * @throws IOException if there are no checkpoints or they cannot be read
+     */
+    public static School loadLatest(Path directory) throws IOException {
+
+        TreeMap<Integer, Path> checkpoints = checkpoints(directory);
+        Integer base = null;
+
+        //Looks for the latest base
+        for (Map.Entry<Integer, Path> checkpoint : checkpoints.descendingMap().entrySet()) {
+
+            //If the checkpoint is a base
+            if (checkpoint.getValue().getFileName().toString().endsWith(".base")) {
+
+                base = checkpoint.getKey();
+                break;
+            }
+        }
+
+        //If there are no bases
+        if (base == null) {
+            throw new NoSuchFileException(directory.toString(), null, "No checkpoints found");
+        }
+
+        SchoolSnapshot.Image image = read(checkpoints.get(base), base, null);
+
+        //Applies the deltas following the base in order
+        for (int sequence = base + 1; checkpoints.containsKey(sequence); sequence++) {
+
+            //If the sequence continues with another base
+            if (!(checkpoints.get(sequence).getFileName().toString().endsWith(".delta"))) {
+                break;
+            }
+
+            read(checkpoints.get(sequence), sequence, image);
+        }
+
+        return image.build();
+    }
+
+    /**
+     * Reads a checkpoint
+     *
+     * @param path     the path of the checkpoint
+     * @param sequence the sequence number of the checkpoint
+     * @param image    the records the delta is applied to, null if the checkpoint is a base
+     * @return the records of the school at the checkpoint
+     * @throws IOException if the checkpoint cannot be read or it is not valid
+     */
+    private static SchoolSnapshot.Image read(Path path, int sequence, SchoolSnapshot.Image image) throws IOException {
+
+        try (SnapshotInput in = new SnapshotInput(FileChannel.open(path, StandardOpenOption.READ))) {
+
+            //If it is not a checkpoint
+            if (in.readFixedInt() != CheckpointWriter.MAGIC) {
+                throw new StreamCorruptedException(path + " is not a checkpoint");
+            }
+
+            int version = in.readInt();
+
+            //If the checkpoint has been written by a newer version of the simulation
+            if ((version < 1) || (version > CheckpointWriter.VERSION)) {
+                throw new StreamCorruptedException(path + " has an unsupported version " + version);
+            }
+
+            byte kind = in.readByte();
+            boolean base = (kind == CheckpointWriter.BASE) || (kind == CheckpointWriter.BASE_RECORDS);
+
+            //If the checkpoint is not the one expected
+            if ((base != (image == null)) || (!(base) && (kind != CheckpointWriter.DELTA)) || (in.readInt() != sequence)) {
+                throw new StreamCorruptedException(path + " is not the checkpoint expected");
+            }
+
+            //If the checkpoint is a full snapshot
+            if (kind == CheckpointWriter.BASE) {
+                return SchoolSnapshot.readImage(in);
+            }
+
+            SchoolSnapshot.Image records = base ? new SchoolSnapshot.Image() : image;
+            applyDelta(new SchoolSnapshot.Decoder(in), records);
+            return records;
+        }
+    }
+
+    /**
+     * Applies a delta to the records of a school
+     *
+     * @param decoder where the delta is read
+     * @param image   the records of the school at the previous checkpoint
+     * @throws IOException if the delta cannot be read or it is not valid
+     */
+    static void applyDelta(SchoolSnapshot.Decoder decoder, SchoolSnapshot.Image image) throws IOException {
+
+        decoder.readState(image);
+
+        //Reads the records of every type of entity
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+
+            int size = decoder.readSize();
+
+            //Reads every record replacing the previous one
+            for (int i = 0; i < size; i++) {
+
+                int ref = decoder.readSize();
+
+                switch (type) {
+                    case SchoolSnapshot.SUBJECTS:
+                        SchoolSnapshot.Image.put(image.subjects, ref, decoder.readSubject());
+                        break;
+                    case SchoolSnapshot.INSTRUCTORS:
+                        SchoolSnapshot.Image.put(image.instructors, ref, decoder.readInstructor());
+                        break;
+                    case SchoolSnapshot.STUDENTS:
+                        SchoolSnapshot.Image.put(image.students, ref, decoder.readStudent());
+                        break;
+                    default:
+                        SchoolSnapshot.Image.put(image.courses, ref, decoder.readCourse());
+                        break;
+                }
+            }
+        }
+
+        //Reads the entities that have left and joined the school and the entities dropped
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+
+            reorder(image.members.get(type), decoder.readRefs(), decoder.readRefs());
+
+            //Drops the records no longer needed
+            for (int ref : decoder.readRefs()) {
+                SchoolSnapshot.Image.put(image.table(type), ref, null);
+            }
+        }
+
+        image.events = decoder.readEvents();
+
+        //Reads the changes of the order of every set of the index
+        for (LinkedHashSet<Integer> set : image.indexSets) {
+            reorder(set, decoder.readRefs(), decoder.readRefs());
+        }
+    }
+
+    /**
+     * Applies the changes of an ordered set
+     *
+     * @param set      the set
+     * @param removed  the elements removed
+     * @param appended the elements appended at the end, in order
+     */
+    private static void reorder(LinkedHashSet<Integer> set, List<Integer> removed, List<Integer> appended) {
+
+        //Removes every element removed
+        for (Integer ref : removed) {
+            set.remove(ref);
+        }
+
+        set.addAll(appended);
+    }
+
+    /**
+     * Gets the checkpoints in a directory
+     *
+     * @param directory the directory of the checkpoints
+     * @return the path of every checkpoint by sequence number
+     * @throws IOException if the directory cannot be read
+     */
+    static TreeMap<Integer, Path> checkpoints(Path directory) throws IOException {
+
+        TreeMap<Integer, Path> checkpoints = new TreeMap<>();
+
+        //If the directory does not exist
+        if (!(Files.isDirectory(directory))) {
+            return checkpoints;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+
+            //Loops for every file of the directory
+            for (Path file : files) {
+
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+
+                //If the file is a checkpoint
+                if (matcher.matches()) {
+                    checkpoints.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+        }
+
+        return checkpoints;
+    }
+
+    /**
+     * Gets the sequence number of the last checkpoint in a directory
+     *
+     * @param directory the directory of the checkpoints
+     * @return the sequence number, 0 if there are no checkpoints
+     * @throws IOException if the directory cannot be read
+     */
+    static int lastSequence(Path directory) throws IOException {
+
+        TreeMap<Integer, Path> checkpoints = checkpoints(directory);
+        return checkpoints.isEmpty() ? 0 : checkpoints.lastKey();
+    }
+
+    /**
+     * Gets the name of the file of a checkpoint
+     *
+     * @param sequence the sequence number of the checkpoint
+     * @param base     true if the checkpoint is a base, false if it is a delta
+     * @return the name of the file
+     */
+    static String fileName(int sequence, boolean base) {
+        return String.format("checkpoint-%08d.%s", sequence, base ? "base" : "delta");
+    }
+}
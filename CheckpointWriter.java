@@ -0,0 +1,726 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class writes periodic checkpoints of a {@link School} to a directory, so that a long simulation
+ * can be resumed from its last checkpoint, see {@link CheckpointLoader}.<br>
+ * A checkpoint is written at the end of every N days. Most checkpoints are deltas: they only contain
+ * the records of the entities that have changed since the previous checkpoint, the entities that have joined
+ * and left the school and the changes of the order of the sets of the {@link SchoolIndex}.
+ * Every few checkpoints a base is written instead, from which the following deltas start.
+ * The checkpoints preceding a base are deleted once the base has been written.<br>
+ * The entities changed are marked by the index of the school, which is told about every change of their state.<br>
+ * The simulation only stops to encode the changes in memory; the checkpoints are written to the disk
+ * by a background thread while the next days run. The background thread keeps its own copy of the records
+ * of the school, applying every delta to it, and writes the bases from that copy, so the school is only walked
+ * as a whole at the start, after a failure, or when most of the positions given to the entities are no longer used.
+ * At most {@link #MAX_PENDING} checkpoints wait to be written; if the disk falls behind, the simulation waits.
+ * The time the simulation stops at every checkpoint is measured, see {@link #getMaxPauseNanos()}.<br>
+ * Every checkpoint is written to a temporary file, forced to the disk and then renamed,
+ * so that a crash never leaves a partial checkpoint behind. A checkpoint that cannot be written
+ * is reported by the next checkpoint or by {@link #close()}.
+ *
+ * @author albertoTamajo
+ */
+public class CheckpointWriter implements Closeable {
+
+    static final int MAGIC = 0x53434B50;
+    static final int VERSION = 2;
+    static final byte BASE = 1;
+    static final byte DELTA = 2;
+    static final byte BASE_RECORDS = 3;
+
+    static final int MAX_PENDING = 2;
+
+    private final Path directory;
+    private final School school;
+    private final int interval;
+    private final int deltasPerBase;
+    private final LinkedHashSet<Object> dirty;
+    private final List<OrderChanges> members;
+    private final IdentityHashMap<Set<?>, OrderChanges> indexSets;
+    private IdentityHashMap<Object, Integer> ids;
+    private int[] nextIds;
+    private int sequence;
+    private int deltas;
+    private final ExecutorService background;
+    private final Semaphore pending;
+    private SchoolSnapshot.Image records;
+    private volatile long bytesWritten;
+    private volatile IOException failure;
+    private int pauses;
+    private long pauseNanos;
+    private long maxPauseNanos;
+
+
+    /**
+     * Creates a checkpoint writer
+     *
+     * @param directory     the directory of the checkpoints
+     * @param school        the school checkpointed
+     * @param interval      the number of days between two checkpoints
+     * @param deltasPerBase the number of deltas written after a base before the next base
+     * @param sequence      the sequence number of the first checkpoint
+     */
+    private CheckpointWriter(Path directory, School school, int interval, int deltasPerBase, int sequence) {
+
+        this.directory = directory;
+        this.school = school;
+        this.interval = interval;
+        this.deltasPerBase = deltasPerBase;
+        this.sequence = sequence;
+        this.dirty = new LinkedHashSet<>();
+        this.members = new ArrayList<>();
+        this.indexSets = new IdentityHashMap<>();
+        this.ids = new IdentityHashMap<>();
+        this.nextIds = new int[SchoolSnapshot.TYPES];
+        this.pending = new Semaphore(MAX_PENDING);
+        this.background = Executors.newSingleThreadExecutor(task -> {
+
+            Thread thread = new Thread(task, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        //Creates the changes of the sets of the school
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+            members.add(new OrderChanges());
+        }
+
+        //Creates the changes of the sets of the index
+        for (Set<?> set : SchoolSnapshot.indexSets(school.getIndex())) {
+            indexSets.put(set, new OrderChanges());
+        }
+    }
+
+    /**
+     * Starts checkpointing a school: a base is taken immediately and then a checkpoint
+     * at the end of every <code>interval</code> days.<br>
+     * The sequence numbers of the checkpoints follow the ones already in the directory.
+     *
+     * @param directory     the directory of the checkpoints, created if it does not exist
+     * @param school        a school
+     * @param interval      the number of days between two checkpoints, greater than 0
+     * @param deltasPerBase the number of deltas written after a base before the next base
+     * @return the checkpoint writer
+     * @throws IOException if the directory cannot be created or the first base cannot be taken
+     */
+    public static CheckpointWriter open(Path directory, School school, int interval, int deltasPerBase) throws IOException {
+
+        //If the interval is not valid
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The interval between checkpoints must be greater than 0");
+        }
+
+        Files.createDirectories(directory);
+
+        CheckpointWriter writer = new CheckpointWriter(directory, school, interval, deltasPerBase,
+                CheckpointLoader.lastSequence(directory) + 1);
+
+        writer.checkpoint();
+        school.setCheckpoints(writer);
+        return writer;
+    }
+
+    /**
+     * Takes a checkpoint now and hands it to the background thread.<br>
+     * The checkpoint is a base if it is the first one or if enough deltas have been taken, a delta otherwise.
+     * The whole school is encoded if it is the first checkpoint, if the previous one has failed
+     * or if most of the positions given to the entities are no longer used.
+     *
+     * @throws IOException if a previous checkpoint could not be written, or the thread is interrupted while waiting
+     */
+    public void checkpoint() throws IOException {
+
+        reportFailure();
+
+        boolean full = (deltas < 0) || ids.isEmpty() || (2 * ids.size() < Arrays.stream(nextIds).sum());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        //Tries to encode the checkpoint
+        try (SnapshotOutput out = new SnapshotOutput(Channels.newChannel(bytes))) {
+
+            //If the whole school must be encoded
+            if (full) {
+                writeBase(out);
+            } else {
+                writeDelta(out);
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            //The next checkpoint cannot follow a checkpoint not taken
+            deltas = -1;
+            throw e;
+        }
+
+        dirty.clear();
+        members.forEach(OrderChanges::clear);
+        indexSets.values().forEach(OrderChanges::clear);
+
+        byte kind = full ? BASE : ((deltas >= deltasPerBase) ? BASE_RECORDS : DELTA);
+        int checkpointSequence = sequence++;
+        byte[] encoded = bytes.toByteArray();
+
+        deltas = (kind == DELTA) ? deltas + 1 : 0;
+
+        //Tries to wait until the checkpoint can be queued
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            deltas = -1;
+            throw new InterruptedIOException("The checkpoint has been interrupted");
+        }
+
+        background.execute(() -> write(checkpointSequence, kind, encoded));
+    }
+
+    /**
+     * Takes a checkpoint if a multiple of the interval of days has ended, measuring the pause of the simulation
+     *
+     * @param day the day ending
+     */
+    void dayEnded(int day) {
+
+        //If a checkpoint is due
+        if ((day % interval) == 0) {
+
+            long start = System.nanoTime();
+
+            //Tries to take the checkpoint
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException("The checkpoint of day " + day + " cannot be written", e);
+            }
+
+            long pause = System.nanoTime() - start;
+
+            pauses++;
+            pauseNanos += pause;
+            maxPauseNanos = Math.max(maxPauseNanos, pause);
+        }
+    }
+
+    /**
+     * Gets the number of bytes written by the checkpoints so far
+     *
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Gets the number of checkpoints taken at the end of a day
+     *
+     * @return the number of checkpoints
+     */
+    public int getPauses() {
+        return pauses;
+    }
+
+    /**
+     * Gets the average time the simulation has stopped for a checkpoint at the end of a day
+     *
+     * @return the average pause in nanoseconds, 0 if there have been no checkpoints
+     */
+    public long getAveragePauseNanos() {
+        return (pauses == 0) ? 0 : pauseNanos / pauses;
+    }
+
+    /**
+     * Gets the longest time the simulation has stopped for a checkpoint at the end of a day
+     *
+     * @return the longest pause in nanoseconds
+     */
+    public long getMaxPauseNanos() {
+        return maxPauseNanos;
+    }
+
+    /**
+     * Stops checkpointing the school, without taking a last checkpoint,
+     * and waits until the checkpoints taken have been written
+     *
+     * @throws IOException if a checkpoint could not be written, or the thread is interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+
+        school.setCheckpoints(null);
+        background.shutdown();
+
+        //Tries to wait for the background thread
+        try {
+
+            //Loops until the checkpoints taken have been written
+            while (!(background.awaitTermination(1, TimeUnit.MINUTES))) {
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The checkpoints have been interrupted");
+        }
+
+        reportFailure();
+    }
+
+    /**
+     * Waits until the checkpoints taken have been written
+     *
+     * @throws IOException if a checkpoint could not be written, or the thread is interrupted while waiting
+     */
+    public void flush() throws IOException {
+
+        //Tries to wait until no checkpoint is pending
+        try {
+            pending.acquire(MAX_PENDING);
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The checkpoints have been interrupted");
+        }
+
+        pending.release(MAX_PENDING);
+        reportFailure();
+    }
+
+    /**
+     * Reports the first checkpoint that could not be written since the previous report
+     *
+     * @throws IOException if a checkpoint could not be written
+     */
+    private void reportFailure() throws IOException {
+
+        IOException error = failure;
+
+        //If a checkpoint written in the background has failed
+        if (error != null) {
+
+            //The next checkpoint cannot follow a checkpoint not written
+            failure = null;
+            deltas = -1;
+            throw error;
+        }
+    }
+
+    /**
+     * Writes a checkpoint to the disk, in the background thread.<br>
+     * A delta is applied to the copy of the records first; a base written as records is written from that copy.
+     *
+     * @param sequence the sequence number of the checkpoint
+     * @param kind     the kind of the checkpoint
+     * @param encoded  the school or the delta encoded by the simulation
+     */
+    private void write(int sequence, byte kind, byte[] encoded) {
+
+        //Tries to bring the copy of the records up to date and to write the checkpoint
+        try {
+
+            byte[] body = encoded;
+
+            //If the whole school has been encoded
+            if (kind == BASE) {
+
+                records = SchoolSnapshot.readImage(new SnapshotInput(ByteBuffer.wrap(encoded)));
+
+            } else {
+
+                //If the copy of the records has been lost by a failure
+                if (records == null) {
+                    throw new IOException("The checkpoint " + sequence + " does not follow a checkpoint written");
+                }
+
+                CheckpointLoader.applyDelta(new SchoolSnapshot.Decoder(new SnapshotInput(ByteBuffer.wrap(encoded))), records);
+
+                //If a base must be written from the records
+                if (kind == BASE_RECORDS) {
+
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+                    try (SnapshotOutput out = new SnapshotOutput(Channels.newChannel(bytes))) {
+                        records.writeRecords(out);
+                    }
+
+                    body = bytes.toByteArray();
+                }
+            }
+
+            writeFile(sequence, kind, body);
+
+            //If a base has been written
+            if (kind != DELTA) {
+                deleteBefore(sequence);
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            records = null;
+
+            //Only the first failure is reported
+            if (failure == null) {
+                failure = (e instanceof IOException) ? (IOException) e : new IOException(e);
+            }
+
+        } finally {
+            pending.release();
+        }
+    }
+
+    /**
+     * Writes a checkpoint file through a temporary file, forced to the disk and then renamed
+     *
+     * @param sequence the sequence number of the checkpoint
+     * @param kind     the kind of the checkpoint
+     * @param body     the body of the checkpoint
+     * @throws IOException if the file cannot be written
+     */
+    private void writeFile(int sequence, byte kind, byte[] body) throws IOException {
+
+        Path file = directory.resolve(CheckpointLoader.fileName(sequence, kind != DELTA));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+
+        //Tries to write the checkpoint
+        try {
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                SnapshotOutput out = new SnapshotOutput(channel);
+
+                out.writeFixedInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeByte(kind);
+                out.writeInt(sequence);
+                out.writeBytes(body);
+
+                out.flush();
+                channel.force(true);
+                bytesWritten += out.size();
+            }
+
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException | RuntimeException e) {
+
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Records an entity joining the school
+     *
+     * @param entity an entity tracked by the index of the school
+     */
+    void tracked(Object entity) {
+        members.get(type(entity)).added(entity);
+    }
+
+    /**
+     * Records an entity leaving the school
+     *
+     * @param entity an entity no longer tracked by the index of the school
+     */
+    void untracked(Object entity) {
+        members.get(type(entity)).removed(entity);
+    }
+
+    /**
+     * Marks an entity whose state has changed
+     *
+     * @param entity an entity tracked by the index of the school
+     */
+    void changed(Object entity) {
+        dirty.add(entity);
+    }
+
+    /**
+     * Records an element added to or removed from a set of the index
+     *
+     * @param set     a set of the index
+     * @param element the element
+     * @param added   true if the element has been added, false if it has been removed
+     */
+    void orderChanged(Set<?> set, Object element, boolean added) {
+
+        OrderChanges changes = indexSets.get(set);
+
+        //If the element has been added
+        if (added) {
+            changes.added(element);
+        } else {
+            changes.removed(element);
+        }
+    }
+
+    /**
+     * Encodes a full snapshot of the school and numbers its entities again
+     *
+     * @param out where the snapshot is written
+     * @throws IOException if the base cannot be written
+     */
+    private void writeBase(SnapshotOutput out) throws IOException {
+
+        IdentityHashMap<Object, Integer> refs = new IdentityHashMap<>();
+        nextIds = SchoolSnapshot.write(school, out, refs);
+        ids = refs;
+    }
+
+    /**
+     * Encodes the changes of the school since the previous checkpoint
+     *
+     * @param out where the delta is written
+     * @throws IOException if the delta cannot be written
+     */
+    private void writeDelta(SnapshotOutput out) throws IOException {
+
+        SchoolSnapshot.Encoder encoder = new SchoolSnapshot.Encoder(out, ids);
+        List<Set<?>> schoolSets = SchoolSnapshot.schoolSets(school);
+        List<LinkedHashSet<Object>> dropped = new ArrayList<>();
+        List<List<Object>> records = new ArrayList<>();
+
+        //The entities that have left the school and are no longer referred to are dropped
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+
+            LinkedHashSet<Object> droppedOfType = new LinkedHashSet<>();
+
+            //Loops for the entities that have left the school
+            for (Object entity : members.get(type).removed) {
+
+                //If the entity has not joined again and nothing refers to it
+                if (!(schoolSets.get(type).contains(entity)) && !(isReferred(entity))) {
+                    droppedOfType.add(entity);
+                }
+            }
+
+            dropped.add(droppedOfType);
+            records.add(new ArrayList<>());
+        }
+
+        //Collects the entities of the school that have changed and the entities known that have changed after leaving
+        for (Object entity : dirty) {
+
+            int type = type(entity);
+
+            //If the entity is part of the school or it is known and not dropped
+            if (schoolSets.get(type).contains(entity) || (ids.containsKey(entity) && !(dropped.get(type).contains(entity)))) {
+                addRecord(records, entity);
+            }
+        }
+
+        //Collects the entities referred to by the courses written that are not known yet
+        for (Object entity : new ArrayList<>(records.get(SchoolSnapshot.COURSES))) {
+
+            Course course = (Course) entity;
+
+            addUnknownRecord(records, course.getSubject());
+            addUnknownRecord(records, course.getInstructor());
+            course.getStudentList().forEach(student -> addUnknownRecord(records, student));
+        }
+
+        encoder.writeState(school);
+
+        //Writes the records of every type of entity
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+
+            out.writeInt(records.get(type).size());
+
+            //Writes every record
+            for (Object entity : records.get(type)) {
+
+                out.writeInt(ids.get(entity));
+
+                switch (type) {
+                    case SchoolSnapshot.SUBJECTS:
+                        encoder.writeSubject((Subject) entity);
+                        break;
+                    case SchoolSnapshot.INSTRUCTORS:
+                        encoder.writeInstructor((Instructor) entity);
+                        break;
+                    case SchoolSnapshot.STUDENTS:
+                        encoder.writeStudent((Student) entity);
+                        break;
+                    default:
+                        encoder.writeCourse((Course) entity);
+                        break;
+                }
+            }
+        }
+
+        //Writes the entities that have left and joined the school and the entities dropped
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+
+            encoder.writeRefs(members.get(type).removed);
+            encoder.writeRefs(members.get(type).appended);
+            encoder.writeRefs(dropped.get(type));
+        }
+
+        encoder.writeEvents(school);
+
+        //Writes the changes of the order of every set of the index
+        for (Set<?> set : SchoolSnapshot.indexSets(school.getIndex())) {
+
+            OrderChanges changes = indexSets.get(set);
+
+            encoder.writeRefs(changes.removed);
+            encoder.writeRefs(changes.appended);
+        }
+
+        //Forgets the entities dropped
+        for (Set<Object> droppedOfType : dropped) {
+            droppedOfType.forEach(ids::remove);
+        }
+    }
+
+    /**
+     * Adds the record of an entity to the records to write, giving the entity a position if it has none
+     *
+     * @param records the records to write, indexed by type of entity
+     * @param entity  an entity
+     */
+    private void addRecord(List<List<Object>> records, Object entity) {
+
+        int type = type(entity);
+
+        //If the entity has no position yet
+        if (!(ids.containsKey(entity))) {
+            ids.put(entity, nextIds[type]++);
+        }
+
+        records.get(type).add(entity);
+    }
+
+    /**
+     * Adds the record of an entity to the records to write if the entity has no position yet
+     *
+     * @param records the records to write, indexed by type of entity
+     * @param entity  an entity, possibly null
+     */
+    private void addUnknownRecord(List<List<Object>> records, Object entity) {
+
+        //If the entity is not known
+        if ((entity != null) && !(ids.containsKey(entity))) {
+            addRecord(records, entity);
+        }
+    }
+
+    /**
+     * Checks whether or not an entity that has left the school can still be referred to by other entities
+     *
+     * @param entity an entity
+     * @return true if the entity is part of a course, false otherwise
+     */
+    private static boolean isReferred(Object entity) {
+
+        //If the entity is a subject
+        if (entity instanceof Subject) {
+            return ((Subject) entity).hasCourse();
+        }
+
+        //If the entity is an instructor
+        if (entity instanceof Instructor) {
+            return ((Instructor) entity).isTeaching();
+        }
+
+        //If the entity is a student
+        if (entity instanceof Student) {
+            return ((Student) entity).isEnrolled();
+        }
+
+        Course course = (Course) entity;
+        return (course.getSize() > 0) || course.hasInstructor();
+    }
+
+    /**
+     * Gets the type of an entity
+     *
+     * @param entity an entity
+     * @return the type of the entity, see {@link SchoolSnapshot#TYPES}
+     */
+    private static int type(Object entity) {
+
+        //If the entity is a subject
+        if (entity instanceof Subject) {
+            return SchoolSnapshot.SUBJECTS;
+        }
+
+        //If the entity is an instructor
+        if (entity instanceof Instructor) {
+            return SchoolSnapshot.INSTRUCTORS;
+        }
+
+        //If the entity is a student
+        if (entity instanceof Student) {
+            return SchoolSnapshot.STUDENTS;
+        }
+
+        return SchoolSnapshot.COURSES;
+    }
+
+    /**
+     * Deletes the checkpoints preceding a base
+     *
+     * @param base the sequence number of a base
+     * @throws IOException if the directory cannot be read
+     */
+    private void deleteBefore(int base) throws IOException {
+
+        //Deletes every checkpoint written before the base
+        for (Map.Entry<Integer, Path> checkpoint : CheckpointLoader.checkpoints(directory).headMap(base).entrySet()) {
+            Files.deleteIfExists(checkpoint.getValue());
+        }
+    }
+
+    /**
+     * This class keeps the changes of an ordered set since the previous checkpoint:
+     * the elements removed that were in the set at the previous checkpoint and the elements appended since.<br>
+     * An element removed and appended again is in both, since it has moved to the end of the set.
+     */
+    private static final class OrderChanges {
+
+        private final LinkedHashSet<Object> removed = new LinkedHashSet<>();
+        private final LinkedHashSet<Object> appended = new LinkedHashSet<>();
+
+        private void added(Object element) {
+            appended.add(element);
+        }
+
+        private void removed(Object element) {
+
+            //If the element was in the set at the previous checkpoint
+            if (!(appended.remove(element))) {
+                removed.add(element);
+            }
+        }
+
+        private void clear() {
+            removed.clear();
+            appended.clear();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a registry of the entities of a school that many threads can use at once,
+ * e.g. the front-ends registering and looking up students while a {@link School} is simulated elsewhere.<br>
+ * Every kind of entity has its own {@link Registry}, where every entity gets an ID when it is added
+ * and can be looked up by its ID or checked by itself. The registries are {@link ConcurrentHashMap}s,
+ * whose bins are locked one at a time, thus threads adding, removing or looking up different entities
+ * do not wait for each other and lookups never wait at all.
+ * The registries are only seen through read-only views, never through mutable sets.<br>
+ * Only the registration of the entities is thread-safe, not the entities themselves:
+ * a school to simulate is built from the entities registered through {@link #toSchool()}.
+ *
+ * @author albertoTamajo
+ */
+public final class ConcurrentSchool {
+
+    private volatile String name;
+    private final Registry<Student> students;
+    private final Registry<Instructor> instructors;
+    private final Registry<Subject> subjects;
+    private final Registry<Course> courses;
+
+
+    /**
+     * Creates an empty school registry with a name
+     *
+     * @param name the name of the school
+     */
+    public ConcurrentSchool(String name) {
+        this.name = name;
+        this.students = new Registry<>();
+        this.instructors = new Registry<>();
+        this.subjects = new Registry<>();
+        this.courses = new Registry<>();
+    }
+
+    /**
+     * Creates an empty school registry with the default name of a school
+     */
+    public ConcurrentSchool() {
+        this("Default");
+    }
+
+    /**
+     * Creates a school registry with the entities of a school, in the order of its sets
+     *
+     * @param school a school, not used by other threads while it is copied
+     * @return a school registry with the name and the entities of the school
+     */
+    public static ConcurrentSchool of(School school) {
+
+        ConcurrentSchool registry = new ConcurrentSchool(school.getName());
+
+        registry.subjects.addAll(school.getSubjects());
+        registry.instructors.addAll(school.getInstructors());
+        registry.students.addAll(school.getStudents());
+        registry.courses.addAll(school.getCourses());
+
+        return registry;
+    }
+
+    /**
+     * Builds a school with the entities registered, in the order of their IDs.<br>
+     * The entities added or removed while the school is built might be left out or included.
+     *
+     * @return a new school with the name and the entities of the registry
+     */
+    public School toSchool() {
+
+        School school = new School(name);
+        List<Object> entities = new ArrayList<>();
+
+        subjects.drainTo(entities);
+        instructors.drainTo(entities);
+        students.drainTo(entities);
+        courses.drainTo(entities);
+
+        school.addAll(entities);
+        return school;
+    }
+
+    /**
+     * Gets the name of the school
+     *
+     * @return the name of the school
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the school
+     *
+     * @param name the name of the school
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the registry of the students
+     *
+     * @return the registry of the students
+     */
+    public Registry<Student> students() {
+        return students;
+    }
+
+    /**
+     * Gets the registry of the instructors
+     *
+     * @return the registry of the instructors
+     */
+    public Registry<Instructor> instructors() {
+        return instructors;
+    }
+
+    /**
+     * Gets the registry of the subjects
+     *
+     * @return the registry of the subjects
+     */
+    public Registry<Subject> subjects() {
+        return subjects;
+    }
+
+    /**
+     * Gets the registry of the courses
+     *
+     * @return the registry of the courses
+     */
+    public Registry<Course> courses() {
+        return courses;
+    }
+
+    /**
+     * This class is the registry of a kind of entity of a {@link ConcurrentSchool}.<br>
+     * An entity gets an ID, greater than 0, when it is added, and keeps it until it is removed;
+     * an entity added again after being removed gets a new ID. Entities are the same entity only if they are the same object.
+     * All the methods can be called by many threads at once.
+     *
+     * @param <T> type of the entities
+     */
+    public static final class Registry<T> {
+
+        /**
+         * The ID of the entities not registered
+         */
+        public static final long NONE = -1;
+
+        private final ConcurrentHashMap<Long, T> entities;
+        private final ConcurrentHashMap<T, Long> ids;
+        private final AtomicLong lastId;
+
+
+        /**
+         * Creates an empty registry
+         */
+        private Registry() {
+            this.entities = new ConcurrentHashMap<>();
+            this.ids = new ConcurrentHashMap<>();
+            this.lastId = new AtomicLong();
+        }
+
+        /**
+         * Adds an entity to the registry
+         *
+         * @param entity an entity
+         * @return the ID of the entity, the one it already had if it was already registered
+         * @throws NullPointerException if the entity is null
+         */
+        public long add(T entity) {
+
+            Objects.requireNonNull(entity);
+
+            //The ID and the entity are registered together while the bin of the entity is locked
+            return ids.computeIfAbsent(entity, key -> {
+
+                long id = lastId.incrementAndGet();
+                entities.put(id, key);
+                return id;
+            });
+        }
+
+        /**
+         * Removes an entity from the registry
+         *
+         * @param entity an entity
+         * @return true if the entity has been removed, false if it was not registered
+         */
+        public boolean remove(T entity) {
+            return (entity != null) && unregister(entity, null);
+        }
+
+        /**
+         * Removes the entity with an ID from the registry
+         *
+         * @param id the ID of an entity
+         * @return the entity removed, null if no entity has the ID
+         */
+        public T remove(long id) {
+
+            T entity = entities.get(id);
+
+            //If an entity has the ID and it has not been removed in the meantime
+            if ((entity != null) && unregister(entity, id)) {
+                return entity;
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets the entity with an ID
+         *
+         * @param id the ID of an entity
+         * @return the entity, null if no entity has the ID
+         */
+        public T get(long id) {
+            return entities.get(id);
+        }
+
+        /**
+         * Gets the ID of an entity
+         *
+         * @param entity an entity
+         * @return the ID of the entity, {@link #NONE} if it is not registered
+         */
+        public long getId(T entity) {
+
+            Long id = (entity != null) ? ids.get(entity) : null;
+            return (id != null) ? id : NONE;
+        }
+
+        /**
+         * Checks whether or not an entity is registered
+         *
+         * @param entity an entity
+         * @return true if the entity is registered, false otherwise
+         */
+        public boolean contains(T entity) {
+            return (entity != null) && ids.containsKey(entity);
+        }
+
+        /**
+         * Gets the number of entities registered
+         *
+         * @return the number of entities
+         */
+        public int size() {
+            return ids.size();
+        }
+
+        /**
+         * Gets the entities registered.<br>
+         * The view cannot be modified; it reflects the additions and removals made while it is iterated,
+         * without ever throwing a {@link java.util.ConcurrentModificationException}.
+         *
+         * @return a read-only view of the entities registered
+         */
+        public Set<T> getEntities() {
+            return Collections.unmodifiableSet(ids.keySet());
+        }
+
+        /**
+         * Adds some entities to the registry
+         *
+         * @param entities the entities to add
+         */
+        private void addAll(Iterable<? extends T> entities) {
+
+            //Loops for every entity
+            for (T entity : entities) {
+                add(entity);
+            }
+        }
+
+        /**
+         * Copies the entities registered to a list in the order of their IDs
+         *
+         * @param list where the entities are added
+         */
+        private void drainTo(List<Object> list) {
+
+            List<Long> sorted = new ArrayList<>(entities.keySet());
+            Collections.sort(sorted);
+
+            //Loops for every ID still registered
+            for (Long id : sorted) {
+
+                T entity = entities.get(id);
+
+                //If the entity has not been removed in the meantime
+                if (entity != null) {
+                    list.add(entity);
+                }
+            }
+        }
+
+        /**
+         * Removes an entity and its ID together while the bin of the entity is locked
+         *
+         * @param entity an entity
+         * @param id     the ID the entity must have, null for any ID
+         * @return true if the entity has been removed, false otherwise
+         */
+        private boolean unregister(T entity, Long id) {
+
+            boolean[] removed = new boolean[1];
+
+            ids.computeIfPresent(entity, (key, current) -> {
+
+                //If the entity has another ID, it has been removed and added again in the meantime
+                if ((id != null) && !(id.equals(current))) {
+                    return current;
+                }
+
+                entities.remove(current);
+                removed[0] = true;
+                return null;
+            });
+
+            return removed[0];
+        }
+    }
+}
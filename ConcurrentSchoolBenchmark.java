@@ -0,0 +1,199 @@
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class compares the throughput of the registry of the students of a {@link ConcurrentSchool}
+ * with the one of the same registry behind a single lock, as a synchronized wrapper of a school would be.<br>
+ * Every thread registers new students, removes some of them and looks up students by ID, all at the same time.<br>
+ * Usage: java ConcurrentSchoolBenchmark [threads] [operations per thread] [lookups per update] [repetitions]
+ *
+ * @author albertoTamajo
+ */
+public class ConcurrentSchoolBenchmark {
+
+    private static final int STUDENTS = 100000;
+
+    /**
+     * Main method
+     *
+     * @param args number of threads, operations of every thread, lookups for every addition or removal and repetitions
+     * @throws InterruptedException if the main thread is interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int operations = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+        int lookups = (args.length > 2) ? Integer.parseInt(args[2]) : 8;
+        int repetitions = (args.length > 3) ? Integer.parseInt(args[3]) : 5;
+
+        Student[] population = new Student[STUDENTS];
+
+        //Creates the students registered by the threads
+        for (int i = 0; i < STUDENTS; i++) {
+            population[i] = new Student("Student " + i, (i % 2 == 0) ? 'M' : 'F', 18 + i % 50);
+        }
+
+        long concurrent = Long.MAX_VALUE;
+        long synchronised = Long.MAX_VALUE;
+
+        //Loops for every repetition keeping the best times
+        for (int i = 0; i < repetitions; i++) {
+
+            ConcurrentSchool.Registry<Student> registry = new ConcurrentSchool().students();
+            concurrent = Math.min(concurrent, run(threads, operations, lookups, population,
+                    registry::add, registry::remove, registry::get));
+
+            SynchronizedRegistry locked = new SynchronizedRegistry();
+            synchronised = Math.min(synchronised, run(threads, operations, lookups, population,
+                    locked::add, locked::remove, locked::get));
+        }
+
+        System.err.printf("**Threads: %d, operations per thread: %d, lookups per update: %d**%n%n", threads, operations, lookups);
+        report("ConcurrentSchool registry", concurrent, (long) threads * operations);
+        report("Registry behind a single lock", synchronised, (long) threads * operations);
+    }
+
+    /**
+     * Runs the operations of all the threads on a registry
+     *
+     * @param threads    number of threads
+     * @param operations number of operations of every thread
+     * @param lookups    number of lookups for every addition or removal
+     * @param population the students registered
+     * @param add        adds a student and gets its ID
+     * @param remove     removes the student with an ID
+     * @param get        looks up the student with an ID
+     * @return the time elapsed in nanoseconds
+     * @throws InterruptedException if the main thread is interrupted while waiting for the threads
+     */
+    private static long run(int threads, int operations, int lookups, Student[] population,
+                            Add add, Remove remove, Get get) throws InterruptedException {
+
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        AtomicLongArray found = new AtomicLongArray(threads);
+
+        //Loops for every thread
+        for (int t = 0; t < threads; t++) {
+
+            int thread = t;
+            RandomSource random = new RandomSource(t);
+
+            workers[t] = new Thread(() -> {
+
+                //Tries to wait until every thread has started
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                long lastId = 0;
+                long hits = 0;
+
+                //Loops for every operation
+                for (int i = 0; i < operations; i++) {
+
+                    int dice = random.nextInt(lookups + 2);
+
+                    //If the operation is an addition, a removal or a lookup
+                    if (dice == 0) {
+                        lastId = add.add(population[random.nextInt(STUDENTS)]);
+                    } else if (dice == 1) {
+                        remove.remove(1 + random.nextInt((int) Math.max(lastId, 1)));
+                    } else if (get.get(1 + random.nextInt((int) Math.max(lastId, 1))) != null) {
+                        hits++;
+                    }
+                }
+
+                found.set(thread, hits);
+            });
+
+            workers[t].start();
+        }
+
+        long start = System.nanoTime();
+        ready.countDown();
+
+        //Waits for every thread
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Prints out the time and the throughput of a registry
+     *
+     * @param label      name of the registry
+     * @param time       best time in nanoseconds
+     * @param operations number of operations of all the threads
+     */
+    private static void report(String label, long time, long operations) {
+        System.err.printf("**%s: %.1f ms, %.2f million operations per second**%n", label, time / 1e6, operations / (time / 1e3));
+    }
+
+    /**
+     * Adds a student to a registry
+     */
+    private interface Add {
+        long add(Student student);
+    }
+
+    /**
+     * Removes a student from a registry
+     */
+    private interface Remove {
+        Student remove(long id);
+    }
+
+    /**
+     * Looks up a student in a registry
+     */
+    private interface Get {
+        Student get(long id);
+    }
+
+    /**
+     * This class is a registry of students whose every operation holds the same lock
+     */
+    private static final class SynchronizedRegistry {
+
+        private final HashMap<Long, Student> students = new HashMap<>();
+        private final HashMap<Student, Long> ids = new HashMap<>();
+        private long lastId;
+
+        synchronized long add(Student student) {
+
+            Long id = ids.get(student);
+
+            //If the student is not registered yet
+            if (id == null) {
+
+                id = ++lastId;
+                ids.put(student, id);
+                students.put(id, student);
+            }
+
+            return id;
+        }
+
+        synchronized Student remove(long id) {
+
+            Student student = students.remove(id);
+
+            //If a student had the ID
+            if (student != null) {
+                ids.remove(student);
+            }
+
+            return student;
+        }
+
+        synchronized Student get(long id) {
+            return students.get(id);
+        }
+    }
+}
@@ -1,44 +1,105 @@
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 /**
  * This class represents a Course taught by a school.<br>
  * A course is associated with a unique subject and so its length is determined by the subject.<br>
- * A course is characterised by the number of days until it starts.<br>
- * A course is taught by an instructor and a maximum of 3 students can enroll in it.
+ * A course is characterised by the absolute days on which it starts and ends,
+ * so that its status is derived from the {@link SimulationClock} of the simulation.<br>
+ * A course is taught by an instructor and a maximum of {@link #CAPACITY} students can enroll in it.<br>
+ * The students can be enrolled by many threads at once through {@link #enrolStudent(Student)}:
+ * a seat is taken by replacing the list of the students enrolled with a compare-and-set,
+ * so that the number of students enrolled is always the size of the list.
  *
  * @author albertoTamajo
  */
-public class Course implements Serializable, Comparable<Course> {
+public class Course implements Serializable, Comparable<Course>, Reportable {
 
+    /**
+     * The maximum number of students enrolled in a course
+     */
+    public static final int CAPACITY = 3;
+
+    private static final VarHandle STUDENTS = studentsHandle();
 
     private Subject subject;
-    private int daysUntilStarts;
-    private int daysToRun;
-    private ArrayList<Student> enrolledStudentsArrayList;
-    private int enrolledStudents;
+    private SimulationClock clock;
+    private int startDay;
+    private int endDay;
+    private boolean hasStarted;
+    private boolean isCompleted;
+    private volatile ArrayList<Student> enrolledStudentsArrayList;
     private Instructor instructor;
     private boolean isCancelled;
+    private StateListener listener;
 
 
     /**
-     * Creates a Course with a subject and the number of days until it starts
+     * Creates a Course with a subject and the number of days until it starts.<br>
+     * The course has its own clock, see {@link #aDayPasses()}.
      *
      * @param subject         a subject
      * @param daysUntilStarts the number of days until the course starts
      */
     public Course(Subject subject, int daysUntilStarts) {
+        this(subject, daysUntilStarts, new SimulationClock());
+    }
+
+    /**
+     * Creates a Course with a subject, the number of days until it starts
+     * and the clock of the simulation it belongs to
+     *
+     * @param subject         a subject
+     * @param daysUntilStarts the number of days until the course starts
+     * @param clock           the clock of the simulation
+     */
+    public Course(Subject subject, int daysUntilStarts, SimulationClock clock) {
 
         this.subject = subject;
 
         //The subject has a course now
         this.subject.toggleHasCourse();
 
-        this.daysUntilStarts = daysUntilStarts;
-        this.daysToRun = subject.getDuration();
+        this.clock = clock;
+        this.startDay = clock.getDay() + Math.max(daysUntilStarts, 0);
+        this.endDay = startDay + subject.getDuration();
+
+        //A course starting today is not checked for cancellation
+        this.hasStarted = (daysUntilStarts <= 0);
+
         this.enrolledStudentsArrayList = new ArrayList<>();
         this.isCancelled = false;
+        this.isCompleted = false;
+    }
+
+    /**
+     * Creates a Course in a saved state, see {@link SchoolSnapshot}.<br>
+     * Differently from the other constructors, the state of the subject is not changed.
+     *
+     * @param subject     a subject
+     * @param clock       the clock of the simulation
+     * @param startDay    the absolute day on which the course starts
+     * @param endDay      the absolute day on which the course ends
+     * @param hasStarted  whether or not the start of the course has been processed
+     * @param isCompleted whether or not the course has been completed
+     * @param isCancelled whether or not the course has been cancelled
+     */
+    Course(Subject subject, SimulationClock clock, int startDay, int endDay,
+           boolean hasStarted, boolean isCompleted, boolean isCancelled) {
+
+        this.subject = subject;
+        this.clock = clock;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.hasStarted = hasStarted;
+        this.isCompleted = isCompleted;
+        this.isCancelled = isCancelled;
+        this.enrolledStudentsArrayList = new ArrayList<>();
     }
 
     /**
@@ -62,14 +123,14 @@ public class Course implements Serializable, Comparable<Course> {
     public int getStatus() {
 
         //If the course still must start
-        if (daysUntilStarts > 0) {
+        if (daysUntilStarts() > 0) {
 
-            return -(daysUntilStarts);
+            return -(daysUntilStarts());
 
-        } else if (daysToRun > 0) {
+        } else if (daysToRun() > 0) {
 
             //If the course has already started
-            return daysToRun;
+            return daysToRun();
 
         } else {
 
@@ -78,18 +139,160 @@ public class Course implements Serializable, Comparable<Course> {
         }
     }
 
+    /**
+     * Returns the number of days until the course starts
+     *
+     * @return the number of days until the course starts, 0 if the course has already started
+     */
+    private int daysUntilStarts() {
+        return Math.max(startDay - clock.getDay(), 0);
+    }
+
+    /**
+     * Returns the number of days the course still has to run
+     *
+     * @return the number of days still to run, 0 if the course has finished or has been cancelled
+     */
+    private int daysToRun() {
+
+        //If the course has finished or has been cancelled
+        if (isCancelled || isCompleted) {
+            return 0;
+        }
+
+        return Math.max(endDay - Math.max(clock.getDay(), startDay), 0);
+    }
+
+    /**
+     * Returns the absolute day on which the state of the course changes next
+     *
+     * @return the day on which the course starts if it has not started yet, the day on which it ends otherwise
+     */
+    public int getNextEventDay() {
+
+        //If the course still must start
+        if (!(hasStarted)) {
+            return startDay;
+        }
+
+        return endDay;
+    }
+
+    /**
+     * Returns the number of days until the course starts, counted on the clock of the course
+     *
+     * @return the number of days until the course starts, 0 or less if the course has already started
+     */
+    int getDaysUntilStarts() {
+        return startDay - clock.getDay();
+    }
+
+    /**
+     * Gets the absolute day on which the course starts
+     *
+     * @return the day on which the course starts
+     */
+    int getStartDay() {
+        return startDay;
+    }
+
+    /**
+     * Gets the absolute day on which the course ends
+     *
+     * @return the day on which the course ends
+     */
+    int getEndDay() {
+        return endDay;
+    }
+
+    /**
+     * Returns whether or not the start of the course has been processed
+     *
+     * @return true if the course has started or has been cancelled on its first day, false otherwise
+     */
+    boolean hasStarted() {
+        return hasStarted;
+    }
+
+    /**
+     * Returns whether or not the course has been completed
+     *
+     * @return true if the course has graduated its students, false otherwise
+     */
+    boolean isCompleted() {
+        return isCompleted;
+    }
+
+    /**
+     * Gets the instructor of the course
+     *
+     * @return the instructor, null if no instructor is assigned
+     */
+    Instructor getInstructor() {
+        return instructor;
+    }
+
+    /**
+     * Gets the students enrolled in order of enrolment.<br>
+     * The list must not be modified: every enrolment replaces it with a new one.
+     *
+     * @return the list of students enrolled
+     */
+    List<Student> getStudentList() {
+        return enrolledStudentsArrayList;
+    }
+
+    /**
+     * Puts back the instructor and the students of a saved course without printing out anything,
+     * see {@link SchoolSnapshot}.<br>
+     * The instructor and the students are updated too.
+     *
+     * @param instructor the instructor, null if no instructor is assigned
+     * @param students   the students enrolled in order of enrolment
+     */
+    void restore(Instructor instructor, List<Student> students) {
+
+        this.instructor = instructor;
+
+        //If the course has an instructor
+        if (instructor != null) {
+            instructor.restoreAssignment(this);
+        }
+
+        //Enrols every student
+        for (Student student : students) {
+
+            enrolledStudentsArrayList.add(student);
+            student.restoreEnrolment(this);
+        }
+    }
+
+    /**
+     * Moves the course to the clock of a simulation.<br>
+     * The number of days until the course starts and ends is preserved.
+     *
+     * @param clock the clock of the simulation
+     */
+    void attachClock(SimulationClock clock) {
+
+        int offset = clock.getDay() - this.clock.getDay();
+
+        this.startDay += offset;
+        this.endDay += offset;
+        this.clock = clock;
+    }
+
     /**
      * Cancels the course
      */
     private void cancelCourse() {
 
         isCancelled = true;
-        this.daysToRun = 0;
 
         //The subject has no course now
         subject.toggleHasCourse();
 
-        System.out.println("**The course " + this.subject.getDescription() + " has been cancelled !**\n");
+        SimulationLog.log(SimulationLog.Event.COURSE_CANCELLED, this.subject.getDescription());
 
         //If the course has un instructor
         if (hasInstructor()) {
@@ -97,7 +300,7 @@ public class Course implements Serializable, Comparable<Course> {
         }
 
         //If the course has at least 1 student enrolled
-        if (enrolledStudents > 0) {
+        if (getSize() > 0) {
             unenrollStudents();
         }
 
@@ -129,7 +332,7 @@ public class Course implements Serializable, Comparable<Course> {
 
         } else {
             //If the course does not have an instructor
-            System.out.println("This course does not have an instructor yet");
+            SimulationLog.log(SimulationLog.Event.COURSE_WITHOUT_INSTRUCTOR);
         }
 
     }
@@ -144,12 +347,10 @@ public class Course implements Serializable, Comparable<Course> {
         //Loops until all students are unenrolled
         for (Student student : enrolledStudentsArrayList) {
 
-            System.out.println("**The student " + student.getName() + " does not attend the " + courseDescription + " Course anymore**\n");
+            SimulationLog.log(SimulationLog.Event.STUDENT_UNENROLLED, student.getName(), courseDescription);
             student.toggleEnrollment();
         }
 
-        enrolledStudents = 0;
-
         //Removes all students from the course
         enrolledStudentsArrayList = new ArrayList<>();
     }
@@ -160,7 +361,7 @@ public class Course implements Serializable, Comparable<Course> {
     private void courseCompletion() {
 
         String courseDescription = subject.getDescription();
-        System.out.println("**The course " + courseDescription + " Course" + " has finished**\n");
+        SimulationLog.log(SimulationLog.Event.COURSE_FINISHED, courseDescription);
 
         //Graduates al students enrolled
         graduateStudents();
@@ -171,109 +372,169 @@ public class Course implements Serializable, Comparable<Course> {
         //Unenroll all students
         unenrollStudents();
 
+        isCompleted = true;
+
         subject.toggleHasCourse();
 
     }
 
     /**
-     * Advances the course by one day
+     * Brings the course up to date with the current day of its clock.<br>
+     * A course starting today will be cancelled if no instructor is assigned or no students are enrolled.<br>
+     * A course ending today will graduate its students.
      */
-    public void aDayPasses() {
+    public void update() {
+
+        int today = clock.getDay();
 
-        //If the course is not cancelled
-        if (!(isCancelled)) {
+        //If the course must start today
+        if (!(hasStarted) && (today >= startDay)) {
 
-            //If the course still must start
-            if (daysUntilStarts > 0) {
+            hasStarted = true;
 
-                daysUntilStarts--;
+            //If no instructor is assigned or no students are enrolled
+            if (!(hasInstructor()) || (getSize() == 0)) {
 
-                //If the course is running now
-                if (daysUntilStarts == 0) {
+                //Cancels course
+                cancelCourse();
+            }
+        }
 
-                    //If no instructor is assigned or no students are enrolled
-                    if (!(hasInstructor()) || (enrolledStudents == 0)) {
+        //If the course is running and must end today
+        if (hasStarted && !(isCancelled) && !(isCompleted) && (today >= endDay)) {
 
-                        //Cancels course
-                        cancelCourse();
-                    }
-                }
-            } else if (daysToRun > 0) {
-                //If the course has already started
+            //Terminates the course
+            courseCompletion();
+        }
 
-                daysToRun--;
+        notifyListener();
+    }
 
-                //If the course has finished
-                if (daysToRun == 0) {
+    /**
+     * Advances the course by one day.<br>
+     * It must only be used for courses having their own clock:
+     * courses of a {@link School} are advanced by {@link School#advanceOneDay()}.
+     */
+    public void aDayPasses() {
 
-                    //Terminates the course
-                    courseCompletion();
-                }
-            }
-        }
+        clock.tick();
+        update();
     }
 
     /**
-     * Enrolls a student to the course
+     * Enrolls a student to the course.<br>
+     * It can be called by many threads at once: the student is claimed first, so that he/she cannot be enrolled
+     * in two courses at once, and then a seat is taken by a compare-and-set of the list of the students enrolled,
+     * so that the course is never overbooked and its size always agrees with its list.
+     * The threads finding the course full give up without waiting. The listener, which the courses and the students
+     * of a school share, is notified by one thread at a time.<br>
+     * A student asking for two courses at once might be refused by both if the course claiming him/her first is full.
+     * The enrolments wait while the school runs a day, see {@link SimulationClock#runDay(Runnable)}.
      *
      * @param student the student to enroll
      * @return true if the student has been enrolled successfully, false otherwise
      */
     public boolean enrolStudent(Student student) {
 
+        Lock lock = clock.enrolmentLock();
+        lock.lock();
+
+        //Tries to enrol the student, letting the day run again at the end
+        try {
+            return enrol(student);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Enrolls a student to the course while no day is running, see {@link #enrolStudent(Student)}
+     *
+     * @param student the student to enroll
+     * @return true if the student has been enrolled successfully, false otherwise
+     */
+    private boolean enrol(Student student) {
+
         String courseDescription = this.getSubject().getDescription();
 
         //If the student has already attended the course
         if (student.hasCertificate(this.subject)) {
 
-            System.out.println("**The student " + student.getName() + " has already attended " + courseDescription + " course**\n");
+            SimulationLog.log(SimulationLog.Event.ALREADY_ATTENDED, student.getName(), courseDescription);
             return false;
 
         } else if ((!(prerequisitesChecker(student)))) {
 
             //If the student does not have the prerequisites
-            System.out.println("**The student " + student.getName() + " does not have the prerequisites to join the " + courseDescription + " Course**\n");
+            SimulationLog.log(SimulationLog.Event.MISSING_PREREQUISITES, student.getName(), courseDescription);
             return false;
 
-        } else if (daysUntilStarts == 0) {
+        } else if (clock.getDay() >= startDay) {
 
             //If the course has already started
-            System.out.println("**The student " + student.getName() + " cannot join the " + courseDescription + " Course because it has already started**\n");
+            SimulationLog.log(SimulationLog.Event.COURSE_ALREADY_STARTED, student.getName(), courseDescription);
             return false;
 
-        } else if (enrolledStudents == 3) {
+        } else if (!(student.claimEnrolment())) {
 
-            //If the course is full
-            System.out.println("**The student " + student.getName() + " cannot join the " + courseDescription + " Course because it is full**\n");
+            //If the student is already enrolled in a course
+            SimulationLog.log(SimulationLog.Event.ALREADY_ENROLLED, student.getName(), courseDescription);
             return false;
+        }
 
-        } else {
+        //Loops until a seat is taken or the course is full
+        while (true) {
 
-            System.out.println("**The student " + student.getName() + " has enrolled in " + courseDescription + " Course**\n");
+            ArrayList<Student> students = enrolledStudentsArrayList;
 
-            //Adds the new student to the arrayList
-            enrolledStudentsArrayList.add(student);
+            //If the course is full
+            if (students.size() >= CAPACITY) {
 
-            //Increases the number of students enrolled
-            enrolledStudents++;
+                student.releaseEnrolment();
+                SimulationLog.log(SimulationLog.Event.COURSE_FULL, student.getName(), courseDescription);
+                return false;
+            }
 
-            //Toggles the student enrollment status
-            student.toggleEnrollment();
+            ArrayList<Student> withStudent = new ArrayList<>(students.size() + 1);
+            withStudent.addAll(students);
+            withStudent.add(student);
 
-            student.setCourseEnrolled(this);
+            //If no other student has taken a seat in the meantime
+            if (STUDENTS.compareAndSet(this, students, withStudent)) {
+                break;
+            }
+        }
 
-            return true;
+        SimulationLog.log(SimulationLog.Event.STUDENT_ENROLLED, student.getName(), courseDescription);
+
+        //If a listener is set
+        if (listener != null) {
+
+            //The listener is shared by the whole school, thus it is notified by one thread at a time
+            synchronized (listener) {
+
+                student.confirmEnrolment(this);
+                listener.studentEnrolled(this, student);
+                notifyListener();
+            }
+
+        } else {
+            student.confirmEnrolment(this);
         }
 
+        return true;
     }
 
     /**
-     * Returns the prerequisites needed to enroll to the course
+     * Checks whether or not a student is eligible for the subject of the course,
+     * that is the student has not attended it yet and has all the prerequisites.<br>
+     * Differently from {@link #enrolStudent(Student)}, nothing is printed out.
      *
-     * @return an ArrayList of prerequisites
+     * @param student a student
+     * @return true if the student is eligible, false otherwise
      */
-    private ArrayList<Integer> prerequisitesArray() {
-        return subject.getPrerequisites();
+    public boolean isEligible(Student student) {
+        return !(student.hasCertificate(subject)) && prerequisitesChecker(student);
     }
 
     /**
@@ -284,60 +545,8 @@ public class Course implements Serializable, Comparable<Course> {
      */
     private boolean prerequisitesChecker(Student student) {
 
-        //If the course has prerequisites
-        if (!(prerequisitesArray().isEmpty())) {
-
-            //If the student has got certificates
-            if (!(student.getCertificates().isEmpty())) {
-
-                ArrayList<Integer> prerequisites = prerequisitesArray();
-                ArrayList<Integer> studentCertificates = student.getCertificates();
-
-                Iterator<Integer> prerequisitesIterator = prerequisites.iterator();
-                Iterator<Integer> studentCertificatesIterator = studentCertificates.iterator();
-
-
-                //Loops until all prerequisites of the course are checked
-                while (prerequisitesIterator.hasNext()) {
-
-                    int nextPrerequisite = prerequisitesIterator.next();
-
-                    //Loops until a student certificates are checked
-                    while (studentCertificatesIterator.hasNext()) {
-
-                        int studentCertificate = studentCertificatesIterator.next();
-
-                        //If the student has the prerequisite
-                        if (nextPrerequisite == studentCertificate) {
-                            break;
-                        }
-
-                        //If the student does not have any other certificate
-                        if (!(studentCertificatesIterator.hasNext())) {
-
-                            //The student does not have the prerequisites
-                            return false;
-                        }
-                    }
-
-                }
-
-                //The student has all the prerequisites
-                return true;
-
-            } else {
-
-                //The student has not got any certificate yet
-                //Thus, he/she cannot attend the course
-                return false;
-            }
-
-        } else {
-
-            //If the course has no prerequisites
-            return true;
-        }
-
+        //The student must have a certificate for every prerequisite of the subject
+        return student.getCertificateSet().containsAll(subject.getPrerequisiteSet());
     }
 
     /**
@@ -346,7 +555,7 @@ public class Course implements Serializable, Comparable<Course> {
      * @return an int indicating the number of students enrolled
      */
     public int getSize() {
-        return enrolledStudents;
+        return enrolledStudentsArrayList.size();
     }
 
     /**
@@ -374,6 +583,13 @@ public class Course implements Serializable, Comparable<Course> {
             if (instructor.assignCourse(this)) {
 
                 this.instructor = instructor;
+
+                //If a listener is set
+                if (listener != null) {
+                    listener.instructorAssigned(this, instructor);
+                }
+
+                notifyListener();
                 return true;
             }
         }
@@ -381,6 +597,26 @@ public class Course implements Serializable, Comparable<Course> {
         return false;
     }
 
+    /**
+     * Sets the listener notified when the state of the course changes
+     *
+     * @param listener a listener, null if no listener must be notified
+     */
+    void setListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener that the state of the course has changed
+     */
+    private void notifyListener() {
+
+        //If a listener is set
+        if (listener != null) {
+            listener.courseChanged(this);
+        }
+    }
+
     /**
      * Returns whether or not the course has an instructor
      *
@@ -413,44 +649,52 @@ public class Course implements Serializable, Comparable<Course> {
      */
     @Override
     public String toString() {
+        return Reportable.toString(this);
+    }
 
-        String courseIntro = "COURSE INFO:" + "\n";
-        String fancyCharacters = "+------------------------------------+" + "\n";
-        String daysUntilStarts = "\nThe course will start in " + this.daysUntilStarts + " days";
-        String daysToRun = "\nThe course will end in " + this.daysToRun + "\n";
-        String enrolledStudents = "\nThe number of students enrolled is " + this.enrolledStudents + "\n";
-        String hasInstructorString = "Has an Instructor: ";
-        String yes = "YES\n";
-        String no = "NO\n";
-
-        //If the course still must start
-        if (this.daysUntilStarts > 0) {
-
-            //If no instructor is assigned
-            if (!(hasInstructor())) {
-
-                return courseIntro + subject.toStringForCourseText() + daysUntilStarts + enrolledStudents + hasInstructorString + no + fancyCharacters + "\n";
-
-            } else {
+    /**
+     * Appends all the information about a course
+     *
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
+     */
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        appendTo(out, true);
+    }
 
-                //If an instructor is assigned
-                return courseIntro + subject.toStringForCourseText() + daysUntilStarts + enrolledStudents + hasInstructorString + yes + fancyCharacters + "\n";
-            }
+    /**
+     * Appends all the information about a course
+     *
+     * @param out    where the information is appended
+     * @param framed false to leave out the fancy characters below, for a cleaner appearance
+     *               inside the information of a {@link Student}
+     * @throws IOException if the information cannot be appended
+     */
+    void appendTo(Appendable out, boolean framed) throws IOException {
 
-        } else {          //If the course has started
+        out.append("COURSE INFO:\n");
+        subject.appendTo(out, false);
 
-            //If no instructor is assigned
-            if (!(hasInstructor())) {
+        //If the course still must start
+        if (daysUntilStarts() > 0) {
+            out.append("\nThe course will start in ").append(String.valueOf(daysUntilStarts())).append(" days");
+        } else {
+            //If the course has started
+            out.append("\nThe course will end in ").append(String.valueOf(daysToRun())).append('\n');
+        }
 
-                return courseIntro + subject.toStringForCourseText() + daysToRun + enrolledStudents + hasInstructorString + no + fancyCharacters + "\n";
+        out.append("\nThe number of students enrolled is ").append(String.valueOf(getSize())).append('\n');
 
-            } else {
+        //If an instructor is assigned
+        out.append("Has an Instructor: ").append(hasInstructor() ? "YES\n" : "NO\n");
 
-                //If an instructor is assigned
-                return courseIntro + subject.toStringForCourseText() + daysToRun + enrolledStudents + hasInstructorString + yes + fancyCharacters + "\n";
-            }
+        //If the fancy characters are needed
+        if (framed) {
+            out.append("+------------------------------------+");
         }
 
+        out.append("\n\n");
     }
 
     /**
@@ -460,9 +704,7 @@ public class Course implements Serializable, Comparable<Course> {
      * @return a string containing all the information about a course
      */
     public String toStringForStudentsText() {
-
-        //It returns the same string of toString() except the fancy character below
-        return toString().replace("+------------------------------------+", "");
+        return Reportable.toString(out -> appendTo(out, false));
     }
 
     /**
@@ -477,5 +719,18 @@ public class Course implements Serializable, Comparable<Course> {
         return this.subject.compareTo(o.subject);
     }
 
+    /**
+     * Looks up the handle taking the seats of the courses atomically
+     *
+     * @return the handle of the field <code>enrolledStudentsArrayList</code>
+     */
+    private static VarHandle studentsHandle() {
 
+        //Tries to look up the field
+        try {
+            return MethodHandles.lookup().findVarHandle(Course.class, "enrolledStudentsArrayList", ArrayList.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 }
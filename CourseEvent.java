@@ -0,0 +1,57 @@
+import java.io.Serializable;
+
+/**
+ * This class represents an event in the lifecycle of a {@link Course}.<br>
+ * An event is scheduled on the absolute day on which the course either starts
+ * (and may be cancelled) or finishes.<br>
+ * Events are ordered by day so that a {@link School} only visits the courses whose state changes.
+ *
+ * @author albertoTamajo
+ */
+public class CourseEvent implements Serializable, Comparable<CourseEvent> {
+
+    private int day;
+    private Course course;
+
+
+    /**
+     * Creates an event of a course on a certain day
+     *
+     * @param day    absolute day of the event
+     * @param course course whose state changes
+     */
+    public CourseEvent(int day, Course course) {
+        this.day = day;
+        this.course = course;
+    }
+
+    /**
+     * Gets the absolute day of the event
+     *
+     * @return the day of the event
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * Gets the course whose state changes
+     *
+     * @return the course of the event
+     */
+    public Course getCourse() {
+        return course;
+    }
+
+    /**
+     * Compares the days of two events
+     *
+     * @param o an event whose day is compared
+     * @return a negative number, zero or a positive number if this event happens
+     * before, on the same day or after the other event
+     */
+    @Override
+    public int compareTo(CourseEvent o) {
+        return Integer.compare(this.day, o.day);
+    }
+}
@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 /**
  * This class represents a demonstrator.<br>
  * A demonstrator inherits properties and methods from the class {@link Instructor}.<br>
@@ -33,13 +35,14 @@ public class Demonstrator extends Instructor {
     }
 
     /**
-     * Returns a string containing the information of the demonstrator
+     * Appends the type and the information of the demonstrator
      *
-     * @return information of the demonstrator
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
      */
     @Override
-    public String toString() {
-        String demonstratorIntro = "Instructor type: DEMONSTRATOR\n";
-        return demonstratorIntro + super.toString();
+    public void appendTo(Appendable out) throws IOException {
+        out.append("Instructor type: DEMONSTRATOR\n");
+        super.appendTo(out);
     }
 }
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class enrols students not enrolled in a course to the courses open for enrolment.<br>
+ * The open courses are indexed by subject ID, and the subjects a student is eligible for
+ * (no certificate yet and all the prerequisites) are given by the {@link SubjectCatalog} of the school.
+ * Every student is then enrolled in one of the eligible open courses chosen randomly,
+ * so that no enrolment attempt fails unless another thread changes the course or the student at the same time.
+ *
+ * @author albertoTamajo
+ */
+public class EnrolmentEngine {
+
+    /**
+     * Enrols students to open courses.<br>
+     * The students are considered in order and every student is enrolled in a course
+     * chosen uniformly among the open courses he/she is eligible for.
+     *
+     * @param students    students not enrolled in a course
+     * @param openCourses courses not full and not started yet
+     * @param catalog     catalog of the subjects of the school
+     * @param random      random source choosing the courses
+     * @return the students that remain without a course, including the ones whose enrolment has failed
+     */
+    public static List<Student> enrol(Collection<Student> students, Collection<Course> openCourses, SubjectCatalog catalog, RandomSource random) {
+
+        HashMap<Integer, ArrayList<Course>> coursesBySubject = new HashMap<>();
+        IdBitSet openSubjects = new IdBitSet();
+
+        //Indexes the open courses by subject ID
+        for (Course course : openCourses) {
+
+            int id = course.getSubject().getID();
+
+            //If the subject is not in the catalog, no student can take it
+            if (catalog.contains(course.getSubject())) {
+
+                coursesBySubject.computeIfAbsent(id, s -> new ArrayList<>()).add(course);
+                openSubjects.add(id);
+            }
+        }
+
+        List<Student> studentsWithNoCourse = new ArrayList<>();
+        ArrayList<Course> eligibleCourses = new ArrayList<>();
+
+        //Loops for all students
+        for (Student student : students) {
+
+            eligibleCourses.clear();
+            IdBitSet eligibleSubjects = catalog.eligibleSubjects(student.getCertificateSet());
+
+            //Collects the open courses of the subjects the student is eligible for
+            for (int id : eligibleSubjects.toArray()) {
+
+                //If the subject has open courses
+                if (openSubjects.contains(id)) {
+                    eligibleCourses.addAll(coursesBySubject.get(id));
+                }
+            }
+
+            //If no eligible course is open
+            if (eligibleCourses.isEmpty()) {
+
+                studentsWithNoCourse.add(student);
+                continue;
+            }
+
+            Course course = eligibleCourses.get(random.nextInt(eligibleCourses.size()));
+
+            //If the student cannot be enrolled after all
+            if (!(course.enrolStudent(student))) {
+                studentsWithNoCourse.add(student);
+            }
+
+            //If the course is full now, it is not open anymore
+            if (course.getSize() == Course.CAPACITY) {
+
+                int id = course.getSubject().getID();
+                ArrayList<Course> subjectCourses = coursesBySubject.get(id);
+                subjectCourses.remove(course);
+
+                //If the subject does not have open courses anymore
+                if (subjectCourses.isEmpty()) {
+
+                    coursesBySubject.remove(id);
+                    openSubjects.remove(id);
+                }
+            }
+        }
+
+        return studentsWithNoCourse;
+    }
+}
@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class stresses the concurrent enrolment of the courses, see {@link Course#enrolStudent(Student)}.<br>
+ * Many threads ask at the same time for seats in random courses for random students of the same school,
+ * so that most requests compete for the same seats and the same students, and then the invariants are checked:
+ * no course is overbooked, no student is enrolled twice, the enrolments accepted are the ones found in the courses,
+ * and the index of the school agrees with the students and the courses.<br>
+ * Usage: java EnrolmentStressTest [threads] [courses] [students] [requests per thread] [rounds]
+ *
+ * @author albertoTamajo
+ */
+public class EnrolmentStressTest {
+
+    /**
+     * Main method
+     *
+     * @param args number of threads, courses, students, requests of every thread and rounds
+     * @throws InterruptedException if the main thread is interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 2 * Runtime.getRuntime().availableProcessors();
+        int courses = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+        int students = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+        int requests = (args.length > 3) ? Integer.parseInt(args[3]) : 100000;
+        int rounds = (args.length > 4) ? Integer.parseInt(args[4]) : 20;
+
+        SimulationLog.Level[] levels = SimulationLog.getLevels();
+        SimulationLog.setLevel(SimulationLog.Level.OFF);
+
+        //Tries to run every round, printing out the notifications again at the end
+        try {
+
+            long elapsed = 0;
+            int failures = 0;
+
+            //Loops for every round on a new school
+            for (int round = 0; round < rounds; round++) {
+
+                School school = new School("Stress " + round);
+                List<Course> schoolCourses = new ArrayList<>(courses);
+                List<Student> schoolStudents = new ArrayList<>(students);
+
+                //Creates the subjects with no prerequisites and a course for every subject
+                for (int id = 0; id < courses; id++) {
+
+                    Subject subject = new Subject(id, 1 + id % 4, 3);
+                    subject.setDescription("Subject " + id);
+                    school.add(subject);
+                    schoolCourses.add(school.createCourse(subject, 2));
+                }
+
+                //Creates the students
+                for (int i = 0; i < students; i++) {
+                    schoolStudents.add(new Student("Student " + i, (i % 2 == 0) ? 'M' : 'F', 18 + i % 50));
+                }
+
+                school.addAll(schoolStudents);
+
+                AtomicInteger accepted = new AtomicInteger();
+                long start = System.nanoTime();
+                request(threads, requests, round, schoolCourses, schoolStudents, accepted);
+                elapsed += System.nanoTime() - start;
+
+                String failure = check(school, schoolCourses, schoolStudents, accepted.get());
+
+                //If an invariant does not hold
+                if (failure != null) {
+
+                    failures++;
+                    System.err.println("**Round " + round + ": " + failure + "**");
+                }
+            }
+
+            System.err.printf("**%d threads, %d courses, %d students, %d requests per thread: %.1f million requests per second**%n",
+                    threads, courses, students, requests, (double) threads * requests * rounds / (elapsed / 1e3));
+            System.err.println((failures == 0) ? "**The invariants hold in all the " + rounds + " rounds**"
+                    : "**The invariants do not hold in " + failures + " rounds**");
+
+            //If an invariant does not hold
+            if (failures > 0) {
+                System.exit(1);
+            }
+
+        } finally {
+            SimulationLog.setLevels(levels);
+        }
+    }
+
+    /**
+     * Asks for seats from many threads started at the same time
+     *
+     * @param threads  number of threads
+     * @param requests number of requests of every thread
+     * @param round    number of the round, the seed of the random sources of the threads
+     * @param courses  the courses of the school
+     * @param students the students of the school
+     * @param accepted counts the requests accepted
+     * @throws InterruptedException if the main thread is interrupted while waiting for the threads
+     */
+    private static void request(int threads, int requests, int round, List<Course> courses, List<Student> students,
+                                AtomicInteger accepted) throws InterruptedException {
+
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        RandomSource random = new RandomSource(round);
+
+        //Loops for every thread
+        for (int t = 0; t < threads; t++) {
+
+            RandomSource threadRandom = random.split(t);
+
+            workers[t] = new Thread(() -> {
+
+                //Tries to wait until every thread has started
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                int count = 0;
+
+                //Loops for every request
+                for (int i = 0; i < requests; i++) {
+
+                    Course course = courses.get(threadRandom.nextInt(courses.size()));
+                    Student student = students.get(threadRandom.nextInt(students.size()));
+
+                    //If the student got a seat
+                    if (course.enrolStudent(student)) {
+                        count++;
+                    }
+                }
+
+                accepted.addAndGet(count);
+            });
+
+            workers[t].start();
+        }
+
+        ready.countDown();
+
+        //Waits for every thread
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Checks the invariants of the enrolments
+     *
+     * @param school   the school
+     * @param courses  the courses of the school
+     * @param students the students of the school
+     * @param accepted the number of requests accepted
+     * @return the invariant that does not hold, null if all of them hold
+     */
+    private static String check(School school, List<Course> courses, List<Student> students, int accepted) {
+
+        IdentityHashMap<Student, Course> enrolments = new IdentityHashMap<>();
+        HashSet<Course> open = new HashSet<>();
+        int seats = 0;
+
+        //Loops for every course
+        for (Course course : courses) {
+
+            List<Student> enrolled = course.getStudentList();
+
+            //If the course is overbooked or its number of students is wrong
+            if ((course.getSize() > Course.CAPACITY) || (course.getSize() != enrolled.size())) {
+                return "the course " + course.getSubject().getDescription() + " has " + course.getSize()
+                        + " seats taken and " + enrolled.size() + " students";
+            }
+
+            //Loops for every student of the course
+            for (Student student : enrolled) {
+
+                //If the student is enrolled in another course too
+                if (enrolments.put(student, course) != null) {
+                    return "the student " + student.getName() + " is enrolled twice";
+                }
+            }
+
+            //If the course still has seats
+            if (course.getSize() < Course.CAPACITY) {
+                open.add(course);
+            }
+
+            seats += enrolled.size();
+        }
+
+        //If some enrolments accepted are lost or some are not accepted
+        if (seats != accepted) {
+            return accepted + " enrolments accepted but " + seats + " students enrolled";
+        }
+
+        int notEnrolled = 0;
+
+        //Loops for every student
+        for (Student student : students) {
+
+            Course course = enrolments.get(student);
+
+            //If the state of the student does not agree with the courses
+            if ((student.isEnrolled() != (course != null)) || ((course != null) && (student.getCourseEnrolled() != course))) {
+                return "the student " + student.getName() + " does not agree with the courses";
+            }
+
+            //If the student is not enrolled
+            if (course == null) {
+                notEnrolled++;
+            }
+        }
+
+        //If the index of the school does not agree with the students and the courses
+        if ((school.getStudentsNotEnrolled().size() != notEnrolled) || !(new HashSet<>(school.getIndex().getCoursesOpen()).equals(open))) {
+            return "the index of the school does not agree with the students and the courses";
+        }
+
+        return null;
+    }
+}
@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 /**
  * This class represents a GUI Trainer.<br>
  * A GUI Trainer inherits properties and methods from the class {@link Teacher}.<br>
@@ -33,13 +35,14 @@ public class GUITrainer extends Teacher {
     }
 
     /**
-     * Returns a string containing the information of the GUI Trainer
+     * Appends the type and the information of the GUI trainer
      *
-     * @return information of the GUI Trainer
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
      */
     @Override
-    public String toString() {
-        String guiTrainerIntro = "Sub-Instructor type: GUI TRAINER\n";
-        return guiTrainerIntro + super.toString();
+    public void appendTo(Appendable out) throws IOException {
+        out.append("Sub-Instructor type: GUI TRAINER\n");
+        super.appendTo(out);
     }
 }
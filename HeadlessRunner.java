@@ -0,0 +1,205 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * This class runs the modes of {@link Administrator} simulating a school without pauses, recaps and user inputs:
+ * '--headless', '--checkpoint' and '--resume'.<br>
+ * The arguments are the ones of the command line, starting with the mode.
+ *
+ * @author albertoTamajo
+ */
+final class HeadlessRunner {
+
+    private static final int CHECKPOINT_INTERVAL = 100;
+    private static final int DELTAS_PER_BASE = 10;
+
+
+    /**
+     * This class only has static methods
+     */
+    private HeadlessRunner() {
+    }
+
+    /**
+     * Runs a school simulation in headless mode.<br>
+     * The arguments must be '--headless', the file path of a simulation file, the number of days,
+     * optionally a seed and optionally the file path of a journal recording the simulation, see {@link SimulationJournal}.<br>
+     * The daily events are the same of {@link Administrator#run(int)}, but there are no pauses,
+     * no recaps and no user inputs. The simulation speed is printed out at the end.
+     *
+     * @param args command line arguments
+     */
+    static void runHeadless(String[] args) {
+
+        //If the file path or the number of days are missing
+        if (args.length < 3) {
+
+            System.err.println("Usage: java Administrator --headless <simulation file> <days> [seed] [journal file]");
+            return;
+        }
+
+        Administrator administrator = new Administrator();
+
+        //Tries to load the simulation file and to run the simulation
+        try {
+
+            int days = Integer.parseInt(args[2]);
+
+            //If a seed has been provided
+            if (args.length > 3) {
+                administrator.getSchool().setRandom(new RandomSource(Long.parseLong(args[3])));
+            }
+
+            //The number of days must be greater than 0
+            if (days <= 0) {
+                throw new NumberFormatException();
+            }
+
+            administrator.loadSimulationFile(args[1]);
+
+            //If the simulation has to be recorded
+            if (args.length > 4) {
+
+                SimulationJournal journal = SimulationJournal.open(Paths.get(args[4]), administrator.getSchool());
+
+                //Tries to run the simulation, closing the journal at the end
+                try {
+                    administrator.runHeadless(days);
+                } finally {
+                    journal.close();
+                }
+
+            } else {
+                administrator.runHeadless(days);
+            }
+
+        } catch (NumberFormatException e) {
+            System.err.println("Sorry, the number of days must be greater than 0");
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            System.err.println("Your source has not been found");
+        } catch (SubjectsNotFoundException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error");
+        }
+    }
+
+    /**
+     * Runs a school simulation in headless mode writing periodic checkpoints, see {@link CheckpointWriter}.<br>
+     * The arguments must be '--checkpoint', the file path of a simulation file, the number of days,
+     * the directory of the checkpoints, optionally the number of days between two checkpoints and optionally a seed.
+     *
+     * @param args command line arguments
+     */
+    static void runCheckpointed(String[] args) {
+
+        //If some arguments are missing
+        if (args.length < 4) {
+
+            System.err.println("Usage: java Administrator --checkpoint <simulation file> <days> <checkpoint directory> [interval] [seed]");
+            return;
+        }
+
+        Administrator administrator = new Administrator();
+
+        //Tries to load the simulation file and to run the simulation
+        try {
+
+            int days = Integer.parseInt(args[2]);
+            int interval = (args.length > 4) ? Integer.parseInt(args[4]) : CHECKPOINT_INTERVAL;
+
+            //If a seed has been provided
+            if (args.length > 5) {
+                administrator.getSchool().setRandom(new RandomSource(Long.parseLong(args[5])));
+            }
+
+            //The number of days and the interval must be greater than 0
+            if ((days <= 0) || (interval <= 0)) {
+                throw new NumberFormatException();
+            }
+
+            administrator.loadSimulationFile(args[1]);
+            runCheckpointed(administrator, days, Paths.get(args[3]), interval);
+
+        } catch (NumberFormatException e) {
+            System.err.println("Sorry, the number of days and the interval must be greater than 0");
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            System.err.println("Your source has not been found");
+        } catch (SubjectsNotFoundException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Resumes a school simulation from its latest checkpoint and runs it in headless mode,
+     * writing the next checkpoints to the same directory.<br>
+     * The arguments must be '--resume', the directory of the checkpoints, the number of days to run
+     * and optionally the number of days between two checkpoints.
+     *
+     * @param args command line arguments
+     */
+    static void runResumed(String[] args) {
+
+        //If some arguments are missing
+        if (args.length < 3) {
+
+            System.err.println("Usage: java Administrator --resume <checkpoint directory> <days> [interval]");
+            return;
+        }
+
+        //Tries to load the latest checkpoint and to run the simulation
+        try {
+
+            int days = Integer.parseInt(args[2]);
+            int interval = (args.length > 3) ? Integer.parseInt(args[3]) : CHECKPOINT_INTERVAL;
+
+            //The number of days and the interval must be greater than 0
+            if ((days <= 0) || (interval <= 0)) {
+                throw new NumberFormatException();
+            }
+
+            School school = CheckpointLoader.loadLatest(Paths.get(args[1]));
+            System.out.println("**Simulation resumed on day " + school.getDaysRunning() + "**");
+
+            runCheckpointed(new Administrator(school), days, Paths.get(args[1]), interval);
+
+        } catch (NumberFormatException e) {
+            System.err.println("Sorry, the number of days and the interval must be greater than 0");
+        } catch (NoSuchFileException e) {
+            System.err.println("No checkpoints have been found");
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the simulation of an administrator in headless mode writing periodic checkpoints
+     *
+     * @param administrator the administrator of the school simulated
+     * @param days          number of simulation days
+     * @param directory     the directory of the checkpoints
+     * @param interval      the number of days between two checkpoints
+     * @throws IOException if a checkpoint cannot be written
+     */
+    private static void runCheckpointed(Administrator administrator, int days, Path directory, int interval) throws IOException {
+
+        CheckpointWriter checkpoints = CheckpointWriter.open(directory, administrator.getSchool(), interval, DELTAS_PER_BASE);
+
+        //Tries to run the simulation, waiting for the checkpoints to be written in any case
+        try {
+            administrator.runHeadless(days);
+        } finally {
+            checkpoints.close();
+        }
+
+        System.out.println("**" + checkpoints.getBytesWritten() + " bytes of checkpoints written to " + directory + "**");
+        System.out.printf("**%d checkpoints, pause of the simulation: %.3f ms on average, %.3f ms at most**%n",
+                checkpoints.getPauses(), checkpoints.getAveragePauseNanos() / 1e6, checkpoints.getMaxPauseNanos() / 1e6);
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class represents a set of IDs (e.g. the IDs of subjects) as a compressed bitmap.<br>
+ * The IDs are grouped in words of 64 consecutive IDs and only the words containing at least one ID are kept,
+ * ordered by their position, so that the memory of a set depends on the number of its IDs and not on their values:
+ * any int, negative or as large as {@link Integer#MAX_VALUE}, can be an ID.
+ * The words of a dense set of small IDs are found directly by their position, the others through a binary search,
+ * and checking whether a set contains all the IDs of another set takes a few word operations.
+ *
+ * @author albertoTamajo
+ */
+public class IdBitSet implements Serializable {
+
+    private int[] keys;
+    private long[] words;
+    private int count;
+    private int size;
+
+
+    /**
+     * Creates an empty set
+     */
+    public IdBitSet() {
+        this.keys = new int[1];
+        this.words = new long[1];
+        this.count = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Creates a set containing some IDs
+     *
+     * @param ids IDs to add to the set
+     */
+    public IdBitSet(Iterable<Integer> ids) {
+
+        this();
+
+        //Adds every ID
+        for (int id : ids) {
+            add(id);
+        }
+    }
+
+    /**
+     * Adds an ID to the set
+     *
+     * @param id an ID
+     * @return true if the ID has been added, false if the set already contained it
+     */
+    public boolean add(int id) {
+
+        int key = id >> 6;
+        int index = indexOf(key);
+
+        //If the set has no word for the ID yet
+        if (index < 0) {
+
+            index = -(index + 1);
+            insert(index, key);
+        }
+
+        long bit = 1L << id;
+
+        //If the set already contains the ID
+        if ((words[index] & bit) != 0) {
+            return false;
+        }
+
+        words[index] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds all the IDs of another set
+     *
+     * @param other another set
+     */
+    public void addAll(IdBitSet other) {
+
+        //Loops for every word of the other set
+        for (int i = 0; i < other.count; i++) {
+
+            int index = indexOf(other.keys[i]);
+
+            //If the set has no word for these IDs yet
+            if (index < 0) {
+
+                index = -(index + 1);
+                insert(index, other.keys[i]);
+            }
+
+            size += Long.bitCount(other.words[i] & ~words[index]);
+            words[index] |= other.words[i];
+        }
+    }
+
+    /**
+     * Removes an ID from the set
+     *
+     * @param id an ID
+     * @return true if the ID has been removed, false if the set did not contain it
+     */
+    public boolean remove(int id) {
+
+        int index = indexOf(id >> 6);
+        long bit = 1L << id;
+
+        //If the set does not contain the ID
+        if ((index < 0) || ((words[index] & bit) == 0)) {
+            return false;
+        }
+
+        words[index] &= ~bit;
+        size--;
+
+        //If the word has no IDs anymore
+        if (words[index] == 0) {
+
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(words, index + 1, words, index, count - index - 1);
+            count--;
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes all the IDs
+     */
+    public void clear() {
+        count = 0;
+        size = 0;
+    }
+
+    /**
+     * Checks whether or not the set contains an ID
+     *
+     * @param id an ID
+     * @return true if the set contains the ID, false otherwise
+     */
+    public boolean contains(int id) {
+
+        int index = indexOf(id >> 6);
+        return (index >= 0) && ((words[index] & (1L << id)) != 0);
+    }
+
+    /**
+     * Checks whether or not the set contains all the IDs of another set
+     *
+     * @param other another set
+     * @return true if every ID of the other set is in this set, false otherwise
+     */
+    public boolean containsAll(IdBitSet other) {
+
+        //If the other set has more IDs
+        if (other.size > size) {
+            return false;
+        }
+
+        //Loops for every word of the other set
+        for (int i = 0; i < other.count; i++) {
+
+            int index = indexOf(other.keys[i]);
+            long word = (index >= 0) ? words[index] : 0;
+
+            //If the other set has an ID not present in this set
+            if ((other.words[i] & ~word) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the number of IDs of the set
+     *
+     * @return the number of IDs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether or not the set is empty
+     *
+     * @return true if the set has no IDs, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the IDs of the set in ascending order
+     *
+     * @return a new array containing the IDs of the set
+     */
+    public int[] toArray() {
+
+        int[] ids = new int[size];
+        int next = 0;
+
+        //Loops for every word of the set
+        for (int i = 0; i < count; i++) {
+
+            long bits = words[i];
+
+            //Loops for every ID of the word
+            while (bits != 0) {
+
+                ids[next++] = (keys[i] << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of the set in ascending order
+     *
+     * @return a new ArrayList containing the IDs of the set
+     */
+    public ArrayList<Integer> toList() {
+
+        ArrayList<Integer> ids = new ArrayList<>(size);
+
+        //Loops for every ID of the set
+        for (int id : toArray()) {
+            ids.add(id);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of the set in ascending order in one string
+     *
+     * @return a string like "[1, 2, 3]"
+     */
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    /**
+     * Finds the word of 64 IDs at a position
+     *
+     * @param key the position of the word, that is an ID shifted right by 6 bits
+     * @return the index of the word, or -(insertion point + 1) if the set has no such word
+     */
+    private int indexOf(int key) {
+
+        //If the set is dense from the word of the ID 0 up to the word searched
+        if ((key >= 0) && (key < count) && (keys[key] == key)) {
+            return key;
+        }
+
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    /**
+     * Inserts an empty word keeping the words ordered by position
+     *
+     * @param index the index of the new word
+     * @param key   the position of the new word
+     */
+    private void insert(int index, int key) {
+
+        //If the arrays are full
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * count);
+            words = Arrays.copyOf(words, 2 * count);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, count - index);
+        System.arraycopy(words, index, words, index + 1, count - index);
+
+        keys[index] = key;
+        words[index] = 0;
+        count++;
+    }
+}
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -15,6 +16,7 @@ public abstract class Instructor extends Person implements Serializable {
 
     private Course assignedCourse;
     private boolean isTeaching;
+    private StateListener listener;
 
     /**
      * Creates an Instructor with name, gender and age
@@ -42,22 +44,23 @@ public abstract class Instructor extends Person implements Serializable {
             //If the Instructor can teach the course
             if (canTeach(course.getSubject())) {
 
-                System.out.println("**The instructor " + this.getName() + " has been assigned to the " + course.getSubject().getDescription() + " Course**\n");
+                SimulationLog.log(SimulationLog.Event.INSTRUCTOR_ASSIGNED, this.getName(), course.getSubject().getDescription());
                 assignedCourse = course;
                 isTeaching = true;
+                notifyListener();
                 return true;
 
             } else {
 
                 //If the instructor cannot teach the course
-                System.out.println("**The instructor " + this.getName() + " cannot teach the " + course.getSubject().getDescription() + " Course**\n");
+                SimulationLog.log(SimulationLog.Event.INSTRUCTOR_CANNOT_TEACH, this.getName(), course.getSubject().getDescription());
                 return false;
             }
 
         } else {
 
             //If the instructor is teaching
-            System.out.println("**The instructor " + this.getName() + " is already teaching " + assignedCourse.getSubject().getDescription() + " Course. Therefore, he/she cannot teach the " + course.getSubject().getDescription() + " Course**\n");
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_ALREADY_TEACHING, this.getName(), assignedCourse.getSubject().getDescription(), course.getSubject().getDescription());
             return false;
         }
     }
@@ -70,9 +73,40 @@ public abstract class Instructor extends Person implements Serializable {
         //If the instructor has an assigned course
         if (assignedCourse != null) {
 
-            System.out.println("**The instructor " + this.getName() + " has been unassigned to the Course " + assignedCourse.getSubject().getDescription() + "**\n");
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_UNASSIGNED, this.getName(), assignedCourse.getSubject().getDescription());
             assignedCourse = null;
             isTeaching = false;
+            notifyListener();
+        }
+    }
+
+    /**
+     * Assigns a course without printing out anything or notifying the listener, see {@link SchoolSnapshot}
+     *
+     * @param course the course taught by the instructor
+     */
+    void restoreAssignment(Course course) {
+        assignedCourse = course;
+        isTeaching = true;
+    }
+
+    /**
+     * Sets the listener notified when the state of the instructor changes
+     *
+     * @param listener a listener, null if no listener must be notified
+     */
+    void setListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener that the state of the instructor has changed
+     */
+    private void notifyListener() {
+
+        //If a listener is set
+        if (listener != null) {
+            listener.instructorChanged(this);
         }
     }
 
@@ -100,7 +134,7 @@ public abstract class Instructor extends Person implements Serializable {
         } else {
 
             //If the instructor is not teaching
-            System.out.println("**This instructor is not teaching**");
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_NOT_TEACHING);
 
             //assignedCourse is null
             return assignedCourse;
@@ -116,28 +150,29 @@ public abstract class Instructor extends Person implements Serializable {
     abstract boolean canTeach(Subject subject);
 
     /**
-     * Returns a string containing the information of the instructor
+     * Appends the information of the instructor and of his/her assigned course
      *
-     * @return information of the instructor
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
      */
     @Override
-    public String toString() {
+    public void appendTo(Appendable out) throws IOException {
 
-        String assignedCourse = "Assigned Course: ";
-        String yes = "YES" + "\n";
-        String no = "NO" + "\n";
-        String fancyCharacters = "+------------------------------------+";
+        super.appendTo(out);
+        out.append("Assigned Course: ");
 
         //If the Instructor has an assigned course
         if (this.assignedCourse != null) {
 
-            return super.toString() + assignedCourse + yes + this.assignedCourse.toString() + fancyCharacters + "\n";
+            out.append("YES\n");
+            this.assignedCourse.appendTo(out);
 
         } else {
 
             //If the instructor does not have an assigned course
-            return super.toString() + assignedCourse + no + fancyCharacters + "\n";
+            out.append("NO\n");
         }
 
+        out.append("+------------------------------------+\n");
     }
 }
@@ -0,0 +1,258 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class assigns instructors not teaching to courses with no instructor.<br>
+ * The courses are grouped by the specialism of their subject and the instructors are grouped
+ * by the set of specialisms they can teach (e.g. a Teacher covers 1, 2 and an OOTrainer covers 1, 2, 3).<br>
+ * A maximum flow between the two kinds of groups gives the number of instructors of every group
+ * assigned to every specialism, which is a maximum matching between courses and instructors.
+ * Since the groups are few, the assignment takes time proportional to the number of courses and instructors.<br>
+ * The instructors' specialisms are assumed to depend only on the specialism of a subject.
+ *
+ * @author albertoTamajo
+ */
+public class InstructorMatcher {
+
+    private static final int SOURCE = 0;
+    private static final int SINK = 1;
+
+
+    /**
+     * Assigns instructors to courses so that the number of courses with an instructor is maximum.<br>
+     * Among the courses with the same specialism, the ones starting first get an instructor first.
+     *
+     * @param courses     courses with no instructor
+     * @param instructors instructors not teaching
+     * @return the number of courses that have got an instructor
+     */
+    public static int assign(Collection<Course> courses, Collection<Instructor> instructors) {
+
+        //If there is nothing to assign
+        if (courses.isEmpty() || instructors.isEmpty()) {
+            return 0;
+        }
+
+        //Groups the courses by specialism
+        LinkedHashMap<Integer, ArrayDeque<Course>> coursesBySpecialism = coursesBySpecialism(courses);
+        List<Subject> specialisms = new ArrayList<>();
+
+        //Keeps a subject of every specialism in order to ask the instructors whether they can teach it
+        for (ArrayDeque<Course> bucket : coursesBySpecialism.values()) {
+            specialisms.add(bucket.peekFirst().getSubject());
+        }
+
+        //Groups the instructors by the specialisms they can teach
+        LinkedHashMap<BitSet, ArrayDeque<Instructor>> instructorsByCoverage = instructorsByCoverage(instructors, specialisms);
+
+        List<ArrayDeque<Course>> courseGroups = new ArrayList<>(coursesBySpecialism.values());
+        List<BitSet> coverages = new ArrayList<>(instructorsByCoverage.keySet());
+        int[][] flow = maximumFlow(courseGroups, coverages, new ArrayList<>(instructorsByCoverage.values()));
+
+        int assigned = 0;
+
+        //Assigns the instructors according to the flow between specialisms and groups of instructors
+        for (int i = 0; i < courseGroups.size(); i++) {
+
+            for (int j = 0; j < coverages.size(); j++) {
+
+                ArrayDeque<Instructor> group = instructorsByCoverage.get(coverages.get(j));
+
+                //Loops for every unit of flow
+                for (int k = 0; k < flow[i][j]; k++) {
+
+                    //The instructor can teach the course, thus the assignment succeeds
+                    if (courseGroups.get(i).pollFirst().setInstructor(group.pollFirst())) {
+                        assigned++;
+                    }
+                }
+            }
+        }
+
+        return assigned;
+    }
+
+    /**
+     * Groups courses by the specialism of their subject.<br>
+     * Every group is sorted so that the courses starting first come first.
+     *
+     * @param courses courses with no instructor
+     * @return the courses grouped by specialism
+     */
+    private static LinkedHashMap<Integer, ArrayDeque<Course>> coursesBySpecialism(Collection<Course> courses) {
+
+        ArrayList<Course> sortedCourses = new ArrayList<>(courses);
+        sortedCourses.sort(Comparator.comparingInt(Course::getNextEventDay));
+
+        LinkedHashMap<Integer, ArrayDeque<Course>> coursesBySpecialism = new LinkedHashMap<>();
+
+        //Adds every course to the group of its specialism
+        for (Course course : sortedCourses) {
+
+            int specialism = course.getSubject().getSpecialism();
+            coursesBySpecialism.computeIfAbsent(specialism, s -> new ArrayDeque<>()).addLast(course);
+        }
+
+        return coursesBySpecialism;
+    }
+
+    /**
+     * Groups instructors by the specialisms they can teach
+     *
+     * @param instructors instructors not teaching
+     * @param specialisms a subject of every specialism
+     * @return the instructors grouped by the set of indexes of the specialisms they can teach
+     */
+    private static LinkedHashMap<BitSet, ArrayDeque<Instructor>> instructorsByCoverage(Collection<Instructor> instructors, List<Subject> specialisms) {
+
+        LinkedHashMap<BitSet, ArrayDeque<Instructor>> instructorsByCoverage = new LinkedHashMap<>();
+
+        //Adds every instructor to the group of the specialisms he/she can teach
+        for (Instructor instructor : instructors) {
+
+            BitSet coverage = new BitSet(specialisms.size());
+
+            //Checks every specialism
+            for (int i = 0; i < specialisms.size(); i++) {
+
+                //If the instructor can teach the specialism
+                if (instructor.canTeach(specialisms.get(i))) {
+                    coverage.set(i);
+                }
+            }
+
+            //If the instructor can teach at least one course
+            if (!(coverage.isEmpty())) {
+                instructorsByCoverage.computeIfAbsent(coverage, c -> new ArrayDeque<>()).addLast(instructor);
+            }
+        }
+
+        return instructorsByCoverage;
+    }
+
+    /**
+     * Computes a maximum flow (Edmonds-Karp) from the groups of courses to the groups of instructors.<br>
+     * The nodes of the network are the source, the sink, one node for every specialism
+     * and one node for every group of instructors.
+     *
+     * @param courseGroups the courses grouped by specialism
+     * @param coverages    the specialisms covered by every group of instructors
+     * @param groups       the groups of instructors
+     * @return the flow from every specialism to every group of instructors
+     */
+    private static int[][] maximumFlow(List<ArrayDeque<Course>> courseGroups, List<BitSet> coverages, List<ArrayDeque<Instructor>> groups) {
+
+        int specialisms = courseGroups.size();
+        int nodes = 2 + specialisms + coverages.size();
+        int[][] capacity = new int[nodes][nodes];
+
+        //Connects the source to every specialism and every specialism to the groups covering it
+        for (int i = 0; i < specialisms; i++) {
+
+            capacity[SOURCE][2 + i] = courseGroups.get(i).size();
+
+            for (int j = 0; j < coverages.size(); j++) {
+
+                //If the group of instructors can teach the specialism
+                if (coverages.get(j).get(i)) {
+                    capacity[2 + i][2 + specialisms + j] = Integer.MAX_VALUE;
+                }
+            }
+        }
+
+        //Connects every group of instructors to the sink
+        for (int j = 0; j < groups.size(); j++) {
+            capacity[2 + specialisms + j][SINK] = groups.get(j).size();
+        }
+
+        int[][] residual = new int[nodes][];
+
+        //Copies the capacities into the residual network
+        for (int i = 0; i < nodes; i++) {
+            residual[i] = capacity[i].clone();
+        }
+
+        int[] parent = new int[nodes];
+
+        //Loops until there are augmenting paths
+        while (augmentingPath(residual, parent)) {
+
+            int bottleneck = Integer.MAX_VALUE;
+
+            //Finds the minimum residual capacity along the path
+            for (int v = SINK; v != SOURCE; v = parent[v]) {
+                bottleneck = Math.min(bottleneck, residual[parent[v]][v]);
+            }
+
+            //Updates the residual network along the path
+            for (int v = SINK; v != SOURCE; v = parent[v]) {
+
+                residual[parent[v]][v] -= bottleneck;
+                residual[v][parent[v]] += bottleneck;
+            }
+        }
+
+        int[][] flow = new int[specialisms][coverages.size()];
+
+        //The flow on an edge is the capacity used
+        for (int i = 0; i < specialisms; i++) {
+
+            for (int j = 0; j < coverages.size(); j++) {
+
+                //If the edge exists
+                if (capacity[2 + i][2 + specialisms + j] > 0) {
+                    flow[i][j] = capacity[2 + i][2 + specialisms + j] - residual[2 + i][2 + specialisms + j];
+                }
+            }
+        }
+
+        return flow;
+    }
+
+    /**
+     * Finds a shortest path from the source to the sink in the residual network (breadth-first search)
+     *
+     * @param residual the residual network
+     * @param parent   the parent of every node along the path found
+     * @return true if a path has been found, false otherwise
+     */
+    private static boolean augmentingPath(int[][] residual, int[] parent) {
+
+        Arrays.fill(parent, -1);
+        parent[SOURCE] = SOURCE;
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(SOURCE);
+
+        //Loops until all reachable nodes are visited
+        while (!(queue.isEmpty())) {
+
+            int u = queue.poll();
+
+            for (int v = 0; v < residual.length; v++) {
+
+                //If the node has not been visited and can be reached
+                if ((parent[v] == -1) && (residual[u][v] > 0)) {
+
+                    parent[v] = u;
+
+                    //If the sink has been reached
+                    if (v == SINK) {
+                        return true;
+                    }
+
+                    queue.add(v);
+                }
+            }
+        }
+
+        return false;
+    }
+}
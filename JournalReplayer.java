@@ -0,0 +1,484 @@
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * This class rebuilds the state of a {@link School} from a journal written by {@link SimulationJournal}.<br>
+ * The initial scenario stored in the journal is deserialised and the records are applied to it in order:
+ * the people, subjects, courses, assignments and enrolments are applied as they are recorded
+ * and the courses are advanced at the start of every day, exactly as the simulation did.
+ * Nothing is chosen randomly and no matching is computed, so a replay is much faster than the simulation.<br>
+ * If the journal stops in the middle of a record, the record is ignored and a
+ * {@link SimulationLog.Event#JOURNAL_TRUNCATED} warning is logged.<br>
+ * The notifications of the school being rebuilt go to the {@link SimulationLog} of the JVM, whose levels are left to the caller.
+ *
+ * @author albertoTamajo
+ */
+public class JournalReplayer implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final ArrayList<Object> entities;
+    private School school;
+
+
+    /**
+     * Creates a replayer reading a journal file
+     *
+     * @param channel the channel of the journal file
+     */
+    private JournalReplayer(FileChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.flip();
+        this.entities = new ArrayList<>();
+    }
+
+    /**
+     * Rebuilds the state of a school at the end of a day
+     *
+     * @param path the path of the journal file
+     * @param day  the day; if the journal ends before the end of the day,
+     *             the state at the end of the journal is returned
+     * @return the school as it was at the end of the day
+     * @throws IOException if the journal cannot be read or is not consistent
+     */
+    public static School replay(Path path, int day) throws IOException {
+
+        //Tries to read the journal, closing it at the end
+        try (JournalReplayer replayer = new JournalReplayer(FileChannel.open(path, StandardOpenOption.READ))) {
+
+            replayer.readScenario();
+            replayer.apply(day);
+            return replayer.school;
+        }
+    }
+
+    /**
+     * Rebuilds the state of a school at the end of a journal
+     *
+     * @param path the path of the journal file
+     * @return the school as it was at the end of the journal
+     * @throws IOException if the journal cannot be read or is not consistent
+     */
+    public static School replay(Path path) throws IOException {
+        return replay(path, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the header and the initial scenario of the journal
+     *
+     * @throws IOException if the header is not valid or the scenario cannot be deserialised
+     */
+    private void readScenario() throws IOException {
+
+        //If the file is not a journal
+        if (!(fill(12)) || (buffer.getInt() != SimulationJournal.MAGIC)) {
+            throw new IOException("The file is not a simulation journal");
+        }
+
+        int version = buffer.getInt();
+
+        //If the journal has been written by an unknown version
+        if (version != SimulationJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+
+        byte[] scenario = new byte[buffer.getInt()];
+        int offset = 0;
+
+        //Loops until the whole scenario has been read
+        while (offset < scenario.length) {
+
+            //If the file ends before the scenario
+            if (!(fill(1))) {
+                throw new EOFException("The scenario of the journal is truncated");
+            }
+
+            int length = Math.min(buffer.remaining(), scenario.length - offset);
+            buffer.get(scenario, offset, length);
+            offset += length;
+        }
+
+        //Tries to deserialise the scenario
+        try (ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(scenario))) {
+            school = (School) objIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("The scenario of the journal cannot be read", e);
+        }
+
+        entities.addAll(SimulationJournal.scenarioEntities(school));
+    }
+
+    /**
+     * Applies the records of the journal up to the end of a day
+     *
+     * @param day the last day to apply
+     * @throws IOException if the journal cannot be read or is not consistent
+     */
+    private void apply(int day) throws IOException {
+
+        //If the scenario is already past the day
+        if (school.getDaysRunning() >= day) {
+            return;
+        }
+
+        //Loops until the end of the journal
+        while (fill(1)) {
+
+            byte type = buffer.get();
+
+            //Tries to apply the record
+            try {
+
+                //If the end of the day has been reached
+                if (applyRecord(type) >= day) {
+                    return;
+                }
+
+            } catch (EOFException e) {
+
+                //The last record was being written when the journal stopped
+                SimulationLog.log(SimulationLog.Event.JOURNAL_TRUNCATED);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a record
+     *
+     * @param type the type of the record
+     * @return the day ended by the record, -1 if the record does not end a day
+     * @throws IOException if the record cannot be read or does not match the state of the school
+     */
+    private int applyRecord(byte type) throws IOException {
+
+        switch (type) {
+
+            case SimulationJournal.SUBJECT_ADDED: {
+
+                int id = readInt();
+                int subjectId = readInt();
+                int specialism = readInt();
+                int duration = readInt();
+                String description = readString();
+                ArrayList<Integer> prerequisites = new ArrayList<>();
+
+                //Reads every prerequisite
+                for (int i = readInt(); i > 0; i--) {
+                    prerequisites.add(readInt());
+                }
+
+                Subject subject = new Subject(subjectId, specialism, duration, prerequisites);
+                subject.setDescription(description);
+                school.add(subject);
+                register(id, subject);
+                break;
+            }
+
+            case SimulationJournal.INSTRUCTOR_ADDED: {
+
+                int id = readInt();
+                Instructor instructor = newInstructor(readString(), readString(), (char) readInt(), readInt());
+                school.add(instructor);
+                register(id, instructor);
+                break;
+            }
+
+            case SimulationJournal.STUDENT_ADDED: {
+
+                int id = readInt();
+                Student student = new Student(readString(), (char) readInt(), readInt());
+
+                //Reads every certificate
+                for (int i = readInt(); i > 0; i--) {
+                    student.addCertificate(readInt());
+                }
+
+                school.add(student);
+                register(id, student);
+                break;
+            }
+
+            case SimulationJournal.COURSE_CREATED: {
+
+                int id = readInt();
+                Subject subject = entity(readInt(), Subject.class);
+                register(id, school.createCourse(subject, readInt()));
+                break;
+            }
+
+            case SimulationJournal.SUBJECT_REMOVED:
+                school.remove(release(readInt(), Subject.class));
+                break;
+
+            case SimulationJournal.INSTRUCTOR_REMOVED:
+                school.remove(release(readInt(), Instructor.class));
+                break;
+
+            case SimulationJournal.STUDENT_REMOVED:
+                school.remove(release(readInt(), Student.class));
+                break;
+
+            case SimulationJournal.COURSE_REMOVED:
+                school.remove(release(readInt(), Course.class));
+                break;
+
+            case SimulationJournal.INSTRUCTOR_ASSIGNED: {
+
+                Instructor instructor = entity(readInt(), Instructor.class);
+
+                //If the instructor cannot be assigned as recorded
+                if (!(entity(readInt(), Course.class).setInstructor(instructor))) {
+                    throw new IOException("The journal does not match the scenario: an instructor cannot be assigned");
+                }
+
+                break;
+            }
+
+            case SimulationJournal.STUDENT_ENROLLED: {
+
+                Student student = entity(readInt(), Student.class);
+
+                //If the student cannot be enrolled as recorded
+                if (!(entity(readInt(), Course.class).enrolStudent(student))) {
+                    throw new IOException("The journal does not match the scenario: a student cannot be enrolled");
+                }
+
+                break;
+            }
+
+            case SimulationJournal.COURSE_CANCELLED:
+                readInt();
+                break;
+
+            case SimulationJournal.COURSE_COMPLETED:
+                readInt();
+                readInt();
+                break;
+
+            case SimulationJournal.STUDENT_GRADUATED:
+                school.getStatistics().recordGraduation();
+                break;
+
+            case SimulationJournal.STUDENT_DROPPED_OUT:
+                school.getStatistics().recordDropout();
+                break;
+
+            case SimulationJournal.DAY_STARTED: {
+
+                int day = readInt();
+                school.advanceOneDay();
+
+                //If the clock of the school does not match the journal
+                if (school.getDaysRunning() != day) {
+                    throw new IOException("The journal does not match the scenario: day " + day + " expected");
+                }
+
+                break;
+            }
+
+            case SimulationJournal.DAY_ENDED: {
+
+                int day = readInt();
+                fillOrFail(8);
+                school.getRandom().setState(buffer.getLong());
+                return day;
+            }
+
+            default:
+                throw new IOException("Unknown journal record " + type);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Creates an instructor of a certain class
+     *
+     * @param kind   the name of the class of the instructor
+     * @param name   instructor's name
+     * @param gender instructor's gender
+     * @param age    instructor's age
+     * @return the new instructor
+     * @throws IOException if the class is not an instructor that can be created
+     */
+    static Instructor newInstructor(String kind, String name, char gender, int age) throws IOException {
+
+        //Tries to call the constructor with name, gender and age
+        try {
+
+            return Class.forName(kind).asSubclass(Instructor.class)
+                    .getConstructor(String.class, char.class, int.class)
+                    .newInstance(name, gender, age);
+
+        } catch (ClassNotFoundException | ClassCastException | NoSuchMethodException | InstantiationException
+                | IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("The instructor " + kind + " cannot be created", e);
+        }
+    }
+
+    /**
+     * Links a journal ID to a new entity
+     *
+     * @param id     the journal ID
+     * @param entity the entity
+     * @throws IOException if the ID is not the next one
+     */
+    private void register(int id, Object entity) throws IOException {
+
+        //If the IDs are not in order of appearance
+        if (id != entities.size()) {
+            throw new IOException("The journal does not match the scenario: ID " + entities.size() + " expected");
+        }
+
+        entities.add(entity);
+    }
+
+    /**
+     * Gets the entity of a journal ID
+     *
+     * @param id   the journal ID
+     * @param type the expected class of the entity
+     * @param <T>  the expected type of the entity
+     * @return the entity
+     * @throws IOException if there is no entity of that type with that ID
+     */
+    private <T> T entity(int id, Class<T> type) throws IOException {
+
+        Object entity = ((id >= 0) && (id < entities.size())) ? entities.get(id) : null;
+
+        //If the entity does not exist
+        if (!(type.isInstance(entity))) {
+            throw new IOException("The journal does not match the scenario: no " + type.getName() + " with ID " + id);
+        }
+
+        return type.cast(entity);
+    }
+
+    /**
+     * Gets the entity of a journal ID and forgets the ID
+     *
+     * @param id   the journal ID
+     * @param type the expected class of the entity
+     * @param <T>  the expected type of the entity
+     * @return the entity
+     * @throws IOException if there is no entity of that type with that ID
+     */
+    private <T> T release(int id, Class<T> type) throws IOException {
+
+        T entity = entity(id, type);
+        entities.set(id, null);
+        return entity;
+    }
+
+    /**
+     * Reads a zigzag variable-length int
+     *
+     * @return the value
+     * @throws IOException if the journal ends
+     */
+    private int readInt() throws IOException {
+
+        int bits = 0;
+
+        //Reads up to 5 groups of 7 bits
+        for (int shift = 0; shift < 35; shift += 7) {
+
+            fillOrFail(1);
+            byte next = buffer.get();
+            bits |= (next & 0x7F) << shift;
+
+            //If it is the last byte
+            if (next >= 0) {
+                return (bits >>> 1) ^ -(bits & 1);
+            }
+        }
+
+        throw new IOException("Malformed number in the journal");
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string
+     *
+     * @return the string
+     * @throws IOException if the journal ends
+     */
+    private String readString() throws IOException {
+
+        byte[] bytes = new byte[readInt()];
+        int offset = 0;
+
+        //Loops until all the bytes have been read
+        while (offset < bytes.length) {
+
+            fillOrFail(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, length);
+            offset += length;
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes a number of bytes available in the buffer
+     *
+     * @param bytes the number of bytes needed, not more than the size of the buffer
+     * @throws EOFException if the journal ends before
+     */
+    private void fillOrFail(int bytes) throws IOException {
+
+        //If the journal ends before
+        if (!(fill(bytes))) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Makes a number of bytes available in the buffer
+     *
+     * @param bytes the number of bytes needed, not more than the size of the buffer
+     * @return true if the bytes are available, false if the journal ends before
+     * @throws IOException if the journal cannot be read
+     */
+    private boolean fill(int bytes) throws IOException {
+
+        //If the bytes are not available yet
+        if (buffer.remaining() < bytes) {
+
+            buffer.compact();
+
+            //Loops until the bytes are available or the journal ends
+            while (buffer.position() < bytes) {
+
+                //If the journal ends
+                if (channel.read(buffer) < 0) {
+
+                    buffer.flip();
+                    return false;
+                }
+            }
+
+            buffer.flip();
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
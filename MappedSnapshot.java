@@ -0,0 +1,496 @@
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class reads a snapshot written by {@link SchoolSnapshot} without loading the school.<br>
+ * The snapshot file is mapped in memory and only the state of the simulation, the index of the records
+ * and the records of the courses are read when it is opened. Every other entity is read from the mapped file
+ * the first time it is asked for, through its position in its table, so the records never asked for stay
+ * in the file. An enrolled student or a teaching instructor comes with its course, the subject, the instructor
+ * and the students of the course.<br>
+ * The entities are not part of a school: changing them does not change the snapshot.
+ * The whole school is loaded by {@link #toSchool()}, since every day of the simulation visits every idle student.
+ *
+ * @author albertoTamajo
+ */
+public final class MappedSnapshot {
+
+    private final ByteBuffer buffer;
+    private final SchoolSnapshot.Image state;
+    private final SimulationClock clock;
+    private final int[][] offsets;
+    private final int[] members;
+    private final int[] stringOffsets;
+    private final String[] strings;
+    private final SchoolSnapshot.StringTable table;
+    private final SchoolSnapshot.CourseRecord[] courseRecords;
+    private final int[] studentCourses;
+    private final int[] instructorCourses;
+    private final Subject[] subjects;
+    private final Instructor[] instructors;
+    private final Student[] students;
+    private final Course[] courses;
+    private int materialised;
+
+
+    /**
+     * Creates the view of a mapped snapshot
+     *
+     * @param buffer the bytes of the snapshot file
+     * @throws IOException if the snapshot is not valid or it has no index
+     */
+    private MappedSnapshot(ByteBuffer buffer) throws IOException {
+
+        this.buffer = buffer;
+        this.table = this::string;
+
+        SnapshotInput in = input(0);
+
+        //If the snapshot has been written before the index was introduced
+        if (SchoolSnapshot.readHeader(in) < 2) {
+            throw new StreamCorruptedException("The snapshot has no index, load it and save it again");
+        }
+
+        this.state = new SchoolSnapshot.Image();
+        long stateOffset = in.position();
+
+        SnapshotInput index = input(indexOffset());
+
+        this.offsets = new int[SchoolSnapshot.TYPES][];
+        this.members = new int[SchoolSnapshot.TYPES];
+
+        //Reads the position of every record of every table
+        for (int type = 0; type < SchoolSnapshot.TYPES; type++) {
+
+            int size = readSize(index);
+            members[type] = readSize(index);
+
+            //If there are more entities in the school than in the table
+            if (members[type] > size) {
+                throw new StreamCorruptedException("Malformed table of " + size + " entities");
+            }
+
+            offsets[type] = readOffsets(index, size);
+        }
+
+        this.stringOffsets = readOffsets(index, readSize(index));
+        this.strings = new String[stringOffsets.length];
+
+        new SchoolSnapshot.Decoder(input(stateOffset), table).readState(state);
+        this.clock = new SimulationClock(state.day);
+
+        this.courseRecords = new SchoolSnapshot.CourseRecord[offsets[SchoolSnapshot.COURSES].length];
+        this.studentCourses = new int[offsets[SchoolSnapshot.STUDENTS].length];
+        this.instructorCourses = new int[offsets[SchoolSnapshot.INSTRUCTORS].length];
+
+        Arrays.fill(studentCourses, SchoolSnapshot.NONE);
+        Arrays.fill(instructorCourses, SchoolSnapshot.NONE);
+
+        //Reads every course, finding the course of every student and of every instructor
+        for (int id = 0; id < courseRecords.length; id++) {
+
+            SchoolSnapshot.CourseRecord record = decoder(SchoolSnapshot.COURSES, id).readCourse();
+            courseRecords[id] = record;
+
+            //If the course has an instructor
+            if (record.instructor != SchoolSnapshot.NONE) {
+                instructorCourses[check(record.instructor, instructorCourses.length)] = id;
+            }
+
+            //Finds every student enrolled
+            for (int student : record.students) {
+                studentCourses[check(student, studentCourses.length)] = id;
+            }
+        }
+
+        this.subjects = new Subject[offsets[SchoolSnapshot.SUBJECTS].length];
+        this.instructors = new Instructor[instructorCourses.length];
+        this.students = new Student[studentCourses.length];
+        this.courses = new Course[courseRecords.length];
+    }
+
+    /**
+     * Opens a snapshot file written by {@link SchoolSnapshot#save(School, Path)}
+     *
+     * @param path the path of the snapshot file
+     * @return the view of the snapshot
+     * @throws IOException if the file cannot be mapped or it is not a valid snapshot with an index
+     */
+    public static MappedSnapshot open(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            //If the file cannot be mapped in one piece
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to be mapped");
+            }
+
+            //The mapping stays valid once the channel is closed
+            return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Gets the name of the school
+     *
+     * @return the name
+     */
+    public String getName() {
+        return state.name;
+    }
+
+    /**
+     * Gets the day of the simulation when the snapshot was written
+     *
+     * @return the day
+     */
+    public int getDay() {
+        return state.day;
+    }
+
+    /**
+     * Gets the statistics of the school
+     *
+     * @return a copy of the statistics
+     */
+    public SchoolStatistics getStatistics() {
+
+        long[] statistics = state.statistics;
+        return new SchoolStatistics(statistics[0], statistics[1], statistics[2], statistics[3], statistics[4]);
+    }
+
+    /**
+     * Gets the number of subjects of the school, whose IDs go from 0 to this number minus 1
+     *
+     * @return the number of subjects
+     */
+    public int getSubjectCount() {
+        return members[SchoolSnapshot.SUBJECTS];
+    }
+
+    /**
+     * Gets the number of instructors of the school, whose IDs go from 0 to this number minus 1
+     *
+     * @return the number of instructors
+     */
+    public int getInstructorCount() {
+        return members[SchoolSnapshot.INSTRUCTORS];
+    }
+
+    /**
+     * Gets the number of students of the school, whose IDs go from 0 to this number minus 1
+     *
+     * @return the number of students
+     */
+    public int getStudentCount() {
+        return members[SchoolSnapshot.STUDENTS];
+    }
+
+    /**
+     * Gets the number of courses of the school, whose IDs go from 0 to this number minus 1
+     *
+     * @return the number of courses
+     */
+    public int getCourseCount() {
+        return members[SchoolSnapshot.COURSES];
+    }
+
+    /**
+     * Gets the number of entities read so far
+     *
+     * @return the number of entities read from the mapped file
+     */
+    public int getMaterialisedCount() {
+        return materialised;
+    }
+
+    /**
+     * Gets a subject.<br>
+     * The IDs after the subjects of the school belong to the subjects of its courses that are no longer part of it.
+     *
+     * @param id the position of the subject in the snapshot
+     * @return the subject
+     * @throws IOException if the record of the subject is not valid
+     */
+    public Subject getSubject(int id) throws IOException {
+
+        Objects.checkIndex(id, subjects.length);
+
+        //If the subject has not been read yet
+        if (subjects[id] == null) {
+
+            subjects[id] = decoder(SchoolSnapshot.SUBJECTS, id).readSubject();
+            materialised++;
+        }
+
+        return subjects[id];
+    }
+
+    /**
+     * Gets an instructor, together with the course he/she is teaching.<br>
+     * The IDs after the instructors of the school belong to the instructors of its courses that are no longer part of it.
+     *
+     * @param id the position of the instructor in the snapshot
+     * @return the instructor
+     * @throws IOException if the record of the instructor or of its course is not valid
+     */
+    public Instructor getInstructor(int id) throws IOException {
+
+        Instructor instructor = instructor(id);
+
+        //If the instructor is teaching
+        if (instructorCourses[id] != SchoolSnapshot.NONE) {
+            getCourse(instructorCourses[id]);
+        }
+
+        return instructor;
+    }
+
+    /**
+     * Gets a student, together with the course he/she is enrolled in.<br>
+     * The IDs after the students of the school belong to the students of its courses that are no longer part of it.
+     *
+     * @param id the position of the student in the snapshot
+     * @return the student
+     * @throws IOException if the record of the student or of its course is not valid
+     */
+    public Student getStudent(int id) throws IOException {
+
+        Student student = student(id);
+
+        //If the student is enrolled
+        if (studentCourses[id] != SchoolSnapshot.NONE) {
+            getCourse(studentCourses[id]);
+        }
+
+        return student;
+    }
+
+    /**
+     * Gets a course, together with its subject, its instructor and its students.<br>
+     * The IDs after the courses of the school belong to the courses of its people that are no longer part of it.
+     *
+     * @param id the position of the course in the snapshot
+     * @return the course
+     * @throws IOException if the record of the course or of the entities it refers to is not valid
+     */
+    public Course getCourse(int id) throws IOException {
+
+        Objects.checkIndex(id, courses.length);
+
+        //If the course has been read already
+        if (courses[id] != null) {
+            return courses[id];
+        }
+
+        SchoolSnapshot.CourseRecord record = courseRecords[id];
+
+        //If the course has no subject
+        if (record.subject == SchoolSnapshot.NONE) {
+            throw new StreamCorruptedException("Course with no subject");
+        }
+
+        Course course = new Course(getSubject(check(record.subject, subjects.length)), clock, record.startDay,
+                record.endDay, (record.flags & 1) != 0, (record.flags & 2) != 0, (record.flags & 4) != 0);
+
+        courses[id] = course;
+        materialised++;
+
+        ArrayList<Student> enrolled = new ArrayList<>(record.students.length);
+
+        //Reads every student enrolled
+        for (int student : record.students) {
+            enrolled.add(student(student));
+        }
+
+        course.restore((record.instructor == SchoolSnapshot.NONE) ? null : instructor(record.instructor), enrolled);
+        return course;
+    }
+
+    /**
+     * Loads the whole school from the mapped file.<br>
+     * The school does not share any entity with this view.
+     *
+     * @return the school saved
+     * @throws IOException if the snapshot is not valid
+     */
+    public School toSchool() throws IOException {
+        return SchoolSnapshot.read(input(0));
+    }
+
+    /**
+     * Gets an instructor without its course
+     *
+     * @param id the position of the instructor in the snapshot
+     * @return the instructor
+     * @throws IOException if the record of the instructor is not valid
+     */
+    private Instructor instructor(int id) throws IOException {
+
+        Objects.checkIndex(id, instructors.length);
+
+        //If the instructor has not been read yet
+        if (instructors[id] == null) {
+
+            instructors[id] = decoder(SchoolSnapshot.INSTRUCTORS, id).readInstructor();
+            materialised++;
+        }
+
+        return instructors[id];
+    }
+
+    /**
+     * Gets a student without its course
+     *
+     * @param id the position of the student in the snapshot
+     * @return the student
+     * @throws IOException if the record of the student is not valid
+     */
+    private Student student(int id) throws IOException {
+
+        Objects.checkIndex(id, students.length);
+
+        //If the student has not been read yet
+        if (students[id] == null) {
+
+            students[id] = decoder(SchoolSnapshot.STUDENTS, id).readStudent();
+            materialised++;
+        }
+
+        return students[id];
+    }
+
+    /**
+     * Gets a string of the snapshot, see {@link SchoolSnapshot.StringTable}
+     *
+     * @param ref the position of the string
+     * @param in  where the record referring to the string is read, possibly the place where the string is written
+     * @return the string
+     * @throws IOException if the string cannot be read or the position is not valid
+     */
+    private String string(int ref, SnapshotInput in) throws IOException {
+
+        check(ref, strings.length);
+
+        boolean written = (stringOffsets[ref] == in.position());
+
+        //If the string has not been read yet
+        if (strings[ref] == null) {
+            strings[ref] = written ? in.readString() : input(stringOffsets[ref]).readString();
+        } else if (written) {       //If the string is written in the record being read, it is skipped
+            in.readString();
+        }
+
+        return strings[ref];
+    }
+
+    /**
+     * Gets a decoder reading a record
+     *
+     * @param type the type of the entity
+     * @param id   the position of the entity in its table
+     * @return the decoder
+     */
+    private SchoolSnapshot.Decoder decoder(int type, int id) {
+        return new SchoolSnapshot.Decoder(input(offsets[type][id]), table);
+    }
+
+    /**
+     * Gets an input reading the mapped file from a position
+     *
+     * @param offset the position
+     * @return the input
+     */
+    private SnapshotInput input(long offset) {
+        return new SnapshotInput(buffer.duplicate().position((int) offset));
+    }
+
+    /**
+     * Gets the position of the index from the end of the file
+     *
+     * @return the position of the index
+     * @throws IOException if the file has no index
+     */
+    private long indexOffset() throws IOException {
+
+        int end = buffer.limit();
+
+        //If the file does not end with an index
+        if ((end < 12) || (buffer.getInt(end - 4) != SchoolSnapshot.INDEX_MAGIC)) {
+            throw new StreamCorruptedException("The snapshot has no index");
+        }
+
+        long offset = buffer.getLong(end - 12);
+
+        //If the position is out of the file
+        if ((offset < 0) || (offset > end - 12)) {
+            throw new StreamCorruptedException("Malformed index position " + offset);
+        }
+
+        return offset;
+    }
+
+    /**
+     * Reads the positions of the records of a table or of the strings
+     *
+     * @param index where the index is read
+     * @param size  the number of positions
+     * @return the positions
+     * @throws IOException if the index cannot be read or a position is out of the file
+     */
+    private int[] readOffsets(SnapshotInput index, int size) throws IOException {
+
+        int[] positions = new int[size];
+
+        //Reads every position
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = check(index.readFixedInt(), buffer.limit());
+        }
+
+        return positions;
+    }
+
+    /**
+     * Reads a size from the index
+     *
+     * @param index where the index is read
+     * @return the size
+     * @throws IOException if the index cannot be read or the size is negative
+     */
+    private static int readSize(SnapshotInput index) throws IOException {
+
+        int size = index.readInt();
+
+        //If the size is not valid
+        if (size < 0) {
+            throw new StreamCorruptedException("Malformed size " + size);
+        }
+
+        return size;
+    }
+
+    /**
+     * Checks a reference read from the snapshot
+     *
+     * @param ref   the reference
+     * @param limit the number of valid references
+     * @return the reference
+     * @throws IOException if the reference is not valid
+     */
+    private static int check(int ref, int limit) throws IOException {
+
+        //If the reference is out of range
+        if ((ref < 0) || (ref >= limit)) {
+            throw new StreamCorruptedException("Malformed reference " + ref);
+        }
+
+        return ref;
+    }
+}
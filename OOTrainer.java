@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 /**
  * This class represents a OO Trainer.<br>
  * An OO Trainer inherits properties and methods from the class {@link Teacher}.<br>
@@ -32,14 +34,14 @@ public class OOTrainer extends Teacher {
     }
 
     /**
-     * Returns a string containing the information of the OO Trainer
+     * Appends the type and the information of the OO trainer
      *
-     * @return information of the OO Trainer
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
      */
     @Override
-    public String toString() {
-
-        String ooTrainerIntro = "Sub-Instructor type: OO TRAINER\n";
-        return ooTrainerIntro + super.toString();
+    public void appendTo(Appendable out) throws IOException {
+        out.append("Sub-Instructor type: OO TRAINER\n");
+        super.appendTo(out);
     }
 }
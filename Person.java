@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -7,7 +8,7 @@ import java.io.Serializable;
  *
  * @author albertoTamajo
  */
-public abstract class Person implements Serializable, Comparable<Person> {
+public abstract class Person implements Serializable, Comparable<Person>, Reportable {
 
     private String name;
     private char gender;
@@ -139,11 +140,22 @@ public abstract class Person implements Serializable, Comparable<Person> {
      */
     @Override
     public String toString() {
+        return Reportable.toString(this);
+    }
+
+    /**
+     * Appends the name, gender and age of the person.<br>
+     * The subclasses append their own information as well.
+     *
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
+     */
+    @Override
+    public void appendTo(Appendable out) throws IOException {
 
-        String name = "Name: " + this.name + "\n";
-        String gender = "Gender: " + this.gender + "\n";
-        String age = "Age: " + +this.age + "\n";
-        return name + gender + age;
+        out.append("Name: ").append(this.name).append('\n');
+        out.append("Gender: ").append(this.gender).append('\n');
+        out.append("Age: ").append(String.valueOf(this.age)).append('\n');
     }
 
     /**
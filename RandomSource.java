@@ -0,0 +1,142 @@
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This class represents the source of randomness of a school simulation.<br>
+ * It implements the SplitMix64 generator (the algorithm of {@link java.util.SplittableRandom}),
+ * but it is serializable so that a saved simulation continues with the same random sequence.<br>
+ * Independent child sources can be derived deterministically from an index
+ * (e.g. a replica or a partition), so that the same seed always gives the same results
+ * regardless of the number of threads.
+ *
+ * @author albertoTamajo
+ */
+public class RandomSource implements Serializable {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long seed;
+
+
+    /**
+     * Creates a random source with a seed
+     *
+     * @param seed the seed of the random source
+     */
+    public RandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a random source with a seed depending on the current time
+     */
+    public RandomSource() {
+        this(mix64(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Mixes the bits of a value (variant 13 of Stafford's MurmurHash3 finalizer)
+     *
+     * @param z a value
+     * @return the mixed value
+     */
+    private static long mix64(long z) {
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a random long number
+     *
+     * @return a random long number
+     */
+    public long nextLong() {
+
+        seed += GOLDEN_GAMMA;
+        return mix64(seed);
+    }
+
+    /**
+     * Returns a random integer number ranging from 0 to the value of
+     * the parameter <code>upperBound</code> excluded
+     *
+     * @param upperBound upperBound of the range of possible numbers, greater than 0
+     * @return a random number
+     */
+    public int nextInt(int upperBound) {
+
+        //If the upper bound is not valid
+        if (upperBound <= 0) {
+            throw new IllegalArgumentException("The upper bound must be greater than 0");
+        }
+
+        int bits = (int) (nextLong() >>> 33);
+        int value = bits % upperBound;
+
+        //Rejects the values that would make the result biased
+        while (bits - value + (upperBound - 1) < 0) {
+
+            bits = (int) (nextLong() >>> 33);
+            value = bits % upperBound;
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns a random double number between 0.0 (included) and 1.0 (excluded)
+     *
+     * @return a random number between 0.0 and 1.0
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Gets the internal state of the random source
+     *
+     * @return the state of the generator
+     */
+    long getState() {
+        return seed;
+    }
+
+    /**
+     * Sets the internal state of the random source, e.g. one returned by {@link #getState()}
+     *
+     * @param state the state of the generator
+     */
+    void setState(long state) {
+        this.seed = state;
+    }
+
+    /**
+     * Returns a new random source derived from this one and an index.<br>
+     * The child source only depends on the current state and the index,
+     * and the state of this random source does not change.
+     *
+     * @param index index of the child source, e.g. the number of a replica or a partition
+     * @return an independent random source
+     */
+    public RandomSource split(long index) {
+        return new RandomSource(mix64(seed ^ mix64((index + 1) * GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Shuffles the elements of a list randomly (Fisher-Yates shuffle)
+     *
+     * @param list the list to shuffle
+     * @param <T>  type of the elements of the list
+     */
+    public <T> void shuffle(List<T> list) {
+
+        //Loops from the last element to the second one
+        for (int i = list.size() - 1; i > 0; i--) {
+
+            int j = nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+}
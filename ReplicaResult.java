@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/**
+ * This class represents the aggregated result of many replicas of the same school simulation.<br>
+ * For every simulated day and every {@link Metric}, it keeps the mean and some percentiles
+ * of the values observed by the replicas at the end of that day.
+ *
+ * @author albertoTamajo
+ */
+public class ReplicaResult {
+
+    /**
+     * The metrics observed at the end of every simulated day
+     */
+    public enum Metric {
+        STUDENTS, INSTRUCTORS, COURSES, CERTIFICATES_AWARDED, COURSES_COMPLETED,
+        COURSES_CANCELLED, STUDENTS_GRADUATED, STUDENTS_DROPPED_OUT
+    }
+
+    private int replicas;
+    private int days;
+    private double[][] means;
+    private long[][][] sortedValues;
+
+
+    /**
+     * Creates the result by merging the observations of every replica.<br>
+     * The observations of a replica are indexed by metric and by day.
+     *
+     * @param observations the observations of every replica
+     * @param days         number of simulated days
+     */
+    public ReplicaResult(long[][][] observations, int days) {
+
+        int metrics = Metric.values().length;
+
+        this.replicas = observations.length;
+        this.days = days;
+        this.means = new double[metrics][days];
+        this.sortedValues = new long[metrics][days][];
+
+        //Loops for every metric and every day
+        for (int metric = 0; metric < metrics; metric++) {
+
+            for (int day = 0; day < days; day++) {
+
+                long[] values = new long[replicas];
+                double sum = 0;
+
+                //Collects the value observed by every replica
+                for (int replica = 0; replica < replicas; replica++) {
+
+                    values[replica] = observations[replica][metric][day];
+                    sum += values[replica];
+                }
+
+                Arrays.sort(values);
+                means[metric][day] = sum / replicas;
+                sortedValues[metric][day] = values;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of replicas
+     *
+     * @return the number of replicas
+     */
+    public int getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Gets the number of simulated days
+     *
+     * @return the number of simulated days
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Gets the mean of a metric at the end of a day
+     *
+     * @param metric a metric
+     * @param day    a day, from 1 to the number of simulated days
+     * @return the mean of the values observed by the replicas
+     */
+    public double getMean(Metric metric, int day) {
+        return means[metric.ordinal()][day - 1];
+    }
+
+    /**
+     * Gets a percentile of a metric at the end of a day (nearest-rank method)
+     *
+     * @param metric     a metric
+     * @param day        a day, from 1 to the number of simulated days
+     * @param percentile a percentile ranging from 0 to 100 included
+     * @return the value at the given percentile
+     */
+    public long getPercentile(Metric metric, int day, double percentile) {
+
+        long[] values = sortedValues[metric.ordinal()][day - 1];
+        int rank = (int) Math.ceil(percentile / 100 * values.length);
+
+        return values[Math.min(Math.max(rank - 1, 0), values.length - 1)];
+    }
+
+    /**
+     * Returns the statistics of the last simulated day in one string
+     *
+     * @return a string containing mean, 5th, 50th and 95th percentile of every metric
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder result = new StringBuilder();
+        result.append("REPLICAS: ").append(replicas).append(", DAYS: ").append(days).append("\n");
+
+        //Loops for every metric
+        for (Metric metric : Metric.values()) {
+
+            result.append(metric).append(": mean ").append(String.format("%.2f", getMean(metric, days)))
+                    .append(", p5 ").append(getPercentile(metric, days, 5))
+                    .append(", p50 ").append(getPercentile(metric, days, 50))
+                    .append(", p95 ").append(getPercentile(metric, days, 95)).append("\n");
+        }
+
+        return result.toString();
+    }
+}
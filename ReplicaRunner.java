@@ -0,0 +1,137 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class runs many independent replicas of the same school simulation in parallel.<br>
+ * The scenario is loaded once and every replica works on its own copy of the {@link School},
+ * driven by a {@link RandomSource} split from the seed of the run by the number of the replica. The statistics observed by the replicas
+ * at the end of every day are merged into a {@link ReplicaResult}.<br>
+ * The notifications of the replicas go to the {@link SimulationLog} of the JVM, whose levels are left to the caller.
+ *
+ * @author albertoTamajo
+ */
+public class ReplicaRunner {
+
+    private byte[] scenario;
+    private int parallelism;
+
+
+    /**
+     * Creates a replica runner for a scenario using all the available processors
+     *
+     * @param school the scenario every replica starts from
+     * @throws IOException if the scenario cannot be copied
+     */
+    public ReplicaRunner(School school) throws IOException {
+        this(school, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a replica runner for a scenario using a certain number of threads
+     *
+     * @param school      the scenario every replica starts from
+     * @param parallelism number of threads running the replicas
+     * @throws IOException if the scenario cannot be copied
+     */
+    public ReplicaRunner(School school, int parallelism) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream objOut = new ObjectOutputStream(bytes);
+        objOut.writeObject(school);
+        objOut.close();
+
+        this.scenario = bytes.toByteArray();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs the replicas and merges their statistics
+     *
+     * @param replicas number of replicas
+     * @param days     number of simulation days of every replica
+     * @param seed     seed from which the seed of every replica is derived
+     * @return the statistics of all the replicas
+     * @throws IOException if a replica fails
+     */
+    public ReplicaResult run(int replicas, int days, long seed) throws IOException {
+
+        List<Callable<long[][]>> tasks = new ArrayList<>();
+        RandomSource random = new RandomSource(seed);
+
+        //Creates a task for every replica
+        for (int i = 0; i < replicas; i++) {
+
+            RandomSource replicaRandom = random.split(i);
+            tasks.add(() -> runReplica(days, replicaRandom));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long[][][] observations = new long[replicas][][];
+
+        //Tries to run every replica, shutting the pool down at the end
+        try {
+
+            List<Future<long[][]>> results = pool.invokeAll(tasks);
+
+            //Collects the observations of every replica
+            for (int i = 0; i < replicas; i++) {
+                observations[i] = results.get(i).get();
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The replicas have been interrupted");
+
+        } catch (ExecutionException e) {
+            throw new IOException("A replica has failed", e.getCause());
+
+        } finally {
+            pool.shutdown();
+        }
+
+        return new ReplicaResult(observations, days);
+    }
+
+    /**
+     * Runs one replica on a copy of the scenario
+     *
+     * @param days   number of simulation days
+     * @param random random source of the replica
+     * @return the observations of the replica indexed by metric and by day
+     * @throws IOException            if the scenario cannot be copied
+     * @throws ClassNotFoundException if the scenario cannot be copied
+     */
+    private long[][] runReplica(int days, RandomSource random) throws IOException, ClassNotFoundException {
+
+        ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(scenario));
+        School school = (School) objIn.readObject();
+        school.setRandom(random);
+        SimulationEngine engine = new SimulationEngine(school);
+
+        long[][] observations = new long[ReplicaResult.Metric.values().length][days];
+
+        //Loops until all days are simulated
+        for (int day = 0; day < days; day++) {
+
+            engine.step();
+
+            SchoolStatistics statistics = school.getStatistics();
+            observations[ReplicaResult.Metric.STUDENTS.ordinal()][day] = school.getStudents().size();
+            observations[ReplicaResult.Metric.INSTRUCTORS.ordinal()][day] = school.getInstructors().size();
+            observations[ReplicaResult.Metric.COURSES.ordinal()][day] = school.getCourses().size();
+            observations[ReplicaResult.Metric.CERTIFICATES_AWARDED.ordinal()][day] = statistics.getCertificatesAwarded();
+            observations[ReplicaResult.Metric.COURSES_COMPLETED.ordinal()][day] = statistics.getCoursesCompleted();
+            observations[ReplicaResult.Metric.COURSES_CANCELLED.ordinal()][day] = statistics.getCoursesCancelled();
+            observations[ReplicaResult.Metric.STUDENTS_GRADUATED.ordinal()][day] = statistics.getStudentsGraduated();
+            observations[ReplicaResult.Metric.STUDENTS_DROPPED_OUT.ordinal()][day] = statistics.getStudentsDroppedOut();
+        }
+
+        return observations;
+    }
+}
@@ -0,0 +1,42 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * This interface is implemented by the classes whose information can be written
+ * to a report, see {@link SchoolReport}.<br>
+ * The information is appended piece by piece to an {@link Appendable} (a {@link StringBuilder},
+ * a buffered writer of a file...), so that no intermediate string is built.
+ *
+ * @author albertoTamajo
+ */
+public interface Reportable {
+
+    /**
+     * Appends the information of the object, the same text returned by its <code>toString()</code> method
+     *
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
+     */
+    void appendTo(Appendable out) throws IOException;
+
+    /**
+     * Returns the information of an object in one string
+     *
+     * @param reportable an object whose information is needed
+     * @return a string containing the information of the object
+     */
+    static String toString(Reportable reportable) {
+
+        StringBuilder text = new StringBuilder();
+
+        //Tries to append the information to the string builder
+        try {
+            reportable.appendTo(text);
+        } catch (IOException e) {
+            //A string builder never fails
+            throw new UncheckedIOException(e);
+        }
+
+        return text.toString();
+    }
+}
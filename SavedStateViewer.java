@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+
+/**
+ * This class runs the modes of {@link Administrator} printing out a school saved before, without simulating it:
+ * '--replay' and '--inspect'.<br>
+ * The arguments are the ones of the command line, starting with the mode.
+ *
+ * @author albertoTamajo
+ */
+final class SavedStateViewer {
+
+    /**
+     * This class only has static methods
+     */
+    private SavedStateViewer() {
+    }
+
+    /**
+     * Rebuilds the state of a school from a journal and prints it out.<br>
+     * The arguments must be '--replay', the file path of a journal and optionally a day;
+     * without a day the state at the end of the journal is printed out.
+     *
+     * @param args command line arguments
+     */
+    static void runReplay(String[] args) {
+
+        //If the file path is missing
+        if (args.length < 2) {
+
+            System.err.println("Usage: java Administrator --replay <journal file> [day]");
+            return;
+        }
+
+        //Tries to replay the journal
+        try {
+
+            int day = (args.length > 2) ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+
+            long start = System.nanoTime();
+            SimulationLog.Level[] levels = SimulationLog.getLevels();
+            School school;
+
+            SimulationLog.setLevel(SimulationLog.Level.OFF);
+            SimulationLog.setLevel(SimulationLog.Category.ADMINISTRATOR, SimulationLog.Level.WARNING);
+
+            //Tries to rebuild the school with only the warnings about the journal, printing out everything again at the end
+            try {
+                school = JournalReplayer.replay(Paths.get(args[1]), day);
+            } finally {
+                SimulationLog.setLevels(levels);
+            }
+
+            SimulationLog.flush();
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(school);
+            System.out.println(school.getStatistics());
+            System.out.println("**Day " + school.getDaysRunning() + " rebuilt in " + String.format("%.3f", seconds) + " seconds**");
+
+        } catch (NumberFormatException e) {
+            System.err.println("Sorry, the day must be a number");
+        } catch (NoSuchFileException e) {
+            System.err.println("Your source has not been found");
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Prints out the state of a snapshot and some of its students without loading the school, see {@link MappedSnapshot}.<br>
+     * The arguments must be '--inspect', the file path of a snapshot and optionally the IDs of some students.
+     *
+     * @param args command line arguments
+     */
+    static void runInspect(String[] args) {
+
+        //If the file path is missing
+        if (args.length < 2) {
+
+            System.err.println("Usage: java Administrator --inspect <snapshot file> [student ID...]");
+            return;
+        }
+
+        //Tries to open the snapshot and to read the students
+        try {
+
+            MappedSnapshot snapshot = MappedSnapshot.open(Paths.get(args[1]));
+
+            System.out.println("**" + snapshot.getName() + " on day " + snapshot.getDay() + ": "
+                    + snapshot.getSubjectCount() + " subjects, " + snapshot.getInstructorCount() + " instructors, "
+                    + snapshot.getStudentCount() + " students, " + snapshot.getCourseCount() + " courses**");
+            System.out.println(snapshot.getStatistics());
+
+            //Prints out every student asked for
+            for (int i = 2; i < args.length; i++) {
+                System.out.println(snapshot.getStudent(Integer.parseInt(args[i])));
+            }
+
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            System.err.println("Sorry, the student IDs must go from 0 to the number of students minus 1");
+        } catch (NoSuchFileException e) {
+            System.err.println("Sorry, your file path does not exist");
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
@@ -1,26 +1,53 @@
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * This class represents a school.<br>
  * A school is associated with the following classes:
  * {@link Subject}, {@link Course}, {@link Student}, {@link Instructor}
  * and keeps information about them.<br>
- * In addition, this class implements a method that simulates events of a day at school.
+ * In addition, this class implements a method that simulates events of a day at school.<br>
+ * The sets of entities the daily events work on are kept up to date by a {@link SchoolIndex}.<br>
+ * The lifecycle of the courses is driven by a queue of {@link CourseEvent} objects,
+ * so that a day only visits the courses that start or end on that day.<br>
+ * The random events of the simulation depend on the {@link RandomSource} of the school
+ * and the entities are kept in insertion order, so that the same seed gives the same simulation.<br>
+ * Many entities can be added or removed at once; a bulk operation presizes the sets of the school
+ * and only prints out its summary, a {@link BulkResult}.
  *
  * @author albertoTamajo
  */
-public class School implements Serializable {
+public class School implements Serializable, Reportable {
 
     private String name;
-    private int daysRunning;
+    private SimulationClock clock;
     private HashSet<Student> students;
     private HashSet<Instructor> instructors;
     private HashSet<Subject> subjects;
     private HashSet<Course> courses;
+    private PriorityQueue<CourseEvent> courseEvents;
+    private SchoolStatistics statistics;
+    private RandomSource random;
+    private SchoolIndex index;
+    private transient HashMap<Integer, Subject> subjectsById;
+    private transient SimulationJournal journal;
+    private transient CheckpointWriter checkpoints;
+    private transient SortedIndex<Subject> subjectsByDescription;
+    private transient SortedIndex<Course> coursesByDescription;
+    private transient SortedIndex<Instructor> instructorsByName;
+    private transient SortedIndex<Student> studentsByName;
+    private transient boolean quiet;
 
 
     /**
@@ -29,13 +56,30 @@ public class School implements Serializable {
      * @param name school's name
      */
     public School(String name) {
+        this(name, new SimulationClock(), new SchoolStatistics(), new RandomSource());
+    }
+
+    /**
+     * Creates an empty School object with the clock, the statistics and the random source
+     * of a simulation, see {@link SchoolSnapshot}
+     *
+     * @param name       school's name
+     * @param clock      the clock of the simulation
+     * @param statistics the statistics of the simulation
+     * @param random     the random source of the simulation
+     */
+    School(String name, SimulationClock clock, SchoolStatistics statistics, RandomSource random) {
 
         this.name = name;
-        this.students = new HashSet<>();
-        this.instructors = new HashSet<>();
-        this.subjects = new HashSet<>();
-        this.courses = new HashSet<>();
-        this.daysRunning = 1;
+        this.students = new LinkedHashSet<>();
+        this.instructors = new LinkedHashSet<>();
+        this.subjects = new LinkedHashSet<>();
+        this.courses = new LinkedHashSet<>();
+        this.courseEvents = new PriorityQueue<>();
+        this.clock = clock;
+        this.statistics = statistics;
+        this.random = random;
+        this.index = new SchoolIndex();
     }
 
     /**
@@ -51,7 +95,54 @@ public class School implements Serializable {
      * @return number of school days
      */
     public int getDaysRunning() {
-        return daysRunning;
+        return clock.getDay();
+    }
+
+    /**
+     * Gets the clock of the school
+     *
+     * @return the clock used by the courses of the school
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Gets the cumulative statistics of the school
+     *
+     * @return the statistics of the school
+     */
+    public SchoolStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the source of randomness of the school
+     *
+     * @return the random source used by every random event of the simulation
+     */
+    public RandomSource getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the source of randomness of the school
+     *
+     * @param random the random source used by every random event of the simulation
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * Gets the compiled catalog of the subjects of the school.<br>
+     * The catalog is compiled again after a subject is added or removed
+     * or after the prerequisites of a subject of the school are changed.
+     *
+     * @return the catalog of the subjects
+     */
+    public SubjectCatalog getCatalog() {
+        return index.getCatalog(subjects);
     }
 
     /**
@@ -83,12 +174,20 @@ public class School implements Serializable {
         //If the student already attends the school
         if (!(students.add(student))) {
 
-            System.out.println("**The student " + student.getName() + " already attends this school**\n");
+            log(SimulationLog.Event.STUDENT_ALREADY_ADDED, student.getName());
             return false;
         }
 
+        index.track(student);
+        addToView(studentsByName, student);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.studentAdded(student);
+        }
+
         //The student is added successfully
-        System.out.println("**The student " + student.getName() + " has been added successfully**\n");
+        log(SimulationLog.Event.STUDENT_ADDED, student.getName());
         return true;
 
     }
@@ -104,18 +203,28 @@ public class School implements Serializable {
         //If the student does not exist
         if (!(students.remove(student))) {
 
-            System.out.println("**The student " + student.getName() + " does not exist**\n");
+            log(SimulationLog.Event.STUDENT_NOT_FOUND, student.getName());
             return false;
         }
 
+        index.untrack(student);
+        removeFromView(studentsByName, student);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.removed(SimulationJournal.STUDENT_REMOVED, student);
+        }
+
         //The student is removed successfully
-        System.out.println("**The student " + student.getName() + " has been removed successfully**\n");
+        log(SimulationLog.Event.STUDENT_REMOVED, student.getName());
         return true;
 
     }
 
     /**
-     * Adds a new subject to the school
+     * Adds a new subject to the school.<br>
+     * The ID of a subject identifies its certificates and the prerequisites of the other subjects,
+     * thus a subject whose ID belongs to another subject of the school is not added.
      *
      * @param subject new subject to add
      * @return true if the subject is added successfully, false otherwise
@@ -123,14 +232,37 @@ public class School implements Serializable {
     public boolean add(Subject subject) {
 
         //If the subject already exists
-        if (!(subjects.add(subject))) {
+        if (subjects.contains(subject)) {
+
+            log(SimulationLog.Event.SUBJECT_ALREADY_ADDED, subject.getDescription());
+            return false;
+        }
+
+        Subject owner = subjectsById().putIfAbsent(subject.getID(), subject);
+
+        //If another subject has the same ID
+        if (owner != null) {
+
+            //If the messages of the entities are printed out
+            if (!(quiet)) {
+                SimulationLog.log(SimulationLog.Event.SUBJECT_ID_TAKEN, subject.getDescription(),
+                        String.valueOf(subject.getID()), owner.getDescription());
+            }
 
-            System.out.println("**The subject " + subject.getDescription() + " already exists**\n");
             return false;
         }
 
+        subjects.add(subject);
+        index.track(subject);
+        addToView(subjectsByDescription, subject);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.subjectAdded(subject);
+        }
+
         //The subject is added successfully
-        System.out.println("**The subject " + subject.getDescription() + " has been added successfully**\n");
+        log(SimulationLog.Event.SUBJECT_ADDED, subject.getDescription());
         return true;
 
     }
@@ -146,12 +278,21 @@ public class School implements Serializable {
         //If the subject does not exist
         if (!(subjects.remove(subject))) {
 
-            System.out.println("**The subject " + subject.getDescription() + " does not exist**\n");
+            log(SimulationLog.Event.SUBJECT_NOT_FOUND, subject.getDescription());
             return false;
         }
 
+        index.untrack(subject);
+        removeFromView(subjectsByDescription, subject);
+        subjectsById().remove(subject.getID(), subject);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.removed(SimulationJournal.SUBJECT_REMOVED, subject);
+        }
+
         //The subject is removed successfully
-        System.out.println("**The subject " + subject.getDescription() + " has been removed successfully**\n");
+        log(SimulationLog.Event.SUBJECT_REMOVED, subject.getDescription());
         return true;
 
     }
@@ -167,12 +308,20 @@ public class School implements Serializable {
         //If the instructor already teaches in the school
         if (!(instructors.add(instructor))) {
 
-            System.out.println("**The instructor " + instructor.getName() + " already teaches in this school**\n");
+            log(SimulationLog.Event.INSTRUCTOR_ALREADY_ADDED, instructor.getName());
             return false;
         }
 
+        index.track(instructor);
+        addToView(instructorsByName, instructor);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.instructorAdded(instructor);
+        }
+
         //The instructor is added successfully
-        System.out.println("**The instructor " + instructor.getName() + " has been added successfully**\n");
+        log(SimulationLog.Event.INSTRUCTOR_ADDED, instructor.getName());
         return true;
     }
 
@@ -187,12 +336,20 @@ public class School implements Serializable {
         //If the instructor  does not exist
         if (!(instructors.remove(instructor))) {
 
-            System.out.println("**The instructor " + instructor.getName() + " does not exist**\n");
+            log(SimulationLog.Event.INSTRUCTOR_NOT_FOUND, instructor.getName());
             return false;
         }
 
+        index.untrack(instructor);
+        removeFromView(instructorsByName, instructor);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.removed(SimulationJournal.INSTRUCTOR_REMOVED, instructor);
+        }
+
         //The instructor is removed successfully
-        System.out.println("**The instructor " + instructor.getName() + " has been removed successfully**\n");
+        log(SimulationLog.Event.INSTRUCTOR_REMOVED, instructor.getName());
         return true;
     }
 
@@ -207,12 +364,24 @@ public class School implements Serializable {
         //If the course already exists
         if (!(courses.add(course))) {
 
-            System.out.println("**The course " + course.getSubject().getDescription() + " already exists**\n");
+            log(SimulationLog.Event.COURSE_ALREADY_ADDED, course.getSubject().getDescription());
             return false;
         }
 
+        //The course follows the clock of the school from now on
+        course.attachClock(clock);
+        scheduleNextEvent(course);
+
+        index.track(course);
+        addToView(coursesByDescription, course);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.courseCreated(course, course.getDaysUntilStarts());
+        }
+
         //The course is added successfully
-        System.out.println("**The course " + course.getSubject().getDescription() + " has been added successfully**\n");
+        log(SimulationLog.Event.COURSE_ADDED, course.getSubject().getDescription());
         return true;
 
     }
@@ -228,17 +397,125 @@ public class School implements Serializable {
         //If the course does not exist
         if (!(courses.remove(course))) {
 
-            System.out.println("**The course " + course.getSubject().getDescription() + " does not exist**\n");
+            log(SimulationLog.Event.COURSE_NOT_FOUND, course.getSubject().getDescription());
             return false;
         }
 
+        index.untrack(course);
+        removeFromView(coursesByDescription, course);
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.removed(SimulationJournal.COURSE_REMOVED, course);
+        }
+
         //The course is removed successfully
-        System.out.println("**The course " + course.getSubject().getDescription() + " has been removed successfully**\n");
+        log(SimulationLog.Event.COURSE_REMOVED, course.getSubject().getDescription());
         return true;
     }
 
     /**
-     * Gets the set of students of the school
+     * Adds many entities to the school at once: students, instructors, subjects and courses, in order.<br>
+     * The sets of the school are presized first and no message is printed out for every entity,
+     * only the summary of the operation, unless the school is quiet.
+     *
+     * @param entities entities to add
+     * @return the number of entities added, of entities already in the school and of elements rejected
+     */
+    public BulkResult addAll(Collection<?> entities) {
+
+        int[] counts = new int[4];
+
+        //Counts the entities of every type
+        for (Object entity : entities) {
+
+            //If the element is an entity of a school
+            if (isEntity(entity)) {
+                counts[typeOf(entity)]++;
+            }
+        }
+
+        ensureCapacity(students.size() + counts[0], instructors.size() + counts[1],
+                subjects.size() + counts[2], courses.size() + counts[3]);
+
+        return bulk(entities.iterator(), true);
+    }
+
+    /**
+     * Adds many entities to the school at once, see {@link #addAll(Collection)}.<br>
+     * The size of a stream is not known in advance, {@link #ensureCapacity(int, int, int, int)} presizes the school.
+     *
+     * @param entities entities to add
+     * @return the number of entities added, of entities already in the school and of elements rejected
+     */
+    public BulkResult addAll(Stream<?> entities) {
+        return bulk(entities.iterator(), true);
+    }
+
+    /**
+     * Removes many entities from the school at once, printing out only the summary of the operation unless the school is quiet
+     *
+     * @param entities entities to remove
+     * @return the number of entities removed, of entities not found in the school and of elements rejected
+     */
+    public BulkResult removeAll(Collection<?> entities) {
+        return bulk(entities.iterator(), false);
+    }
+
+    /**
+     * Removes many entities from the school at once, printing out only the summary of the operation unless the school is quiet
+     *
+     * @param entities entities to remove
+     * @return the number of entities removed, of entities not found in the school and of elements rejected
+     */
+    public BulkResult removeAll(Stream<?> entities) {
+        return bulk(entities.iterator(), false);
+    }
+
+    /**
+     * Makes room for the number of entities expected in the school,
+     * so that the sets of the school and of its index do not grow again and again while the entities are added.<br>
+     * A set may be replaced by a larger one, thus the sets got from the school before must be got again.
+     *
+     * @param students    number of students expected
+     * @param instructors number of instructors expected
+     * @param subjects    number of subjects expected
+     * @param courses     number of courses expected
+     */
+    public void ensureCapacity(int students, int instructors, int subjects, int courses) {
+
+        index.ensureCapacity(subjects - this.subjects.size(), instructors - this.instructors.size(),
+                students - this.students.size());
+
+        this.students = SchoolIndex.presized(this.students, students);
+        this.instructors = SchoolIndex.presized(this.instructors, instructors);
+        this.subjects = SchoolIndex.presized(this.subjects, subjects);
+        this.courses = SchoolIndex.presized(this.courses, courses);
+    }
+
+    /**
+     * Checks whether or not the school prints out a message for every entity added or removed
+     * and the summary of the entities added or removed at once
+     *
+     * @return true if the messages of the entities added or removed are not printed out, false otherwise
+     */
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    /**
+     * Sets whether or not the school prints out a message for every entity added or removed
+     * and the summary of the entities added or removed at once
+     *
+     * @param quiet true if the messages of the entities added or removed must not be printed out, false otherwise
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Gets the set of students of the school.<br>
+     * The set must not be modified directly: the add and remove methods keep the school consistent.
      *
      * @return the set of students enrolled in the school
      */
@@ -247,7 +524,8 @@ public class School implements Serializable {
     }
 
     /**
-     * Gets the set of instructors of the school
+     * Gets the set of instructors of the school.<br>
+     * The set must not be modified directly: the add and remove methods keep the school consistent.
      *
      * @return the set of instructors working at the school
      */
@@ -256,7 +534,8 @@ public class School implements Serializable {
     }
 
     /**
-     * Gets the set of subjects of the school
+     * Gets the set of subjects of the school.<br>
+     * The set must not be modified directly: the add and remove methods keep the school consistent.
      *
      * @return the set of subjects taught in the school
      */
@@ -265,7 +544,8 @@ public class School implements Serializable {
     }
 
     /**
-     * Gets the set of courses of the school
+     * Gets the set of courses of the school.<br>
+     * The set must not be modified directly: the add and remove methods keep the school consistent.
      *
      * @return the set of courses taught in the school
      */
@@ -274,141 +554,336 @@ public class School implements Serializable {
     }
 
     /**
-     * Generates and returns information in ascending order
-     * about all elements present in a HashSet
+     * Gets the students of the school that are not currently enrolled in a course
      *
-     * @param set a set from which information of its elements is needed
-     * @return a string containing the info of every element
+     * @return a read-only view of the set of students not enrolled
      */
-    private String infoGenerator(HashSet set) {
+    public Set<Student> getStudentsNotEnrolled() {
+        return Collections.unmodifiableSet(index.getStudentsNotEnrolled());
+    }
 
-        String infoString = "";
-        ArrayList items = new ArrayList();
+    /**
+     * Gets the instructors of the school that are not currently teaching
+     *
+     * @return a read-only view of the set of instructors not teaching
+     */
+    public Set<Instructor> getInstructorsNotTeaching() {
+        return Collections.unmodifiableSet(index.getInstructorsNotTeaching());
+    }
 
-        //If the set is not empty
-        if (!(set.isEmpty())) {
+    /**
+     * Gets the subjects of the school sorted by description.<br>
+     * The view is built the first time it is needed and then kept sorted as subjects are added and removed.
+     * It must not be modified directly.
+     *
+     * @return the subjects sorted by description
+     */
+    public SortedIndex<Subject> getSubjectsByDescription() {
 
-            //Adds every element of the set into the arrayList items
-            for (Object o : set) {
-                items.add(o);
-            }
+        //If the view must be built
+        if (subjectsByDescription == null) {
+            subjectsByDescription = new SortedIndex<>(Subject::getDescription, subjects);
+        }
 
-            //Sorts the elements of the arrayList items
-            Collections.sort(items);
+        return subjectsByDescription;
+    }
 
-            //Adds the information of every element to the string infoString
-            for (Object o : items) {
-                infoString += o.toString();
-            }
+    /**
+     * Gets the courses of the school sorted by the description of their subject.<br>
+     * The view is built the first time it is needed and then kept sorted as courses are added and removed.
+     * It must not be modified directly.
+     *
+     * @return the courses sorted by description
+     */
+    public SortedIndex<Course> getCoursesByDescription() {
 
-            return infoString;
+        //If the view must be built
+        if (coursesByDescription == null) {
+            coursesByDescription = new SortedIndex<>(course -> course.getSubject().getDescription(), courses);
+        }
 
-        } else {
+        return coursesByDescription;
+    }
 
-            //If the set is empty
-            return "**NO ENTRIES**\n";
+    /**
+     * Gets the instructors of the school sorted by name.<br>
+     * The view is built the first time it is needed and then kept sorted as instructors join and leave.
+     * It must not be modified directly.
+     *
+     * @return the instructors sorted by name
+     */
+    public SortedIndex<Instructor> getInstructorsByName() {
+
+        //If the view must be built
+        if (instructorsByName == null) {
+            instructorsByName = new SortedIndex<>(Person::getName, instructors);
         }
+
+        return instructorsByName;
     }
 
     /**
-     * Returns a set of subjects that are not currently assigned to a course
+     * Gets the students of the school sorted by name.<br>
+     * The view is built the first time it is needed and then kept sorted as students join and leave.
+     * It must not be modified directly.
      *
-     * @return the set of subjects not currently having a course
+     * @return the students sorted by name
      */
-    private HashSet<Subject> subjectsNotTaught() {
+    public SortedIndex<Student> getStudentsByName() {
 
-        HashSet<Subject> subjectsWithNoCourses = new HashSet<>();
+        //If the view must be built
+        if (studentsByName == null) {
+            studentsByName = new SortedIndex<>(Person::getName, students);
+        }
 
-        //Loops for all subjects taught in the school
-        //If a subject is not taught, it will be added to subjectsWithNoCourses
-        for (Subject subject : subjects) {
+        return studentsByName;
+    }
 
-            //If the subject does not have a course
-            if (!(subject.hasCourse())) {
+    /**
+     * Adds or removes entities in order without printing out a message for every entity
+     *
+     * @param entities entities to add or to remove
+     * @param adding   true if the entities are added, false if they are removed
+     * @return the summary of the operation
+     */
+    private BulkResult bulk(Iterator<?> entities, boolean adding) {
 
-                //Adds the course
-                subjectsWithNoCourses.add(subject);
+        int changed = 0;
+        int unchanged = 0;
+        int rejected = 0;
+        boolean wasQuiet = quiet;
+
+        quiet = true;
+
+        //Tries to add or to remove every entity
+        try {
+
+            //Loops for every entity
+            while (entities.hasNext()) {
+
+                Object entity = entities.next();
+
+                //If the element is not an entity of a school
+                if (!(isEntity(entity))) {
+                    rejected++;
+                } else if (adding ? addEntity(entity) : removeEntity(entity)) {
+                    changed++;
+                } else {
+                    unchanged++;
+                }
             }
 
+        } finally {
+            quiet = wasQuiet;
         }
 
-        return subjectsWithNoCourses;
+        SimulationLog.Event event = adding ? SimulationLog.Event.ENTITIES_ADDED : SimulationLog.Event.ENTITIES_REMOVED;
+
+        //If the operation had any element and its summary is printed out
+        if (!(wasQuiet) && (changed + unchanged + rejected > 0) && SimulationLog.isEnabled(event)) {
+            SimulationLog.log(event, Integer.toString(changed), Integer.toString(unchanged), Integer.toString(rejected));
+        }
+
+        return new BulkResult(changed, unchanged, rejected);
     }
 
     /**
-     * Returns a set of instructors that are not currently teaching in a course
+     * Adds an entity of any type to the school
      *
-     * @return the set of instructors not currently teaching
+     * @param entity a student, an instructor, a subject or a course
+     * @return true if the entity is added successfully, false otherwise
      */
-    private HashSet<Instructor> instructorsWithNoCourses() {
+    private boolean addEntity(Object entity) {
+
+        switch (typeOf(entity)) {
+            case 0:
+                return add((Student) entity);
+            case 1:
+                return add((Instructor) entity);
+            case 2:
+                return add((Subject) entity);
+            default:
+                return add((Course) entity);
+        }
+    }
 
-        HashSet<Instructor> instructorsNotTeaching = new HashSet<>();
+    /**
+     * Removes an entity of any type from the school
+     *
+     * @param entity a student, an instructor, a subject or a course
+     * @return true if the entity is removed successfully, false otherwise
+     */
+    private boolean removeEntity(Object entity) {
+
+        switch (typeOf(entity)) {
+            case 0:
+                return remove((Student) entity);
+            case 1:
+                return remove((Instructor) entity);
+            case 2:
+                return remove((Subject) entity);
+            default:
+                return remove((Course) entity);
+        }
+    }
 
-        //Loops for all instructors
-        //If an instructor is not teaching, he/she will be added to instructorWithNoCourses
-        for (Instructor instructor : instructors) {
+    /**
+     * Checks whether or not an element is an entity of a school
+     *
+     * @param entity an element
+     * @return true if the element is a student, an instructor, a subject or a course, false otherwise
+     */
+    private static boolean isEntity(Object entity) {
+        return (entity instanceof Student) || (entity instanceof Instructor) || (entity instanceof Subject)
+                || (entity instanceof Course);
+    }
 
-            //If the instructor is not teaching
-            if (!(instructor.isTeaching())) {
+    /**
+     * Gets the type of an entity
+     *
+     * @param entity an entity of a school
+     * @return 0 for a student, 1 for an instructor, 2 for a subject, 3 for a course
+     */
+    private static int typeOf(Object entity) {
 
-                //Adds the instructor
-                instructorsNotTeaching.add(instructor);
-            }
+        //If the entity is a student
+        if (entity instanceof Student) {
+            return 0;
+        }
 
+        //If the entity is an instructor
+        if (entity instanceof Instructor) {
+            return 1;
         }
 
-        return instructorsNotTeaching;
+        return (entity instanceof Subject) ? 2 : 3;
     }
 
     /**
-     * Returns a set of students that are not currently enrolled in a course
+     * Logs the message of an entity added or removed, unless the school is quiet
      *
-     * @return the set of students not enrolled in a course
+     * @param event    the event of the entity
+     * @param argument the name or the description of the entity
      */
-    private HashSet<Student> studentsWithNoCourses() {
+    private void log(SimulationLog.Event event, String argument) {
 
-        HashSet<Student> studentsNotEnrolled = new HashSet<>();
+        //If the messages of the entities are printed out
+        if (!(quiet)) {
+            SimulationLog.log(event, argument);
+        }
+    }
 
-        //Loops for all students
-        //If a student is not enrolled in a course, he/she will be added to studentsNotEnrolled
-        for (Student student : students) {
+    /**
+     * Gets the subjects of the school by ID, building the map the first time it is needed
+     *
+     * @return the subject of the school having every ID
+     */
+    private HashMap<Integer, Subject> subjectsById() {
 
-            //If the student is not enrolled
-            if (!(student.isEnrolled())) {
+        //If the map must be built
+        if (subjectsById == null) {
 
-                //Adds the student
-                studentsNotEnrolled.add(student);
-            }
+            subjectsById = new HashMap<>();
 
+            //Maps every ID to the first subject having it
+            for (Subject subject : subjects) {
+                subjectsById.putIfAbsent(subject.getID(), subject);
+            }
         }
 
-        return studentsNotEnrolled;
+        return subjectsById;
+    }
 
+    /**
+     * Adds an entity to a sorted view, if the view has been built
+     *
+     * @param view   a sorted view, null if it has not been built yet
+     * @param entity the entity added to the school
+     * @param <T>    type of the entity
+     */
+    private static <T> void addToView(SortedIndex<T> view, T entity) {
+
+        //If the view has been built
+        if (view != null) {
+            view.add(entity);
+        }
     }
 
     /**
-     * Returns a set of courses requiring an instructor
+     * Removes an entity from a sorted view, if the view has been built
      *
-     * @return the set of courses with no instructor assigned
+     * @param view   a sorted view, null if it has not been built yet
+     * @param entity the entity removed from the school
+     * @param <T>    type of the entity
      */
-    private HashSet<Course> coursesRequiringInstructor() {
+    private static <T> void removeFromView(SortedIndex<T> view, T entity) {
 
-        HashSet<Course> coursesWithNoInstructor = new HashSet<>();
+        //If the view has been built
+        if (view != null) {
+            view.remove(entity);
+        }
+    }
 
-        //Loops for all courses
-        //If a course requires an instructor, it will be added to coursesWithNoInstructor
-        for (Course course : courses) {
+    /**
+     * Appends the information of every entity of a sorted view
+     *
+     * @param out  where the information is appended
+     * @param view a sorted view of the school
+     * @throws IOException if the information cannot be appended
+     */
+    private static void appendAll(Appendable out, SortedIndex<? extends Reportable> view) throws IOException {
 
-            //If the course requires an instructor
-            if (!(course.hasInstructor())) {
+        //If the view is empty
+        if (view.isEmpty()) {
 
-                //Adds the course
-                coursesWithNoInstructor.add(course);
-            }
+            out.append("**NO ENTRIES**\n");
+            return;
+        }
 
+        //Appends the information of every entity in order
+        for (Reportable entity : view) {
+            entity.appendTo(out);
         }
+    }
+
+    /**
+     * Returns a set of subjects that are not currently assigned to a course.<br>
+     * The set is a copy of the one kept up to date by the index of the school.
+     *
+     * @return the set of subjects not currently having a course
+     */
+    private HashSet<Subject> subjectsNotTaught() {
+        return new LinkedHashSet<>(index.getSubjectsWithNoCourse());
+    }
+
+    /**
+     * Returns a set of instructors that are not currently teaching in a course.<br>
+     * The set is a copy of the one kept up to date by the index of the school.
+     *
+     * @return the set of instructors not currently teaching
+     */
+    private HashSet<Instructor> instructorsWithNoCourses() {
+        return new LinkedHashSet<>(index.getInstructorsNotTeaching());
+    }
+
+    /**
+     * Returns a set of students that are not currently enrolled in a course.<br>
+     * The set is a copy of the one kept up to date by the index of the school.
+     *
+     * @return the set of students not enrolled in a course
+     */
+    private HashSet<Student> studentsWithNoCourses() {
+        return new LinkedHashSet<>(index.getStudentsNotEnrolled());
+    }
 
-        return coursesWithNoInstructor;
+    /**
+     * Returns a set of courses requiring an instructor.<br>
+     * The set is a copy of the one kept up to date by the index of the school.
+     *
+     * @return the set of courses with no instructor assigned
+     */
+    private HashSet<Course> coursesRequiringInstructor() {
+        return new LinkedHashSet<>(index.getCoursesWithNoInstructor());
     }
 
     /**
@@ -423,17 +898,18 @@ public class School implements Serializable {
         //If the subjectsSet contains elements
         if (!(subjectsSet.isEmpty())) {
 
-            System.out.println("**New courses have been created**\n");
+            SimulationLog.log(SimulationLog.Event.COURSES_CREATED);
 
             //Loops for all subjects present in the set
             //and creates courses for them
             for (Subject subject : subjectsSet) {
 
-                Course course = new Course(subject, daysUntilStarts);
-                courses.add(course);
+                Course course = createCourse(subject, daysUntilStarts);
 
-                String courseInfo = course.toString();
-                System.out.println(courseInfo);
+                //If the details of the new courses are logged
+                if (SimulationLog.isEnabled(SimulationLog.Event.COURSE_CREATED)) {
+                    SimulationLog.log(SimulationLog.Event.COURSE_CREATED, course.toString());
+                }
 
             }
 
@@ -441,81 +917,49 @@ public class School implements Serializable {
     }
 
     /**
-     * Assigns available instructors to courses with no instructor assigned
+     * Creates a course for a subject and adds it to the school without printing out anything
+     *
+     * @param subject         a subject of the school
+     * @param daysUntilStarts number of days until the course starts
+     * @return the new course
      */
-    private void assignInstructorsToCourses() {
-
-        HashSet<Course> coursesWithNoInstructor = coursesRequiringInstructor();
-        HashSet<Instructor> instructorsNotTeaching = instructorsWithNoCourses();
-
-        //Loops for all courses with no instructor
-        for (Course course : coursesWithNoInstructor) {
-
-            //Loops for all instructors not teaching
-            for (Instructor instructor : instructorsNotTeaching) {
-
-                //If the instructor has been assigned to the course successfully
-                if (course.setInstructor(instructor)) {
+    Course createCourse(Subject subject, int daysUntilStarts) {
 
-                    //Removes the instructor from the set of instructors with no courses
-                    //So that the next course will not re-iterate over it resulting in a redundant iteration
-                    instructorsNotTeaching.remove(instructor);
-                    break;
+        Course course = new Course(subject, daysUntilStarts, clock);
+        courses.add(course);
+        index.track(course);
+        addToView(coursesByDescription, course);
+        scheduleNextEvent(course);
 
-                }
-            }
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.courseCreated(course, daysUntilStarts);
         }
+
+        return course;
     }
 
     /**
-     * Returns a set of courses not full (less than 3 students enrolled)
-     *
-     * @return the set of courses with less than 3 students enrolled
+     * Assigns available instructors to courses with no instructor assigned.<br>
+     * The number of courses getting an instructor is maximum, see {@link InstructorMatcher}.
      */
-    private HashSet<Course> coursesNotFull() {
-
-        HashSet<Course> coursesWithAvailability = new HashSet<>();
-
-        //Loops for all courses
-        //Adds courses not full to coursesWithAvailability
-        for (Course course : courses) {
-
-            //If less than 3 students are enrolled
-            if (course.getSize() < 3) {
-
-                coursesWithAvailability.add(course);
-            }
-
-        }
-
-        return coursesWithAvailability;
+    private void assignInstructorsToCourses() {
+        InstructorMatcher.assign(coursesRequiringInstructor(), instructorsWithNoCourses());
     }
 
     /**
-     * Returns a set of courses not started yet
+     * Returns a list of courses not full (less than 3 students enrolled) and not started yet.<br>
+     * The list is a copy of the set kept up to date by the index of the school.
      *
-     * @return the set of courses not started
+     * @return the list of courses open for enrolment
      */
-    private HashSet<Course> coursesNotStarted() {
-
-        HashSet<Course> coursesNotRunning = new HashSet<>();
-
-        //Loops for all courses
-        //Adds courses not started yet to coursesNotRunning
-        for (Course course : courses) {
-
-            //If the course has not started yet
-            if (course.getStatus() < 0) {
-                coursesNotRunning.add(course);
-            }
-
-        }
-
-        return coursesNotRunning;
+    private ArrayList<Course> coursesOpen() {
+        return new ArrayList<>(index.getCoursesOpen());
     }
 
     /**
-     * Assigns students not enrolled in a course to an available course randomly
+     * Assigns students not enrolled in a course to an available course randomly,
+     * see {@link EnrolmentEngine}
      */
     private void assignStudentsToCourses() {
 
@@ -524,153 +968,263 @@ public class School implements Serializable {
         //If all students are enrolled in a course
         if (studentsNotEnrolled.isEmpty()) {
 
-            System.out.println("**All students are enrolled in a course\n");
+            SimulationLog.log(SimulationLog.Event.ALL_STUDENTS_ENROLLED);
 
         } else {
 
-            ArrayList<Course> coursesShuffled = new ArrayList<>();
-
-            //Adds the courses not full and not already started
-            //into the arrayList coursesShuffled
-            for (Course course : courses) {
-
-                //If the course is full or has already started
-                if ((course.getSize() == 3) || (course.getStatus() >= 0)) {
-
-                    //does nothing
-                    continue;
-                }
-
-                //Otherwise, adds the course
-                coursesShuffled.add(course);
-
-            }
+            //Gets the courses not full and not already started
+            ArrayList<Course> coursesOpen = coursesOpen();
 
             //If no courses are available
-            if (coursesShuffled.isEmpty()) {
+            if (coursesOpen.isEmpty()) {
 
-                System.out.println("**No courses are available at the moment**\n");
-                System.out.println("**The following students remain without a course:\n");
+                SimulationLog.log(SimulationLog.Event.NO_COURSES_AVAILABLE);
+                SimulationLog.log(SimulationLog.Event.STUDENTS_WITHOUT_COURSE);
 
                 //Prints out the names of all students without a course
                 for (Student student : studentsNotEnrolled) {
-                    System.out.println(student.getName() + "\n");
+                    SimulationLog.log(SimulationLog.Event.STUDENT_WITHOUT_COURSE, student.getName());
                 }
 
             } else {       //If there are courses available
 
-                Iterator<Student> studentsNotEnrolledIterator = studentsNotEnrolled.iterator();
-                Iterator<Course> coursesShuffledIterator;
+                //Enrols the students to random courses they are eligible for
+                List<Student> studentsWithNoCourse = EnrolmentEngine.enrol(studentsNotEnrolled, coursesOpen, getCatalog(), random);
 
-                //Loops for all students not enrolled in a course
-                //Assigns these students to an available course
-                loop1:
-                while (studentsNotEnrolledIterator.hasNext()) {
+                //If there are no courses available now
+                if (!(studentsWithNoCourse.isEmpty()) && index.getCoursesOpen().isEmpty()) {
 
-                    Student nextStudent = studentsNotEnrolledIterator.next();
+                    SimulationLog.log(SimulationLog.Event.NO_MORE_COURSES);
 
-                    //Shuffles the arrayList so that students enrol to random courses
-                    Collections.shuffle(coursesShuffled);
-                    coursesShuffledIterator = coursesShuffled.iterator();
+                    //Loops for all students that still are not enrolled in a course
+                    for (Student student : studentsWithNoCourse) {
+                        SimulationLog.log(SimulationLog.Event.STUDENT_REMAINS_WITHOUT_COURSE, student.getName());
+                    }
+                }
+            }
+        }
+    }
 
-                    //Loops until the student can enroll to an available course
-                    while (coursesShuffledIterator.hasNext()) {
+    /**
+     * Schedules the next event of a course
+     *
+     * @param course a course of the school
+     */
+    private void scheduleNextEvent(Course course) {
+        courseEvents.add(new CourseEvent(course.getNextEventDay(), course));
+    }
+
+    /**
+     * Advances all the courses taught by one day.<br>
+     * Only the courses starting or ending today are visited.
+     * The courses that are either finished or
+     * cancelled will be deleted from the school.
+     * The enrolments asked by other threads wait until the courses are advanced.
+     */
+    public void advanceOneDay() {
+        clock.runDay(this::runEventsOfNextDay);
+    }
 
-                        Course nextCourse = coursesShuffledIterator.next();
+    /**
+     * Advances the clock by one day and processes the events of the courses due on the new day
+     */
+    private void runEventsOfNextDay() {
 
-                        //If the student can enroll to this course
-                        if (nextCourse.enrolStudent(nextStudent)) {
+        //Increments the number of school days
+        int today = clock.tick();
 
-                            //Deletes the student
-                            studentsNotEnrolledIterator.remove();
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.dayStarted(today);
+        }
 
-                            //If the course is full now, deletes it
-                            //So that to avoid redundant iterations
-                            if (nextCourse.getSize() == 3) {
+        //Loops for all the events due today
+        while (!(courseEvents.isEmpty()) && (courseEvents.peek().getDay() <= today)) {
 
-                                coursesShuffledIterator.remove();
-                            }
+            CourseEvent event = courseEvents.poll();
+            Course course = event.getCourse();
 
-                            //If there are no courses available now
-                            if (coursesShuffled.isEmpty()) {
+            //If the course has been removed or the event has been rescheduled
+            if (!(courses.contains(course)) || (event.getDay() != course.getNextEventDay())) {
+                continue;
+            }
 
-                                System.out.println("**No more courses are available at the moment**\n");
+            int enrolledStudents = course.getSize();
+            course.update();
 
-                                studentsNotEnrolledIterator = studentsNotEnrolled.iterator();
+            //If the course has finished or has been cancelled
+            if ((course.getStatus() == 0) || (course.isCancelled())) {
 
-                                //Loops for all students that still are not enrolled in a course
-                                while (studentsNotEnrolledIterator.hasNext()) {
+                //If the course has been cancelled
+                if (course.isCancelled()) {
 
-                                    Student nextStudentWithNoCourse = studentsNotEnrolledIterator.next();
+                    statistics.recordCourseCancelled();
 
-                                    System.out.println("**The student " + nextStudentWithNoCourse.getName() + " remains without a course**\n");
+                    //If the transitions of the school are recorded
+                    if (journal != null) {
+                        journal.courseCancelled(course);
+                    }
 
-                                }
+                } else {
 
-                                //Gets out of the loop1 and so the method terminates
-                                break loop1;
-                            }
+                    statistics.recordCourseCompleted(enrolledStudents);
 
-                            //Gets out of this loop, loop1 will restart
-                            break;
-                        }
+                    //If the transitions of the school are recorded
+                    if (journal != null) {
+                        journal.courseCompleted(course, enrolledStudents);
                     }
                 }
+
+                //Removes the course from the set of courses
+                courses.remove(course);
+                index.untrack(course);
+                removeFromView(coursesByDescription, course);
+
+            } else {
+
+                //The course will be visited again when it ends
+                scheduleNextEvent(course);
             }
         }
     }
 
+
     /**
-     * Advances all the courses taught by one day.<br>
-     * The courses that are either finished or
-     * cancelled will be deleted from the school.
+     * Marks the end of a simulated day, after the daily events of the school and of its people.<br>
+     * A journal recording the school stores the state of the random source of the school
+     * at this point, see {@link JournalReplayer}, and the checkpoints of the school are written
+     * at this point, see {@link CheckpointWriter}.
      */
-    public void advanceOneDay() {
+    public void endOfDay() {
 
-        Iterator<Course> coursesIterator = courses.iterator();
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.dayEnded(clock.getDay(), random);
+        }
 
-        //Loops for all courses and advances them by 1 day
-        //Removes the finished or cancelled courses
-        while (coursesIterator.hasNext()) {
+        //If the school is checkpointed
+        if (checkpoints != null) {
+            checkpoints.dayEnded(clock.getDay());
+        }
+    }
 
-            Course nextCourse = coursesIterator.next();
-            nextCourse.aDayPasses();
+    /**
+     * Gets the index keeping the sets the daily events work on
+     *
+     * @return the index of the school
+     */
+    SchoolIndex getIndex() {
+        return index;
+    }
 
-            //If the course has finished or has been cancelled
-            if ((nextCourse.getStatus() == 0) || (nextCourse.isCancelled())) {
+    /**
+     * Gets the queue of the events of the courses.<br>
+     * The queue must not be modified directly.
+     *
+     * @return the queue of events, iterated in the order of its internal array
+     */
+    PriorityQueue<CourseEvent> getCourseEvents() {
+        return courseEvents;
+    }
 
-                //Removes the course from the set of courses
-                coursesIterator.remove();
-            }
+    /**
+     * Puts back the entities of a saved school without printing out or recording anything,
+     * see {@link SchoolSnapshot}.<br>
+     * The entities must already be in their saved state: they are only added to the sets of the school
+     * and tracked by its index.
+     *
+     * @param subjects    the subjects in the order of the saved school
+     * @param instructors the instructors in the order of the saved school
+     * @param students    the students in the order of the saved school
+     * @param courses     the courses in the order of the saved school
+     * @param events      the events of the courses in the order of the internal array of the saved queue
+     */
+    void restore(List<Subject> subjects, List<Instructor> instructors, List<Student> students,
+                 List<Course> courses, List<CourseEvent> events) {
 
+        //Adds and tracks every subject
+        for (Subject subject : subjects) {
+            this.subjects.add(subject);
+            index.track(subject);
         }
 
-        //Increments the number of school days
-        daysRunning++;
+        //Adds and tracks every instructor
+        for (Instructor instructor : instructors) {
+            this.instructors.add(instructor);
+            index.track(instructor);
+        }
+
+        //Adds and tracks every student
+        for (Student student : students) {
+            this.students.add(student);
+            index.track(student);
+        }
+
+        //Adds and tracks every course
+        for (Course course : courses) {
+            this.courses.add(course);
+            index.track(course);
+        }
+
+        //Adding the events in the order of a heap gives back the same heap,
+        //so that the events of the same day are visited in the same order
+        courseEvents.addAll(events);
+
+        subjectsById = null;
+        subjectsByDescription = null;
+        coursesByDescription = null;
+        instructorsByName = null;
+        studentsByName = null;
+    }
+
+    /**
+     * Sets the journal recording the transitions of the school
+     *
+     * @param journal a journal, null if nothing must be recorded
+     */
+    void setJournal(SimulationJournal journal) {
+
+        this.journal = journal;
+        index.setJournal(journal);
+        statistics.setJournal(journal);
     }
 
+    /**
+     * Sets the writer of the checkpoints of the school
+     *
+     * @param checkpoints a checkpoint writer, null if the school is not checkpointed
+     */
+    void setCheckpoints(CheckpointWriter checkpoints) {
+
+        this.checkpoints = checkpoints;
+        index.setCheckpoints(checkpoints);
+    }
 
     /**
      * Simulates events of a day at school.<br>
      * 1. Subjects that are not being taught will be assigned to a new course.<br>
      * 2. Courses requiring an instructor will be assigned to an available instructor.<br>
      * 3. Students not enrolled in a course will be enrolled in an available course.<br>
-     * 4. All the courses will be advanced by one day.
+     * 4. All the courses will be advanced by one day.<br>
+     * The enrolments asked by other threads wait until the day is over.
      */
     public void aDayAtSchool() {
 
-        //Creates new courses with subjects that are not being taught
-        //The courses will start in 2 days
-        courseCreator(subjectsNotTaught(), 2);
+        clock.runDay(() -> {
 
-        //Assigns instructors to courses
-        assignInstructorsToCourses();
+            //Creates new courses with subjects that are not being taught
+            //The courses will start in 2 days
+            courseCreator(subjectsNotTaught(), 2);
 
-        //Assigns students to available courses
-        assignStudentsToCourses();
+            //Assigns instructors to courses
+            assignInstructorsToCourses();
 
-        //Advances all courses one day
-        advanceOneDay();
+            //Assigns students to available courses
+            assignStudentsToCourses();
+
+            //Advances all courses one day
+            advanceOneDay();
+        });
     }
 
 
@@ -683,16 +1237,28 @@ public class School implements Serializable {
      */
     @Override
     public String toString() {
+        return Reportable.toString(this);
+    }
 
-        String schoolName = "THE NAME OF THIS SCHOOL IS: " + name + "\n";
-        String subjectsTaught = "\nTHE SUBJECTS TAUGHT ARE: " + "\n";
-        String instructorsSchool = "\nTHE INSTRUCTORS OF THIS SCHOOL ARE LISTED BELOW: " + "\n\n";
-        String coursesArranged = "\n\nTHE COURSES ARRANGED ARE: " + "\n\n";
-        String studentsSchool = "\nTHE STUDENTS OF THIS SCHOOL ARE: " + "\n\n";
-        String fancyCharacters = "+------------------------------------+" + "\n";
-        return schoolName + subjectsTaught + infoGenerator(this.subjects) + coursesArranged
-                + infoGenerator(this.courses) + instructorsSchool + infoGenerator(this.instructors)
-                + studentsSchool + infoGenerator(this.students) + fancyCharacters + "\n";
-
+    /**
+     * Appends the information about subjects, courses, instructors, students
+     * and the relationship between them, see {@link SchoolReport}
+     *
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
+     */
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+
+        out.append("THE NAME OF THIS SCHOOL IS: ").append(name).append('\n');
+        out.append("\nTHE SUBJECTS TAUGHT ARE: \n");
+        appendAll(out, getSubjectsByDescription());
+        out.append("\n\nTHE COURSES ARRANGED ARE: \n\n");
+        appendAll(out, getCoursesByDescription());
+        out.append("\nTHE INSTRUCTORS OF THIS SCHOOL ARE LISTED BELOW: \n\n");
+        appendAll(out, getInstructorsByName());
+        out.append("\nTHE STUDENTS OF THIS SCHOOL ARE: \n\n");
+        appendAll(out, getStudentsByName());
+        out.append("+------------------------------------+\n\n");
     }
 }
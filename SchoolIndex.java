@@ -0,0 +1,413 @@
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+/**
+ * This class keeps the sets of entities of a {@link School} that the daily events work on:
+ * subjects with no course, instructors not teaching, students not enrolled,
+ * courses with no instructor and courses open for enrolment.<br>
+ * The sets are updated every time an entity tracked by the index changes its state,
+ * so that the daily events do not need to scan all the entities of the school.<br>
+ * The index also keeps the compiled catalog of the subjects tracked, compiled again
+ * after a subject is tracked, untracked or has its prerequisites changed.
+ *
+ * @author albertoTamajo
+ */
+public class SchoolIndex implements StateListener, Serializable {
+
+    private LinkedHashSet<Subject> subjectsWithNoCourse;
+    private LinkedHashSet<Instructor> instructorsNotTeaching;
+    private LinkedHashSet<Student> studentsNotEnrolled;
+    private LinkedHashSet<Course> coursesWithNoInstructor;
+    private LinkedHashSet<Course> coursesOpen;
+    private transient SubjectCatalog catalog;
+    private transient SimulationJournal journal;
+    private transient CheckpointWriter checkpoints;
+
+
+    /**
+     * Creates an empty index
+     */
+    public SchoolIndex() {
+        this.subjectsWithNoCourse = new LinkedHashSet<>();
+        this.instructorsNotTeaching = new LinkedHashSet<>();
+        this.studentsNotEnrolled = new LinkedHashSet<>();
+        this.coursesWithNoInstructor = new LinkedHashSet<>();
+        this.coursesOpen = new LinkedHashSet<>();
+    }
+
+    /**
+     * Makes room for the entities about to be tracked, which join the sets of the index when they are tracked
+     *
+     * @param subjects    number of subjects about to be tracked
+     * @param instructors number of instructors about to be tracked
+     * @param students    number of students about to be tracked
+     */
+    void ensureCapacity(int subjects, int instructors, int students) {
+
+        //If the changes of the sets are checkpointed, the sets must be kept as they are
+        if (checkpoints != null) {
+            return;
+        }
+
+        this.subjectsWithNoCourse = presized(subjectsWithNoCourse, subjectsWithNoCourse.size() + subjects);
+        this.instructorsNotTeaching = presized(instructorsNotTeaching, instructorsNotTeaching.size() + instructors);
+        this.studentsNotEnrolled = presized(studentsNotEnrolled, studentsNotEnrolled.size() + students);
+    }
+
+    /**
+     * Gets an ordered set large enough for a number of elements, without growing more than once
+     *
+     * @param set      an ordered set
+     * @param expected number of elements expected in the set
+     * @param <T>      type of the elements
+     * @return the same set if it is large enough, a larger copy otherwise
+     */
+    static <T> LinkedHashSet<T> presized(HashSet<T> set, int expected) {
+
+        //If the set is still small or it grows at most once before holding the elements expected
+        if ((set instanceof LinkedHashSet) && ((expected <= 12) || (2 * set.size() >= expected))) {
+            return (LinkedHashSet<T>) set;
+        }
+
+        LinkedHashSet<T> presized = new LinkedHashSet<>(Math.max((int) (expected / 0.75f) + 1, 16));
+        presized.addAll(set);
+        return presized;
+    }
+
+    /**
+     * Gets the compiled catalog of the subjects tracked, compiling it if any of them has changed since
+     *
+     * @param subjects the subjects tracked by the index
+     * @return the catalog of the subjects
+     */
+    SubjectCatalog getCatalog(Collection<Subject> subjects) {
+
+        //If the catalog must be compiled
+        if (catalog == null) {
+            catalog = new SubjectCatalog(subjects);
+        }
+
+        return catalog;
+    }
+
+    /**
+     * Starts tracking a subject
+     *
+     * @param subject a subject of the school
+     */
+    public void track(Subject subject) {
+
+        subject.setListener(this);
+        subjectChanged(subject);
+        catalog = null;
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.tracked(subject);
+        }
+    }
+
+    /**
+     * Stops tracking a subject
+     *
+     * @param subject a subject removed from the school
+     */
+    public void untrack(Subject subject) {
+
+        subject.setListener(null);
+        update(subjectsWithNoCourse, subject, false);
+        catalog = null;
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.untracked(subject);
+        }
+    }
+
+    /**
+     * Starts tracking an instructor
+     *
+     * @param instructor an instructor of the school
+     */
+    public void track(Instructor instructor) {
+
+        instructor.setListener(this);
+        instructorChanged(instructor);
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.tracked(instructor);
+        }
+    }
+
+    /**
+     * Stops tracking an instructor
+     *
+     * @param instructor an instructor removed from the school
+     */
+    public void untrack(Instructor instructor) {
+
+        instructor.setListener(null);
+        update(instructorsNotTeaching, instructor, false);
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.untracked(instructor);
+        }
+    }
+
+    /**
+     * Starts tracking a student
+     *
+     * @param student a student of the school
+     */
+    public void track(Student student) {
+
+        student.setListener(this);
+        studentChanged(student);
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.tracked(student);
+        }
+    }
+
+    /**
+     * Stops tracking a student
+     *
+     * @param student a student removed from the school
+     */
+    public void untrack(Student student) {
+
+        student.setListener(null);
+        update(studentsNotEnrolled, student, false);
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.untracked(student);
+        }
+    }
+
+    /**
+     * Starts tracking a course
+     *
+     * @param course a course of the school
+     */
+    public void track(Course course) {
+
+        course.setListener(this);
+        courseChanged(course);
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.tracked(course);
+        }
+    }
+
+    /**
+     * Stops tracking a course
+     *
+     * @param course a course removed from the school
+     */
+    public void untrack(Course course) {
+
+        course.setListener(null);
+        update(coursesWithNoInstructor, course, false);
+        update(coursesOpen, course, false);
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.untracked(course);
+        }
+    }
+
+    /**
+     * Gets the subjects that are not currently assigned to a course
+     *
+     * @return the set of subjects with no course
+     */
+    public LinkedHashSet<Subject> getSubjectsWithNoCourse() {
+        return subjectsWithNoCourse;
+    }
+
+    /**
+     * Gets the instructors that are not currently teaching in a course
+     *
+     * @return the set of instructors not teaching
+     */
+    public LinkedHashSet<Instructor> getInstructorsNotTeaching() {
+        return instructorsNotTeaching;
+    }
+
+    /**
+     * Gets the students that are not currently enrolled in a course
+     *
+     * @return the set of students not enrolled
+     */
+    public LinkedHashSet<Student> getStudentsNotEnrolled() {
+        return studentsNotEnrolled;
+    }
+
+    /**
+     * Gets the courses with no instructor assigned
+     *
+     * @return the set of courses requiring an instructor
+     */
+    public LinkedHashSet<Course> getCoursesWithNoInstructor() {
+        return coursesWithNoInstructor;
+    }
+
+    /**
+     * Gets the courses that are not full, have not started yet and have not been cancelled
+     *
+     * @return the set of courses open for enrolment
+     */
+    public LinkedHashSet<Course> getCoursesOpen() {
+        return coursesOpen;
+    }
+
+    /**
+     * Puts back the order of the sets of a saved index, see {@link SchoolSnapshot}.<br>
+     * The entities must be tracked already: the order of the sets decides the order of the daily events.
+     *
+     * @param subjectsWithNoCourse    the subjects with no course in saved order
+     * @param instructorsNotTeaching  the instructors not teaching in saved order
+     * @param studentsNotEnrolled     the students not enrolled in saved order
+     * @param coursesWithNoInstructor the courses with no instructor in saved order
+     * @param coursesOpen             the courses open for enrolment in saved order
+     */
+    void restoreOrder(Collection<Subject> subjectsWithNoCourse, Collection<Instructor> instructorsNotTeaching,
+                      Collection<Student> studentsNotEnrolled, Collection<Course> coursesWithNoInstructor,
+                      Collection<Course> coursesOpen) {
+
+        reorder(this.subjectsWithNoCourse, subjectsWithNoCourse);
+        reorder(this.instructorsNotTeaching, instructorsNotTeaching);
+        reorder(this.studentsNotEnrolled, studentsNotEnrolled);
+        reorder(this.coursesWithNoInstructor, coursesWithNoInstructor);
+        reorder(this.coursesOpen, coursesOpen);
+    }
+
+    /**
+     * Replaces the content of a set with the same elements in another order
+     *
+     * @param set      a set of the index
+     * @param elements the elements of the set in the new order
+     * @param <T>      type of the elements of the set
+     */
+    private static <T> void reorder(LinkedHashSet<T> set, Collection<T> elements) {
+
+        //If the elements are not the ones of the set
+        if ((set.size() != elements.size()) || !(set.containsAll(elements))) {
+            throw new IllegalStateException("The saved index does not match the state of the school");
+        }
+
+        set.clear();
+        set.addAll(elements);
+    }
+
+    /**
+     * Adds an element to a set or removes it according to a condition
+     *
+     * @param set       a set of the index
+     * @param element   an element
+     * @param condition true if the element must be in the set, false otherwise
+     * @param <T>       type of the elements of the set
+     */
+    private <T> void update(LinkedHashSet<T> set, T element, boolean condition) {
+
+        //Adds the element if it must be in the set, removes it otherwise
+        boolean changed = condition ? set.add(element) : set.remove(element);
+
+        //If the set has changed and the changes of the school are checkpointed
+        if (changed && (checkpoints != null)) {
+            checkpoints.orderChanged(set, element, condition);
+        }
+    }
+
+    @Override
+    public void subjectChanged(Subject subject) {
+        update(subjectsWithNoCourse, subject, !(subject.hasCourse()));
+        changed(subject);
+    }
+
+    @Override
+    public void prerequisitesChanged(Subject subject) {
+        catalog = null;
+        changed(subject);
+    }
+
+    @Override
+    public void instructorChanged(Instructor instructor) {
+        update(instructorsNotTeaching, instructor, !(instructor.isTeaching()));
+        changed(instructor);
+    }
+
+    @Override
+    public void studentChanged(Student student) {
+        update(studentsNotEnrolled, student, !(student.isEnrolled()));
+        changed(student);
+    }
+
+    @Override
+    public void courseChanged(Course course) {
+
+        boolean isOver = (course.getStatus() == 0) || (course.isCancelled());
+        boolean isNotStarted = (course.getStatus() < 0) && !(course.isCancelled());
+
+        update(coursesWithNoInstructor, course, !(course.hasInstructor()) && !(isOver));
+        update(coursesOpen, course, (course.getSize() < Course.CAPACITY) && isNotStarted);
+        changed(course);
+    }
+
+    /**
+     * Marks an entity whose state has changed for the next checkpoint
+     *
+     * @param entity an entity tracked by the index
+     */
+    private void changed(Object entity) {
+
+        //If the changes of the school are checkpointed
+        if (checkpoints != null) {
+            checkpoints.changed(entity);
+        }
+    }
+
+    @Override
+    public void studentEnrolled(Course course, Student student) {
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.studentEnrolled(course, student);
+        }
+    }
+
+    @Override
+    public void instructorAssigned(Course course, Instructor instructor) {
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.instructorAssigned(course, instructor);
+        }
+    }
+
+    /**
+     * Sets the journal recording the enrolments and the assignments of the tracked courses
+     *
+     * @param journal a journal, null if nothing must be recorded
+     */
+    void setJournal(SimulationJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the writer of the checkpoints told about the entities tracked, untracked and changed
+     * and about the changes of the order of the sets
+     *
+     * @param checkpoints a checkpoint writer, null if the school is not checkpointed
+     */
+    void setCheckpoints(CheckpointWriter checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+}
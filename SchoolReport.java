@@ -0,0 +1,65 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes reports of a school (or of any {@link Reportable} object) to text files.<br>
+ * The information is streamed through a buffered writer of a {@link FileChannel}
+ * as it is generated, in linear time and without building the whole report in memory,
+ * so that even the recaps of schools with hundreds of thousands of people can be written every day.
+ *
+ * @author albertoTamajo
+ */
+public final class SchoolReport {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SchoolReport() {
+    }
+
+    /**
+     * Writes the information of an object to a file, replacing its content
+     *
+     * @param reportable an object whose information is needed, e.g. a {@link School}
+     * @param path       the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Reportable reportable, Path path) throws IOException {
+        write(reportable, path, false);
+    }
+
+    /**
+     * Appends the information of an object at the end of a file, e.g. the recap of every day of a simulation
+     *
+     * @param reportable an object whose information is needed, e.g. a {@link School}
+     * @param path       the path of the file, created if it does not exist
+     * @throws IOException if the file cannot be written
+     */
+    public static void append(Reportable reportable, Path path) throws IOException {
+        write(reportable, path, true);
+    }
+
+    /**
+     * Writes the information of an object to a file
+     *
+     * @param reportable an object whose information is needed
+     * @param path       the path of the file
+     * @param append     true to append the information at the end of the file, false to replace its content
+     * @throws IOException if the file cannot be written
+     */
+    private static void write(Reportable reportable, Path path, boolean append) throws IOException {
+
+        StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+
+            reportable.appendTo(writer);
+        }
+    }
+}
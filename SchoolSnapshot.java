@@ -0,0 +1,1354 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class saves the state of a {@link School} to a compact binary snapshot and loads it back.<br>
+ * A snapshot starts with a magic number and the version of its format, followed by the state of the simulation
+ * (clock, random source, statistics), one table for every kind of entity and the state of the daily events
+ * (the queue of the events of the courses and the order of the sets of the {@link SchoolIndex}).<br>
+ * Entities refer to each other through their position in the tables, strings are written once
+ * and referred to by position afterwards, and numbers are written as variable-length integers
+ * through a buffered {@link FileChannel}.<br>
+ * A loaded school continues the simulation exactly as the saved one would have done.
+ * Differently from Java serialisation the format does not depend on the fields of the classes
+ * and the entities are written one after the other, whatever the length of the chains of references.<br>
+ * The records of the entities are also used by the incremental checkpoints, see {@link CheckpointWriter}.<br>
+ * Since version 2 the snapshot files end with an index of the position of every record and string,
+ * so that a snapshot can be mapped in memory and its entities read one by one, see {@link MappedSnapshot}.
+ * Version 1 snapshots are still loaded.
+ *
+ * @author albertoTamajo
+ */
+public final class SchoolSnapshot {
+
+    static final int MAGIC = 0x53534E50;
+    static final int VERSION = 2;
+    static final int INDEX_MAGIC = 0x53534958;
+
+    static final int SUBJECTS = 0;
+    static final int INSTRUCTORS = 1;
+    static final int STUDENTS = 2;
+    static final int COURSES = 3;
+    static final int TYPES = 4;
+
+    /**
+     * Type of the entities of every set of the index, in the order of {@link #indexSets(SchoolIndex)}
+     */
+    static final int[] INDEX_SET_TYPES = {SUBJECTS, INSTRUCTORS, STUDENTS, COURSES, COURSES};
+
+    static final int NONE = -1;
+
+
+    /**
+     * This class only has static methods
+     */
+    private SchoolSnapshot() {
+    }
+
+    /**
+     * Saves a school to a snapshot file, replacing an existing file
+     *
+     * @param school a school
+     * @param path   the path of the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(School school, Path path) throws IOException {
+
+        try (SnapshotOutput out = new SnapshotOutput(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+
+            out.writeFixedInt(MAGIC);
+            out.writeInt(VERSION);
+
+            Encoder encoder = new Encoder(out, new IdentityHashMap<>());
+            encoder.write(school);
+            encoder.writeIndex();
+        }
+    }
+
+    /**
+     * Loads a school from a snapshot file.<br>
+     * The file is mapped in memory and read without copying it, unless it is larger than 2 GB.
+     *
+     * @param path the path of the snapshot file
+     * @return the school saved
+     * @throws IOException if the file cannot be read or it is not a valid snapshot
+     */
+    public static School load(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            //If the file can be mapped in one piece
+            if (channel.size() <= Integer.MAX_VALUE) {
+                return read(new SnapshotInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+            }
+
+            return read(new SnapshotInput(channel));
+        }
+    }
+
+    /**
+     * Writes the snapshot of a school to a stream.<br>
+     * The snapshot has no index, thus it cannot be mapped by {@link MappedSnapshot} but it is loaded as any other snapshot.
+     *
+     * @param school a school
+     * @param out    the stream, flushed but not closed
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void save(School school, OutputStream out) throws IOException {
+
+        SnapshotOutput snapshot = new SnapshotOutput(Channels.newChannel(out));
+        write(school, snapshot, new IdentityHashMap<>());
+        snapshot.flush();
+        out.flush();
+    }
+
+    /**
+     * Loads a school from a stream
+     *
+     * @param in the stream, not closed; it may be read past the end of the snapshot
+     * @return the school saved
+     * @throws IOException if the stream cannot be read or it is not a valid snapshot
+     */
+    public static School load(InputStream in) throws IOException {
+        return read(new SnapshotInput(Channels.newChannel(in)));
+    }
+
+    /**
+     * Checks whether or not a file starts like a snapshot
+     *
+     * @param path the path of a file
+     * @return true if the file starts with the magic number of the snapshots, false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(4);
+
+            //Loops until the magic number is read or the file ends
+            while (header.hasRemaining() && (channel.read(header) >= 0)) {
+            }
+
+            return !(header.hasRemaining()) && (header.getInt(0) == MAGIC);
+        }
+    }
+
+    /**
+     * Writes the snapshot of a school, with no index, and gets the position of every entity in its table
+     *
+     * @param school a school
+     * @param out    where the snapshot is written
+     * @param refs   an empty map, filled with the position of every entity written in its table
+     * @return the size of every table, indexed by type of entity
+     * @throws IOException if the snapshot cannot be written
+     */
+    static int[] write(School school, SnapshotOutput out, IdentityHashMap<Object, Integer> refs) throws IOException {
+
+        out.writeFixedInt(MAGIC);
+        out.writeInt(VERSION);
+
+        Encoder encoder = new Encoder(out, refs);
+        encoder.write(school);
+        return encoder.tableSizes();
+    }
+
+    /**
+     * Reads the snapshot of a school
+     *
+     * @param in where the snapshot is read
+     * @return the school saved
+     * @throws IOException if the snapshot cannot be read or it is not valid
+     */
+    static School read(SnapshotInput in) throws IOException {
+        return readImage(in).build();
+    }
+
+    /**
+     * Reads the snapshot of a school without building the school
+     *
+     * @param in where the snapshot is read
+     * @return the records of the school saved
+     * @throws IOException if the snapshot cannot be read or it is not valid
+     */
+    static Image readImage(SnapshotInput in) throws IOException {
+
+        readHeader(in);
+        return new Decoder(in).readImage();
+    }
+
+    /**
+     * Reads the magic number and the version of a snapshot
+     *
+     * @param in where the snapshot is read
+     * @return the version of the snapshot
+     * @throws IOException if the snapshot cannot be read, it is not a snapshot or its version is not supported
+     */
+    static int readHeader(SnapshotInput in) throws IOException {
+
+        //If it is not a snapshot
+        if (in.readFixedInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a school snapshot");
+        }
+
+        int version = in.readInt();
+
+        //If the snapshot has been written by a newer version of the simulation
+        if ((version < 1) || (version > VERSION)) {
+            throw new StreamCorruptedException("Unsupported snapshot version " + version);
+        }
+
+        return version;
+    }
+
+    /**
+     * Returns the sets of the entities of a school, indexed by type of entity
+     *
+     * @param school a school
+     * @return the sets of subjects, instructors, students and courses
+     */
+    static List<Set<?>> schoolSets(School school) {
+        return Arrays.asList(school.getSubjects(), school.getInstructors(), school.getStudents(), school.getCourses());
+    }
+
+    /**
+     * Returns the sets of an index in the order of the snapshots
+     *
+     * @param index the index of a school
+     * @return the sets of the index
+     */
+    static List<Set<?>> indexSets(SchoolIndex index) {
+        return Arrays.asList(index.getSubjectsWithNoCourse(), index.getInstructorsNotTeaching(),
+                index.getStudentsNotEnrolled(), index.getCoursesWithNoInstructor(), index.getCoursesOpen());
+    }
+
+    /**
+     * Resolves a reference to a record
+     *
+     * @param table the table of the records
+     * @param ref   the position of the record in the table, {@link #NONE} if there is no record
+     * @param <T>   type of the records
+     * @return the record, null if there is no record
+     * @throws IOException if the reference is not valid
+     */
+    private static <T> T ref(List<T> table, int ref) throws IOException {
+
+        //If there is no record
+        if (ref == NONE) {
+            return null;
+        }
+
+        //If the reference is out of the table or the record has been dropped
+        if ((ref < 0) || (ref >= table.size()) || (table.get(ref) == null)) {
+            throw new StreamCorruptedException("Malformed reference " + ref);
+        }
+
+        return table.get(ref);
+    }
+
+    /**
+     * Resolves the references to the entities of a set
+     *
+     * @param table the table of the entities
+     * @param refs  the references in order
+     * @param <T>   type of the entities
+     * @return the entities in order
+     * @throws IOException if a reference is not valid
+     */
+    private static <T> List<T> resolve(List<T> table, Collection<Integer> refs) throws IOException {
+
+        ArrayList<T> entities = new ArrayList<>(refs.size());
+
+        //Resolves every reference
+        for (int ref : refs) {
+
+            //If there is no entity
+            if (ref == NONE) {
+                throw new StreamCorruptedException("Missing reference");
+            }
+
+            entities.add(ref(table, ref));
+        }
+
+        return entities;
+    }
+
+    /**
+     * This interface gets the strings of a snapshot whose records are read out of order
+     */
+    interface StringTable {
+
+        /**
+         * Gets a string of the snapshot
+         *
+         * @param ref the position of the string among the strings of the snapshot
+         * @param in  where the record referring to the string is read; the string is read from it
+         *            if it is written right there, i.e. the record is the first one referring to it
+         * @return the string
+         * @throws IOException if the string cannot be read or the position is not valid
+         */
+        String get(int ref, SnapshotInput in) throws IOException;
+    }
+
+    /**
+     * This class keeps the records of a saved school: the entities are built,
+     * but they only refer to each other once the school is built.<br>
+     * The records can be changed before the school is built, see {@link CheckpointLoader}.
+     */
+    static final class Image {
+
+        String name;
+        int day;
+        long randomState;
+        final long[] statistics;
+        final ArrayList<Subject> subjects;
+        final ArrayList<Instructor> instructors;
+        final ArrayList<Student> students;
+        final ArrayList<CourseRecord> courses;
+        final List<LinkedHashSet<Integer>> members;
+        final List<LinkedHashSet<Integer>> indexSets;
+        int[] events;
+
+        Image() {
+
+            this.statistics = new long[5];
+            this.subjects = new ArrayList<>();
+            this.instructors = new ArrayList<>();
+            this.students = new ArrayList<>();
+            this.courses = new ArrayList<>();
+            this.members = new ArrayList<>();
+            this.indexSets = new ArrayList<>();
+            this.events = new int[0];
+
+            //Creates the sets of the members of the school
+            for (int type = 0; type < TYPES; type++) {
+                members.add(new LinkedHashSet<>());
+            }
+
+            //Creates the sets of the index
+            for (int i = 0; i < INDEX_SET_TYPES.length; i++) {
+                indexSets.add(new LinkedHashSet<>());
+            }
+        }
+
+        /**
+         * Gets the table of a type of entity
+         *
+         * @param type a type of entity
+         * @return the table
+         */
+        List<?> table(int type) {
+
+            switch (type) {
+                case SUBJECTS:
+                    return subjects;
+                case INSTRUCTORS:
+                    return instructors;
+                case STUDENTS:
+                    return students;
+                default:
+                    return courses;
+            }
+        }
+
+        /**
+         * Puts a record in a table, replacing the previous record
+         *
+         * @param table  a table
+         * @param ref    the position of the record
+         * @param record the record, null if the record is dropped
+         * @param <T>    type of the records
+         * @throws IOException if the position is not valid
+         */
+        static <T> void put(List<T> table, int ref, T record) throws IOException {
+
+            //If the position is not valid
+            if (ref < 0) {
+                throw new StreamCorruptedException("Malformed reference " + ref);
+            }
+
+            //Loops until the table is long enough
+            while (table.size() <= ref) {
+                table.add(null);
+            }
+
+            table.set(ref, record);
+        }
+
+        /**
+         * Writes the records as a delta applied to no records, so that every entity keeps its position,
+         * see {@link CheckpointWriter}
+         *
+         * @param out where the records are written
+         * @throws IOException if the records cannot be written
+         */
+        void writeRecords(SnapshotOutput out) throws IOException {
+
+            Encoder encoder = new Encoder(out, new IdentityHashMap<>());
+            encoder.writeState(name, day, randomState, statistics);
+
+            //Writes the records of every type of entity
+            for (int type = 0; type < TYPES; type++) {
+
+                List<?> table = table(type);
+                int kept = 0;
+
+                //Counts the records kept
+                for (Object record : table) {
+                    kept += (record == null) ? 0 : 1;
+                }
+
+                out.writeInt(kept);
+
+                //Writes every record kept
+                for (int ref = 0; ref < table.size(); ref++) {
+
+                    Object record = table.get(ref);
+
+                    //If the record has been dropped
+                    if (record == null) {
+                        continue;
+                    }
+
+                    out.writeInt(ref);
+
+                    switch (type) {
+                        case SUBJECTS:
+                            encoder.writeSubject((Subject) record);
+                            break;
+                        case INSTRUCTORS:
+                            encoder.writeInstructor((Instructor) record);
+                            break;
+                        case STUDENTS:
+                            encoder.writeStudent((Student) record);
+                            break;
+                        default:
+                            encoder.writeCourse((CourseRecord) record);
+                            break;
+                    }
+                }
+            }
+
+            //Writes the members of the school as appended to no members, with no entity dropped
+            for (LinkedHashSet<Integer> set : members) {
+
+                encoder.writeRefs(new int[0]);
+                encoder.writeRefs(set);
+                encoder.writeRefs(new int[0]);
+            }
+
+            out.writeInt(events.length / 2);
+
+            //Writes the day and the course of every event
+            for (int value : events) {
+                out.writeInt(value);
+            }
+
+            //Writes every set of the index as appended to an empty set
+            for (LinkedHashSet<Integer> set : indexSets) {
+
+                encoder.writeRefs(new int[0]);
+                encoder.writeRefs(set);
+            }
+        }
+
+        /**
+         * Builds the school
+         *
+         * @return the school saved
+         * @throws IOException if the records are not consistent
+         */
+        School build() throws IOException {
+
+            SimulationClock clock = new SimulationClock(day);
+            RandomSource random = new RandomSource();
+            random.setState(randomState);
+            SchoolStatistics schoolStatistics = new SchoolStatistics(statistics[0], statistics[1], statistics[2],
+                    statistics[3], statistics[4]);
+
+            ArrayList<Course> builtCourses = new ArrayList<>(courses.size());
+
+            //Builds every course
+            for (CourseRecord record : courses) {
+                builtCourses.add((record == null) ? null : record.build(this, clock));
+            }
+
+            ArrayList<CourseEvent> courseEvents = new ArrayList<>(events.length / 2);
+
+            //Builds every event
+            for (int i = 0; i < events.length; i += 2) {
+                courseEvents.add(new CourseEvent(events[i], ref(builtCourses, events[i + 1])));
+            }
+
+            School school = new School(name, clock, schoolStatistics, random);
+            school.restore(resolve(subjects, members.get(SUBJECTS)), resolve(instructors, members.get(INSTRUCTORS)),
+                    resolve(students, members.get(STUDENTS)), resolve(builtCourses, members.get(COURSES)), courseEvents);
+
+            //Tries to put back the order of the sets of the index
+            try {
+
+                school.getIndex().restoreOrder(resolve(subjects, indexSets.get(0)),
+                        resolve(instructors, indexSets.get(1)), resolve(students, indexSets.get(2)),
+                        resolve(builtCourses, indexSets.get(3)), resolve(builtCourses, indexSets.get(4)));
+
+            } catch (IllegalStateException e) {
+                throw new StreamCorruptedException(e.getMessage());
+            }
+
+            return school;
+        }
+    }
+
+    /**
+     * This class keeps the record of a course, referring to its subject, instructor and students by position
+     */
+    static final class CourseRecord {
+
+        final int subject;
+        final int startDay;
+        final int endDay;
+        final int flags;
+        final int instructor;
+        final int[] students;
+
+        private CourseRecord(int subject, int startDay, int endDay, int flags, int instructor, int[] students) {
+            this.subject = subject;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.flags = flags;
+            this.instructor = instructor;
+            this.students = students;
+        }
+
+        /**
+         * Builds the course and enrols its students
+         *
+         * @param image the records of the school
+         * @param clock the clock of the school
+         * @return the course
+         * @throws IOException if a reference is not valid
+         */
+        private Course build(Image image, SimulationClock clock) throws IOException {
+
+            //If the course has no subject
+            if (subject == NONE) {
+                throw new StreamCorruptedException("Course with no subject");
+            }
+
+            Course course = new Course(ref(image.subjects, subject), clock, startDay, endDay,
+                    (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0);
+
+            ArrayList<Student> enrolled = new ArrayList<>(students.length);
+
+            //Resolves every student enrolled
+            for (int student : students) {
+                enrolled.add(ref(image.students, student));
+            }
+
+            course.restore(ref(image.instructors, instructor), enrolled);
+            return course;
+        }
+    }
+
+    /**
+     * This class writes the state of a school and the records of its entities
+     */
+    static final class Encoder {
+
+        private final SnapshotOutput out;
+        private final IdentityHashMap<Object, Integer> refs;
+        private final HashMap<String, Integer> strings;
+        private final ArrayList<Subject> subjects;
+        private final ArrayList<Instructor> instructors;
+        private final ArrayList<Student> students;
+        private final ArrayList<Course> courses;
+        private final long[][] offsets;
+        private final int[] members;
+        private long[] stringOffsets;
+
+        /**
+         * Creates an encoder
+         *
+         * @param out  where the records are written
+         * @param refs the position of the entities in their tables
+         */
+        Encoder(SnapshotOutput out, IdentityHashMap<Object, Integer> refs) {
+            this.out = out;
+            this.refs = refs;
+            this.strings = new HashMap<>();
+            this.subjects = new ArrayList<>();
+            this.instructors = new ArrayList<>();
+            this.students = new ArrayList<>();
+            this.courses = new ArrayList<>();
+            this.offsets = new long[TYPES][0];
+            this.members = new int[TYPES];
+            this.stringOffsets = new long[64];
+        }
+
+        /**
+         * Writes the state of a school
+         *
+         * @param school a school
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void write(School school) throws IOException {
+
+            collect(school);
+            writeState(school);
+
+            List<Set<?>> schoolSets = schoolSets(school);
+
+            //Writes the table of every type of entity, keeping the position of every record
+            for (int type = 0; type < TYPES; type++) {
+
+                List<?> table = table(type);
+
+                offsets[type] = new long[table.size()];
+                members[type] = schoolSets.get(type).size();
+
+                out.writeInt(table.size());
+                out.writeInt(members[type]);
+
+                //Writes every entity
+                for (int i = 0; i < table.size(); i++) {
+
+                    offsets[type][i] = out.size();
+
+                    switch (type) {
+                        case SUBJECTS:
+                            writeSubject(subjects.get(i));
+                            break;
+                        case INSTRUCTORS:
+                            writeInstructor(instructors.get(i));
+                            break;
+                        case STUDENTS:
+                            writeStudent(students.get(i));
+                            break;
+                        default:
+                            writeCourse(courses.get(i));
+                            break;
+                    }
+                }
+            }
+
+            writeEvents(school);
+
+            //Writes the order of every set of the index
+            for (Set<?> set : indexSets(school.getIndex())) {
+                writeRefs(set);
+            }
+        }
+
+        /**
+         * Writes the index of the snapshot after its end: the position of every record and of every string,
+         * followed by the position of the index and {@link #INDEX_MAGIC}.<br>
+         * Snapshots larger than 2 GB have no index, since they cannot be mapped in one piece.
+         *
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeIndex() throws IOException {
+
+            long start = out.size();
+
+            //If the snapshot is too large to be mapped
+            if (start > Integer.MAX_VALUE) {
+                return;
+            }
+
+            //Writes the position of every record of every table
+            for (int type = 0; type < TYPES; type++) {
+
+                out.writeInt(offsets[type].length);
+                out.writeInt(members[type]);
+
+                for (long offset : offsets[type]) {
+                    out.writeFixedInt((int) offset);
+                }
+            }
+
+            out.writeInt(strings.size());
+
+            //Writes the position of every string
+            for (int i = 0; i < strings.size(); i++) {
+                out.writeFixedInt((int) stringOffsets[i]);
+            }
+
+            out.writeFixedLong(start);
+            out.writeFixedInt(INDEX_MAGIC);
+        }
+
+        /**
+         * Gets the table of a type of entity
+         *
+         * @param type a type of entity
+         * @return the table
+         */
+        private List<?> table(int type) {
+
+            switch (type) {
+                case SUBJECTS:
+                    return subjects;
+                case INSTRUCTORS:
+                    return instructors;
+                case STUDENTS:
+                    return students;
+                default:
+                    return courses;
+            }
+        }
+
+        /**
+         * Gets the size of the tables written
+         *
+         * @return the size of every table, indexed by type of entity
+         */
+        private int[] tableSizes() {
+            return new int[]{subjects.size(), instructors.size(), students.size(), courses.size()};
+        }
+
+        /**
+         * Fills the tables with the entities of the school, followed by the entities they refer to
+         * that are no longer part of the school, e.g. a student removed while enrolled in a course
+         *
+         * @param school a school
+         */
+        private void collect(School school) {
+
+            //Adds the entities of the school
+            school.getSubjects().forEach(subject -> add(subjects, subject));
+            school.getInstructors().forEach(instructor -> add(instructors, instructor));
+            school.getStudents().forEach(student -> add(students, student));
+            school.getCourses().forEach(course -> add(courses, course));
+
+            int nextCourse = 0;
+            int nextInstructor = 0;
+            int nextStudent = 0;
+
+            //Loops until the entities referred to are all in the tables
+            while ((nextCourse < courses.size()) || (nextInstructor < instructors.size()) || (nextStudent < students.size())) {
+
+                //Adds the subject, the instructor and the students of every course
+                for (; nextCourse < courses.size(); nextCourse++) {
+
+                    Course course = courses.get(nextCourse);
+
+                    add(subjects, course.getSubject());
+                    add(instructors, course.getInstructor());
+                    course.getStudentList().forEach(student -> add(students, student));
+                }
+
+                //Adds the course of every instructor teaching
+                for (; nextInstructor < instructors.size(); nextInstructor++) {
+
+                    Instructor instructor = instructors.get(nextInstructor);
+                    add(courses, instructor.isTeaching() ? instructor.getAssignedCourse() : null);
+                }
+
+                //Adds the course of every student enrolled
+                for (; nextStudent < students.size(); nextStudent++) {
+
+                    Student student = students.get(nextStudent);
+                    add(courses, student.isEnrolled() ? student.getCourseEnrolled() : null);
+                }
+            }
+        }
+
+        /**
+         * Adds an entity to a table if it is not in the table yet
+         *
+         * @param table  a table
+         * @param entity an entity, possibly null
+         * @param <T>    type of the entities of the table
+         */
+        private <T> void add(List<T> table, T entity) {
+
+            //If the entity is not in the table yet
+            if ((entity != null) && !(refs.containsKey(entity))) {
+
+                refs.put(entity, table.size());
+                table.add(entity);
+            }
+        }
+
+        /**
+         * Writes the name of a school and the state of its simulation
+         *
+         * @param school a school
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeState(School school) throws IOException {
+
+            SchoolStatistics statistics = school.getStatistics();
+
+            writeState(school.getName(), school.getClock().getDay(), school.getRandom().getState(),
+                    new long[]{statistics.getCertificatesAwarded(), statistics.getCoursesCompleted(),
+                            statistics.getCoursesCancelled(), statistics.getStudentsGraduated(),
+                            statistics.getStudentsDroppedOut()});
+        }
+
+        /**
+         * Writes the name of a school and the state of its simulation
+         *
+         * @param name        the name of the school
+         * @param day         the day of the clock
+         * @param randomState the state of the random source
+         * @param statistics  the statistics in the order of {@link Image#statistics}
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeState(String name, int day, long randomState, long[] statistics) throws IOException {
+
+            writeString(name);
+            out.writeInt(day);
+            out.writeFixedLong(randomState);
+
+            //Writes every statistic
+            for (long statistic : statistics) {
+                out.writeLong(statistic);
+            }
+        }
+
+        /**
+         * Writes the record of a subject
+         *
+         * @param subject a subject
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeSubject(Subject subject) throws IOException {
+
+            out.writeInt(subject.getID());
+            out.writeInt(subject.getSpecialism());
+            out.writeInt(subject.getDuration());
+            writeIds(subject.getPrerequisiteSet());
+            writeString(subject.getDescription());
+            out.writeBoolean(subject.hasCourse());
+        }
+
+        /**
+         * Writes the record of an instructor
+         *
+         * @param instructor an instructor
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeInstructor(Instructor instructor) throws IOException {
+
+            writeString(instructor.getClass().getName());
+            writeString(instructor.getName());
+            out.writeInt(instructor.getGender());
+            out.writeInt(instructor.getAge());
+        }
+
+        /**
+         * Writes the record of a student
+         *
+         * @param student a student
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeStudent(Student student) throws IOException {
+
+            writeString(student.getName());
+            out.writeInt(student.getGender());
+            out.writeInt(student.getAge());
+            writeIds(student.getCertificateSet());
+        }
+
+        /**
+         * Writes the record of a course.<br>
+         * The subject, the instructor and the students of the course must have a position.
+         *
+         * @param course a course
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeCourse(Course course) throws IOException {
+
+            List<Student> enrolled = course.getStudentList();
+
+            writeRef(course.getSubject());
+            out.writeInt(course.getStartDay());
+            out.writeInt(course.getEndDay() - course.getStartDay());
+            out.writeByte((course.hasStarted() ? 1 : 0) | (course.isCompleted() ? 2 : 0) | (course.isCancelled() ? 4 : 0));
+            writeRef(course.getInstructor());
+            out.writeInt(enrolled.size());
+
+            //Writes every student enrolled
+            for (Student student : enrolled) {
+                writeRef(student);
+            }
+        }
+
+        /**
+         * Writes the record of a course read before
+         *
+         * @param record the record of a course
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeCourse(CourseRecord record) throws IOException {
+
+            out.writeInt(record.subject);
+            out.writeInt(record.startDay);
+            out.writeInt(record.endDay - record.startDay);
+            out.writeByte(record.flags);
+            out.writeInt(record.instructor);
+            writeRefs(record.students);
+        }
+
+        /**
+         * Writes the events of the courses of a school in the order of the queue
+         *
+         * @param school a school
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeEvents(School school) throws IOException {
+
+            out.writeInt(school.getCourseEvents().size());
+
+            //Writes every event
+            for (CourseEvent event : school.getCourseEvents()) {
+
+                out.writeInt(event.getDay());
+
+                //An event of a course removed from the school will be skipped
+                writeRef(school.getCourses().contains(event.getCourse()) ? event.getCourse() : null);
+            }
+        }
+
+        /**
+         * Writes the reference to an entity
+         *
+         * @param entity an entity with a position, possibly null
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeRef(Object entity) throws IOException {
+
+            //If there is no entity
+            if (entity == null) {
+
+                out.writeInt(NONE);
+                return;
+            }
+
+            Integer ref = refs.get(entity);
+
+            //If the entity has no position
+            if (ref == null) {
+                throw new IllegalStateException("The snapshot does not know " + entity.getClass().getName());
+            }
+
+            out.writeInt(ref);
+        }
+
+        /**
+         * Writes the references to some entities
+         *
+         * @param entities the entities in order
+         * @throws IOException if the snapshot cannot be written
+         */
+        void writeRefs(Collection<?> entities) throws IOException {
+
+            out.writeInt(entities.size());
+
+            //Writes every reference
+            for (Object entity : entities) {
+                writeRef(entity);
+            }
+        }
+
+        /**
+         * Writes positions in tables as they are
+         *
+         * @param refs the positions in order
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeRefs(int[] refs) throws IOException {
+
+            out.writeInt(refs.length);
+
+            //Writes every position
+            for (int ref : refs) {
+                out.writeInt(ref);
+            }
+        }
+
+        /**
+         * Writes positions in tables as they are
+         *
+         * @param refs the positions in order
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeRefs(Set<Integer> refs) throws IOException {
+
+            out.writeInt(refs.size());
+
+            //Writes every position
+            for (int ref : refs) {
+                out.writeInt(ref);
+            }
+        }
+
+        /**
+         * Writes a set of subject IDs as the differences between consecutive IDs
+         *
+         * @param ids a set of IDs
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeIds(IdBitSet ids) throws IOException {
+
+            out.writeInt(ids.size());
+
+            int previous = 0;
+
+            //Writes every ID
+            for (int id : ids.toArray()) {
+                out.writeInt(id - previous);
+                previous = id;
+            }
+        }
+
+        /**
+         * Writes a string the first time it is met, its position among the strings written afterwards
+         *
+         * @param string a string, possibly null
+         * @throws IOException if the snapshot cannot be written
+         */
+        private void writeString(String string) throws IOException {
+
+            //If there is no string
+            if (string == null) {
+
+                out.writeInt(NONE);
+                return;
+            }
+
+            Integer ref = strings.get(string);
+
+            //If the string has already been written
+            if (ref != null) {
+
+                out.writeInt(ref);
+                return;
+            }
+
+            //If the positions of the strings need more room
+            if (strings.size() == stringOffsets.length) {
+                stringOffsets = Arrays.copyOf(stringOffsets, 2 * stringOffsets.length);
+            }
+
+            //A new string gets the next position
+            out.writeInt(strings.size());
+            stringOffsets[strings.size()] = out.size();
+            out.writeString(string);
+            strings.put(string, strings.size());
+        }
+    }
+
+    /**
+     * This class reads the state of a school and the records of its entities
+     */
+    static final class Decoder {
+
+        private final SnapshotInput in;
+        private final ArrayList<String> strings;
+        private final StringTable table;
+
+        /**
+         * Creates a decoder reading the records in order
+         *
+         * @param in where the records are read
+         */
+        Decoder(SnapshotInput in) {
+            this(in, null);
+        }
+
+        /**
+         * Creates a decoder reading the records out of order
+         *
+         * @param in    where the records are read
+         * @param table the strings of the snapshot, null if the records are read in order
+         */
+        Decoder(SnapshotInput in, StringTable table) {
+            this.in = in;
+            this.strings = new ArrayList<>();
+            this.table = table;
+        }
+
+        /**
+         * Reads the state of a school
+         *
+         * @return the records of the school saved
+         * @throws IOException if the snapshot cannot be read or it is not valid
+         */
+        private Image readImage() throws IOException {
+
+            Image image = new Image();
+            readState(image);
+
+            int size = readSize();
+            readMembers(image, SUBJECTS, size);
+
+            //Reads every subject
+            for (int i = 0; i < size; i++) {
+                image.subjects.add(readSubject());
+            }
+
+            size = readSize();
+            readMembers(image, INSTRUCTORS, size);
+
+            //Reads every instructor
+            for (int i = 0; i < size; i++) {
+                image.instructors.add(readInstructor());
+            }
+
+            size = readSize();
+            readMembers(image, STUDENTS, size);
+
+            //Reads every student
+            for (int i = 0; i < size; i++) {
+                image.students.add(readStudent());
+            }
+
+            size = readSize();
+            readMembers(image, COURSES, size);
+
+            //Reads every course
+            for (int i = 0; i < size; i++) {
+                image.courses.add(readCourse());
+            }
+
+            image.events = readEvents();
+
+            //Reads the order of every set of the index
+            for (LinkedHashSet<Integer> set : image.indexSets) {
+                set.addAll(readRefs());
+            }
+
+            return image;
+        }
+
+        /**
+         * Reads the number of entities of a table that are part of the school: the first ones
+         *
+         * @param image the records of the school
+         * @param type  the type of the entities of the table
+         * @param size  the size of the table
+         * @throws IOException if the snapshot cannot be read or the number is not valid
+         */
+        private void readMembers(Image image, int type, int size) throws IOException {
+
+            int members = readSize();
+
+            //If there are more entities in the school than in the table
+            if (members > size) {
+                throw new StreamCorruptedException("Malformed table of " + size + " entities");
+            }
+
+            //Adds the position of every member
+            for (int i = 0; i < members; i++) {
+                image.members.get(type).add(i);
+            }
+        }
+
+        /**
+         * Reads the name of a school and the state of its simulation
+         *
+         * @param image where the state is kept
+         * @throws IOException if the snapshot cannot be read
+         */
+        void readState(Image image) throws IOException {
+
+            image.name = readString();
+            image.day = in.readInt();
+            image.randomState = in.readFixedLong();
+
+            //Reads every statistic
+            for (int i = 0; i < image.statistics.length; i++) {
+                image.statistics[i] = in.readLong();
+            }
+        }
+
+        /**
+         * Reads the record of a subject
+         *
+         * @return the subject
+         * @throws IOException if the snapshot cannot be read
+         */
+        Subject readSubject() throws IOException {
+
+            Subject subject = new Subject(in.readInt(), in.readInt(), in.readInt(), readIds());
+            subject.setDescription(readString());
+            subject.restoreHasCourse(in.readBoolean());
+            return subject;
+        }
+
+        /**
+         * Reads the record of an instructor
+         *
+         * @return the instructor, not teaching yet
+         * @throws IOException if the snapshot cannot be read or the kind of instructor is not valid
+         */
+        Instructor readInstructor() throws IOException {
+
+            String kind = readString();
+            String name = readString();
+            return JournalReplayer.newInstructor(kind, name, (char) in.readInt(), in.readInt());
+        }
+
+        /**
+         * Reads the record of a student
+         *
+         * @return the student, not enrolled yet
+         * @throws IOException if the snapshot cannot be read
+         */
+        Student readStudent() throws IOException {
+
+            Student student = new Student(readString(), (char) in.readInt(), in.readInt());
+
+            //Gives back every certificate
+            for (int id : readIds()) {
+                student.addCertificate(id);
+            }
+
+            return student;
+        }
+
+        /**
+         * Reads the record of a course
+         *
+         * @return the record
+         * @throws IOException if the snapshot cannot be read
+         */
+        CourseRecord readCourse() throws IOException {
+
+            int subject = in.readInt();
+            int startDay = in.readInt();
+            int endDay = startDay + in.readInt();
+            int flags = in.readByte();
+            int instructor = in.readInt();
+            int[] students = new int[readSize()];
+
+            //Reads every student enrolled
+            for (int i = 0; i < students.length; i++) {
+                students[i] = in.readInt();
+            }
+
+            return new CourseRecord(subject, startDay, endDay, flags, instructor, students);
+        }
+
+        /**
+         * Reads the events of the courses
+         *
+         * @return the day and the course of every event
+         * @throws IOException if the snapshot cannot be read
+         */
+        int[] readEvents() throws IOException {
+
+            int[] events = new int[2 * readSize()];
+
+            //Reads every event
+            for (int i = 0; i < events.length; i++) {
+                events[i] = in.readInt();
+            }
+
+            return events;
+        }
+
+        /**
+         * Reads references to some entities
+         *
+         * @return the references in order
+         * @throws IOException if the snapshot cannot be read
+         */
+        List<Integer> readRefs() throws IOException {
+
+            int size = readSize();
+            ArrayList<Integer> refs = new ArrayList<>(size);
+
+            //Reads every reference
+            for (int i = 0; i < size; i++) {
+                refs.add(in.readInt());
+            }
+
+            return refs;
+        }
+
+        /**
+         * Reads a set of subject IDs written as the differences between consecutive IDs
+         *
+         * @return the IDs in ascending order
+         * @throws IOException if the snapshot cannot be read
+         */
+        private ArrayList<Integer> readIds() throws IOException {
+
+            int size = readSize();
+            ArrayList<Integer> ids = new ArrayList<>(size);
+
+            int previous = 0;
+
+            //Reads every ID
+            for (int i = 0; i < size; i++) {
+                previous += in.readInt();
+                ids.add(previous);
+            }
+
+            return ids;
+        }
+
+        /**
+         * Reads a string or its position among the strings read before
+         *
+         * @return the string, possibly null
+         * @throws IOException if the snapshot cannot be read or the position is not valid
+         */
+        private String readString() throws IOException {
+
+            int ref = in.readInt();
+
+            //If the records are read out of order
+            if (table != null) {
+                return (ref == NONE) ? null : table.get(ref, in);
+            }
+
+            //If it is a new string
+            if (ref == strings.size()) {
+
+                String string = in.readString();
+                strings.add(string);
+                return string;
+            }
+
+            return ref(strings, ref);
+        }
+
+        /**
+         * Reads the size of a table or of a list
+         *
+         * @return the size
+         * @throws IOException if the snapshot cannot be read or the size is negative
+         */
+        int readSize() throws IOException {
+
+            int size = in.readInt();
+
+            //If the size is not valid
+            if (size < 0) {
+                throw new StreamCorruptedException("Malformed size " + size);
+            }
+
+            return size;
+        }
+    }
+}
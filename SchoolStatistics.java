@@ -0,0 +1,155 @@
+import java.io.Serializable;
+
+/**
+ * This class keeps the cumulative statistics of a {@link School} simulation.<br>
+ * It counts the certificates awarded, the courses completed and cancelled,
+ * the students who left the school with all certificates and the students who dropped out.
+ *
+ * @author albertoTamajo
+ */
+public class SchoolStatistics implements Serializable {
+
+    private long certificatesAwarded;
+    private long coursesCompleted;
+    private long coursesCancelled;
+    private long studentsGraduated;
+    private long studentsDroppedOut;
+    private transient SimulationJournal journal;
+
+
+    /**
+     * Creates statistics with no events recorded
+     */
+    public SchoolStatistics() {
+    }
+
+    /**
+     * Creates statistics with the counts of a saved simulation, see {@link SchoolSnapshot}
+     *
+     * @param certificatesAwarded number of certificates awarded
+     * @param coursesCompleted    number of courses completed
+     * @param coursesCancelled    number of courses cancelled
+     * @param studentsGraduated   number of students who left the school with all certificates
+     * @param studentsDroppedOut  number of students who left the school without all certificates
+     */
+    SchoolStatistics(long certificatesAwarded, long coursesCompleted, long coursesCancelled,
+                     long studentsGraduated, long studentsDroppedOut) {
+        this.certificatesAwarded = certificatesAwarded;
+        this.coursesCompleted = coursesCompleted;
+        this.coursesCancelled = coursesCancelled;
+        this.studentsGraduated = studentsGraduated;
+        this.studentsDroppedOut = studentsDroppedOut;
+    }
+
+    /**
+     * Records a course that has finished
+     *
+     * @param certificates number of certificates awarded to the students of the course
+     */
+    public void recordCourseCompleted(int certificates) {
+        coursesCompleted++;
+        certificatesAwarded += certificates;
+    }
+
+    /**
+     * Records a course that has been cancelled
+     */
+    public void recordCourseCancelled() {
+        coursesCancelled++;
+    }
+
+    /**
+     * Records a student leaving the school with all certificates
+     */
+    public void recordGraduation() {
+
+        studentsGraduated++;
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.studentLeaving(SimulationJournal.STUDENT_GRADUATED);
+        }
+    }
+
+    /**
+     * Records a student leaving the school without all certificates
+     */
+    public void recordDropout() {
+
+        studentsDroppedOut++;
+
+        //If the transitions of the school are recorded
+        if (journal != null) {
+            journal.studentLeaving(SimulationJournal.STUDENT_DROPPED_OUT);
+        }
+    }
+
+    /**
+     * Sets the journal recording the students graduating and dropping out
+     *
+     * @param journal a journal, null if nothing must be recorded
+     */
+    void setJournal(SimulationJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the number of certificates awarded
+     *
+     * @return the number of certificates awarded
+     */
+    public long getCertificatesAwarded() {
+        return certificatesAwarded;
+    }
+
+    /**
+     * Gets the number of courses completed
+     *
+     * @return the number of courses completed
+     */
+    public long getCoursesCompleted() {
+        return coursesCompleted;
+    }
+
+    /**
+     * Gets the number of courses cancelled
+     *
+     * @return the number of courses cancelled
+     */
+    public long getCoursesCancelled() {
+        return coursesCancelled;
+    }
+
+    /**
+     * Gets the number of students who left the school with all certificates
+     *
+     * @return the number of students graduated
+     */
+    public long getStudentsGraduated() {
+        return studentsGraduated;
+    }
+
+    /**
+     * Gets the number of students who left the school without all certificates
+     *
+     * @return the number of students dropped out
+     */
+    public long getStudentsDroppedOut() {
+        return studentsDroppedOut;
+    }
+
+    /**
+     * Returns the statistics in one string
+     *
+     * @return a string containing all the statistics
+     */
+    @Override
+    public String toString() {
+
+        return "Certificates awarded: " + certificatesAwarded + "\n"
+                + "Courses completed: " + coursesCompleted + "\n"
+                + "Courses cancelled: " + coursesCancelled + "\n"
+                + "Students graduated: " + studentsGraduated + "\n"
+                + "Students dropped out: " + studentsDroppedOut + "\n";
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+
+/**
+ * This class selects the entities a phase of a simulated day works on, e.g. the students leaving the school.<br>
+ * The entities are split into shards of {@link #SHARD_SIZE} entities that are checked in parallel on the common
+ * fork-join pool, and the entities selected are returned in their original order, so that the phase can then
+ * apply its effects (removals, notifications, records of the journal) one by one on a single thread.<br>
+ * A rule drawing random numbers gets its own {@link RandomSource} for every shard, split from the random source
+ * of the school by the number of the shard: the shards only depend on the number of entities, thus the same seed
+ * always selects the same entities regardless of the number of threads.<br>
+ * Fewer than {@link #PARALLEL_THRESHOLD} entities are checked on the calling thread with the random source of the school,
+ * exactly as the phases did before they were sharded.
+ *
+ * @author albertoTamajo
+ */
+final class ShardedFilter {
+
+    static final int SHARD_SIZE = 1 << 14;
+    static final int PARALLEL_THRESHOLD = 2 * SHARD_SIZE;
+
+
+    /**
+     * This class only has static methods
+     */
+    private ShardedFilter() {
+    }
+
+    /**
+     * Selects the entities satisfying a rule that does not draw random numbers
+     *
+     * @param entities the entities to check, not modified while they are checked
+     * @param rule     the rule, only reading the entities
+     * @param <T>      type of the entities
+     * @return the entities selected, in their original order
+     */
+    static <T> List<T> select(List<T> entities, Predicate<T> rule) {
+        return select(entities, null, (entity, random) -> rule.test(entity));
+    }
+
+    /**
+     * Selects the entities satisfying a rule that draws random numbers
+     *
+     * @param entities the entities to check, not modified while they are checked
+     * @param random   the random source of the school, null if the rule draws no random numbers
+     * @param rule     the rule, only reading the entities
+     * @param <T>      type of the entities
+     * @return the entities selected, in their original order
+     */
+    static <T> List<T> select(List<T> entities, RandomSource random, Rule<T> rule) {
+
+        //If the entities are too few to pay for the threads
+        if (entities.size() < PARALLEL_THRESHOLD) {
+            return check(entities, random, rule);
+        }
+
+        //The random source of the school moves on, so that the shards of the next phase get other sources
+        if (random != null) {
+            random.nextLong();
+        }
+
+        int shards = (entities.size() + SHARD_SIZE - 1) / SHARD_SIZE;
+        List<ForkJoinTask<List<T>>> tasks = new ArrayList<>(shards);
+
+        //Loops for every shard, checked by a task of the pool
+        for (int i = 0; i < shards; i++) {
+
+            List<T> shard = entities.subList(i * SHARD_SIZE, Math.min((i + 1) * SHARD_SIZE, entities.size()));
+            RandomSource shardRandom = (random != null) ? random.split(i) : null;
+
+            tasks.add(ForkJoinPool.commonPool().submit(() -> check(shard, shardRandom, rule)));
+        }
+
+        List<T> selected = new ArrayList<>();
+
+        //Merges the entities selected by every shard in the order of the shards
+        for (ForkJoinTask<List<T>> task : tasks) {
+            selected.addAll(task.join());
+        }
+
+        return selected;
+    }
+
+    /**
+     * Checks some entities one after the other
+     *
+     * @param entities the entities to check
+     * @param random   the random source of the rule
+     * @param rule     the rule
+     * @param <T>      type of the entities
+     * @return the entities selected, in their original order
+     */
+    private static <T> List<T> check(List<T> entities, RandomSource random, Rule<T> rule) {
+
+        List<T> selected = new ArrayList<>();
+
+        //Loops for every entity
+        for (T entity : entities) {
+
+            //If the entity is selected
+            if (rule.test(entity, random)) {
+                selected.add(entity);
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * This interface is a rule selecting the entities of a phase
+     *
+     * @param <T> type of the entities
+     */
+    @FunctionalInterface
+    interface Rule<T> {
+
+        /**
+         * Checks whether or not an entity is selected
+         *
+         * @param entity an entity
+         * @param random the random source of the shard of the entity
+         * @return true if the entity is selected, false otherwise
+         */
+        boolean test(T entity, RandomSource random);
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.Serializable;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class represents the clock of a school simulation.<br>
+ * It keeps the current day of the simulation so that {@link Course} objects
+ * can derive their status from the absolute days on which they start and end.<br>
+ * The clock also keeps the simulation of a day and the enrolments asked by other threads apart:
+ * the enrolments can run at the same time as each other but not during a day, see {@link #runDay(Runnable)}.
+ *
+ * @author albertoTamajo
+ */
+public class SimulationClock implements Serializable {
+
+    private int day;
+    private final ReentrantReadWriteLock days;
+
+
+    /**
+     * Creates a clock starting from a certain day
+     *
+     * @param day the current day
+     */
+    public SimulationClock(int day) {
+        this.day = day;
+        this.days = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Creates a clock starting from day 1
+     */
+    public SimulationClock() {
+        this(1);
+    }
+
+    /**
+     * Gets the current day
+     *
+     * @return the current day
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * Advances the clock by one day
+     *
+     * @return the new current day
+     */
+    public int tick() {
+        return ++day;
+    }
+
+    /**
+     * Runs a day of the simulation once the enrolments in progress are over.<br>
+     * The enrolments asked by other threads in the meantime wait until the day is over.
+     *
+     * @param simulation the simulation of the day
+     */
+    public void runDay(Runnable simulation) {
+
+        days.writeLock().lock();
+
+        //Tries to run the day, letting the enrolments in again at the end
+        try {
+            simulation.run();
+        } finally {
+            days.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the lock held while a student is enrolled in a course of the simulation,
+     * see {@link Course#enrolStudent(Student)}.<br>
+     * The lock is shared by the enrolments and can also be taken during a day by the thread running it.
+     *
+     * @return the lock of the enrolments
+     */
+    Lock enrolmentLock() {
+        return days.readLock();
+    }
+}
@@ -0,0 +1,593 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is the engine of a school simulation, meant to be embedded in other programs.<br>
+ * An engine loads the scenario of a {@link School} from a simulation file, simulates its days,
+ * saves and restores snapshots of the school and answers queries about it, but it never reads from the console,
+ * never pauses and never ends the JVM, thus the same JVM can run many simulations one after the other.
+ * The notifications of the simulation are published to the {@link SimulationLog}, whose levels and output
+ * are chosen by the program embedding the engine.<br>
+ * A simulated day consists of the following events:<br>
+ * 1. Up to 2 students will join the school<br>
+ * 2. A new instructor may join the school<br>
+ * 3. {@link School#aDayAtSchool()}<br>
+ * 4. A free instructor might leave the school<br>
+ * 5. A student with all certificates will leave the school<br>
+ * 6. A student not enrolled in a course may leave the school<br>
+ * 7. {@link School#endOfDay()}
+ *
+ * @author albertoTamajo
+ */
+public final class SimulationEngine {
+
+    private final School school;
+
+
+    /**
+     * Creates an engine with a default school
+     */
+    public SimulationEngine() {
+        this(new School());
+    }
+
+    /**
+     * Creates an engine simulating a school
+     *
+     * @param school the school to simulate
+     */
+    public SimulationEngine(School school) {
+        this.school = school;
+    }
+
+    /**
+     * Creates an engine simulating a school with a seed for its random events
+     *
+     * @param school the school to simulate
+     * @param seed   seed of the random events
+     */
+    public SimulationEngine(School school, long seed) {
+        this.school = school;
+        this.school.setRandom(new RandomSource(seed));
+    }
+
+    /**
+     * Restores an engine from a file saved by {@link #saveSnapshot(Path)},
+     * or from a file saved by older versions of the simulation through Java serialisation
+     *
+     * @param path the path of the file
+     * @return an engine simulating the school saved
+     * @throws IOException            if the file cannot be read or it is not valid
+     * @throws ClassNotFoundException if the file has been saved through Java serialisation and its classes are not found
+     */
+    public static SimulationEngine restore(Path path) throws IOException, ClassNotFoundException {
+
+        //If the file is a snapshot
+        if (SchoolSnapshot.isSnapshot(path)) {
+            return new SimulationEngine(SchoolSnapshot.load(path));
+        }
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return restore(in);
+        }
+    }
+
+    /**
+     * Restores an engine from a stream written by {@link #saveSnapshot(OutputStream)},
+     * or from a school written through Java serialisation
+     *
+     * @param in the stream, read until the end of the school
+     * @return an engine simulating the school saved
+     * @throws IOException            if the stream cannot be read or it is not valid
+     * @throws ClassNotFoundException if the school has been written through Java serialisation and its classes are not found
+     */
+    public static SimulationEngine restore(InputStream in) throws IOException, ClassNotFoundException {
+
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(Integer.BYTES);
+
+        DataInputStream header = new DataInputStream(buffered);
+        boolean snapshot = (header.readInt() == SchoolSnapshot.MAGIC);
+
+        buffered.reset();
+
+        //If the stream is a snapshot
+        if (snapshot) {
+            return new SimulationEngine(SchoolSnapshot.load(buffered));
+        }
+
+        return new SimulationEngine((School) new ObjectInputStream(buffered).readObject());
+    }
+
+    /**
+     * Gets the school simulated
+     *
+     * @return the school simulated
+     */
+    public School getSchool() {
+        return school;
+    }
+
+    /**
+     * Gets the number of days simulated
+     *
+     * @return the current day of the school
+     */
+    public int getDay() {
+        return school.getDaysRunning();
+    }
+
+    /**
+     * Gets the cumulative statistics of the simulation
+     *
+     * @return the statistics of the school
+     */
+    public SchoolStatistics getStatistics() {
+        return school.getStatistics();
+    }
+
+    /**
+     * Loads the scenario of a simulation file (see readme.txt) into the school
+     *
+     * @param path the path of the simulation file
+     * @return the summary of the entities added to the school
+     * @throws IOException               if the simulation file cannot be read
+     * @throws SubjectsNotFoundException if the school has no subjects after loading the simulation file
+     */
+    public BulkResult loadScenario(Path path) throws IOException, SubjectsNotFoundException {
+        return checkSubjects(SimulationFileParser.load(path, school));
+    }
+
+    /**
+     * Loads the scenario of a simulation file (see readme.txt) read from a stream into the school
+     *
+     * @param in the stream, read until its end and not closed
+     * @return the summary of the entities added to the school
+     * @throws IOException               if the stream cannot be read
+     * @throws SubjectsNotFoundException if the school has no subjects after loading the simulation file
+     */
+    public BulkResult loadScenario(InputStream in) throws IOException, SubjectsNotFoundException {
+        return checkSubjects(SimulationFileParser.load(in, school));
+    }
+
+    /**
+     * Saves the school to a snapshot file, replacing an existing file, see {@link SchoolSnapshot}
+     *
+     * @param path the path of the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(Path path) throws IOException {
+        SchoolSnapshot.save(school, path);
+    }
+
+    /**
+     * Writes a snapshot of the school to a stream, see {@link SchoolSnapshot}
+     *
+     * @param out the stream, flushed but not closed
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveSnapshot(OutputStream out) throws IOException {
+        SchoolSnapshot.save(school, out);
+    }
+
+    /**
+     * Simulates a day of the school.<br>
+     * The enrolments asked by other threads wait until the day is over.
+     */
+    public void step() {
+
+        school.getClock().runDay(() -> {
+
+            studentsJoin();
+            instructorsJoin();
+
+            //Simulation of a day of school
+            school.aDayAtSchool();
+
+            instructorsLeave();
+            graduatesLeave();
+            studentsLeave();
+
+            school.endOfDay();
+        });
+    }
+
+    /**
+     * Simulates some days of the school
+     *
+     * @param days number of days
+     */
+    public void step(int days) {
+
+        //Loops until all days are simulated
+        for (int i = 0; i < days; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Lets up to 2 new students join the school
+     */
+    void studentsJoin() {
+
+        //students enrolling
+        int studentsEnrolling = numberOfStudentsEnrolling();
+        studentGenerator(studentsEnrolling);
+    }
+
+    /**
+     * Lets new instructors join the school
+     */
+    void instructorsJoin() {
+
+        //instructors joining
+        instructorGenerator(0.2, 0.1, 0.05, 0.05);
+    }
+
+    /**
+     * Lets some instructors with no courses leave the school
+     */
+    void instructorsLeave() {
+
+        //Instructors with no courses leaving
+        instructorsLeaving(20);
+    }
+
+    /**
+     * Lets the students with all certificates leave the school
+     */
+    void graduatesLeave() {
+
+        //Students with all certificates leaving
+        removeStudentsWithAllCertificates();
+    }
+
+    /**
+     * Lets some students not attending a course leave the school
+     */
+    void studentsLeave() {
+
+        //Students not attending leaving
+        studentsLeaving(5);
+    }
+
+    /**
+     * Checks that the school has subjects after loading a scenario
+     *
+     * @param result the summary of the entities added by the scenario
+     * @return the same summary
+     * @throws SubjectsNotFoundException if the school has no subjects
+     */
+    private BulkResult checkSubjects(BulkResult result) throws SubjectsNotFoundException {
+
+        //If there are no subjects provided an exception is thrown
+        //because it is not possible to run a simulation with no subject taught in a school
+        if (school.getSubjects().isEmpty()) {
+            throw new SubjectsNotFoundException();
+        }
+
+        return result;
+    }
+
+    /**
+     * Generates the instructors joining the school<br>.
+     * Each type of instructor joins the school according to a probability<br>.
+     * The probability of each instructor joining must range from 0.0 to 1.0 included
+     *
+     * @param probabilityTeacher      teacher's probability of joining the school
+     * @param probabilityDemonstrator demonstrator's probability of joining the school
+     * @param probabilityOOTrainer    OO trainer's probability of joining the school
+     * @param probabilityGuiTrainer   GUI trainer's probability of joining the school
+     */
+    private void instructorGenerator(double probabilityTeacher, double probabilityDemonstrator, double probabilityOOTrainer, double probabilityGuiTrainer) {
+
+        ArrayList<Instructor> instructorsJoining = new ArrayList<>();
+
+        //If the probability of a teacher joining is not more than 1
+        //If the random number generated is less than or equal to the teacher's probability
+        if ((probabilityTeacher <= 1) && (randomDoubleNumberGenerator() <= probabilityTeacher)) {
+
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_JOINING);
+
+            //Generates the gender
+            char gender = genderGenerator();
+
+            Instructor teacher = new Teacher(nameGenerator(gender), gender, ageGenerator());
+            printsOutInfo(teacher);
+            instructorsJoining.add(teacher);
+
+        }
+
+        //If the probability of a demonstrator joining is not more than 1
+        //If the random number generated is less than or equal to the demonstrator's probability
+        if ((probabilityDemonstrator <= 1) && (randomDoubleNumberGenerator() <= probabilityDemonstrator)) {
+
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_JOINING);
+
+            //Generates the gender
+            char gender = genderGenerator();
+
+            Instructor demonstrator = new Demonstrator(nameGenerator(gender), gender, ageGenerator());
+            printsOutInfo(demonstrator);
+            instructorsJoining.add(demonstrator);
+        }
+
+        //If the probability of an OO trainer joining is not more than 1
+        //If the random number generated is less than or equal to the OO trainer's probability
+        if ((probabilityOOTrainer <= 1) && (randomDoubleNumberGenerator() <= probabilityOOTrainer)) {
+
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_JOINING);
+
+            //Generates the gender
+            char gender = genderGenerator();
+
+            Instructor ooTrainer = new OOTrainer(nameGenerator(gender), gender, ageGenerator());
+            printsOutInfo(ooTrainer);
+            instructorsJoining.add(ooTrainer);
+        }
+
+        //If the probability of a GUI trainer joining is not more than 1
+        //If the random number generated is less than or equal to the GUI trainer's probability
+        if ((probabilityGuiTrainer <= 1) && (randomDoubleNumberGenerator() <= probabilityGuiTrainer)) {
+
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_JOINING);
+
+            //Generates the gender
+            char gender = genderGenerator();
+
+            Instructor guiTrainer = new GUITrainer(nameGenerator(gender), gender, ageGenerator());
+            printsOutInfo(guiTrainer);
+            instructorsJoining.add(guiTrainer);
+        }
+
+        //The instructors joining are added to the school at once
+        quietly(() -> school.addAll(instructorsJoining));
+    }
+
+    /**
+     * Returns a random number (ranging from 0 to 2 included) of new students enrolling
+     *
+     * @return the number of new students enrolling
+     */
+    private int numberOfStudentsEnrolling() {
+
+        return randomIntegerNumberGenerator(3);
+    }
+
+
+    /**
+     * Returns a random integer number ranging from 0 to the value of
+     * the parameter <code>upperBound</code> excluded
+     *
+     * @param upperBound upperBound of the range of possible numbers
+     * @return a random number
+     */
+    private int randomIntegerNumberGenerator(int upperBound) {
+        return school.getRandom().nextInt(upperBound);
+    }
+
+    /**
+     * Returns a random double number between 0.0 and 1.0
+     *
+     * @return a random number between 0.0 and 1.0
+     */
+    private double randomDoubleNumberGenerator() {
+        return school.getRandom().nextDouble();
+    }
+
+
+    /**
+     * Generates which instructors not teaching will leave
+     * the school according to a probability.<br>
+     * The instructors leaving are chosen in parallel for large schools, see {@link ShardedFilter},
+     * and then removed one by one.
+     *
+     * @param probability probability that an instructor not teaching leaves the school
+     */
+    private void instructorsLeaving(int probability) {
+
+        ArrayList<Instructor> instructorsNotTeaching = new ArrayList<>(school.getInstructorsNotTeaching());
+
+        //He/she may leave the school if the random number generated is less than or equal to the probability of leaving
+        List<Instructor> instructorsLeaving = ShardedFilter.select(instructorsNotTeaching, school.getRandom(),
+                (instructor, random) -> random.nextInt(100) <= probability);
+
+        //Loops for every instructor leaving
+        for (Instructor nextInstructor : instructorsLeaving) {
+
+            SimulationLog.log(SimulationLog.Event.INSTRUCTOR_LEAVING);
+            printsOutInfo(nextInstructor);
+            quietly(() -> school.remove(nextInstructor));
+        }
+    }
+
+
+    /**
+     * Removes the students with all certificates from the school.<br>
+     * The students are checked in parallel for large schools, see {@link ShardedFilter},
+     * and then removed one by one.
+     */
+    private void removeStudentsWithAllCertificates() {
+
+        //A student with all certificates cannot be enrolled in a course
+        ArrayList<Student> studentsNotEnrolled = new ArrayList<>(school.getStudentsNotEnrolled());
+
+        int numberSubjects = school.getSubjects().size();
+
+        //Students with all certificates will be removed
+        List<Student> studentsCompleted = ShardedFilter.select(studentsNotEnrolled,
+                student -> student.getNumberOfCertificates() == numberSubjects);
+
+        //Loops for all students with all the certificates
+        for (Student nextStudent : studentsCompleted) {
+
+            SimulationLog.log(SimulationLog.Event.STUDENT_COMPLETED_ALL);
+            printsOutInfo(nextStudent);
+            school.getStatistics().recordGraduation();
+
+            //Removes the student from the school
+            quietly(() -> school.remove(nextStudent));
+        }
+    }
+
+
+    /**
+     * Generates which students not enrolled in a course
+     * will leave the school according to a probability.<br>
+     * The students leaving are chosen in parallel for large schools, see {@link ShardedFilter},
+     * and then removed one by one.
+     *
+     * @param probability probability that a student not enrolled in a course will leave the school
+     */
+    private void studentsLeaving(int probability) {
+
+        ArrayList<Student> studentsNotEnrolled = new ArrayList<>(school.getStudentsNotEnrolled());
+
+        //They may leave the school if the random number generated is less than or equal to the probability of leaving
+        List<Student> studentsLeaving = ShardedFilter.select(studentsNotEnrolled, school.getRandom(),
+                (student, random) -> random.nextInt(100) <= probability);
+
+        //Loops for all students leaving
+        for (Student nextStudent : studentsLeaving) {
+
+            SimulationLog.log(SimulationLog.Event.STUDENT_LEAVING);
+            printsOutInfo(nextStudent);
+            school.getStatistics().recordDropout();
+
+            //Removes the student
+            quietly(() -> school.remove(nextStudent));
+        }
+    }
+
+    /**
+     * Changes the entities of the school without the message the school prints out for every entity added or removed:
+     * the people joining and leaving are already announced by the simulation
+     *
+     * @param change the change of the school
+     */
+    private void quietly(Runnable change) {
+
+        boolean wasQuiet = school.isQuiet();
+
+        school.setQuiet(true);
+
+        //Tries to change the school, restoring its messages at the end
+        try {
+            change.run();
+        } finally {
+            school.setQuiet(wasQuiet);
+        }
+    }
+
+    /**
+     * Generates randomly the gender of a person
+     *
+     * @return 'M' or 'F'
+     */
+    private char genderGenerator() {
+
+        int randomNumber = randomIntegerNumberGenerator(2);
+
+        if (randomNumber == 0) {
+            return 'M';
+        } else {
+            return 'F';
+        }
+    }
+
+    /**
+     * Generates randomly the age of a person.<br>
+     * The possible range is from 16 to 65 years old
+     *
+     * @return the age of a person
+     */
+    private int ageGenerator() {
+
+        //the min age is 16 and the max age is 65
+        return randomIntegerNumberGenerator(50) + 16;
+    }
+
+
+    /**
+     * Generates a number of students according to the value of the <code>randomNumber</code> parameter
+     *
+     * @param randomNumber number of students to generate
+     */
+    private void studentGenerator(int randomNumber) {
+
+        ArrayList<Student> studentsJoining = new ArrayList<>(randomNumber);
+
+        //Loops until all students are generated
+        for (int i = 1; i <= randomNumber; i++) {
+
+            SimulationLog.log(SimulationLog.Event.STUDENT_JOINING);
+
+            //Generates the gender
+            char gender = genderGenerator();
+            Student newStudent = new Student(nameGenerator(gender), gender, ageGenerator());
+
+            printsOutInfo(newStudent);
+            studentsJoining.add(newStudent);
+        }
+
+        //The students joining are added to the school at once
+        quietly(() -> school.addAll(studentsJoining));
+    }
+
+
+    /**
+     * Generates a full name according to the gender of a person
+     *
+     * @param gender gender of the person, 'M' or 'F'
+     * @return a string containing the full name of the person
+     */
+    private String nameGenerator(char gender) {
+
+        String[] maleNames = {"Albert", "Logan ", "Ethan ", "Daniel", "Carlos", "Anthony", "Paul", "Charles"};
+        String[] femaleNames = {"Amelia", "Olivia", "Isabella", "Mia", "Isabel", "Ana", "Alessia", "Fiona"};
+        String[] familyNames = {"Miller", "Williams", "Clark", "Hall", "Bell", "Russell", "Tamajo", "Kuhn"};
+
+        int sizeNames = maleNames.length;
+        int sizeSurname = familyNames.length;
+
+        int randomNumberNames = randomIntegerNumberGenerator(sizeNames);
+        int randomNumberSurnames = randomIntegerNumberGenerator(sizeSurname);
+
+        //If the person is a male
+        if (gender == 'M') {
+
+            String name = maleNames[randomNumberNames];
+            String surname = familyNames[randomNumberSurnames];
+            return name + " " + surname;
+
+        } else {     //If the person is a female
+
+            String name = femaleNames[randomNumberNames];
+            String surname = familyNames[randomNumberSurnames];
+            return name + " " + surname;
+        }
+
+    }
+
+
+    /**
+     * Prints out the info of any object
+     *
+     * @param o object whose information is needed
+     */
+    private void printsOutInfo(Object o) {
+
+        //If the details are logged
+        if (SimulationLog.isEnabled(SimulationLog.Event.DETAILS)) {
+            SimulationLog.log(SimulationLog.Event.DETAILS, o.toString());
+        }
+    }
+}
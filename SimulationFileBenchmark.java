@@ -0,0 +1,181 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * This class compares the time needed to load a large simulation file into a school line by line, splitting every line
+ * with a regular expression as older versions of the simulation did, with the time needed by a
+ * {@link SimulationFileParser} with one thread and with several threads.<br>
+ * Usage: java SimulationFileBenchmark [lines] [threads] [repetitions]
+ *
+ * @author albertoTamajo
+ */
+public class SimulationFileBenchmark {
+
+    private static final String[] NAMES = {"Ana", "Luis", "Marta", "Pedro", "Lucia", "Javier", "Elena", "Carlos"};
+    private static final String[] PERSONS = {"student", "student", "student", "student", "student", "student",
+            "Teacher", "Demonstrator", "OOTrainer", "GUITrainer"};
+    private static final char[] GENDERS = {'M', 'F'};
+    private static final int SUBJECTS = 50;
+
+    /**
+     * Main method
+     *
+     * @param args number of lines of the file, number of threads and number of repetitions
+     * @throws IOException if the temporary file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+
+        int lines = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+        Path file = Files.createTempFile("simulation", ".txt");
+
+        SimulationLog.Level[] levels = SimulationLog.getLevels();
+        SimulationLog.setLevel(SimulationLog.Level.OFF);
+
+        //Tries to compare the two ways of reading the file
+        try {
+
+            write(file, lines);
+            System.err.printf("**Lines: %d, %.1f MB, threads: %d**%n%n", lines, Files.size(file) / 1048576.0, threads);
+
+            long split = Long.MAX_VALUE;
+            long sequential = Long.MAX_VALUE;
+            long parallel = Long.MAX_VALUE;
+            int students = 0;
+
+            //Loops for every repetition keeping the best times
+            for (int i = 0; i < repetitions; i++) {
+
+                School school = new School();
+                long start = System.nanoTime();
+                split(file, school);
+                split = Math.min(split, System.nanoTime() - start);
+
+                school = new School();
+                start = System.nanoTime();
+                SimulationFileParser.load(file, school, 1);
+                sequential = Math.min(sequential, System.nanoTime() - start);
+
+                school = new School();
+                start = System.nanoTime();
+                SimulationFileParser.load(file, school, threads);
+                parallel = Math.min(parallel, System.nanoTime() - start);
+                students = school.getStudents().size();
+            }
+
+            report("Line by line with a regular expression", split, lines);
+            report("SimulationFileParser, 1 thread", sequential, lines);
+            report("SimulationFileParser, " + threads + " threads", parallel, lines);
+            System.err.println("**Students loaded: " + students + "**");
+
+        } finally {
+            SimulationLog.setLevels(levels);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes a simulation file with subjects, instructors and students
+     *
+     * @param file  the path of the file
+     * @param lines number of lines
+     * @throws IOException if the file cannot be written
+     */
+    private static void write(Path file, int lines) throws IOException {
+
+        RandomSource random = new RandomSource(1);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+
+            writer.write("school:Benchmark\n");
+
+            for (int id = 0; id < SUBJECTS; id++) {
+                writer.write("subject:Subject " + id + "," + id + "," + (1 + id % 4) + "," + (1 + random.nextInt(5))
+                        + ((id > 0) ? "," + random.nextInt(id) : "") + "\n");
+            }
+
+            for (int i = SUBJECTS + 1; i < lines; i++) {
+                writer.write(PERSONS[random.nextInt(PERSONS.length)] + ":" + NAMES[random.nextInt(NAMES.length)] + " " + i
+                        + "," + GENDERS[random.nextInt(GENDERS.length)] + "," + (18 + random.nextInt(60)) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Reads a simulation file line by line, splits every line with a regular expression
+     * and adds its entity to a school, as older versions of the simulation did
+     *
+     * @param file   the path of the file
+     * @param school the school
+     * @throws IOException if the file cannot be read
+     */
+    private static void split(Path file, School school) throws IOException {
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+
+                String[] fields = line.split(":|,");
+
+                switch (fields[0]) {
+                    case "school":
+                        school.setName(fields[1]);
+                        break;
+                    case "subject":
+
+                        Subject subject = new Subject(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                                Integer.parseInt(fields[4]));
+                        subject.setDescription(fields[1]);
+
+                        if (fields.length > 5) {
+
+                            ArrayList<Integer> prerequisites = new ArrayList<>();
+
+                            for (int i = 5; i < fields.length; i++) {
+                                prerequisites.add(Integer.parseInt(fields[i]));
+                            }
+
+                            subject.setPrerequisites(prerequisites);
+                        }
+
+                        school.add(subject);
+                        break;
+                    case "student":
+                        school.add(new Student(fields[1], fields[2].charAt(0), Integer.parseInt(fields[3])));
+                        break;
+                    case "Teacher":
+                        school.add(new Teacher(fields[1], fields[2].charAt(0), Integer.parseInt(fields[3])));
+                        break;
+                    case "Demonstrator":
+                        school.add(new Demonstrator(fields[1], fields[2].charAt(0), Integer.parseInt(fields[3])));
+                        break;
+                    case "OOTrainer":
+                        school.add(new OOTrainer(fields[1], fields[2].charAt(0), Integer.parseInt(fields[3])));
+                        break;
+                    default:
+                        school.add(new GUITrainer(fields[1], fields[2].charAt(0), Integer.parseInt(fields[3])));
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints out the time and the throughput of a way of reading the file
+     *
+     * @param label name of the way of reading the file
+     * @param time  best time in nanoseconds
+     * @param lines number of lines
+     */
+    private static void report(String label, long time, int lines) {
+        System.err.printf("**%s: %.1f ms, %.2f million lines per second**%n", label, time / 1e6, lines / (time / 1e3));
+    }
+}
@@ -0,0 +1,931 @@
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class reads a simulation file (see readme.txt) into a {@link School}.<br>
+ * The file is read through a {@link FileChannel} in chunks of whole lines. Every chunk is split into lines
+ * and fields on its bytes, with no regular expression, and the numbers are parsed straight from the bytes,
+ * so only the names and the descriptions become strings. The chunks are parsed in parallel and merged
+ * one after the other in the order of the file, printing out the same diagnostics for every line
+ * as when the file was read line by line and every line was split on ':' and ','.
+ * The entities are then added to the school at once and in the same order, see {@link School#addAll(java.util.Collection)}.<br>
+ * Files whose characters are not single ASCII bytes in the default charset (e.g. UTF-16) are read line by line.
+ *
+ * @author albertoTamajo
+ */
+public final class SimulationFileParser {
+
+    static final int CHUNK_SIZE = 1 << 22;
+
+    private static final byte SCHOOL = 0;
+    private static final byte SUBJECT = 1;
+    private static final byte STUDENT = 2;
+    private static final byte TEACHER = 3;
+    private static final byte DEMONSTRATOR = 4;
+    private static final byte OO_TRAINER = 5;
+    private static final byte GUI_TRAINER = 6;
+    private static final byte DIAGNOSTIC = 7;
+    private static final byte FAILURE = 8;
+
+    private static final byte[][] TAGS = {bytes("school"), bytes("subject"), bytes("student"), bytes("Teacher"),
+            bytes("Demonstrator"), bytes("OOTrainer"), bytes("GUITrainer")};
+    private static final String[] NOUNS = {"school", "subject", "student", "teacher", "demonstrator", "OOTrainer", "GUITrainer"};
+
+    private static final String INVALID_INPUT = "Invalid Input\n";
+    private static final String INVALID_PREREQUISITE = "Sorry, a prerequisite was expected to be a value int\n";
+    private static final String GENERAL_ERROR = "Sorry, an error has occurred\n";
+
+    /**
+     * Number of values kept for every line: ID, specialism, duration, list of prerequisites
+     * and number of invalid prerequisites of a subject, gender and age of a person
+     */
+    private static final int VALUES = 5;
+
+
+    /**
+     * This class only has static methods
+     */
+    private SimulationFileParser() {
+    }
+
+    /**
+     * Reads a simulation file into a school using all the available processors
+     *
+     * @param path   the path of the simulation file
+     * @param school the school the entities of the file are added to
+     * @return the summary of the entities added to the school
+     * @throws IOException if the file cannot be read
+     */
+    public static BulkResult load(Path path, School school) throws IOException {
+        return load(path, school, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads a simulation file into a school
+     *
+     * @param path        the path of the simulation file
+     * @param school      the school the entities of the file are added to
+     * @param parallelism the number of threads parsing the chunks of the file
+     * @return the summary of the entities added to the school
+     * @throws IOException if the file cannot be read
+     */
+    public static BulkResult load(Path path, School school, int parallelism) throws IOException {
+
+        ArrayList<Object> entities = new ArrayList<>();
+        BulkResult result;
+
+        //Tries to read the file, the entities of the lines read are added even if a line stops the reading
+        try {
+            read(path, school, parallelism, entities);
+        } finally {
+            result = school.addAll(entities);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a simulation file from a stream into a school, line by line in the default charset
+     *
+     * @param in     the stream of the simulation file, read until its end and not closed
+     * @param school the school the entities of the file are added to
+     * @return the summary of the entities added to the school
+     * @throws IOException if the stream cannot be read
+     */
+    public static BulkResult load(InputStream in, School school) throws IOException {
+
+        ArrayList<Object> entities = new ArrayList<>();
+        BulkResult result;
+
+        //Tries to read the stream, the entities of the lines read are added even if a line stops the reading
+        try {
+            readLines(new BufferedReader(new InputStreamReader(in, Charset.defaultCharset())), school, entities);
+        } finally {
+            result = school.addAll(entities);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a simulation file, creating its entities in the order of the file
+     *
+     * @param path        the path of the simulation file
+     * @param school      the school named by the file
+     * @param parallelism the number of threads parsing the chunks of the file
+     * @param entities    where the entities created are added
+     * @throws IOException if the file cannot be read
+     */
+    private static void read(Path path, School school, int parallelism, List<Object> entities) throws IOException {
+
+        Charset charset = Charset.defaultCharset();
+
+        //If the lines cannot be split on their bytes
+        if (!(isAsciiCompatible(charset))) {
+
+            readLines(path, school, charset, entities);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long[] cuts = cuts(channel);
+            int chunks = cuts.length - 1;
+
+            //If the chunks are parsed by the thread merging them
+            if ((chunks <= 1) || (parallelism <= 1)) {
+
+                //Parses and merges every chunk
+                for (int i = 0; i < chunks; i++) {
+                    merge(parse(channel, cuts[i], cuts[i + 1], charset), school, entities);
+                }
+
+                return;
+            }
+
+            int threads = Math.min(parallelism, chunks);
+            ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+
+                Thread thread = new Thread(task, "simulation-file-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            int next = 0;
+
+            try {
+
+                //Loops until every chunk has been merged
+                while ((next < chunks) || !(pending.isEmpty())) {
+
+                    //Keeps a bounded number of chunks parsed ahead of the merge
+                    while ((next < chunks) && (pending.size() < 2 * threads)) {
+
+                        long start = cuts[next];
+                        long end = cuts[next + 1];
+
+                        pending.add(pool.submit(() -> parse(channel, start, end, charset)));
+                        next++;
+                    }
+
+                    merge(pending.poll().get(), school, entities);
+                }
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("The simulation file has been interrupted");
+
+            } catch (ExecutionException e) {
+
+                //If the chunk could not be read
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+
+                throw new IOException("A chunk of the simulation file cannot be parsed", e.getCause());
+
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Finds the positions where the file is cut in chunks: the start of the first line after every
+     * {@link #CHUNK_SIZE} bytes, so that a chunk only has whole lines
+     *
+     * @param channel the channel of the file
+     * @return the start of every chunk followed by the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static long[] cuts(FileChannel channel) throws IOException {
+
+        long size = channel.size();
+        ArrayList<Long> cuts = new ArrayList<>();
+        ByteBuffer window = ByteBuffer.allocate(1 << 13);
+
+        cuts.add(0L);
+
+        //Loops for every chunk but the last one
+        for (long position = CHUNK_SIZE; position < size; ) {
+
+            long cut = lineAfter(channel, position, window);
+
+            //If no line starts after the position
+            if (cut >= size) {
+                break;
+            }
+
+            cuts.add(cut);
+            position = cut + CHUNK_SIZE;
+        }
+
+        cuts.add(size);
+        return cuts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Finds the position following the first line feed at or after a position
+     *
+     * @param channel  the channel of the file
+     * @param position a position
+     * @param window   a buffer reading the file
+     * @return the position following the line feed, the size of the file if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long lineAfter(FileChannel channel, long position, ByteBuffer window) throws IOException {
+
+        //Loops until a line feed is found or the file ends
+        while (true) {
+
+            window.clear();
+
+            //If the file has ended
+            if (channel.read(window, position) < 0) {
+                return channel.size();
+            }
+
+            window.flip();
+
+            //Looks for a line feed in the window
+            for (int i = 0; i < window.limit(); i++) {
+
+                //If it is a line feed
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+
+            position += window.limit();
+        }
+    }
+
+    /**
+     * Reads and parses a chunk of the file
+     *
+     * @param channel the channel of the file
+     * @param start   the position of the first line of the chunk
+     * @param end     the position following the last line of the chunk
+     * @param charset the charset of the file
+     * @return the lines parsed
+     * @throws IOException if the chunk cannot be read
+     */
+    private static Chunk parse(FileChannel channel, long start, long end, Charset charset) throws IOException {
+
+        //If a line is too long to be kept in memory
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new IOException("A line of the simulation file is too long");
+        }
+
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        //Loops until the whole chunk is read
+        while (buffer.hasRemaining()) {
+
+            //If the file has become shorter
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("The simulation file has changed while being read");
+            }
+        }
+
+        Chunk chunk = new Chunk(bytes.length / 24 + 1);
+        Fields fields = new Fields();
+
+        //Loops for every line of the chunk
+        for (int position = 0; position < bytes.length; ) {
+
+            int lineEnd = position;
+
+            //Loops until the end of the line
+            while ((lineEnd < bytes.length) && (bytes[lineEnd] != '\n') && (bytes[lineEnd] != '\r')) {
+                lineEnd++;
+            }
+
+            parseLine(bytes, position, lineEnd, charset, fields, chunk);
+
+            //If the line ends with a carriage return followed by a line feed
+            if ((lineEnd + 1 < bytes.length) && (bytes[lineEnd] == '\r') && (bytes[lineEnd + 1] == '\n')) {
+                lineEnd++;
+            }
+
+            position = lineEnd + 1;
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Reads a file line by line when its characters cannot be split on their bytes,
+     * parsing the UTF-8 bytes of every line
+     *
+     * @param path     the path of the simulation file
+     * @param school   the school named by the file
+     * @param charset  the charset of the file
+     * @param entities where the entities created are added
+     * @throws IOException if the file cannot be read
+     */
+    private static void readLines(Path path, School school, Charset charset, List<Object> entities) throws IOException {
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), charset))) {
+            readLines(reader, school, entities);
+        }
+    }
+
+    /**
+     * Reads the lines of a simulation file one by one, parsing the UTF-8 bytes of every line
+     *
+     * @param reader   the reader of the lines, not closed
+     * @param school   the school named by the file
+     * @param entities where the entities created are added
+     * @throws IOException if the lines cannot be read
+     */
+    private static void readLines(BufferedReader reader, School school, List<Object> entities) throws IOException {
+
+        Fields fields = new Fields();
+        String line;
+
+        //Loops until there is a text line in the file
+        while ((line = reader.readLine()) != null) {
+
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            Chunk chunk = new Chunk(1);
+
+            parseLine(bytes, 0, bytes.length, StandardCharsets.UTF_8, fields, chunk);
+            merge(chunk, school, entities);
+        }
+    }
+
+    /**
+     * Parses a line, following the order in which its fields were checked when every line was split into strings
+     *
+     * @param bytes   the bytes of the chunk
+     * @param start   the position of the line
+     * @param end     the position following the line, before its line terminator
+     * @param charset the charset of the file
+     * @param fields  the fields of the line, reused from line to line
+     * @param chunk   where the line is added
+     */
+    private static void parseLine(byte[] bytes, int start, int end, Charset charset, Fields fields, Chunk chunk) {
+
+        fields.split(bytes, start, end);
+
+        //If the line has no fields at all, e.g. it only has separators
+        if (fields.count == 0) {
+
+            chunk.add(FAILURE, "Index 0 out of bounds for length 0");
+            return;
+        }
+
+        byte kind = tag(bytes, fields);
+
+        switch (kind) {
+
+            //If the line refers to a school
+            case SCHOOL:
+
+                //If the name of the school is missing
+                if (fields.count < 2) {
+                    chunk.add(FAILURE, "Index 1 out of bounds for length 1");
+                } else {
+                    chunk.add(SCHOOL, fields.text(bytes, 1, charset));
+                }
+
+                break;
+
+            //If the line refers to a subject
+            case SUBJECT:
+                parseSubject(bytes, charset, fields, chunk);
+                break;
+
+            //If the line does not refer to anything known
+            case DIAGNOSTIC:
+                chunk.add(DIAGNOSTIC, INVALID_INPUT);
+                break;
+
+            default:
+                parsePerson(kind, bytes, charset, fields, chunk);
+                break;
+        }
+    }
+
+    /**
+     * Parses a line referring to a subject: description, ID, specialism, duration and optionally prerequisites
+     *
+     * @param bytes   the bytes of the chunk
+     * @param charset the charset of the file
+     * @param fields  the fields of the line
+     * @param chunk   where the line is added
+     */
+    private static void parseSubject(byte[] bytes, Charset charset, Fields fields, Chunk chunk) {
+
+        //Tries to parse the fields of the subject
+        try {
+
+            String description = fields.text(bytes, 1, charset);
+            int id = fields.number(bytes, 2, charset);
+            int specialism = fields.number(bytes, 3, charset);
+            int duration = fields.number(bytes, 4, charset);
+
+            int line = chunk.add(SUBJECT, description);
+
+            chunk.values[line * VALUES] = id;
+            chunk.values[line * VALUES + 1] = specialism;
+            chunk.values[line * VALUES + 2] = duration;
+            chunk.values[line * VALUES + 3] = -1;
+
+            //If the prerequisites have been provided by the line
+            if (fields.count > 5) {
+
+                ArrayList<Integer> prerequisites = new ArrayList<>();
+                int invalid = 0;
+
+                //Parses every prerequisite, counting the invalid ones
+                for (int i = 5; i < fields.count; i++) {
+
+                    //Tries to parse the prerequisite
+                    try {
+                        prerequisites.add(fields.number(bytes, i, charset));
+                    } catch (NumberFormatException e) {
+                        invalid++;
+                    }
+                }
+
+                chunk.values[line * VALUES + 3] = chunk.prerequisites.size();
+                chunk.values[line * VALUES + 4] = invalid;
+                chunk.prerequisites.add(prerequisites);
+            }
+
+        } catch (IndexOutOfBoundsException e) {
+            chunk.add(DIAGNOSTIC, moreArguments(SUBJECT));
+        } catch (NumberFormatException e) {
+            chunk.add(DIAGNOSTIC, notANumber(SUBJECT));
+        }
+    }
+
+    /**
+     * Parses a line referring to a student or to an instructor: name, gender and age
+     *
+     * @param kind    the kind of person
+     * @param bytes   the bytes of the chunk
+     * @param charset the charset of the file
+     * @param fields  the fields of the line
+     * @param chunk   where the line is added
+     */
+    private static void parsePerson(byte kind, byte[] bytes, Charset charset, Fields fields, Chunk chunk) {
+
+        //Tries to parse the fields of the person
+        try {
+
+            String name = fields.text(bytes, 1, charset);
+            char gender = fields.firstChar(bytes, 2, charset);
+            int age = fields.number(bytes, 3, charset);
+
+            int line = chunk.add(kind, name);
+
+            chunk.values[line * VALUES] = gender;
+            chunk.values[line * VALUES + 1] = age;
+
+        } catch (IndexOutOfBoundsException e) {
+            chunk.add(DIAGNOSTIC, moreArguments(kind));
+        } catch (NumberFormatException e) {
+            chunk.add(DIAGNOSTIC, notANumber(kind));
+        }
+    }
+
+    /**
+     * Merges the lines of a chunk, creating the entities and printing out the diagnostics in order
+     *
+     * @param chunk    the lines parsed
+     * @param school   the school named by the file
+     * @param entities where the entities created are added
+     */
+    private static void merge(Chunk chunk, School school, List<Object> entities) {
+
+        //Loops for every line of the chunk
+        for (int line = 0; line < chunk.count; line++) {
+
+            byte kind = chunk.kinds[line];
+            String text = chunk.texts[line];
+            int[] values = chunk.values;
+            int first = line * VALUES;
+
+            switch (kind) {
+
+                //If the line refers to a school
+                case SCHOOL:
+                    school.setName(text);
+                    break;
+
+                //If the line only has a diagnostic
+                case DIAGNOSTIC:
+                    System.err.println(text);
+                    break;
+
+                //If the line stopped the reading of the file
+                case FAILURE:
+                    throw new ArrayIndexOutOfBoundsException(text);
+
+                default:
+
+                    //Prints out every invalid prerequisite of a subject
+                    for (int i = 0; (kind == SUBJECT) && (i < values[first + 4]); i++) {
+                        System.err.println(INVALID_PREREQUISITE);
+                    }
+
+                    //Tries to create the entity
+                    try {
+                        entities.add(create(kind, text, values, first, chunk.prerequisites));
+                    } catch (IndexOutOfBoundsException e) {
+                        System.err.println(moreArguments(kind));
+                    } catch (NumberFormatException e) {
+                        System.err.println(notANumber(kind));
+                    } catch (Exception e) {
+                        System.err.println(GENERAL_ERROR);
+                    }
+
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Creates an entity
+     *
+     * @param kind          the kind of entity
+     * @param text          the name or the description of the entity
+     * @param values        the values of the lines
+     * @param first         the position of the first value of the line
+     * @param prerequisites the lists of prerequisites of the chunk
+     * @return the entity
+     */
+    private static Object create(byte kind, String text, int[] values, int first,
+                                 ArrayList<ArrayList<Integer>> prerequisites) {
+
+        char gender = (char) values[first];
+        int age = values[first + 1];
+
+        switch (kind) {
+
+            //If the line refers to a subject
+            case SUBJECT:
+
+                Subject subject = new Subject(values[first], values[first + 1], values[first + 2]);
+                subject.setDescription(text);
+
+                //If the prerequisites have been provided by the line
+                if (values[first + 3] >= 0) {
+                    subject.setPrerequisites(prerequisites.get(values[first + 3]));
+                }
+
+                return subject;
+
+            //If the line refers to a student
+            case STUDENT:
+                return new Student(text, gender, age);
+
+            //If the line refers to a teacher
+            case TEACHER:
+                return new Teacher(text, gender, age);
+
+            //If the line refers to a demonstrator
+            case DEMONSTRATOR:
+                return new Demonstrator(text, gender, age);
+
+            //If the line refers to an OO trainer
+            case OO_TRAINER:
+                return new OOTrainer(text, gender, age);
+
+            default:
+                return new GUITrainer(text, gender, age);
+        }
+    }
+
+    /**
+     * Finds the kind of entity a line refers to from its first field
+     *
+     * @param bytes  the bytes of the chunk
+     * @param fields the fields of the line
+     * @return the kind of entity, {@link #DIAGNOSTIC} if the first field is not known
+     */
+    private static byte tag(byte[] bytes, Fields fields) {
+
+        int start = fields.starts[0];
+        int length = fields.ends[0] - start;
+
+        //Compares the first field with every tag
+        for (byte kind = 0; kind < TAGS.length; kind++) {
+
+            //If the first field is the tag
+            if (Arrays.equals(bytes, start, start + length, TAGS[kind], 0, TAGS[kind].length)) {
+                return kind;
+            }
+        }
+
+        return DIAGNOSTIC;
+    }
+
+    /**
+     * Gets the message printed out when a line has fewer fields than needed
+     *
+     * @param kind the kind of entity
+     * @return the message
+     */
+    private static String moreArguments(byte kind) {
+
+        //If the kind of entity is a subject
+        if (kind == SUBJECT) {
+            return "Sorry, this subject cannot be created because more arguments were expected\n";
+        }
+
+        return "Sorry, this " + NOUNS[kind] + " cannot be created because more arguments were expected\n";
+    }
+
+    /**
+     * Gets the message printed out when a field of a line is not a number
+     *
+     * @param kind the kind of entity
+     * @return the message
+     */
+    private static String notANumber(byte kind) {
+
+        //If the kind of entity is a subject
+        if (kind == SUBJECT) {
+            return "Sorry, this subject cannot be created because arguments of value int were expected\n";
+        }
+
+        return "Sorry, this " + NOUNS[kind] + " cannot be created because a value of type int was expected\n";
+    }
+
+    /**
+     * Checks whether or not the separators, the tags and the digits of the simulation files are single ASCII bytes
+     * in a charset, never found inside the bytes of other characters
+     *
+     * @param charset a charset
+     * @return true if the lines can be split on their bytes, false otherwise
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+
+        //If the charset is one of the common ones
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1)) {
+            return true;
+        }
+
+        String sample = "schoolsubjectstudentTeacherDemonstratorOOTrainerGUITrainer:,\r\n+-0123456789";
+
+        //Only the charsets with one byte per character that keep ASCII as it is are safe
+        return charset.canEncode() && (charset.newEncoder().maxBytesPerChar() == 1)
+                && Arrays.equals(sample.getBytes(charset), sample.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Gets the ASCII bytes of a tag
+     *
+     * @param tag a tag
+     * @return the bytes
+     */
+    private static byte[] bytes(String tag) {
+        return tag.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * This class keeps the positions of the fields of a line, split on ':' and ','
+     * and without its trailing empty fields, as {@link String#split(String)} does
+     */
+    private static final class Fields {
+
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int count;
+
+        /**
+         * Splits a line into fields
+         *
+         * @param bytes the bytes of the chunk
+         * @param start the position of the line
+         * @param end   the position following the line
+         */
+        private void split(byte[] bytes, int start, int end) {
+
+            count = 0;
+
+            int fieldStart = start;
+            boolean separated = false;
+
+            //Loops for every byte of the line
+            for (int i = start; i < end; i++) {
+
+                //If the byte is a separator
+                if ((bytes[i] == ':') || (bytes[i] == ',')) {
+
+                    add(fieldStart, i);
+                    fieldStart = i + 1;
+                    separated = true;
+                }
+            }
+
+            add(fieldStart, end);
+
+            //Removes the trailing empty fields, unless the line has no separator at all
+            while (separated && (count > 0) && (starts[count - 1] == ends[count - 1])) {
+                count--;
+            }
+        }
+
+        /**
+         * Adds a field
+         *
+         * @param start the position of the field
+         * @param end   the position following the field
+         */
+        private void add(int start, int end) {
+
+            //If there is no room for the field
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * count);
+                ends = Arrays.copyOf(ends, 2 * count);
+            }
+
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+
+        /**
+         * Gets the text of a field
+         *
+         * @param bytes   the bytes of the chunk
+         * @param field   the number of the field
+         * @param charset the charset of the file
+         * @return the text
+         * @throws IndexOutOfBoundsException if the line has no such field
+         */
+        private String text(byte[] bytes, int field, Charset charset) {
+
+            Objects.checkIndex(field, count);
+            return new String(bytes, starts[field], ends[field] - starts[field], charset);
+        }
+
+        /**
+         * Gets the first character of a field
+         *
+         * @param bytes   the bytes of the chunk
+         * @param field   the number of the field
+         * @param charset the charset of the file
+         * @return the character
+         * @throws IndexOutOfBoundsException if the line has no such field or the field is empty
+         */
+        private char firstChar(byte[] bytes, int field, Charset charset) {
+
+            Objects.checkIndex(field, count);
+            Objects.checkIndex(0, ends[field] - starts[field]);
+
+            byte first = bytes[starts[field]];
+
+            //If the first character is not an ASCII one
+            if (first < 0) {
+                return text(bytes, field, charset).charAt(0);
+            }
+
+            return (char) first;
+        }
+
+        /**
+         * Parses a field as {@link Integer#parseInt(String)} does, without creating a string for ASCII fields
+         *
+         * @param bytes   the bytes of the chunk
+         * @param field   the number of the field
+         * @param charset the charset of the file
+         * @return the number
+         * @throws IndexOutOfBoundsException if the line has no such field
+         * @throws NumberFormatException     if the field is not a number of type int
+         */
+        private int number(byte[] bytes, int field, Charset charset) {
+
+            Objects.checkIndex(field, count);
+
+            int start = starts[field];
+            int end = ends[field];
+
+            //If the field is empty
+            if (start == end) {
+                throw new NumberFormatException("Empty number");
+            }
+
+            boolean negative = (bytes[start] == '-');
+
+            //If the number has a sign
+            if ((bytes[start] == '-') || (bytes[start] == '+')) {
+
+                start++;
+
+                //If the number only has a sign
+                if (start == end) {
+                    throw new NumberFormatException("Missing digits");
+                }
+            }
+
+            long value = 0;
+
+            //Loops for every digit
+            for (int i = start; i < end; i++) {
+
+                //If the character is not an ASCII one, e.g. a digit of another script
+                if (bytes[i] < 0) {
+                    return Integer.parseInt(text(bytes, field, charset));
+                }
+
+                int digit = bytes[i] - '0';
+
+                //If the character is not a digit
+                if ((digit < 0) || (digit > 9)) {
+                    throw new NumberFormatException("Not a digit");
+                }
+
+                value = 10 * value + digit;
+
+                //If the number is out of the range of int
+                if (value > 1L + Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Out of range");
+                }
+            }
+
+            //If the number is out of the range of int
+            if (!(negative) && (value > Integer.MAX_VALUE)) {
+                throw new NumberFormatException("Out of range");
+            }
+
+            return (int) (negative ? -value : value);
+        }
+    }
+
+    /**
+     * This class keeps the lines of a chunk once parsed: their kind, their text (a name, a description or a diagnostic)
+     * and their values
+     */
+    private static final class Chunk {
+
+        private byte[] kinds;
+        private String[] texts;
+        private int[] values;
+        private final ArrayList<ArrayList<Integer>> prerequisites;
+        private int count;
+
+        /**
+         * Creates the lines of a chunk
+         *
+         * @param capacity the expected number of lines
+         */
+        private Chunk(int capacity) {
+            this.kinds = new byte[capacity];
+            this.texts = new String[capacity];
+            this.values = new int[capacity * VALUES];
+            this.prerequisites = new ArrayList<>();
+        }
+
+        /**
+         * Adds a line
+         *
+         * @param kind the kind of the line
+         * @param text the text of the line
+         * @return the number of the line in the chunk
+         */
+        private int add(byte kind, String text) {
+
+            //If there is no room for the line
+            if (count == kinds.length) {
+
+                kinds = Arrays.copyOf(kinds, 2 * count);
+                texts = Arrays.copyOf(texts, 2 * count);
+                values = Arrays.copyOf(values, 2 * count * VALUES);
+            }
+
+            kinds[count] = kind;
+            texts[count] = text;
+            return count++;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class hosts the school simulations of many tenants in the same JVM.<br>
+ * Every tenant has its own {@link School} driven by its own {@link SimulationEngine}, and its own loop of simulated days,
+ * but the loop does not own a thread: the days are run in turns by a small pool of threads shared by all the tenants.
+ * In its turn a tenant runs days until it has used {@link #QUANTUM} nanoseconds of processor time, and then it goes back
+ * to the end of the queue. Thus thousands of small schools share a few threads and the code already compiled by the JIT,
+ * and the tenants ready to run take turns in order.<br>
+ * A tenant never takes more than its share of a processor: after a turn that took <code>t</code> nanoseconds of
+ * processor time, a tenant with share <code>s</code> waits <code>t * (1 - s) / s</code> nanoseconds before its next turn.<br>
+ * The notifications of the tenants go to the {@link SimulationLog} of the JVM like the ones of any other simulation:
+ * the host leaves the levels of the log as they are, the caller chooses which notifications are printed out.
+ *
+ * @author albertoTamajo
+ */
+public final class SimulationHost implements AutoCloseable {
+
+    static final long QUANTUM = 1000000;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ConcurrentHashMap<String, Tenant> tenants;
+    private final boolean cpuTime;
+
+
+    /**
+     * Creates a host using all the available processors
+     */
+    public SimulationHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a host
+     *
+     * @param parallelism number of threads running the days of the tenants
+     */
+    public SimulationHost(int parallelism) {
+
+        this.scheduler = new ScheduledThreadPoolExecutor(parallelism, task -> {
+
+            Thread thread = new Thread(task, "simulation-host");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.tenants = new ConcurrentHashMap<>();
+        this.cpuTime = THREADS.isCurrentThreadCpuTimeSupported();
+
+        //The days of every tenant are measured in processor time, if available
+        if (cpuTime && !(THREADS.isThreadCpuTimeEnabled())) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /**
+     * Starts the simulation of a tenant
+     *
+     * @param id     the identifier of the tenant, unique among the tenants of the host
+     * @param school the school of the tenant, no longer used by the caller until the simulation ends
+     * @param days   number of days to simulate
+     * @param share  the largest share of a processor the tenant may use, greater than 0 and not more than 1
+     * @return the tenant
+     * @throws IllegalArgumentException if the identifier is already hosted, or the days or the share are not valid
+     */
+    public Tenant submit(String id, School school, int days, double share) {
+
+        //If the days or the share are not valid
+        if ((days <= 0) || !(share > 0) || (share > 1)) {
+            throw new IllegalArgumentException("The days must be greater than 0 and the share between 0 and 1");
+        }
+
+        Tenant tenant = new Tenant(id, new SimulationEngine(school), days, share);
+
+        //If the identifier is already hosted
+        if (tenants.putIfAbsent(id, tenant) != null) {
+            throw new IllegalArgumentException("The tenant " + id + " is already hosted");
+        }
+
+        //The host forgets the tenant once it has ended, the caller keeps it to read its school
+        tenant.completion.whenComplete((result, failure) -> tenants.remove(id, tenant));
+
+        schedule(tenant, 0);
+        return tenant;
+    }
+
+    /**
+     * Gets a tenant of the host
+     *
+     * @param id the identifier of the tenant
+     * @return the tenant, null if it is not hosted or has already ended
+     */
+    public Tenant getTenant(String id) {
+        return tenants.get(id);
+    }
+
+    /**
+     * Gets the tenants of the host that have not ended yet
+     *
+     * @return a read-only view of the tenants
+     */
+    public Collection<Tenant> getTenants() {
+        return Collections.unmodifiableCollection(tenants.values());
+    }
+
+    /**
+     * Stops the host: the days running are completed and the tenants not done are stopped
+     *
+     * @throws IOException if the host is interrupted while waiting for the days running
+     */
+    @Override
+    public void close() throws IOException {
+
+        scheduler.shutdown();
+
+        //Tries to wait for the days running
+        try {
+
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+            //Stops the tenants waiting for their next day
+            for (Tenant tenant : tenants.values()) {
+                tenant.stop();
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The host has been interrupted");
+        }
+    }
+
+    /**
+     * Schedules the next turn of a tenant
+     *
+     * @param tenant a tenant
+     * @param delay  the nanoseconds the tenant waits before its next turn
+     */
+    private void schedule(Tenant tenant, long delay) {
+
+        //Tries to queue the next turn
+        try {
+            scheduler.schedule(() -> runTurn(tenant), delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            tenant.stop();
+        }
+    }
+
+    /**
+     * Runs a turn of a tenant and schedules the next one after the pause needed to keep its share of a processor
+     *
+     * @param tenant a tenant
+     */
+    private void runTurn(Tenant tenant) {
+
+        long start = now();
+        long used = 0;
+
+        //Loops until the quantum of the tenant has been used
+        while (used < QUANTUM) {
+
+            //If the tenant has been cancelled or the host is closing
+            if (tenant.cancelled || scheduler.isShutdown()) {
+
+                tenant.stop();
+                return;
+            }
+
+            //Tries to simulate a day, a failure of any kind ends the tenant so that nobody waits for it forever
+            try {
+                tenant.engine.step();
+            } catch (Throwable e) {
+
+                tenant.completion.completeExceptionally(e);
+                return;
+            }
+
+            used = Math.max(now() - start, 0);
+            tenant.daysRun++;
+
+            //If every day has been simulated
+            if (tenant.daysRun == tenant.days) {
+
+                tenant.cpuNanos += used;
+                tenant.stop();
+                return;
+            }
+        }
+
+        tenant.cpuNanos += used;
+        schedule(tenant, (long) (used * (1 - tenant.share) / tenant.share));
+    }
+
+    /**
+     * Gets the processor time of the current thread, or the time elapsed if it is not available
+     *
+     * @return a time in nanoseconds
+     */
+    private long now() {
+        return cpuTime ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * This class is a tenant of a {@link SimulationHost}: a school, the days it has to simulate and its share of a processor.<br>
+     * The days of a tenant never run at the same time, thus its school must only be read once the tenant is done.
+     */
+    public static final class Tenant {
+
+        private final String id;
+        private final SimulationEngine engine;
+        private final int days;
+        private final double share;
+        private final CompletableFuture<School> completion;
+        private volatile int daysRun;
+        private volatile long cpuNanos;
+        private volatile boolean cancelled;
+
+
+        /**
+         * Creates a tenant
+         *
+         * @param id            the identifier of the tenant
+         * @param engine        the engine simulating the school of the tenant
+         * @param days          number of days to simulate
+         * @param share         the largest share of a processor the tenant may use
+         */
+        private Tenant(String id, SimulationEngine engine, int days, double share) {
+            this.id = id;
+            this.engine = engine;
+            this.days = days;
+            this.share = share;
+            this.completion = new CompletableFuture<>();
+        }
+
+        /**
+         * Gets the identifier of the tenant
+         *
+         * @return the identifier of the tenant
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Gets the number of days the tenant has to simulate
+         *
+         * @return the number of days
+         */
+        public int getDays() {
+            return days;
+        }
+
+        /**
+         * Gets the number of days simulated so far
+         *
+         * @return the number of days simulated
+         */
+        public int getDaysRun() {
+            return daysRun;
+        }
+
+        /**
+         * Gets the largest share of a processor the tenant may use
+         *
+         * @return the share, greater than 0 and not more than 1
+         */
+        public double getShare() {
+            return share;
+        }
+
+        /**
+         * Gets the processor time used by the days simulated so far
+         *
+         * @return the time in nanoseconds, the time elapsed if the processor time is not available
+         */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        /**
+         * Checks whether or not the tenant has ended: every day has been simulated,
+         * or it has been cancelled, or it has failed, or the host has been closed
+         *
+         * @return true if the tenant has ended, false otherwise
+         */
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        /**
+         * Stops the tenant after the day running, if any
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Waits until the tenant has ended
+         *
+         * @return the school of the tenant
+         * @throws IOException if the simulation of the tenant has failed or the wait has been interrupted
+         */
+        public School await() throws IOException {
+
+            //Tries to wait for the tenant
+            try {
+                return completion.get();
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("The tenant " + id + " has been interrupted");
+
+            } catch (ExecutionException e) {
+                throw new IOException("The simulation of the tenant " + id + " has failed", e.getCause());
+            }
+        }
+
+        /**
+         * Ends the tenant
+         */
+        private void stop() {
+            completion.complete(engine.getSchool());
+        }
+    }
+}
@@ -0,0 +1,453 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * This class writes the state transitions of a {@link School} to an append-only binary journal.<br>
+ * The journal starts with the serialised school at the moment the journal is opened (the initial scenario),
+ * followed by one compact record for every transition: entities joining and leaving, courses created,
+ * instructors assigned, students enrolled, students graduating or dropping out and the boundaries of every day.
+ * Courses cancelled and completed are recorded too, but only as an audit trail: they follow from the other records.<br>
+ * The entities are referred to by journal IDs, given in order of appearance.
+ * Numbers are written as variable-length integers through a buffered {@link FileChannel}.<br>
+ * See {@link JournalReplayer} to rebuild the state of the school for any day.
+ *
+ * @author albertoTamajo
+ */
+public class SimulationJournal implements Closeable {
+
+    static final int MAGIC = 0x534A4E4C;
+    static final int VERSION = 1;
+
+    static final byte SUBJECT_ADDED = 1;
+    static final byte SUBJECT_REMOVED = 2;
+    static final byte INSTRUCTOR_ADDED = 3;
+    static final byte INSTRUCTOR_REMOVED = 4;
+    static final byte STUDENT_ADDED = 5;
+    static final byte STUDENT_REMOVED = 6;
+    static final byte COURSE_CREATED = 7;
+    static final byte COURSE_REMOVED = 8;
+    static final byte INSTRUCTOR_ASSIGNED = 9;
+    static final byte STUDENT_ENROLLED = 10;
+    static final byte COURSE_CANCELLED = 11;
+    static final byte COURSE_COMPLETED = 12;
+    static final byte STUDENT_GRADUATED = 13;
+    static final byte STUDENT_DROPPED_OUT = 14;
+    static final byte DAY_STARTED = 15;
+    static final byte DAY_ENDED = 16;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final School school;
+    private final IdentityHashMap<Object, Integer> ids;
+    private ByteBuffer buffer;
+    private int nextId;
+
+
+    /**
+     * Creates a journal writing to a channel
+     *
+     * @param channel the channel of the journal file
+     * @param school  the school whose transitions are written
+     */
+    private SimulationJournal(FileChannel channel, School school) {
+        this.channel = channel;
+        this.school = school;
+        this.ids = new IdentityHashMap<>();
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a journal file (replacing an existing one), writes the current state of a school
+     * as initial scenario and starts recording the transitions of the school
+     *
+     * @param path   the path of the journal file
+     * @param school a school
+     * @return the journal
+     * @throws IOException if the journal cannot be written
+     */
+    public static SimulationJournal open(Path path, School school) throws IOException {
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        SimulationJournal journal = new SimulationJournal(channel, school);
+
+        //Tries to write the header
+        try {
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream objOut = new ObjectOutputStream(bytes);
+            objOut.writeObject(school);
+            objOut.close();
+
+            byte[] scenario = bytes.toByteArray();
+
+            journal.ensure(12);
+            journal.buffer.putInt(MAGIC);
+            journal.buffer.putInt(VERSION);
+            journal.buffer.putInt(scenario.length);
+            journal.flush();
+            channel.write(ByteBuffer.wrap(scenario));
+
+        } catch (IOException e) {
+
+            channel.close();
+            throw e;
+        }
+
+        //The entities of the scenario get their IDs in the order of the school's sets
+        for (Object entity : scenarioEntities(school)) {
+            journal.ids.put(entity, journal.nextId++);
+        }
+
+        school.setJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Returns the entities of a school in the order the journal gives them an ID:
+     * subjects, instructors, students and courses
+     *
+     * @param school a school
+     * @return the entities of the school
+     */
+    static List<Object> scenarioEntities(School school) {
+
+        ArrayList<Object> entities = new ArrayList<>();
+
+        entities.addAll(school.getSubjects());
+        entities.addAll(school.getInstructors());
+        entities.addAll(school.getStudents());
+        entities.addAll(school.getCourses());
+
+        return entities;
+    }
+
+    /**
+     * Records a subject added to the school
+     *
+     * @param subject the new subject
+     */
+    void subjectAdded(Subject subject) {
+
+        byte[] description = bytes(subject.getDescription());
+        IdBitSet prerequisites = subject.getPrerequisiteSet();
+
+        ensure(1 + 5 * 5 + description.length + 5 * prerequisites.size());
+        buffer.put(SUBJECT_ADDED);
+        putInt(newId(subject));
+        putInt(subject.getID());
+        putInt(subject.getSpecialism());
+        putInt(subject.getDuration());
+        putBytes(description);
+        putInt(prerequisites.size());
+
+        //Writes every prerequisite
+        for (int id : prerequisites.toArray()) {
+            putInt(id);
+        }
+    }
+
+    /**
+     * Records an instructor added to the school
+     *
+     * @param instructor the new instructor
+     */
+    void instructorAdded(Instructor instructor) {
+
+        byte[] kind = bytes(instructor.getClass().getName());
+        byte[] name = bytes(instructor.getName());
+
+        ensure(1 + 4 * 5 + kind.length + name.length);
+        buffer.put(INSTRUCTOR_ADDED);
+        putInt(newId(instructor));
+        putBytes(kind);
+        putBytes(name);
+        putInt(instructor.getGender());
+        putInt(instructor.getAge());
+    }
+
+    /**
+     * Records a student added to the school
+     *
+     * @param student the new student
+     */
+    void studentAdded(Student student) {
+
+        byte[] name = bytes(student.getName());
+        IdBitSet certificates = student.getCertificateSet();
+
+        ensure(1 + 5 * 5 + name.length + 5 * certificates.size());
+        buffer.put(STUDENT_ADDED);
+        putInt(newId(student));
+        putBytes(name);
+        putInt(student.getGender());
+        putInt(student.getAge());
+        putInt(certificates.size());
+
+        //Writes every certificate
+        for (int id : certificates.toArray()) {
+            putInt(id);
+        }
+    }
+
+    /**
+     * Records a course created by the school or added to it
+     *
+     * @param course          the new course
+     * @param daysUntilStarts the number of days until the course starts
+     */
+    void courseCreated(Course course, int daysUntilStarts) {
+
+        ensure(1 + 3 * 5);
+        buffer.put(COURSE_CREATED);
+        putInt(newId(course));
+        putInt(id(course.getSubject()));
+        putInt(daysUntilStarts);
+    }
+
+    /**
+     * Records an entity removed from the school
+     *
+     * @param type   the type of the record
+     * @param entity the entity removed
+     */
+    void removed(byte type, Object entity) {
+
+        ensure(1 + 5);
+        buffer.put(type);
+        putInt(id(entity));
+        ids.remove(entity);
+    }
+
+    /**
+     * Records an instructor assigned to a course
+     *
+     * @param course     the course
+     * @param instructor the instructor
+     */
+    void instructorAssigned(Course course, Instructor instructor) {
+
+        ensure(1 + 2 * 5);
+        buffer.put(INSTRUCTOR_ASSIGNED);
+        putInt(id(instructor));
+        putInt(id(course));
+    }
+
+    /**
+     * Records a student enrolled in a course
+     *
+     * @param course  the course
+     * @param student the student
+     */
+    void studentEnrolled(Course course, Student student) {
+
+        ensure(1 + 2 * 5);
+        buffer.put(STUDENT_ENROLLED);
+        putInt(id(student));
+        putInt(id(course));
+    }
+
+    /**
+     * Records a course cancelled (audit only)
+     *
+     * @param course the course
+     */
+    void courseCancelled(Course course) {
+
+        ensure(1 + 5);
+        buffer.put(COURSE_CANCELLED);
+        putInt(id(course));
+    }
+
+    /**
+     * Records a course completed (audit only)
+     *
+     * @param course   the course
+     * @param students the number of students graduated by the course
+     */
+    void courseCompleted(Course course, int students) {
+
+        ensure(1 + 2 * 5);
+        buffer.put(COURSE_COMPLETED);
+        putInt(id(course));
+        putInt(students);
+    }
+
+    /**
+     * Records a student leaving the school with all certificates or dropping out.<br>
+     * The record precedes the removal of the student.
+     *
+     * @param type either {@link #STUDENT_GRADUATED} or {@link #STUDENT_DROPPED_OUT}
+     */
+    void studentLeaving(byte type) {
+
+        ensure(1);
+        buffer.put(type);
+    }
+
+    /**
+     * Records the start of a day, when the courses are advanced
+     *
+     * @param day the day starting
+     */
+    void dayStarted(int day) {
+
+        ensure(1 + 5);
+        buffer.put(DAY_STARTED);
+        putInt(day);
+    }
+
+    /**
+     * Records the end of a simulated day with the state of the random source of the school
+     *
+     * @param day    the day ending
+     * @param random the random source of the school
+     */
+    void dayEnded(int day, RandomSource random) {
+
+        ensure(1 + 5 + 8);
+        buffer.put(DAY_ENDED);
+        putInt(day);
+        buffer.putLong(random.getState());
+    }
+
+    /**
+     * Writes the buffered records to the journal file
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void flush() throws IOException {
+
+        buffer.flip();
+
+        //Loops until all bytes are written
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records, stops recording the transitions of the school and closes the journal file
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            flush();
+        } finally {
+            school.setJournal(null);
+            channel.close();
+        }
+    }
+
+    /**
+     * Gives a new ID to an entity
+     *
+     * @param entity an entity joining the school
+     * @return the ID of the entity
+     */
+    private int newId(Object entity) {
+
+        int id = nextId++;
+        ids.put(entity, id);
+        return id;
+    }
+
+    /**
+     * Gets the ID of an entity
+     *
+     * @param entity an entity of the school
+     * @return the ID of the entity
+     */
+    private int id(Object entity) {
+
+        Integer id = ids.get(entity);
+
+        //If the entity is not part of the journal
+        if (id == null) {
+            throw new IllegalStateException("The journal does not know " + entity.getClass().getName());
+        }
+
+        return id;
+    }
+
+    /**
+     * Makes room in the buffer for a record
+     *
+     * @param bytes the maximum size of the record
+     */
+    private void ensure(int bytes) {
+
+        //If the record does not fit in the free space of the buffer
+        if (buffer.remaining() < bytes) {
+
+            //Tries to write the buffered records
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("The journal cannot be written", e);
+            }
+
+            //If the record is bigger than the buffer
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes);
+            }
+        }
+    }
+
+    /**
+     * Encodes a string as UTF-8
+     *
+     * @param string a string, possibly null
+     * @return the bytes of the string, empty if the string is null
+     */
+    private static byte[] bytes(String string) {
+        return (string == null) ? new byte[0] : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a length-prefixed array of bytes
+     *
+     * @param bytes the bytes
+     */
+    private void putBytes(byte[] bytes) {
+        putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes an int as a zigzag variable-length integer (1 to 5 bytes)
+     *
+     * @param value the value
+     */
+    private void putInt(int value) {
+
+        int bits = (value << 1) ^ (value >> 31);
+
+        //Loops while more than 7 bits are left
+        while ((bits & ~0x7F) != 0) {
+
+            buffer.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+
+        buffer.put((byte) bits);
+    }
+}
@@ -0,0 +1,439 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is the event log of the school simulation.<br>
+ * The classes of the simulation do not print out their notifications directly:
+ * they publish compact event records (an {@link Event} and up to three strings already available,
+ * such as names and descriptions) into a preallocated lock-free ring buffer.
+ * A background writer renders the records as the usual console messages and prints them out in batches.<br>
+ * Every {@link Category} of events has its own {@link Level}. The events of a disabled level
+ * are discarded before any string is built, so they cost nothing but a level check.
+ *
+ * @author albertoTamajo
+ */
+public final class SimulationLog {
+
+    /**
+     * Levels of the events
+     */
+    public enum Level {
+        OFF, WARNING, INFO
+    }
+
+    /**
+     * Categories of the events
+     */
+    public enum Category {
+        SCHOOL, COURSE, INSTRUCTOR, STUDENT, ADMINISTRATOR
+    }
+
+    /**
+     * Events of the simulation and their human-readable rendering.<br>
+     * Every '{}' of a template is replaced by an argument of the event.
+     */
+    public enum Event {
+
+        STUDENT_ADDED(Category.SCHOOL, Level.INFO, "**The student {} has been added successfully**\n"),
+        STUDENT_ALREADY_ADDED(Category.SCHOOL, Level.WARNING, "**The student {} already attends this school**\n"),
+        STUDENT_REMOVED(Category.SCHOOL, Level.INFO, "**The student {} has been removed successfully**\n"),
+        STUDENT_NOT_FOUND(Category.SCHOOL, Level.WARNING, "**The student {} does not exist**\n"),
+        SUBJECT_ADDED(Category.SCHOOL, Level.INFO, "**The subject {} has been added successfully**\n"),
+        SUBJECT_ALREADY_ADDED(Category.SCHOOL, Level.WARNING, "**The subject {} already exists**\n"),
+        SUBJECT_ID_TAKEN(Category.SCHOOL, Level.WARNING, "**The subject {} cannot be added, its ID {} belongs to the subject {}**\n"),
+        SUBJECT_REMOVED(Category.SCHOOL, Level.INFO, "**The subject {} has been removed successfully**\n"),
+        SUBJECT_NOT_FOUND(Category.SCHOOL, Level.WARNING, "**The subject {} does not exist**\n"),
+        INSTRUCTOR_ADDED(Category.SCHOOL, Level.INFO, "**The instructor {} has been added successfully**\n"),
+        INSTRUCTOR_ALREADY_ADDED(Category.SCHOOL, Level.WARNING, "**The instructor {} already teaches in this school**\n"),
+        INSTRUCTOR_REMOVED(Category.SCHOOL, Level.INFO, "**The instructor {} has been removed successfully**\n"),
+        INSTRUCTOR_NOT_FOUND(Category.SCHOOL, Level.WARNING, "**The instructor {} does not exist**\n"),
+        COURSE_ADDED(Category.SCHOOL, Level.INFO, "**The course {} has been added successfully**\n"),
+        COURSE_ALREADY_ADDED(Category.SCHOOL, Level.WARNING, "**The course {} already exists**\n"),
+        COURSE_REMOVED(Category.SCHOOL, Level.INFO, "**The course {} has been removed successfully**\n"),
+        COURSE_NOT_FOUND(Category.SCHOOL, Level.WARNING, "**The course {} does not exist**\n"),
+        ENTITIES_ADDED(Category.SCHOOL, Level.INFO, "**{} entities have been added successfully, {} were already in the school and {} have been rejected**\n"),
+        ENTITIES_REMOVED(Category.SCHOOL, Level.INFO, "**{} entities have been removed successfully, {} did not exist and {} have been rejected**\n"),
+        ALL_STUDENTS_ENROLLED(Category.SCHOOL, Level.INFO, "**All students are enrolled in a course\n"),
+        NO_COURSES_AVAILABLE(Category.SCHOOL, Level.INFO, "**No courses are available at the moment**\n"),
+        STUDENTS_WITHOUT_COURSE(Category.SCHOOL, Level.INFO, "**The following students remain without a course:\n"),
+        STUDENT_WITHOUT_COURSE(Category.SCHOOL, Level.INFO, "{}\n"),
+        NO_MORE_COURSES(Category.SCHOOL, Level.INFO, "**No more courses are available at the moment**\n"),
+        STUDENT_REMAINS_WITHOUT_COURSE(Category.SCHOOL, Level.INFO, "**The student {} remains without a course**\n"),
+
+        COURSES_CREATED(Category.COURSE, Level.INFO, "**New courses have been created**\n"),
+        COURSE_CREATED(Category.COURSE, Level.INFO, "{}"),
+        COURSE_CANCELLED(Category.COURSE, Level.INFO, "**The course {} has been cancelled !**\n"),
+        COURSE_FINISHED(Category.COURSE, Level.INFO, "**The course {} Course has finished**\n"),
+        COURSE_WITHOUT_INSTRUCTOR(Category.COURSE, Level.WARNING, "This course does not have an instructor yet"),
+        STUDENT_ENROLLED(Category.COURSE, Level.INFO, "**The student {} has enrolled in {} Course**\n"),
+        STUDENT_UNENROLLED(Category.COURSE, Level.INFO, "**The student {} does not attend the {} Course anymore**\n"),
+        ALREADY_ATTENDED(Category.COURSE, Level.WARNING, "**The student {} has already attended {} course**\n"),
+        MISSING_PREREQUISITES(Category.COURSE, Level.WARNING, "**The student {} does not have the prerequisites to join the {} Course**\n"),
+        COURSE_ALREADY_STARTED(Category.COURSE, Level.WARNING, "**The student {} cannot join the {} Course because it has already started**\n"),
+        COURSE_FULL(Category.COURSE, Level.WARNING, "**The student {} cannot join the {} Course because it is full**\n"),
+        ALREADY_ENROLLED(Category.COURSE, Level.WARNING, "**The student {} cannot join the {} Course because he/she is already enrolled in a course**\n"),
+
+        INSTRUCTOR_ASSIGNED(Category.INSTRUCTOR, Level.INFO, "**The instructor {} has been assigned to the {} Course**\n"),
+        INSTRUCTOR_UNASSIGNED(Category.INSTRUCTOR, Level.INFO, "**The instructor {} has been unassigned to the Course {}**\n"),
+        INSTRUCTOR_CANNOT_TEACH(Category.INSTRUCTOR, Level.WARNING, "**The instructor {} cannot teach the {} Course**\n"),
+        INSTRUCTOR_ALREADY_TEACHING(Category.INSTRUCTOR, Level.WARNING, "**The instructor {} is already teaching {} Course. Therefore, he/she cannot teach the {} Course**\n"),
+        INSTRUCTOR_NOT_TEACHING(Category.INSTRUCTOR, Level.WARNING, "**This instructor is not teaching**"),
+
+        STUDENT_GRADUATED(Category.STUDENT, Level.INFO, "**The student {} has successfully completed the {} Course**\n"),
+
+        STUDENT_JOINING(Category.ADMINISTRATOR, Level.INFO, "**A new student has enrolled today**\n"),
+        INSTRUCTOR_JOINING(Category.ADMINISTRATOR, Level.INFO, "**An instructor is joining**\n"),
+        INSTRUCTOR_LEAVING(Category.ADMINISTRATOR, Level.INFO, "**This instructor is leaving the school**\n"),
+        STUDENT_COMPLETED_ALL(Category.ADMINISTRATOR, Level.INFO, "**A student has completed all the courses**"),
+        STUDENT_LEAVING(Category.ADMINISTRATOR, Level.INFO, "**A student is leaving**"),
+        JOURNAL_TRUNCATED(Category.ADMINISTRATOR, Level.WARNING, "**The journal is truncated, the last record has been ignored**\n"),
+        DETAILS(Category.ADMINISTRATOR, Level.INFO, "{}"),
+        MESSAGE(Category.ADMINISTRATOR, Level.INFO, "{}");
+
+        private final Category category;
+        private final Level level;
+        private final String[] parts;
+
+        Event(Category category, Level level, String template) {
+            this.category = category;
+            this.level = level;
+            this.parts = template.split("\\{\\}", -1);
+        }
+
+        /**
+         * Gets the category of the event
+         *
+         * @return the category of the event
+         */
+        public Category getCategory() {
+            return category;
+        }
+
+        /**
+         * Gets the level of the event
+         *
+         * @return the level of the event
+         */
+        public Level getLevel() {
+            return level;
+        }
+
+        /**
+         * Appends the human-readable rendering of the event, the same message the simulation used to print out
+         *
+         * @param text      where the message is appended
+         * @param arguments arguments of the event, missing arguments are rendered as empty strings
+         */
+        public void render(StringBuilder text, String... arguments) {
+
+            text.append(parts[0]);
+
+            //Appends every argument followed by the next part of the template
+            for (int i = 1; i < parts.length; i++) {
+
+                text.append((i <= arguments.length) && (arguments[i - 1] != null) ? arguments[i - 1] : "");
+                text.append(parts[i]);
+            }
+        }
+    }
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH = 1 << 16;
+    private static final long IDLE_NANOS = 200_000;
+
+    private static final Event[] events = new Event[CAPACITY];
+    private static final String[] firstArguments = new String[CAPACITY];
+    private static final String[] secondArguments = new String[CAPACITY];
+    private static final String[] thirdArguments = new String[CAPACITY];
+
+    //The slot of position p is free when its sequence is p and published when its sequence is p + 1
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong claimed = new AtomicLong();
+    private static volatile long written;
+
+    private static volatile Level[] levels;
+    private static volatile PrintStream output;
+    private static final Thread writer;
+
+    static {
+
+        //Every slot is free for the first round of positions
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+
+        Level[] initialLevels = new Level[Category.values().length];
+        Arrays.fill(initialLevels, Level.INFO);
+        levels = initialLevels;
+
+        writer = new Thread(SimulationLog::drain, "simulation-log");
+        writer.setDaemon(true);
+        writer.start();
+
+        //The events still in the buffer are printed out before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(SimulationLog::flush));
+    }
+
+    private SimulationLog() {
+    }
+
+    /**
+     * Checks whether or not the events of a certain kind are logged
+     *
+     * @param event an event
+     * @return true if the level of the category of the event includes the event, false otherwise
+     */
+    public static boolean isEnabled(Event event) {
+        return event.level.ordinal() <= levels[event.category.ordinal()].ordinal();
+    }
+
+    /**
+     * Logs an event with no arguments
+     *
+     * @param event an event
+     */
+    public static void log(Event event) {
+
+        //If the event is enabled
+        if (isEnabled(event)) {
+            publish(event, null, null, null);
+        }
+    }
+
+    /**
+     * Logs an event with one argument
+     *
+     * @param event an event
+     * @param first first argument of the event
+     */
+    public static void log(Event event, String first) {
+
+        //If the event is enabled
+        if (isEnabled(event)) {
+            publish(event, first, null, null);
+        }
+    }
+
+    /**
+     * Logs an event with two arguments
+     *
+     * @param event  an event
+     * @param first  first argument of the event
+     * @param second second argument of the event
+     */
+    public static void log(Event event, String first, String second) {
+
+        //If the event is enabled
+        if (isEnabled(event)) {
+            publish(event, first, second, null);
+        }
+    }
+
+    /**
+     * Logs an event with three arguments
+     *
+     * @param event  an event
+     * @param first  first argument of the event
+     * @param second second argument of the event
+     * @param third  third argument of the event
+     */
+    public static void log(Event event, String first, String second, String third) {
+
+        //If the event is enabled
+        if (isEnabled(event)) {
+            publish(event, first, second, third);
+        }
+    }
+
+    /**
+     * Gets the level of a category
+     *
+     * @param category a category
+     * @return the level of the category
+     */
+    public static Level getLevel(Category category) {
+        return levels[category.ordinal()];
+    }
+
+    /**
+     * Sets the level of a category
+     *
+     * @param category a category
+     * @param level    the new level of the category
+     */
+    public static synchronized void setLevel(Category category, Level level) {
+
+        Level[] newLevels = levels.clone();
+        newLevels[category.ordinal()] = level;
+        levels = newLevels;
+    }
+
+    /**
+     * Sets the level of every category
+     *
+     * @param level the new level of every category
+     */
+    public static synchronized void setLevel(Level level) {
+
+        Level[] newLevels = levels.clone();
+        Arrays.fill(newLevels, level);
+        levels = newLevels;
+    }
+
+    /**
+     * Gets the levels of all categories, indexed by the ordinal of the categories
+     *
+     * @return a copy of the levels
+     */
+    public static Level[] getLevels() {
+        return levels.clone();
+    }
+
+    /**
+     * Sets the levels of all categories, for instance the ones returned by {@link #getLevels()}
+     *
+     * @param newLevels the levels indexed by the ordinal of the categories
+     */
+    public static synchronized void setLevels(Level[] newLevels) {
+
+        //If the number of levels does not match the number of categories
+        if (newLevels.length != Category.values().length) {
+            throw new IllegalArgumentException("A level is needed for each of the " + Category.values().length + " categories");
+        }
+
+        levels = newLevels.clone();
+    }
+
+    /**
+     * Sets where the messages are printed out
+     *
+     * @param stream a print stream, null to print out to the current {@link System#out}
+     */
+    public static void setOutput(PrintStream stream) {
+        output = stream;
+    }
+
+    /**
+     * Waits until every event logged so far has been printed out
+     */
+    public static void flush() {
+
+        long target = claimed.get();
+
+        //Loops until the writer has printed out the events up to the target
+        while (written < target) {
+
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+
+        PrintStream stream = stream();
+        stream.flush();
+    }
+
+    /**
+     * Publishes an event record into the ring buffer.<br>
+     * If the buffer is full the caller waits for the writer to free a slot.
+     */
+    private static void publish(Event event, String first, String second, String third) {
+
+        long position = claimed.getAndIncrement();
+        int slot = (int) position & MASK;
+
+        //Loops until the writer has freed the slot
+        while (sequences.get(slot) != position) {
+
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+
+        events[slot] = event;
+        firstArguments[slot] = first;
+        secondArguments[slot] = second;
+        thirdArguments[slot] = third;
+
+        //The volatile write publishes the record to the writer
+        sequences.set(slot, position + 1);
+    }
+
+    /**
+     * Gets the stream where the messages are printed out
+     *
+     * @return the stream
+     */
+    private static PrintStream stream() {
+
+        PrintStream stream = output;
+        return (stream != null) ? stream : System.out;
+    }
+
+    /**
+     * Renders the published records and prints them out in batches.<br>
+     * It is the body of the background writer.
+     */
+    private static void drain() {
+
+        StringBuilder text = new StringBuilder(BATCH);
+        String lineSeparator = System.lineSeparator();
+        long position = 0;
+
+        //Loops until the JVM exits
+        while (true) {
+
+            int slot = (int) position & MASK;
+
+            //If the next record has been published
+            if (sequences.get(slot) == position + 1) {
+
+                try {
+                    events[slot].render(text, firstArguments[slot], secondArguments[slot], thirdArguments[slot]);
+                    text.append(lineSeparator);
+                } catch (RuntimeException e) {
+                    text.append("**Unprintable event ").append(events[slot]).append("**").append(lineSeparator);
+                }
+
+                events[slot] = null;
+                firstArguments[slot] = null;
+                secondArguments[slot] = null;
+                thirdArguments[slot] = null;
+
+                //The slot is free for the next round of positions
+                sequences.set(slot, position + CAPACITY);
+                position++;
+
+                //If the batch is big enough
+                if (text.length() >= BATCH) {
+                    print(text);
+                    written = position;
+                }
+
+            } else {
+
+                //If there is something to print out
+                if (text.length() > 0) {
+                    print(text);
+                }
+
+                written = position;
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Prints out a batch of messages and empties it
+     *
+     * @param text the batch of messages
+     */
+    private static void print(StringBuilder text) {
+
+        PrintStream stream = stream();
+        stream.append(text);
+        stream.flush();
+        text.setLength(0);
+    }
+}
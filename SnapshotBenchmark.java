@@ -0,0 +1,219 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class compares the time needed to save and load a large school and the size of the file
+ * written by a {@link SchoolSnapshot} and by Java serialisation, and the time needed to open the snapshot
+ * through a {@link MappedSnapshot} and to read a student from it.<br>
+ * Usage: java SnapshotBenchmark [students] [days] [repetitions]
+ *
+ * @author albertoTamajo
+ */
+public class SnapshotBenchmark {
+
+    private static final String[] NAMES = {"Ana", "Luis", "Marta", "Pedro", "Lucia", "Javier", "Elena", "Carlos"};
+    private static final char[] GENDERS = {'M', 'F'};
+    private static final int SUBJECTS = 50;
+
+    /**
+     * Main method
+     *
+     * @param args number of students, number of days simulated before saving and number of repetitions
+     * @throws IOException if the temporary files cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+
+        int students = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+        int days = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        int repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+        System.err.println("**Students: " + students + ", days: " + days + "**\n");
+
+        School school = createSchool(students, days);
+        Path snapshot = Files.createTempFile("school", ".snapshot");
+        Path serialised = Files.createTempFile("school", ".ser");
+
+        //Tries to compare the two formats
+        try {
+
+            long snapshotSave = Long.MAX_VALUE;
+            long snapshotLoad = Long.MAX_VALUE;
+            long mappedRead = Long.MAX_VALUE;
+            long serialisedSave = Long.MAX_VALUE;
+            long serialisedLoad = Long.MAX_VALUE;
+            boolean serialisable = true;
+
+            //Loops for every repetition keeping the best times
+            for (int i = 0; i < repetitions; i++) {
+
+                long start = System.nanoTime();
+                SchoolSnapshot.save(school, snapshot);
+                snapshotSave = Math.min(snapshotSave, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                SchoolSnapshot.load(snapshot);
+                snapshotLoad = Math.min(snapshotLoad, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                MappedSnapshot.open(snapshot).getStudent(students / 2);
+                mappedRead = Math.min(mappedRead, System.nanoTime() - start);
+
+                //If Java serialisation has not failed yet
+                if (serialisable) {
+
+                    //Tries to save and load the school through Java serialisation
+                    try {
+
+                        start = System.nanoTime();
+                        saveSerialised(school, serialised);
+                        serialisedSave = Math.min(serialisedSave, System.nanoTime() - start);
+
+                        start = System.nanoTime();
+                        loadSerialised(serialised);
+                        serialisedLoad = Math.min(serialisedLoad, System.nanoTime() - start);
+
+                    } catch (StackOverflowError e) {
+
+                        System.err.println("**Java serialisation overflows the stack**");
+                        serialisable = false;
+                    }
+                }
+            }
+
+            report("SchoolSnapshot", snapshotSave, snapshotLoad, Files.size(snapshot));
+            System.err.printf("**MappedSnapshot: open and read one student %.1f ms**%n", mappedRead / 1e6);
+
+            //If Java serialisation has worked
+            if (serialisable) {
+
+                report("Serializable", serialisedSave, serialisedLoad, Files.size(serialised));
+                System.err.printf("**The snapshot is %.1f times smaller**%n",
+                        (double) Files.size(serialised) / Math.max(Files.size(snapshot), 1));
+            }
+
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(serialised);
+        }
+    }
+
+    /**
+     * Creates a school and simulates some days without printing out anything
+     *
+     * @param students number of students
+     * @param days     number of days
+     * @return the school
+     */
+    private static School createSchool(int students, int days) {
+
+        School school = new School("Benchmark");
+        RandomSource random = new RandomSource(1);
+        school.setRandom(new RandomSource(2));
+
+        SimulationLog.Level[] levels = SimulationLog.getLevels();
+        SimulationLog.setLevel(SimulationLog.Level.OFF);
+
+        //Tries to fill the school and to run the simulation
+        try {
+
+            for (int id = 0; id < SUBJECTS; id++) {
+
+                Subject subject = new Subject(id, 1 + (id % 4), 1 + random.nextInt(5));
+                subject.setDescription("Subject " + id);
+                school.add(subject);
+            }
+
+            for (int i = 0; i < students / 10; i++) {
+
+                String name = NAMES[random.nextInt(NAMES.length)] + " " + i;
+                char gender = GENDERS[random.nextInt(GENDERS.length)];
+                int age = 25 + random.nextInt(40);
+
+                switch (i % 4) {
+                    case 0:
+                        school.add(new Teacher(name, gender, age));
+                        break;
+                    case 1:
+                        school.add(new Demonstrator(name, gender, age));
+                        break;
+                    case 2:
+                        school.add(new OOTrainer(name, gender, age));
+                        break;
+                    default:
+                        school.add(new GUITrainer(name, gender, age));
+                        break;
+                }
+            }
+
+            for (int i = 0; i < students; i++) {
+
+                Student student = new Student(NAMES[random.nextInt(NAMES.length)] + " " + i,
+                        GENDERS[random.nextInt(GENDERS.length)], 18 + random.nextInt(60));
+
+                for (int id = 0; id < SUBJECTS; id++) {
+
+                    if (random.nextInt(4) == 0) {
+                        student.addCertificate(id);
+                    }
+                }
+
+                school.add(student);
+            }
+
+            for (int day = 0; day < days; day++) {
+                school.aDayAtSchool();
+            }
+
+        } finally {
+            SimulationLog.setLevels(levels);
+        }
+
+        return school;
+    }
+
+    /**
+     * Saves a school through Java serialisation, as older versions of the simulation did
+     *
+     * @param school a school
+     * @param path   the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private static void saveSerialised(School school, Path path) throws IOException {
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeObject(school);
+        }
+    }
+
+    /**
+     * Loads a school through Java serialisation
+     *
+     * @param path the path of the file
+     * @throws IOException if the file cannot be read
+     */
+    private static void loadSerialised(Path path) throws IOException {
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Prints out the times and the size of a format
+     *
+     * @param label name of the format
+     * @param save  best time to save the school in nanoseconds
+     * @param load  best time to load the school in nanoseconds
+     * @param bytes size of the file
+     */
+    private static void report(String label, long save, long load, long bytes) {
+        System.err.printf("**%s: save %.1f ms, load %.1f ms, %.2f MB**%n", label, save / 1e6, load / 1e6, bytes / 1048576.0);
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class reads the numbers and strings written by a {@link SnapshotOutput} from a channel through a buffer.
+ *
+ * @author albertoTamajo
+ */
+public class SnapshotInput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long received;
+
+
+    /**
+     * Creates an input reading from a channel
+     *
+     * @param channel a channel
+     */
+    public SnapshotInput(ReadableByteChannel channel) {
+
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        //The buffer starts empty
+        this.buffer.flip();
+    }
+
+    /**
+     * Creates an input reading from the bytes of a buffer, e.g. a mapped region of a file
+     *
+     * @param buffer the bytes to read, from its position to its limit
+     */
+    public SnapshotInput(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads a byte
+     *
+     * @return the value, between -128 and 127
+     * @throws IOException if the channel cannot be read or it has ended
+     */
+    public byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    /**
+     * Reads a boolean written as one byte
+     *
+     * @return the value
+     * @throws IOException if the channel cannot be read or it has ended
+     */
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads an int written in 4 bytes
+     *
+     * @return the value
+     * @throws IOException if the channel cannot be read or it has ended
+     */
+    public int readFixedInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long written in 8 bytes
+     *
+     * @return the value
+     * @throws IOException if the channel cannot be read or it has ended
+     */
+    public long readFixedLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a zigzag variable-length int
+     *
+     * @return the value
+     * @throws IOException if the channel cannot be read, it has ended or the value is malformed
+     */
+    public int readInt() throws IOException {
+
+        int bits = 0;
+
+        //Loops for the groups of 7 bits
+        for (int shift = 0; shift < 35; shift += 7) {
+
+            byte next = readByte();
+            bits |= (next & 0x7F) << shift;
+
+            //If it is the last group
+            if (next >= 0) {
+                return (bits >>> 1) ^ -(bits & 1);
+            }
+        }
+
+        throw new StreamCorruptedException("Malformed variable-length int");
+    }
+
+    /**
+     * Reads a zigzag variable-length long
+     *
+     * @return the value
+     * @throws IOException if the channel cannot be read, it has ended or the value is malformed
+     */
+    public long readLong() throws IOException {
+
+        long bits = 0;
+
+        //Loops for the groups of 7 bits
+        for (int shift = 0; shift < 70; shift += 7) {
+
+            byte next = readByte();
+            bits |= (long) (next & 0x7F) << shift;
+
+            //If it is the last group
+            if (next >= 0) {
+                return (bits >>> 1) ^ -(bits & 1);
+            }
+        }
+
+        throw new StreamCorruptedException("Malformed variable-length long");
+    }
+
+    /**
+     * Reads a string written as its length followed by its UTF-8 bytes
+     *
+     * @return the string, possibly null
+     * @throws IOException if the channel cannot be read, it has ended or the length is malformed
+     */
+    public String readString() throws IOException {
+
+        int length = readInt();
+
+        //If there is no string
+        if (length == -1) {
+            return null;
+        }
+
+        //If the length is not valid
+        if (length < -1) {
+            throw new StreamCorruptedException("Malformed string length " + length);
+        }
+
+        byte[] bytes = new byte[length];
+
+        //Loops until all bytes are read
+        for (int offset = 0; offset < length; ) {
+
+            require(1);
+
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether or not all bytes have been read
+     *
+     * @return true if the input has ended, false otherwise
+     * @throws IOException if the channel cannot be read
+     */
+    public boolean isAtEnd() throws IOException {
+        return !(fill(1));
+    }
+
+    /**
+     * Gets the position of the next byte to read, from the start of the channel or of the buffer
+     *
+     * @return the position
+     */
+    public long position() {
+        return (channel == null) ? buffer.position() : received - buffer.remaining();
+    }
+
+    /**
+     * Closes the channel
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        //If the input reads from a channel
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes sure that some bytes are buffered
+     *
+     * @param bytes the number of bytes needed, at most the capacity of the buffer
+     * @throws IOException if the channel cannot be read or it has ended
+     */
+    private void require(int bytes) throws IOException {
+
+        //If the bytes cannot be buffered
+        if (!(fill(bytes))) {
+            throw new EOFException("Unexpected end of snapshot");
+        }
+    }
+
+    /**
+     * Reads bytes from the channel until some bytes are buffered or the channel ends
+     *
+     * @param bytes the number of bytes needed, at most the capacity of the buffer
+     * @return true if the bytes are buffered, false if the input ends before
+     * @throws IOException if the channel cannot be read
+     */
+    private boolean fill(int bytes) throws IOException {
+
+        //If the bytes are already buffered or there is no channel to read from
+        if ((buffer.remaining() >= bytes) || (channel == null)) {
+            return buffer.remaining() >= bytes;
+        }
+
+        buffer.compact();
+
+        //Loops until the bytes are buffered
+        while (buffer.position() < bytes) {
+
+            int read = channel.read(buffer);
+
+            //If the channel has ended
+            if (read < 0) {
+                break;
+            }
+
+            received += read;
+        }
+
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+}
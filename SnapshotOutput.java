@@ -0,0 +1,216 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class writes the numbers and strings of a binary snapshot to a channel through a buffer.<br>
+ * Ints and longs are written as zigzag variable-length integers, so that small values
+ * (IDs, days, references...) take one or two bytes whatever their sign.
+ * Strings are written as UTF-8 bytes preceded by their length.<br>
+ * See {@link SnapshotInput} to read them back.
+ *
+ * @author albertoTamajo
+ */
+public class SnapshotOutput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long written;
+
+
+    /**
+     * Creates an output writing to a channel
+     *
+     * @param channel a channel
+     */
+    public SnapshotOutput(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a byte
+     *
+     * @param value the value, only the lowest 8 bits are written
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a boolean as one byte
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes an int in 4 bytes, mainly for magic numbers
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeFixedInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long in 8 bytes, mainly for values whose bits are random
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeFixedLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes an int as a zigzag variable-length integer (1 to 5 bytes)
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeInt(int value) throws IOException {
+
+        ensure(5);
+
+        int bits = (value << 1) ^ (value >> 31);
+
+        //Loops while more than 7 bits are left
+        while ((bits & ~0x7F) != 0) {
+
+            buffer.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+
+        buffer.put((byte) bits);
+    }
+
+    /**
+     * Writes a long as a zigzag variable-length integer (1 to 10 bytes)
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeLong(long value) throws IOException {
+
+        ensure(10);
+
+        long bits = (value << 1) ^ (value >> 63);
+
+        //Loops while more than 7 bits are left
+        while ((bits & ~0x7FL) != 0) {
+
+            buffer.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+
+        buffer.put((byte) bits);
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 bytes
+     *
+     * @param value the string, possibly null
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeString(String value) throws IOException {
+
+        //If there is no string
+        if (value == null) {
+
+            writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Writes some bytes as they are, e.g. records encoded before
+     *
+     * @param bytes the bytes
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+
+        //Loops until all bytes are buffered
+        for (int offset = 0; offset < bytes.length; ) {
+
+            ensure(1);
+
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Gets the number of bytes written so far, including the buffered ones
+     *
+     * @return the number of bytes written
+     */
+    public long size() {
+        return written + buffer.position();
+    }
+
+    /**
+     * Writes the buffered bytes to the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void flush() throws IOException {
+
+        buffer.flip();
+        written += buffer.remaining();
+
+        //Loops until all bytes are written
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered bytes and closes the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes room in the buffer
+     *
+     * @param bytes the number of bytes needed, at most the capacity of the buffer
+     * @throws IOException if the channel cannot be written
+     */
+    private void ensure(int bytes) throws IOException {
+
+        //If the bytes do not fit in the free space of the buffer
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
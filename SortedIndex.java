@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * This class keeps the entities of a school sorted by a text key, e.g. students by name or subjects by description.<br>
+ * The entities are kept in a balanced tree updated on every addition and removal,
+ * so that they can be iterated in order without sorting them and ranges can be queried
+ * in logarithmic time (the entities whose key starts with a prefix, the first N entities...).<br>
+ * Entities with the same key are kept in order of addition, the same order
+ * a stable sort of the sets of the school would give.
+ * The key of an entity must not change while the entity is in the index.
+ *
+ * @param <T> type of the entities
+ * @author albertoTamajo
+ */
+public class SortedIndex<T> implements Iterable<T> {
+
+    private final Function<? super T, String> keyExtractor;
+    private final TreeMap<Key, T> entries;
+    private final IdentityHashMap<T, Key> keys;
+    private long nextOrder;
+
+
+    /**
+     * Creates an empty index
+     *
+     * @param keyExtractor function returning the key of an entity
+     */
+    public SortedIndex(Function<? super T, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.entries = new TreeMap<>();
+        this.keys = new IdentityHashMap<>();
+    }
+
+    /**
+     * Creates an index containing some entities
+     *
+     * @param keyExtractor function returning the key of an entity
+     * @param entities     the entities, added in iteration order
+     */
+    public SortedIndex(Function<? super T, String> keyExtractor, Collection<? extends T> entities) {
+
+        this(keyExtractor);
+
+        //Adds every entity
+        for (T entity : entities) {
+            add(entity);
+        }
+    }
+
+    /**
+     * Adds an entity
+     *
+     * @param entity an entity
+     * @return true if the entity has been added, false if it was already in the index
+     */
+    public boolean add(T entity) {
+
+        //If the entity is already in the index
+        if (keys.containsKey(entity)) {
+            return false;
+        }
+
+        Key key = new Key(keyExtractor.apply(entity), nextOrder++);
+        keys.put(entity, key);
+        entries.put(key, entity);
+        return true;
+    }
+
+    /**
+     * Removes an entity
+     *
+     * @param entity an entity
+     * @return true if the entity has been removed, false if it was not in the index
+     */
+    public boolean remove(T entity) {
+
+        Key key = keys.remove(entity);
+
+        //If the entity is not in the index
+        if (key == null) {
+            return false;
+        }
+
+        entries.remove(key);
+        return true;
+    }
+
+    /**
+     * Gets the number of entities
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks whether or not the index is empty
+     *
+     * @return true if there are no entities, false otherwise
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Returns the entities in order
+     *
+     * @return an unmodifiable view of the entities
+     */
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Returns an iterator over the entities in order
+     *
+     * @return an iterator that cannot remove entities
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return values().iterator();
+    }
+
+    /**
+     * Returns the first entities in order
+     *
+     * @param limit maximum number of entities
+     * @return a list of at most <code>limit</code> entities
+     */
+    public List<T> first(int limit) {
+        return collect(entries.values(), null, limit);
+    }
+
+    /**
+     * Returns the entities whose key is greater than or equal to a key, in order.<br>
+     * It can be used to get the next page of a report from the key of the last entity of the previous page.
+     *
+     * @param from  the smallest key
+     * @param limit maximum number of entities
+     * @return a list of at most <code>limit</code> entities
+     */
+    public List<T> from(String from, int limit) {
+        return collect(entries.tailMap(new Key(from, Long.MIN_VALUE)).values(), null, limit);
+    }
+
+    /**
+     * Returns the entities whose key starts with a prefix, in order
+     *
+     * @param prefix a prefix, e.g. the first letters of a name
+     * @return a list of entities
+     */
+    public List<T> startingWith(String prefix) {
+        return collect(entries.tailMap(new Key(prefix, Long.MIN_VALUE)).values(), prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Collects the entities of a sorted range
+     *
+     * @param range  the entities of the range in order
+     * @param prefix the prefix of the keys of the entities, null if all entities of the range are collected
+     * @param limit  maximum number of entities
+     * @return a list of entities
+     */
+    private List<T> collect(Collection<T> range, String prefix, int limit) {
+
+        ArrayList<T> result = new ArrayList<>();
+
+        //Loops for the entities of the range until the limit is reached
+        for (T entity : range) {
+
+            //If the limit has been reached or the key does not start with the prefix
+            if ((result.size() >= limit) || ((prefix != null) && !(keys.get(entity).value.startsWith(prefix)))) {
+                break;
+            }
+
+            result.add(entity);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the key of every entity in order, mainly for debugging
+     *
+     * @return a string containing the keys
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder text = new StringBuilder("[");
+
+        //Appends every key
+        for (Map.Entry<Key, T> entry : entries.entrySet()) {
+
+            //If it is not the first key
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+
+            text.append(entry.getKey().value);
+        }
+
+        return text.append(']').toString();
+    }
+
+    /**
+     * Key of an entity: its text key and its order of addition
+     */
+    private static final class Key implements Comparable<Key> {
+
+        private final String value;
+        private final long order;
+
+        private Key(String value, long order) {
+            this.value = value;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Key o) {
+
+            int comparison = value.compareTo(o.value);
+            return (comparison != 0) ? comparison : Long.compare(order, o.order);
+        }
+    }
+}
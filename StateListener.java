@@ -0,0 +1,66 @@
+/**
+ * This interface is implemented by the classes that need to be notified
+ * when the state of the entities of a school changes.<br>
+ * An entity notifies its listener after every change of its state.
+ *
+ * @author albertoTamajo
+ */
+public interface StateListener {
+
+    /**
+     * Notifies that a subject has got or lost its course
+     *
+     * @param subject the subject whose state has changed
+     */
+    void subjectChanged(Subject subject);
+
+    /**
+     * Notifies that the prerequisites of a subject have been set or added
+     *
+     * @param subject the subject whose prerequisites have changed
+     */
+    default void prerequisitesChanged(Subject subject) {
+    }
+
+    /**
+     * Notifies that an instructor has been assigned or unassigned to a course
+     *
+     * @param instructor the instructor whose state has changed
+     */
+    void instructorChanged(Instructor instructor);
+
+    /**
+     * Notifies that a student has been enrolled or unenrolled
+     *
+     * @param student the student whose state has changed
+     */
+    void studentChanged(Student student);
+
+    /**
+     * Notifies that a course has enrolled a student, has got an instructor,
+     * has started, has been cancelled or has finished
+     *
+     * @param course the course whose state has changed
+     */
+    void courseChanged(Course course);
+
+    /**
+     * Notifies that a course has enrolled a student.<br>
+     * It is notified before {@link #courseChanged(Course)}.
+     *
+     * @param course  the course
+     * @param student the student enrolled
+     */
+    default void studentEnrolled(Course course, Student student) {
+    }
+
+    /**
+     * Notifies that a course has got an instructor.<br>
+     * It is notified before {@link #courseChanged(Course)}.
+     *
+     * @param course     the course
+     * @param instructor the instructor assigned
+     */
+    default void instructorAssigned(Course course, Instructor instructor) {
+    }
+}
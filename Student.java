@@ -1,21 +1,25 @@
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 
 /**
  * This class represents a student.<br>
  * A student can enroll to a course at a time and will receive
- * a certification after having completed it successfully.
+ * a certification after having completed it successfully.<br>
+ * The certificates are kept in an {@link IdBitSet} of subject IDs.
  *
  * @author albertoTamajo
  */
 public class Student extends Person implements Serializable {
 
+    private static final VarHandle ENROLLED = enrolledHandle();
 
-    private ArrayList<Integer> certificates;
+    private IdBitSet certificates;
     private boolean isEnrolled;
     private Course courseEnrolled;
+    private StateListener listener;
 
 
     /**
@@ -28,7 +32,7 @@ public class Student extends Person implements Serializable {
     public Student(String name, char gender, int age) {
 
         super(name, gender, age);
-        this.certificates = new ArrayList<>();
+        this.certificates = new IdBitSet();
         this.isEnrolled = false;
         this.courseEnrolled = null;
     }
@@ -63,56 +67,59 @@ public class Student extends Person implements Serializable {
 
         //Adds the course's certificate to the student
         certificates.add(certificateId);
+        notifyListener();
 
-        //If the student has got more than 1 certificate in total
-        if (certificates.size() > 1) {
+        SimulationLog.log(SimulationLog.Event.STUDENT_GRADUATED, this.getName(), subjectDescription);
 
-            //Sorts the certificate into ascending order
-            Collections.sort(certificates);
-        }
-
-        System.out.println("**The student " + this.getName() + " has successfully completed the " + subjectDescription + " Course**\n");
+    }
 
+    /**
+     * Adds a certificate without printing out anything.<br>
+     * It is used to rebuild a student whose certificates have been stored elsewhere.
+     *
+     * @param certificateId ID of the subject certified
+     */
+    void addCertificate(int certificateId) {
+        certificates.add(certificateId);
     }
 
     /**
-     * Gets the certificates of the student
+     * Gets the certificates of the student.<br>
+     * The list is a copy: the certificates can only be obtained through {@link #graduate(Subject)}.
      *
-     * @return an ArrayList of certificates obtained by the student
+     * @return an ArrayList of certificates obtained by the student in ascending order
      */
     public ArrayList<Integer> getCertificates() {
-        return certificates;
+        return certificates.toList();
     }
 
     /**
-     * Checks whether or not the student has a certain certificate
+     * Gets the certificates of the student as a set of subject IDs.<br>
+     * The set must not be modified.
      *
-     * @param subject a subject in order to check the student's possession of the certificate
-     * @return true if the student has the certificate, false otherwise
+     * @return the set of certificates obtained by the student
      */
-    public boolean hasCertificate(Subject subject) {
-
-        //Loops until a student certificate is matched to the subject id
-        for (int certificate : certificates) {
-
-            //The student possesses the certificate
-            if (certificate == subject.getID()) {
-                return true;
-            }
-        }
-
-        //The student does not possess the certificate
-        return false;
+    public IdBitSet getCertificateSet() {
+        return certificates;
+    }
 
+    /**
+     * Gets the number of certificates of the student
+     *
+     * @return the number of certificates obtained by the student
+     */
+    public int getNumberOfCertificates() {
+        return certificates.size();
     }
 
     /**
-     * Gets the iterator necessary to iterate over the student's certificates
+     * Checks whether or not the student has a certain certificate
      *
-     * @return an iterator that iterates over the student's certificates
+     * @param subject a subject in order to check the student's possession of the certificate
+     * @return true if the student has the certificate, false otherwise
      */
-    private Iterator<Integer> getCertificatesIterator() {
-        return certificates.iterator();
+    public boolean hasCertificate(Subject subject) {
+        return certificates.contains(subject.getID());
     }
 
     /**
@@ -129,66 +136,123 @@ public class Student extends Person implements Serializable {
      */
     public void toggleEnrollment() {
         isEnrolled = !(isEnrolled);
+        notifyListener();
     }
 
     /**
-     * Returns all the certificates of the student in one string
+     * Marks the student as enrolled atomically, so that concurrent enrolments cannot enrol the student twice,
+     * see {@link Course#enrolStudent(Student)}
      *
-     * @return a string containing the certificates of the student
+     * @return true if the student was not enrolled, false otherwise
      */
-    private String certificatesString() {
+    boolean claimEnrolment() {
+        return ENROLLED.compareAndSet(this, false, true);
+    }
 
-        String certificates = "";
+    /**
+     * Marks the student as not enrolled again after a claim that has not found a seat
+     */
+    void releaseEnrolment() {
+        ENROLLED.setVolatile(this, false);
+    }
 
-        //Loops until all certificates are added to the string
-        for (Integer a : this.certificates) {
+    /**
+     * Completes a claimed enrolment in a course and notifies the listener
+     *
+     * @param course the course the student is enrolled in
+     */
+    void confirmEnrolment(Course course) {
+        courseEnrolled = course;
+        notifyListener();
+    }
 
-            certificates += (a + "\n");
-        }
+    /**
+     * Enrols the student in a course without printing out anything or notifying the listener,
+     * see {@link SchoolSnapshot}
+     *
+     * @param course the course the student is enrolled in
+     */
+    void restoreEnrolment(Course course) {
+        courseEnrolled = course;
+        isEnrolled = true;
+    }
 
-        return certificates;
+    /**
+     * Sets the listener notified when the state of the student changes
+     *
+     * @param listener a listener, null if no listener must be notified
+     */
+    void setListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener that the state of the student has changed
+     */
+    private void notifyListener() {
+
+        //If a listener is set
+        if (listener != null) {
+            listener.studentChanged(this);
+        }
     }
 
     /**
-     * Returns all the information of the student
+     * Appends the information of the student, his/her certificates and the course he/she is enrolled in
      *
-     * @return a string containing the information of the student
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
      */
     @Override
-    public String toString() {
+    public void appendTo(Appendable out) throws IOException {
 
-        String enrollment = "Enrolled in a course: ";
-        String certificates = "Certificates : ";
-        String yes = "YES" + "\n";
-        String no = "NO" + "\n";
-        String fancyCharacters = "+------------------------------------+";
+        super.appendTo(out);
+        out.append("Certificates : ");
 
         //If the student doesn't have a certificate
         if (this.certificates.isEmpty()) {
 
-            //If the student is enrolled in a course
-            if (this.isEnrolled) {
+            out.append("NO\n");
 
-                return super.toString() + certificates + no + enrollment + yes + courseEnrolled.toStringForStudentsText() + fancyCharacters + "\n";
+        } else {        //If the student has at least 1 certificate
 
-            } else {
+            out.append("YES\n");
 
-                //If the student is not enrolled in a course
-                return super.toString() + certificates + no + enrollment + no + fancyCharacters + "\n";
+            //Loops until all certificates are appended
+            for (int a : this.certificates.toArray()) {
+                out.append(String.valueOf(a)).append('\n');
             }
+        }
 
-        } else {        //If the student has at least 1 certificate
+        out.append("Enrolled in a course: ");
 
-            //If the student is enrolled in a course
-            if (this.isEnrolled) {
+        //If the student is enrolled in a course
+        if (this.isEnrolled) {
 
-                return super.toString() + certificates + yes + certificatesString() + enrollment + yes + courseEnrolled.toStringForStudentsText() + fancyCharacters + "\n";
+            out.append("YES\n");
+            courseEnrolled.appendTo(out, false);
 
-            } else {
+        } else {
 
-                //If the student is not enrolled in a course
-                return super.toString() + certificates + yes + certificatesString() + enrollment + no + fancyCharacters + "\n";
-            }
+            //If the student is not enrolled in a course
+            out.append("NO\n");
+        }
+
+        out.append("+------------------------------------+\n");
+    }
+
+    /**
+     * Looks up the handle updating the enrolment state of the students atomically
+     *
+     * @return the handle of the field <code>isEnrolled</code>
+     */
+    private static VarHandle enrolledHandle() {
+
+        //Tries to look up the field
+        try {
+            return MethodHandles.lookup().findVarHandle(Student.class, "isEnrolled", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
         }
     }
 }
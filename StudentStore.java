@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class stores a population of students column by column.<br>
+ * Every student is a row of primitive arrays (name, gender, age and certificates),
+ * the names are kept once in a shared table of strings and the certificates of every student
+ * are a fixed number of bitset words in one shared array. Every subject certified gets the next bit of the words,
+ * through a shared table of subject IDs, so that any ID takes one bit.<br>
+ * It measures the heap a population of millions of students would need without the objects of the {@link Student}
+ * class, see {@link StudentStoreBenchmark}. The {@link School} still keeps its students as Student objects.
+ *
+ * @author albertoTamajo
+ */
+public class StudentStore {
+
+    private int size;
+    private int[] names;
+    private byte[] genders;
+    private short[] ages;
+    private long[] certificates;
+    private int certificateWords;
+    private ArrayList<String> nameTable;
+    private HashMap<Integer, Integer> certificateBits;
+    private HashMap<String, Integer> nameIds;
+
+
+    /**
+     * Creates an empty store with room for a certain number of students
+     *
+     * @param capacity expected number of students
+     */
+    public StudentStore(int capacity) {
+
+        int initialCapacity = Math.max(capacity, 16);
+
+        this.names = new int[initialCapacity];
+        this.genders = new byte[initialCapacity];
+        this.ages = new short[initialCapacity];
+        this.certificateWords = 1;
+        this.certificates = new long[initialCapacity];
+        this.nameTable = new ArrayList<>();
+        this.nameIds = new HashMap<>();
+        this.certificateBits = new HashMap<>();
+    }
+
+    /**
+     * Makes room for at least one more student
+     */
+    private void grow() {
+
+        //If there is no room left
+        if (size == names.length) {
+
+            int capacity = names.length * 2;
+
+            names = Arrays.copyOf(names, capacity);
+            genders = Arrays.copyOf(genders, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            certificates = Arrays.copyOf(certificates, capacity * certificateWords);
+        }
+    }
+
+    /**
+     * Makes room for a certificate with a certain bit
+     *
+     * @param bit the bit of a subject in the words of a student
+     */
+    private void growCertificates(int bit) {
+
+        int words = (bit >>> 6) + 1;
+
+        //If the certificate does not fit in the words of a student
+        if (words > certificateWords) {
+
+            long[] newCertificates = new long[names.length * words];
+
+            //Copies the words of every student
+            for (int row = 0; row < size; row++) {
+                System.arraycopy(certificates, row * certificateWords, newCertificates, row * words, certificateWords);
+            }
+
+            certificates = newCertificates;
+            certificateWords = words;
+        }
+    }
+
+    /**
+     * Gets the bit of a subject in the words of the students, adding the subject to the shared table of subject IDs
+     *
+     * @param id ID of a subject
+     * @return the bit of the subject
+     */
+    private int certificateBit(int id) {
+
+        Integer bit = certificateBits.get(id);
+
+        //If the subject has not been certified yet
+        if (bit == null) {
+
+            bit = certificateBits.size();
+            certificateBits.put(id, bit);
+        }
+
+        return bit;
+    }
+
+    /**
+     * Gets the ID of a name in the shared table of strings
+     *
+     * @param name a name
+     * @return the ID of the name
+     */
+    private int nameId(String name) {
+
+        Integer id = nameIds.get(name);
+
+        //If the name is new
+        if (id == null) {
+
+            id = nameTable.size();
+            nameTable.add(name);
+            nameIds.put(name, id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Adds a student with name, gender and age
+     *
+     * @param name   student's name
+     * @param gender student's gender
+     * @param age    student's age
+     * @return the row of the student
+     */
+    public int add(String name, char gender, int age) {
+
+        grow();
+
+        int row = size++;
+        names[row] = nameId(name);
+        genders[row] = (byte) gender;
+        ages[row] = (short) age;
+        Arrays.fill(certificates, row * certificateWords, (row + 1) * certificateWords, 0);
+
+        return row;
+    }
+
+    /**
+     * Checks that a row contains a student
+     *
+     * @param row a row
+     */
+    private void checkRow(int row) {
+
+        //If the row is not valid
+        if ((row < 0) || (row >= size)) {
+            throw new IndexOutOfBoundsException("No student in row " + row);
+        }
+    }
+
+    /**
+     * Gets the number of students
+     *
+     * @return the number of students
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the name of a student
+     *
+     * @param row the row of the student
+     * @return the name of the student
+     */
+    public String getName(int row) {
+        checkRow(row);
+        return nameTable.get(names[row]);
+    }
+
+    /**
+     * Gets the gender of a student
+     *
+     * @param row the row of the student
+     * @return 'M' or 'F'
+     */
+    public char getGender(int row) {
+        checkRow(row);
+        return (char) genders[row];
+    }
+
+    /**
+     * Gets the age of a student
+     *
+     * @param row the row of the student
+     * @return the age of the student
+     */
+    public int getAge(int row) {
+        checkRow(row);
+        return ages[row];
+    }
+
+    /**
+     * Adds a certificate to a student
+     *
+     * @param row the row of the student
+     * @param id  ID of the subject certified
+     */
+    public void graduate(int row, int id) {
+
+        checkRow(row);
+
+        int bit = certificateBit(id);
+
+        growCertificates(bit);
+        certificates[row * certificateWords + (bit >>> 6)] |= 1L << bit;
+    }
+
+    /**
+     * Checks whether or not a student has a certain certificate
+     *
+     * @param row the row of the student
+     * @param id  ID of a subject
+     * @return true if the student has the certificate, false otherwise
+     */
+    public boolean hasCertificate(int row, int id) {
+
+        checkRow(row);
+
+        Integer bit = certificateBits.get(id);
+
+        //If no student has been certified for the subject
+        if (bit == null) {
+            return false;
+        }
+
+        return (certificates[row * certificateWords + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Gets the number of certificates of a student
+     *
+     * @param row the row of the student
+     * @return the number of certificates
+     */
+    public int getNumberOfCertificates(int row) {
+
+        checkRow(row);
+
+        int count = 0;
+
+        //Counts the bits of every word of the student
+        for (int i = row * certificateWords; i < (row + 1) * certificateWords; i++) {
+            count += Long.bitCount(certificates[i]);
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.HashSet;
+
+/**
+ * This class compares the heap used by a population of students stored as {@link Student} objects
+ * in a set and by the same population stored in a {@link StudentStore}.<br>
+ * Usage: java StudentStoreBenchmark [students] [subjects]
+ *
+ * @author albertoTamajo
+ */
+public class StudentStoreBenchmark {
+
+    private static final String[] NAMES = {"Ana", "Luis", "Marta", "Pedro", "Lucia", "Javier", "Elena", "Carlos"};
+    private static final char[] GENDERS = {'M', 'F'};
+
+    /**
+     * Main method
+     *
+     * @param args number of students and number of subjects
+     */
+    public static void main(String[] args) {
+
+        int students = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        int subjects = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+        System.err.println("**Students: " + students + ", subjects: " + subjects + "**\n");
+
+        //Objects
+        long before = usedHeap();
+        HashSet<Student> set = new HashSet<>();
+        RandomSource random = new RandomSource(1);
+
+        for (int i = 0; i < students; i++) {
+
+            Student student = new Student(NAMES[random.nextInt(NAMES.length)], GENDERS[random.nextInt(GENDERS.length)], 18 + random.nextInt(60));
+
+            for (int id = 0; id < subjects; id++) {
+
+                if (random.nextInt(2) == 0) {
+                    student.addCertificate(id);
+                }
+            }
+
+            set.add(student);
+        }
+
+        long objectBytes = usedHeap() - before;
+        report("HashSet<Student>", objectBytes, set.size());
+
+        long objectCertificates = set.stream().mapToLong(Student::getNumberOfCertificates).sum();
+
+        //Columns
+        set = null;
+        before = usedHeap();
+        StudentStore store = new StudentStore(students);
+        random = new RandomSource(1);
+
+        for (int i = 0; i < students; i++) {
+
+            int row = store.add(NAMES[random.nextInt(NAMES.length)], GENDERS[random.nextInt(GENDERS.length)], 18 + random.nextInt(60));
+
+            for (int id = 0; id < subjects; id++) {
+
+                if (random.nextInt(2) == 0) {
+                    store.graduate(row, id);
+                }
+            }
+        }
+
+        long storeBytes = usedHeap() - before;
+        report("StudentStore", storeBytes, store.size());
+
+        long storeCertificates = 0;
+
+        //Counts the certificates of the rows
+        for (int row = 0; row < store.size(); row++) {
+            storeCertificates += store.getNumberOfCertificates(row);
+        }
+
+        //If the store does not hold the same population
+        if (storeCertificates != objectCertificates) {
+            System.err.println("**The store has " + storeCertificates + " certificates instead of " + objectCertificates + "**");
+        }
+
+        System.err.printf("**The store uses %.1f times less heap**%n", (double) objectBytes / Math.max(storeBytes, 1));
+    }
+
+    /**
+     * Gets the heap in use after collecting garbage
+     *
+     * @return bytes in use
+     */
+    private static long usedHeap() {
+
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Prints out the heap used by a population
+     *
+     * @param label    name of the representation
+     * @param bytes    bytes in use
+     * @param students number of students
+     */
+    private static void report(String label, long bytes, int students) {
+        System.err.printf("**%s: %.1f MB (%d bytes per student)**%n", label, bytes / 1048576.0, bytes / Math.max(students, 1));
+    }
+}
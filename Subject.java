@@ -1,23 +1,25 @@
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 
 /**
  * This class represents a subject taught by a school.<br>
  * A subject is characterised by a unique id, a specialism and a duration.<br>
- * Additionally, it is possible to set prerequisites of lower level for the subject.
+ * Additionally, it is possible to set prerequisites of lower level for the subject.<br>
+ * The prerequisites are kept in an {@link IdBitSet} of subject IDs.
  *
  * @author albertoTamajo
  */
-public class Subject implements Serializable, Comparable<Subject> {
+public class Subject implements Serializable, Comparable<Subject>, Reportable {
 
     private int id;
     private int specialism;
     private int duration;
     private String description;
     private boolean hasCourse;
-    private ArrayList<Integer> prerequisites;
+    private IdBitSet prerequisites;
+    private StateListener listener;
 
 
     /**
@@ -43,15 +45,27 @@ public class Subject implements Serializable, Comparable<Subject> {
         this.id = id;
         this.specialism = specialism;
         this.duration = duration;
-        this.prerequisites = prerequisites;
+        this.prerequisites = new IdBitSet(prerequisites);
     }
 
     /**
-     * Gets the prerequisites needed to attend the course.
+     * Gets the prerequisites needed to attend the course.<br>
+     * The list is a copy: the prerequisites can be changed through
+     * {@link #setPrerequisites(ArrayList)} and {@link #addPrerequisites(ArrayList)}.
      *
-     * @return an ArrayList of prerequisites
+     * @return an ArrayList of prerequisites in ascending order
      */
     public ArrayList<Integer> getPrerequisites() {
+        return prerequisites.toList();
+    }
+
+    /**
+     * Gets the prerequisites needed to attend the course as a set of subject IDs.<br>
+     * The set must not be modified.
+     *
+     * @return the set of prerequisites
+     */
+    public IdBitSet getPrerequisiteSet() {
         return prerequisites;
     }
 
@@ -98,10 +112,8 @@ public class Subject implements Serializable, Comparable<Subject> {
     public void setPrerequisites(ArrayList<Integer> prerequisites) {
 
         //Removes the invalid entries and sets the prerequisites of the course
-        this.prerequisites = prerequisitesChecker(prerequisites);
-
-        //Sorts the prerequisites into ascending order
-        Collections.sort(this.prerequisites);
+        this.prerequisites = new IdBitSet(prerequisitesChecker(prerequisites));
+        notifyPrerequisitesChanged();
     }
 
     /**
@@ -113,10 +125,8 @@ public class Subject implements Serializable, Comparable<Subject> {
     public void addPrerequisites(ArrayList<Integer> prerequisites) {
 
         //Adds the valid prerequisites to the course
-        this.prerequisites.addAll(prerequisitesChecker(prerequisites));
-
-        //Sorts the prerequisites into ascending order
-        Collections.sort(this.prerequisites);
+        this.prerequisites.addAll(new IdBitSet(prerequisitesChecker(prerequisites)));
+        notifyPrerequisitesChanged();
     }
 
 
@@ -170,6 +180,47 @@ public class Subject implements Serializable, Comparable<Subject> {
      */
     public void toggleHasCourse() {
         hasCourse = !(hasCourse);
+        notifyListener();
+    }
+
+    /**
+     * Sets the course status of the subject without notifying the listener, see {@link SchoolSnapshot}
+     *
+     * @param hasCourse whether or not the subject has a course
+     */
+    void restoreHasCourse(boolean hasCourse) {
+        this.hasCourse = hasCourse;
+    }
+
+    /**
+     * Sets the listener notified when the state of the subject changes
+     *
+     * @param listener a listener, null if no listener must be notified
+     */
+    void setListener(StateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener that the state of the subject has changed
+     */
+    private void notifyListener() {
+
+        //If a listener is set
+        if (listener != null) {
+            listener.subjectChanged(this);
+        }
+    }
+
+    /**
+     * Notifies the listener that the prerequisites of the subject have changed
+     */
+    private void notifyPrerequisitesChanged() {
+
+        //If a listener is set
+        if (listener != null) {
+            listener.prerequisitesChanged(this);
+        }
     }
 
     /**
@@ -200,22 +251,44 @@ public class Subject implements Serializable, Comparable<Subject> {
      */
     @Override
     public String toString() {
+        return Reportable.toString(this);
+    }
+
+    /**
+     * Appends the information of the subject
+     *
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
+     */
+    @Override
+    public void appendTo(Appendable out) throws IOException {
+        appendTo(out, true);
+    }
+
+    /**
+     * Appends the information of the subject
+     *
+     * @param out    where the information is appended
+     * @param framed false to leave out the fancy characters below, for a cleaner appearance
+     *               inside the information of a {@link Course}
+     * @throws IOException if the information cannot be appended
+     */
+    void appendTo(Appendable out, boolean framed) throws IOException {
 
-        String id = "Subject ID: " + this.id + "\n";
-        String specialism = "Subject Specialism: " + this.specialism + "\n";
-        String duration = "Subject Duration: " + this.duration + " days" + "\n";
-        String description = "Subject Description: " + this.description + "\n";
-        String prerequisites = "Subject Prerequisites: " + this.prerequisites + "\n";
-        String fancyCharacters = "+------------------------------------+";
-
-        //If the course has no prerequisites
-        if (this.prerequisites.isEmpty()) {
-            return "\n" + description + id + specialism + duration + fancyCharacters;
-        } else {
-            //The course has prerequisites
-            return "\n" + description + id + specialism + duration + prerequisites + fancyCharacters;
+        out.append("\nSubject Description: ").append(this.description);
+        out.append("\nSubject ID: ").append(String.valueOf(this.id));
+        out.append("\nSubject Specialism: ").append(String.valueOf(this.specialism));
+        out.append("\nSubject Duration: ").append(String.valueOf(this.duration)).append(" days");
+
+        //If the course has prerequisites
+        if (!(this.prerequisites.isEmpty())) {
+            out.append("\nSubject Prerequisites: ").append(this.prerequisites.toString());
         }
 
+        //If the fancy characters are needed
+        if (framed) {
+            out.append("\n+------------------------------------+");
+        }
     }
 
     /**
@@ -225,10 +298,6 @@ public class Subject implements Serializable, Comparable<Subject> {
      * @return a string containing the subject's information
      */
     public String toStringForCourseText() {
-
-        //It returns the same string of toString() except the fancy character below
-        return toString().replace("\n+------------------------------------+", "");
-
+        return Reportable.toString(out -> appendTo(out, false));
     }
-
 }
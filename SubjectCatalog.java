@@ -0,0 +1,246 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class represents the compiled catalog of the subjects of a school.<br>
+ * It builds the graph of prerequisites of the subjects (a directed acyclic graph
+ * since prerequisites can only be of lower level), sorts the subjects topologically
+ * and computes for every subject its level and all its direct and indirect prerequisites.<br>
+ * The catalog answers which subjects a student can take next by only visiting the subjects
+ * having one of the student's certificates as prerequisite.<br>
+ * Subjects are identified by their IDs, any int: a subject whose ID belongs to a subject
+ * coming before it is left out of the catalog, as {@link School#add(Subject)} does not add it either.
+ *
+ * @author albertoTamajo
+ */
+public class SubjectCatalog {
+
+    private static final int[] NO_DEPENDENTS = new int[0];
+
+    private HashMap<Integer, Subject> subjects;
+    private HashMap<Integer, IdBitSet> prerequisites;
+    private HashMap<Integer, int[]> dependents;
+    private HashMap<Integer, Integer> levels;
+    private HashMap<Integer, IdBitSet> transitivePrerequisites;
+    private IdBitSet subjectsWithNoPrerequisites;
+    private List<Integer> topologicalOrder;
+
+
+    /**
+     * Compiles the catalog of a collection of subjects.<br>
+     * Subjects whose prerequisites form a cycle cannot be taken and are left out of the catalog,
+     * as well as the subjects whose ID belongs to a subject coming before them.
+     *
+     * @param subjects the subjects of a school
+     */
+    public SubjectCatalog(Collection<Subject> subjects) {
+
+        this.subjects = new HashMap<>();
+        this.prerequisites = new HashMap<>();
+        this.levels = new HashMap<>();
+        this.transitivePrerequisites = new HashMap<>();
+        this.subjectsWithNoPrerequisites = new IdBitSet();
+        this.topologicalOrder = new ArrayList<>();
+
+        HashMap<Integer, ArrayList<Integer>> dependentsLists = new HashMap<>();
+        HashMap<Integer, Integer> missingPrerequisites = new HashMap<>();
+
+        //Collects the prerequisites of every subject
+        for (Subject subject : subjects) {
+
+            //If the ID belongs to another subject
+            if (this.subjects.putIfAbsent(subject.getID(), subject) != null) {
+                continue;
+            }
+
+            IdBitSet subjectPrerequisites = new IdBitSet();
+            subjectPrerequisites.addAll(subject.getPrerequisiteSet());
+            prerequisites.put(subject.getID(), subjectPrerequisites);
+        }
+
+        //Links every prerequisite in the catalog to the subjects depending on it
+        for (int id : prerequisites.keySet()) {
+
+            int missing = 0;
+            IdBitSet subjectPrerequisites = prerequisites.get(id);
+
+            for (int p : subjectPrerequisites.toArray()) {
+
+                dependentsLists.computeIfAbsent(p, key -> new ArrayList<>()).add(id);
+
+                //If the prerequisite is a subject of the catalog, it must be sorted first
+                if (prerequisites.containsKey(p)) {
+                    missing++;
+                }
+            }
+
+            missingPrerequisites.put(id, missing);
+        }
+
+        this.dependents = new HashMap<>();
+
+        //Stores the dependents as arrays
+        for (int id : dependentsLists.keySet()) {
+            dependents.put(id, dependentsLists.get(id).stream().mapToInt(Integer::intValue).sorted().toArray());
+        }
+
+        sortTopologically(missingPrerequisites);
+    }
+
+    /**
+     * Sorts the subjects topologically (Kahn's algorithm) and computes their levels
+     * and transitive prerequisites
+     *
+     * @param missingPrerequisites number of prerequisites of every subject not sorted yet
+     */
+    private void sortTopologically(HashMap<Integer, Integer> missingPrerequisites) {
+
+        ArrayList<Integer> sources = new ArrayList<>();
+
+        //Starts from the subjects whose prerequisites are not in the catalog
+        for (int id : missingPrerequisites.keySet()) {
+
+            if (missingPrerequisites.get(id) == 0) {
+                sources.add(id);
+            }
+        }
+
+        Collections.sort(sources);
+        ArrayDeque<Integer> queue = new ArrayDeque<>(sources);
+
+        //Loops until all reachable subjects are sorted
+        while (!(queue.isEmpty())) {
+
+            int id = queue.poll();
+            topologicalOrder.add(id);
+
+            IdBitSet subjectPrerequisites = prerequisites.get(id);
+            IdBitSet closure = new IdBitSet();
+            int level = 0;
+
+            //The transitive prerequisites are the prerequisites and their transitive prerequisites
+            for (int p : subjectPrerequisites.toArray()) {
+
+                closure.add(p);
+
+                //If the prerequisite is a subject of the catalog
+                if (levels.containsKey(p)) {
+
+                    closure.addAll(transitivePrerequisites.get(p));
+                    level = Math.max(level, levels.get(p) + 1);
+                }
+            }
+
+            levels.put(id, level);
+            transitivePrerequisites.put(id, closure);
+
+            //If the subject has no prerequisites
+            if (subjectPrerequisites.isEmpty()) {
+                subjectsWithNoPrerequisites.add(id);
+            }
+
+            //The subjects depending on this one have one prerequisite less to wait for
+            for (int dependent : dependents.getOrDefault(id, NO_DEPENDENTS)) {
+
+                int missing = missingPrerequisites.get(dependent) - 1;
+                missingPrerequisites.put(dependent, missing);
+
+                //If all the prerequisites of the dependent subject have been sorted
+                if (missing == 0) {
+                    queue.add(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether or not a subject is in the catalog
+     *
+     * @param subject a subject
+     * @return true if the subject can be taken, false if it is unknown, its ID belongs to another subject
+     * or its prerequisites form a cycle
+     */
+    public boolean contains(Subject subject) {
+        return (subjects.get(subject.getID()) == subject) && levels.containsKey(subject.getID());
+    }
+
+    /**
+     * Gets the level of a subject in the graph of prerequisites
+     *
+     * @param subject a subject of the catalog
+     * @return 0 for subjects with no prerequisites in the catalog, otherwise
+     * the length of the longest chain of prerequisites; -1 if the subject is not in the catalog
+     */
+    public int getLevel(Subject subject) {
+        return contains(subject) ? levels.get(subject.getID()) : -1;
+    }
+
+    /**
+     * Gets all the direct and indirect prerequisites of a subject.<br>
+     * The set must not be modified.
+     *
+     * @param subject a subject of the catalog
+     * @return the IDs of the subjects needed before taking the subject, null if the subject is not in the catalog
+     */
+    public IdBitSet getTransitivePrerequisites(Subject subject) {
+        return contains(subject) ? transitivePrerequisites.get(subject.getID()) : null;
+    }
+
+    /**
+     * Gets the IDs of the subjects sorted topologically, so that every subject comes after its prerequisites
+     *
+     * @return a read-only list of the IDs of the subjects
+     */
+    public List<Integer> getTopologicalOrder() {
+        return Collections.unmodifiableList(topologicalOrder);
+    }
+
+    /**
+     * Returns whether or not a student with some certificates can take a subject
+     *
+     * @param id           ID of a subject
+     * @param certificates certificates of a student
+     * @return true if the subject is in the catalog, has not been certified and all its prerequisites have
+     */
+    private boolean isEligible(int id, IdBitSet certificates) {
+        return levels.containsKey(id) && !(certificates.contains(id)) && certificates.containsAll(prerequisites.get(id));
+    }
+
+    /**
+     * Returns the subjects a student with some certificates can take next.<br>
+     * Only the subjects with no prerequisites and the subjects depending on one of the
+     * certificates are visited.
+     *
+     * @param certificates certificates of a student
+     * @return the IDs of the subjects the student is eligible for
+     */
+    public IdBitSet eligibleSubjects(IdBitSet certificates) {
+
+        IdBitSet eligible = new IdBitSet();
+
+        //Subjects with no prerequisites
+        for (int id : subjectsWithNoPrerequisites.toArray()) {
+
+            if (!(certificates.contains(id))) {
+                eligible.add(id);
+            }
+        }
+
+        //Subjects having one of the certificates as prerequisite
+        for (int c : certificates.toArray()) {
+
+            for (int dependent : dependents.getOrDefault(c, NO_DEPENDENTS)) {
+
+                if (isEligible(dependent, certificates)) {
+                    eligible.add(dependent);
+                }
+            }
+        }
+
+        return eligible;
+    }
+}
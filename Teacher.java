@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 /**
  * This class represents a teacher.<br>
  * A teacher inherits properties and methods from the class {@link Instructor}.<br>
@@ -34,13 +36,14 @@ public class Teacher extends Instructor {
     }
 
     /**
-     * Returns a string containing the information of the teacher
+     * Appends the type and the information of the teacher
      *
-     * @return information of the teacher
+     * @param out where the information is appended
+     * @throws IOException if the information cannot be appended
      */
     @Override
-    public String toString() {
-        String teacherIntro = "Instructor type: TEACHER\n";
-        return teacherIntro + super.toString();
+    public void appendTo(Appendable out) throws IOException {
+        out.append("Instructor type: TEACHER\n");
+        super.appendTo(out);
     }
 }